@@ -27,11 +27,7 @@ import static com.microsoft.azuretools.telemetry.TelemetryConstants.BLOB_UPLOAD;
 import static com.microsoft.azuretools.telemetry.TelemetryConstants.STORAGE;
 
 import com.microsoft.tooling.msservices.serviceexplorer.WrappedTelemetryNodeActionListener;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketTimeoutException;
@@ -73,6 +69,7 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.ScrollBar;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.Text;
@@ -84,13 +81,14 @@ import org.eclipse.ui.part.EditorPart;
 
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
-import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azureexplorer.Activator;
 import com.microsoft.azuretools.azureexplorer.forms.UploadBlobFileForm;
 import com.microsoft.azuretools.azureexplorer.helpers.UIHelperImpl;
 import com.microsoft.azuretools.core.utils.PluginUtil;
 import com.microsoft.azuretools.telemetry.TelemetryProperties;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.BlobItemPage;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.BlobItemPager;
 import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManager;
 import com.microsoft.tooling.msservices.model.storage.BlobContainer;
 import com.microsoft.tooling.msservices.model.storage.BlobDirectory;
@@ -128,6 +126,15 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
 
     private LinkedList<BlobDirectory> directoryQueue = new LinkedList<BlobDirectory>();
     private java.util.List<BlobItem> blobItems = new ArrayList<BlobItem>();
+
+    // The pager of the directory shown, the rest pages are loaded when the table is scrolled to the end,
+    // both are accessed in the UI thread
+    private BlobItemPager blobItemPager;
+    private boolean isLoadingPage = false;
+
+    // The distance in rows to the table end to load the next page
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
     private FileEditorVirtualNode<EditorPart> fileEditorVirtualNode;
 
     @Override
@@ -402,6 +409,16 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
             }
         });
 
+        ScrollBar scrollBar = blobListTable.getVerticalBar();
+        if (scrollBar != null) {
+            scrollBar.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    loadMoreIfScrolledToEnd();
+                }
+            });
+        }
+
         fillGrid();
         
         return blobListTable;
@@ -409,6 +426,7 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
 
     public void fillGrid() {
         setUIState(true);
+        closeBlobItemPager();
 
         DefaultLoader.getIdeHelper().runInBackground(null, "Loading blobs...", false, true, "Loading blobs...", new Runnable() {
             @Override
@@ -418,36 +436,129 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
                         directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
                     }
 
-                    blobItems = StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.peekLast());
+                    // Render the first page once got, the next page is prefetched in the background
+                    BlobDirectory directory = directoryQueue.peekLast();
+                    BlobItemPager pager = new BlobItemPager(connectionString, directory, BlobItemPager.DEFAULT_PAGE_SIZE);
 
+                    renderBlobItems(pager, directory, pager.nextPage(), true);
+                } catch (AzureCmdException ex) {
                     DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
                         @Override
                         public void run() {
-                            if (!queryTextField.getText().isEmpty()) {
-                                for (int i = blobItems.size() - 1; i >= 0; i--) {
-                                    BlobItem blobItem = blobItems.get(i);
-
-                                    if (blobItem instanceof BlobFile && !blobItem.getName().startsWith(queryTextField.getText())) {
-                                        blobItems.remove(i);
-                                    }
-                                }
-                            }
-
-                            pathLabel.setText(directoryQueue.peekLast().getPath());
-                            tableViewer.setInput(blobItems);
-                            tableViewer.refresh();
                             setUIState(false);
-//
-//                            blobListTable.clearSelection();
                         }
                     });
+
+                    DefaultLoader.getUIHelper().showException("Error querying blob list.", ex, "Error querying blobs", false, true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Load the next page when the table is scrolled to the end, or the rows can't fill the table
+     */
+    private void loadMoreIfScrolledToEnd() {
+        final BlobItemPager pager = blobItemPager;
+
+        if (pager == null || isLoadingPage || blobListTable.isDisposed()) {
+            return;
+        }
+
+        ScrollBar scrollBar = blobListTable.getVerticalBar();
+        if (scrollBar != null && scrollBar.isVisible()
+                && scrollBar.getSelection() + scrollBar.getThumb() < scrollBar.getMaximum() - LOAD_MORE_THRESHOLD) {
+            return;
+        }
+
+        isLoadingPage = true;
+
+        final BlobDirectory directory = directoryQueue.peekLast();
+
+        DefaultLoader.getIdeHelper().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    renderBlobItems(pager, directory, pager.nextPage(), false);
                 } catch (AzureCmdException ex) {
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (pager == blobItemPager) {
+                                closeBlobItemPager();
+                            }
+                        }
+                    });
+
                     DefaultLoader.getUIHelper().showException("Error querying blob list.", ex, "Error querying blobs", false, true);
                 }
             }
         });
     }
 
+    private void closeBlobItemPager() {
+        if (blobItemPager != null) {
+            blobItemPager.close();
+            blobItemPager = null;
+        }
+
+        isLoadingPage = false;
+    }
+
+    private void renderBlobItems(final BlobItemPager pager,
+                                 final BlobDirectory directory,
+                                 final BlobItemPage page,
+                                 final boolean isFirstPage) {
+        DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (blobListTable.isDisposed()) {
+                    pager.close();
+
+                    return;
+                }
+
+                if (isFirstPage) {
+                    // The first page of a new listing takes the place of the earlier one
+                    closeBlobItemPager();
+                    blobItemPager = pager;
+                } else if (pager != blobItemPager) {
+                    // The directory has been changed or refreshed
+                    return;
+                }
+
+                java.util.List<BlobItem> pageItems = page == null
+                        ? new ArrayList<BlobItem>()
+                        : new ArrayList<BlobItem>(page.getItems());
+                String query = queryTextField.getText();
+
+                if (!query.isEmpty()) {
+                    pageItems.removeIf(blobItem -> blobItem instanceof BlobFile && !blobItem.getName().startsWith(query));
+                }
+
+                if (isFirstPage) {
+                    pathLabel.setText(directory.getPath());
+                    blobItems = new ArrayList<BlobItem>(pageItems);
+                    tableViewer.setInput(blobItems);
+                    tableViewer.refresh();
+                    setUIState(false);
+                } else {
+                    blobItems.addAll(pageItems);
+                    tableViewer.add(pageItems.toArray());
+                }
+
+                isLoadingPage = false;
+
+                if (page == null || !page.hasMore()) {
+                    closeBlobItemPager();
+                }
+
+                // Keep loading until the rows fill the table
+                loadMoreIfScrolledToEnd();
+            }
+        });
+    }
+
     private void setUIState(boolean loading) {
         if (loading) {
             blobListTable.setEnabled(false);
@@ -575,59 +686,51 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
                             }
                         }
 
-                        final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(targetFile), 65536) {
-                            private long runningCount = 0;
-
+                        final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
                             @Override
-                            public synchronized void write(@NotNull byte[] bytes, int i, int i1) throws IOException {
-                                super.write(bytes, i, i1);
-
-                                runningCount += i1;
-
-                                double progress = (double) runningCount / fileSelection.getSize();
+                            public Void call(Long downloadedBytes) throws Exception {
+                                double progress = (double) downloadedBytes / fileSelection.getSize();
                                 monitor.worked((int) (100 * progress));
                                 monitor.subTask(String.format("%s%% downloaded", (int) (progress * 100)));
+
+                                return null;
                             }
                         };
 
-                        try {
 //                            Future<?> future = DefaultLoader.getIdeHelper().executeOnPooledThread(new Runnable() {
 //                                @Override
 //                                public void run() {
-                            try {
-                                StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, bufferedOutputStream);
-
-                                if (open && targetFile.exists()) {
-                                    try {
-                                        final Process p;
-                                        Runtime runtime = Runtime.getRuntime();
-                                        p = runtime.exec(
-                                                new String[]{"open", "-R", targetFile.getName()},
-                                                null,
-                                                targetFile.getParentFile());
-
-                                        InputStream errorStream = p.getErrorStream();
-                                        String errResponse = new String(IOUtils.readFully(errorStream, -1));
-
-                                        if (p.waitFor() != 0) {
-                                            throw new Exception(errResponse);
-                                        }
-                                    } catch (Exception e) {
-                                        monitor.setTaskName("Error opening file");
-                                        monitor.subTask(e.getMessage());
+                        try {
+                            StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, targetFile, callable);
+
+                            if (open && targetFile.exists()) {
+                                try {
+                                    final Process p;
+                                    Runtime runtime = Runtime.getRuntime();
+                                    p = runtime.exec(
+                                            new String[]{"open", "-R", targetFile.getName()},
+                                            null,
+                                            targetFile.getParentFile());
+
+                                    InputStream errorStream = p.getErrorStream();
+                                    String errResponse = new String(IOUtils.readFully(errorStream, -1));
+
+                                    if (p.waitFor() != 0) {
+                                        throw new Exception(errResponse);
                                     }
-//                                            Desktop.getDesktop().open(targetFile);
+                                } catch (Exception e) {
+                                    monitor.setTaskName("Error opening file");
+                                    monitor.subTask(e.getMessage());
                                 }
-                            } catch (AzureCmdException e) {
-                                Throwable connectionFault = e.getCause().getCause();
-
-                                monitor.setTaskName("Error downloading Blob");
-                                monitor.subTask((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : connectionFault.getMessage());
-                                return Status.CANCEL_STATUS;
-                            } 
-                        } finally {
-                            bufferedOutputStream.close();
-                        }
+//                                            Desktop.getDesktop().open(targetFile);
+                            }
+                        } catch (AzureCmdException e) {
+                            Throwable connectionFault = e.getCause().getCause();
+
+                            monitor.setTaskName("Error downloading Blob");
+                            monitor.subTask((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : connectionFault.getMessage());
+                            return Status.CANCEL_STATUS;
+                        } 
                     } catch (IOException e) {
                         DefaultLoader.getUIHelper().showException("Error downloading Blob", e, "Error downloading Blob", false, true);
                         return Status.CANCEL_STATUS;
@@ -673,7 +776,6 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
                 monitor.beginTask("Uploading blob...", IProgressMonitor.UNKNOWN);
                 try {
                     final BlobDirectory blobDirectory = directoryQueue.peekLast();
-                    final BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(selectedFile));
                     monitor.subTask("0% uploaded");
                     try {
                         final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
@@ -692,17 +794,10 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
                                     connectionString,
                                     blobContainer,
                                     path,
-                                    bufferedInputStream,
-                                    callable,
-                                    1024 * 1024,
-                                    selectedFile.length());
+                                    selectedFile,
+                                    callable);
                         } catch (AzureCmdException e) {
                             e.printStackTrace();
-                        } finally {
-                            try {
-                                bufferedInputStream.close();
-                            } catch (IOException ignored) {
-                            }
                         }
 //                        while (!future.isDone()) {
 //                            Thread.sleep(500);
@@ -710,7 +805,6 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
 
                         if (monitor.isCanceled()) {
 //                                future.cancel(true);
-                            bufferedInputStream.close();
 
                             for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, blobDirectory)) {
                                 if (blobItem instanceof BlobFile && blobItem.getPath().equals(path)) {
@@ -774,6 +868,12 @@ public class BlobExplorerFileEditor extends EditorPart implements TelemetryPrope
     public void setFocus() {
     }
 
+    @Override
+    public void dispose() {
+        closeBlobItemPager();
+        super.dispose();
+    }
+
     private class BlobListContentProvider implements IStructuredContentProvider {
         @Override
         public void dispose() {
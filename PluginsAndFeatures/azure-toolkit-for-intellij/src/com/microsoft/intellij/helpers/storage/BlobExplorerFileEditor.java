@@ -46,6 +46,8 @@ import com.microsoft.intellij.helpers.UIHelperImpl;
 import com.microsoft.intellij.util.PluginUtil;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.BlobItemPage;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.BlobItemPager;
 import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManager;
 import com.microsoft.tooling.msservices.model.storage.BlobContainer;
 import com.microsoft.tooling.msservices.model.storage.BlobDirectory;
@@ -107,6 +109,14 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
     private LinkedList<BlobDirectory> directoryQueue = new LinkedList<BlobDirectory>();
     private List<BlobItem> blobItems;
 
+    // The pager of the directory shown, the rest pages are loaded when the table is scrolled to the end,
+    // both are accessed in the UI thread
+    private BlobItemPager blobItemPager;
+    private boolean isLoadingPage = false;
+
+    // The distance in pixels to the table end to load the next page
+    private static final int LOAD_MORE_THRESHOLD = 64;
+
     private ISubscriptionSelectionListener subscriptionListener;
     private FileEditorVirtualNode fileEditorVirtualNode;
 
@@ -210,6 +220,16 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
         sorter.setSortKeys(sortKeys);
         sorter.sort();
 
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, blobListTable);
+        if (scrollPane != null) {
+            scrollPane.getVerticalScrollBar().addAdjustmentListener(new AdjustmentListener() {
+                @Override
+                public void adjustmentValueChanged(AdjustmentEvent adjustmentEvent) {
+                    loadMoreIfScrolledToEnd();
+                }
+            });
+        }
+
         backButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
@@ -312,6 +332,7 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
 
     public void fillGrid() {
         setUIState(true);
+        closeBlobItemPager();
 
         ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading blobs...", false) {
             @Override
@@ -323,59 +344,66 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
                         directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
                     }
 
-                    blobItems = StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.peekLast());
-
-                    if (!queryTextField.getText().isEmpty()) {
-                        for (int i = blobItems.size() - 1; i >= 0; i--) {
-                            BlobItem blobItem = blobItems.get(i);
-
-                            if (blobItem instanceof BlobFile && !blobItem.getName().startsWith(queryTextField.getText())) {
-                                blobItems.remove(i);
-                            }
-                        }
-                    }
+                    // Render the first page once got, the next page is prefetched in the background
+                    BlobDirectory directory = directoryQueue.peekLast();
+                    String query = queryTextField.getText();
+                    BlobItemPager pager = new BlobItemPager(connectionString, directory, BlobItemPager.DEFAULT_PAGE_SIZE);
 
+                    renderBlobItems(pager, directory, filterBlobItems(pager.nextPage(), query), true);
+                } catch (AzureCmdException ex) {
                     ApplicationManager.getApplication().invokeLater(new Runnable() {
                         @Override
                         public void run() {
+                            setUIState(false);
+                        }
+                    });
 
-                            pathLabel.setText(directoryQueue.peekLast().getPath());
-                            DefaultTableModel model = (DefaultTableModel) blobListTable.getModel();
+                    String msg = "An error occurred while attempting to query blob list." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
+                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
+                }
+            }
+        });
+    }
 
-                            while (model.getRowCount() > 0) {
-                                model.removeRow(0);
-                            }
+    /**
+     * Load the next page when the table is scrolled to the end, or the rows can't fill the table
+     */
+    private void loadMoreIfScrolledToEnd() {
+        final BlobItemPager pager = blobItemPager;
 
-                            for (BlobItem blobItem : blobItems) {
-                                if (blobItem instanceof BlobDirectory) {
-                                    model.addRow(new Object[]{
-                                            UIHelperImpl.loadIcon("storagefolder.png"),
-                                            blobItem.getName(),
-                                            "",
-                                            "",
-                                            "",
-                                            blobItem.getUri()
-                                    });
-                                } else {
-                                    BlobFile blobFile = (BlobFile) blobItem;
-
-                                    model.addRow(new String[]{
-                                            "",
-                                            blobFile.getName(),
-                                            UIHelperImpl.readableFileSize(blobFile.getSize()),
-                                            new SimpleDateFormat().format(blobFile.getLastModified().getTime()),
-                                            blobFile.getContentType(),
-                                            blobFile.getUri()
-                                    });
-                                }
-                            }
+        if (pager == null || isLoadingPage) {
+            return;
+        }
 
-                            setUIState(false);
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, blobListTable);
+        if (scrollPane != null) {
+            JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
 
-                            blobListTable.clearSelection();
+            if (scrollBar.getValue() + scrollBar.getVisibleAmount() < scrollBar.getMaximum() - LOAD_MORE_THRESHOLD) {
+                return;
+            }
+        }
+
+        isLoadingPage = true;
+
+        final BlobDirectory directory = directoryQueue.peekLast();
+        final String query = queryTextField.getText();
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    renderBlobItems(pager, directory, filterBlobItems(pager.nextPage(), query), false);
+                } catch (AzureCmdException ex) {
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (pager == blobItemPager) {
+                                closeBlobItemPager();
+                            }
                         }
                     });
-                } catch (AzureCmdException ex) {
+
                     String msg = "An error occurred while attempting to query blob list." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
                     PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
                 }
@@ -383,6 +411,105 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
         });
     }
 
+    @Nullable
+    private static BlobItemPage filterBlobItems(@Nullable BlobItemPage page, @NotNull String query) {
+        if (page == null || query.isEmpty()) {
+            return page;
+        }
+
+        List<BlobItem> pageItems = new ArrayList<BlobItem>(page.getItems());
+        pageItems.removeIf(blobItem -> blobItem instanceof BlobFile && !blobItem.getName().startsWith(query));
+
+        return new BlobItemPage(pageItems, page.getContinuationToken());
+    }
+
+    private void closeBlobItemPager() {
+        if (blobItemPager != null) {
+            blobItemPager.close();
+            blobItemPager = null;
+        }
+
+        isLoadingPage = false;
+    }
+
+    private void renderBlobItems(@NotNull BlobItemPager pager,
+                                 @NotNull BlobDirectory directory,
+                                 @Nullable BlobItemPage page,
+                                 boolean isFirstPage) {
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (isFirstPage) {
+                    // The first page of a new listing takes the place of the earlier one
+                    closeBlobItemPager();
+                    blobItemPager = pager;
+                } else if (pager != blobItemPager) {
+                    // The directory has been changed or refreshed
+                    return;
+                }
+
+                DefaultTableModel model = (DefaultTableModel) blobListTable.getModel();
+
+                if (isFirstPage) {
+                    pathLabel.setText(directory.getPath());
+                    blobItems = new ArrayList<BlobItem>();
+
+                    while (model.getRowCount() > 0) {
+                        model.removeRow(0);
+                    }
+                }
+
+                List<BlobItem> pageItems = page == null ? Collections.<BlobItem>emptyList() : page.getItems();
+                SimpleDateFormat dateFormat = new SimpleDateFormat();
+
+                for (BlobItem blobItem : pageItems) {
+                    if (blobItem instanceof BlobDirectory) {
+                        model.addRow(new Object[]{
+                                UIHelperImpl.loadIcon("storagefolder.png"),
+                                blobItem.getName(),
+                                "",
+                                "",
+                                "",
+                                blobItem.getUri()
+                        });
+                    } else {
+                        BlobFile blobFile = (BlobFile) blobItem;
+
+                        model.addRow(new String[]{
+                                "",
+                                blobFile.getName(),
+                                UIHelperImpl.readableFileSize(blobFile.getSize()),
+                                dateFormat.format(new Date(blobFile.getLastModifiedMillis())),
+                                blobFile.getContentType(),
+                                blobFile.getUri()
+                        });
+                    }
+                }
+
+                blobItems.addAll(pageItems);
+                isLoadingPage = false;
+
+                if (page == null || !page.hasMore()) {
+                    closeBlobItemPager();
+                }
+
+                if (isFirstPage) {
+                    setUIState(false);
+
+                    blobListTable.clearSelection();
+                }
+
+                // Keep loading until the rows fill the table, the layout is updated after the rows added
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        loadMoreIfScrolledToEnd();
+                    }
+                });
+            }
+        });
+    }
+
     private void setUIState(boolean loading) {
         if (loading) {
             blobListTable.setEnabled(false);
@@ -599,68 +726,66 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
                             }
                         }
 
-                        final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(targetFile), 65536) {
-                            private long runningCount = 0;
-
+                        final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
                             @Override
-                            public synchronized void write(@NotNull byte[] bytes, int i, int i1) throws IOException {
-                                super.write(bytes, i, i1);
-
-                                runningCount += i1;
-
-                                double progress = (double) runningCount / fileSelection.getSize();
+                            public Void call(Long downloadedBytes) throws Exception {
+                                double progress = (double) downloadedBytes / fileSelection.getSize();
                                 progressIndicator.setFraction(progress);
                                 progressIndicator.setText2(String.format("%s%% downloaded", (int) (progress * 100)));
+
+                                return null;
                             }
                         };
 
-                        try {
-                            Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    try {
-                                        StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, bufferedOutputStream);
+                        Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, targetFile, callable);
 
-                                        if (open && targetFile.exists()) {
-                                            Desktop.getDesktop().open(targetFile);
-                                        }
-                                    } catch (AzureCmdException e) {
-                                        Throwable connectionFault = e.getCause().getCause();
-
-                                        progressIndicator.setText("Error downloading Blob");
-                                        progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : connectionFault.getMessage());
-                                    } catch (IOException ex) {
-                                        try {
-                                            final Process p;
-                                            Runtime runtime = Runtime.getRuntime();
-                                            p = runtime.exec(
-                                                    new String[]{"open", "-R", targetFile.getName()},
-                                                    null,
-                                                    targetFile.getParentFile());
-
-                                            InputStream errorStream = p.getErrorStream();
-                                            String errResponse = new String(IOUtils.readFully(errorStream, -1));
-
-                                            if (p.waitFor() != 0) {
-                                                throw new Exception(errResponse);
-                                            }
-                                        } catch (Exception e) {
-                                            progressIndicator.setText("Error openning file");
-                                            progressIndicator.setText2(ex.getMessage());
-                                        }
+                                    if (open && targetFile.exists() && !progressIndicator.isCanceled()) {
+                                        Desktop.getDesktop().open(targetFile);
+                                    }
+                                } catch (AzureCmdException e) {
+                                    if (progressIndicator.isCanceled()) {
+                                        // Interrupted by the cancellation, the checkpoint is kept to resume
+                                        return;
                                     }
-                                }
-                            });
 
-                            while (!future.isDone()) {
-                                progressIndicator.checkCanceled();
+                                    Throwable connectionFault = e.getCause().getCause();
 
-                                if (progressIndicator.isCanceled()) {
-                                    future.cancel(true);
+                                    progressIndicator.setText("Error downloading Blob");
+                                    progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : connectionFault.getMessage());
+                                } catch (IOException ex) {
+                                    try {
+                                        final Process p;
+                                        Runtime runtime = Runtime.getRuntime();
+                                        p = runtime.exec(
+                                                new String[]{"open", "-R", targetFile.getName()},
+                                                null,
+                                                targetFile.getParentFile());
+
+                                        InputStream errorStream = p.getErrorStream();
+                                        String errResponse = new String(IOUtils.readFully(errorStream, -1));
+
+                                        if (p.waitFor() != 0) {
+                                            throw new Exception(errResponse);
+                                        }
+                                    } catch (Exception e) {
+                                        progressIndicator.setText("Error openning file");
+                                        progressIndicator.setText2(ex.getMessage());
+                                    }
                                 }
                             }
-                        } finally {
-                            bufferedOutputStream.close();
+                        });
+
+                        while (!future.isDone()) {
+                            // Interrupt the download rather than throwing here, so that it stops at a checkpoint
+                            // which can be resumed later
+                            if (progressIndicator.isCanceled()) {
+                                future.cancel(true);
+                                break;
+                            }
                         }
                     } catch (IOException e) {
                         PluginUtil.displayErrorDialogAndLog(message("errTtl"), "An error occurred while attempting to download Blob.", e);
@@ -698,108 +823,93 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
         ProgressManager.getInstance().run(new Task.Backgroundable(project, "Uploading blob...", true) {
             @Override
             public void run(@NotNull final ProgressIndicator progressIndicator) {
-                try {
-                    final BlobDirectory blobDirectory = directoryQueue.peekLast();
-
-                    final BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(selectedFile));
+                final BlobDirectory blobDirectory = directoryQueue.peekLast();
 
-                    progressIndicator.setIndeterminate(false);
-                    progressIndicator.setText("Uploading blob...");
-                    progressIndicator.setText2("0% uploaded");
+                progressIndicator.setIndeterminate(false);
+                progressIndicator.setText("Uploading blob...");
+                progressIndicator.setText2("0% uploaded");
 
-                    try {
-                        final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
-                            @Override
-                            public Void call(Long uploadedBytes) throws Exception {
-                                double progress = ((double) uploadedBytes) / selectedFile.length();
-
-                                progressIndicator.setFraction(progress);
-                                progressIndicator.setText2(String.format("%s%% uploaded", (int) (progress * 100)));
+                try {
+                    final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
+                        @Override
+                        public Void call(Long uploadedBytes) throws Exception {
+                            double progress = ((double) uploadedBytes) / selectedFile.length();
 
-                                return null;
-                            }
-                        };
+                            progressIndicator.setFraction(progress);
+                            progressIndicator.setText2(String.format("%s%% uploaded", (int) (progress * 100)));
 
-                        Future<Void> future = ApplicationManager.getApplication().executeOnPooledThread(new Callable<Void>() {
-                            @Override
-                            public Void call() throws AzureCmdException {
-                                try {
-                                    StorageClientSDKManager.getManager().uploadBlobFileContent(
-                                            connectionString,
-                                            blobContainer,
-                                            path,
-                                            bufferedInputStream,
-                                            callable,
-                                            1024 * 1024,
-                                            selectedFile.length());
-                                } finally {
-                                    try {
-                                        bufferedInputStream.close();
-                                    } catch (IOException ignored) {
-                                    }
-                                }
+                            return null;
+                        }
+                    };
 
-                                return null;
-                            }
-                        });
+                    Future<Void> future = ApplicationManager.getApplication().executeOnPooledThread(new Callable<Void>() {
+                        @Override
+                        public Void call() throws AzureCmdException {
+                            StorageClientSDKManager.getManager().uploadBlobFileContent(
+                                    connectionString,
+                                    blobContainer,
+                                    path,
+                                    selectedFile,
+                                    callable);
+
+                            return null;
+                        }
+                    });
 
-                        while (!future.isDone()) {
-                            Thread.sleep(500);
-                            progressIndicator.checkCanceled();
+                    while (!future.isDone()) {
+                        Thread.sleep(500);
 
-                            if (progressIndicator.isCanceled()) {
-                                future.cancel(true);
-                                bufferedInputStream.close();
+                        if (progressIndicator.isCanceled()) {
+                            future.cancel(true);
 
-                                for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, blobDirectory)) {
-                                    if (blobItem instanceof BlobFile && blobItem.getPath().equals(path)) {
-                                        StorageClientSDKManager.getManager().deleteBlobFile(connectionString, (BlobFile) blobItem);
-                                    }
+                            for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, blobDirectory)) {
+                                if (blobItem instanceof BlobFile && blobItem.getPath().equals(path)) {
+                                    StorageClientSDKManager.getManager().deleteBlobFile(connectionString, (BlobFile) blobItem);
                                 }
                             }
+
+                            break;
                         }
+                    }
 
-                        try {
-                            directoryQueue.clear();
-                            directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
+                    try {
+                        directoryQueue.clear();
+                        directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
 
-                            for (String pathDir : path.split("/")) {
-                                for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.getLast())) {
-                                    if (blobItem instanceof BlobDirectory && blobItem.getName().equals(pathDir)) {
-                                        directoryQueue.addLast((BlobDirectory) blobItem);
-                                    }
+                        for (String pathDir : path.split("/")) {
+                            for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.getLast())) {
+                                if (blobItem instanceof BlobDirectory && blobItem.getName().equals(pathDir)) {
+                                    directoryQueue.addLast((BlobDirectory) blobItem);
                                 }
                             }
-                        } catch (AzureCmdException e) {
-                            String msg = "An error occurred while attempting to show new blob." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
-                            PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
                         }
+                    } catch (AzureCmdException e) {
+                        String msg = "An error occurred while attempting to show new blob." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
+                        PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
+                    }
 
-                        ApplicationManager.getApplication().invokeLater(new Runnable() {
-                            @Override
-                            public void run() {
-                                fillGrid();
-                            }
-                        });
-                    } catch (Exception e) {
-                        Throwable connectionFault = e.getCause();
-                        Throwable realFault = null;
-
-                        if (connectionFault != null) {
-                            realFault = connectionFault.getCause();
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            fillGrid();
                         }
+                    });
+                } catch (Exception e) {
+                    Throwable connectionFault = e.getCause();
+                    Throwable realFault = null;
 
-                        progressIndicator.setText("Error uploading Blob");
-                        String message = realFault == null ? null : realFault.getMessage();
+                    if (connectionFault != null) {
+                        realFault = connectionFault.getCause();
+                    }
 
-                        if (connectionFault != null && message == null) {
-                            message = "Error type " + connectionFault.getClass().getName();
-                        }
+                    progressIndicator.setText("Error uploading Blob");
+                    String message = realFault == null ? null : realFault.getMessage();
 
-                        progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : message);
+                    if (connectionFault != null && message == null) {
+                        message = "Error type " + connectionFault.getClass().getName();
                     }
-                } catch (IOException e) {
-                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), "An error occurred while attempting to upload Blob.", e);
+
+                    progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : message);
                 }
             }
         });
@@ -879,6 +989,8 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
 
     @Override
     public void dispose() {
+        closeBlobItemPager();
+
         try {
             AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
             // not signed in
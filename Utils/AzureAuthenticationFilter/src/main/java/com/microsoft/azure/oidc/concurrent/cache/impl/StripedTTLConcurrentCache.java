@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.concurrent.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+
+/**
+ * A TTL and LRU bounded cache split into stripes by key hash. Each stripe is an access ordered map guarded by its
+ * own lock, so every operation is O(1) and only contends with the operations on the same stripe.
+ *
+ * The entries expire by the time they are put. An expired entry is removed when it's read, and a few least recently
+ * used entries are checked for expiry on each put, so no sweeper thread is needed.
+ *
+ * The max size is split evenly over the stripes and enforced per stripe, so the LRU order is kept per stripe but not
+ * across them: a put may evict the least recently used entry of its own stripe while an older entry lives on in
+ * another one, and a stripe may fill up before the whole cache does.
+ *
+ * As the TTL cache it replaces, the TTL is in minutes and a non positive TTL makes the entries expire at once, while a
+ * non positive max size still keeps the latest entry.
+ */
+public class StripedTTLConcurrentCache<K, V> implements ConcurrentCache<K, V> {
+	private static final int MAX_STRIPES = 256;
+	private static final int EXPIRY_CHECKS_PER_PUT = 4;
+
+	private final Stripe<K, V>[] stripes;
+	private final int stripeMask;
+	private final long ttl;
+
+	public StripedTTLConcurrentCache(final Long ttl, final Long maxSize) {
+		this(ttl, maxSize, Runtime.getRuntime().availableProcessors() * 4L);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	StripedTTLConcurrentCache(final Long ttl, final Long maxSize, final long concurrency) {
+		this.ttl = Math.max(0L, ttl) * 60000;
+		final long size = Math.max(1L, maxSize);
+
+		// The stripes count is a power of 2, not more than max size to keep every stripe able to hold an entry
+		final int wanted = (int) Math.min(Math.min(MAX_STRIPES, concurrency), size);
+		final int stripesCount = Integer.highestOneBit(Math.max(1, wanted));
+		this.stripes = new Stripe[stripesCount];
+		this.stripeMask = stripesCount - 1;
+		for (int i = 0; i < stripesCount; i++) {
+			final long capacity = size / stripesCount + (i < size % stripesCount ? 1 : 0);
+			stripes[i] = new Stripe<K, V>((int) Math.min(Integer.MAX_VALUE, capacity));
+		}
+	}
+
+	@Override
+	public V get(Object key) {
+		return stripeFor(key).get(key, currentTimeMillis());
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		return stripeFor(key).putIfAbsent(key, value, currentTimeMillis(), ttl);
+	}
+
+	@Override
+	public void shutdownNow() {
+		for (final Stripe<K, V> stripe : stripes) {
+			stripe.clear();
+		}
+	}
+
+	public long size() {
+		long size = 0;
+		for (final Stripe<K, V> stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		long count = 0;
+		for (final Stripe<K, V> stripe : stripes) {
+			count += stripe.getHits();
+		}
+		return count;
+	}
+
+	public long getMissCount() {
+		long count = 0;
+		for (final Stripe<K, V> stripe : stripes) {
+			count += stripe.getMisses();
+		}
+		return count;
+	}
+
+	public long getEvictionCount() {
+		long count = 0;
+		for (final Stripe<K, V> stripe : stripes) {
+			count += stripe.getEvictions();
+		}
+		return count;
+	}
+
+	public long getExpirationCount() {
+		long count = 0;
+		for (final Stripe<K, V> stripe : stripes) {
+			count += stripe.getExpirations();
+		}
+		return count;
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private Stripe<K, V> stripeFor(final Object key) {
+		final int hash = key.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		private Entry(final V value, final long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(final long now) {
+			return now >= expiresAt;
+		}
+	}
+
+	private static final class Stripe<K, V> {
+		private final int capacity;
+		private final LinkedHashMap<K, Entry<V>> map;
+		// Counted under the stripe lock, so no more contention than the map access
+		private long hits;
+		private long misses;
+		private long evictions;
+		private long expirations;
+
+		private Stripe(final int capacity) {
+			this.capacity = capacity;
+			this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		}
+
+		private synchronized V get(final Object key, final long now) {
+			final Entry<V> entry = map.get(key);
+			if (entry == null) {
+				misses++;
+				return null;
+			}
+			if (entry.isExpired(now)) {
+				map.remove(key);
+				expirations++;
+				misses++;
+				return null;
+			}
+			hits++;
+			return entry.value;
+		}
+
+		private synchronized V putIfAbsent(final K key, final V value, final long now, final long ttl) {
+			final Entry<V> existing = map.get(key);
+			if (existing != null && !existing.isExpired(now)) {
+				return existing.value;
+			}
+			if (existing != null) {
+				map.remove(key);
+				expirations++;
+			}
+
+			removeExpiredEldest(now);
+			map.put(key, new Entry<V>(value, now + ttl));
+
+			if (map.size() > capacity) {
+				final Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+				iterator.next();
+				iterator.remove();
+				evictions++;
+			}
+			return null;
+		}
+
+		private void removeExpiredEldest(final long now) {
+			final Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+			for (int i = 0; i < EXPIRY_CHECKS_PER_PUT && iterator.hasNext(); i++) {
+				if (iterator.next().getValue().isExpired(now)) {
+					iterator.remove();
+					expirations++;
+				}
+			}
+		}
+
+		private synchronized void clear() {
+			map.clear();
+		}
+
+		private synchronized int size() {
+			return map.size();
+		}
+
+		private synchronized long getHits() {
+			return hits;
+		}
+
+		private synchronized long getMisses() {
+			return misses;
+		}
+
+		private synchronized long getEvictions() {
+			return evictions;
+		}
+
+		private synchronized long getExpirations() {
+			return expirations;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.concurrent.executor.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.exception.PreconditionException;
+
+/**
+ * One bounded pool of named daemon threads shared by all the metadata, key store and graph loaders.
+ * A task submitted from a pool thread runs inline, so a loader waiting on another loader can not starve the pool,
+ * and a full queue runs the task in the caller thread instead of spawning more threads.
+ */
+public class SimpleConcurrentExecutorService implements ConcurrentExecutorService {
+	private static final ConcurrentExecutorService INSTANCE = new SimpleConcurrentExecutorService();
+	private static final Integer DEFAULT_THREADS = 8;
+	private static final Integer DEFAULT_QUEUE_SIZE = 1000;
+	private static final Long KEEP_ALIVE_SECONDS = 60L;
+	private static final ThreadLocal<Boolean> IS_POOL_THREAD = new ThreadLocal<Boolean>();
+
+	private ThreadPoolExecutor executor;
+
+	@Override
+	public synchronized void createExecutor(final Integer threads, final Integer queueSize) {
+		if (threads == null || queueSize == null) {
+			throw new PreconditionException("Required parameter is null");
+		}
+		if (executor != null) {
+			executor.shutdown();
+		}
+		executor = newExecutor(threads, queueSize);
+	}
+
+	@Override
+	public <T> Future<T> submit(final Callable<T> task) {
+		if (task == null) {
+			throw new PreconditionException("Required parameter is null");
+		}
+		if (Boolean.TRUE.equals(IS_POOL_THREAD.get())) {
+			final FutureTask<T> future = new FutureTask<T>(task);
+			future.run();
+			return future;
+		}
+		return getExecutor().submit(task);
+	}
+
+	@Override
+	public synchronized void shutdownNow() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			executor = newExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE);
+		}
+		return executor;
+	}
+
+	private static ThreadPoolExecutor newExecutor(final Integer threads, final Integer queueSize) {
+		final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new LoaderThreadFactory(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		return threadPoolExecutor;
+	}
+
+	private static final class LoaderThreadFactory implements ThreadFactory {
+		private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		private final String prefix = String.format("oidc-loader-%d-", POOL_NUMBER.incrementAndGet());
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(new Runnable() {
+				public void run() {
+					IS_POOL_THREAD.set(Boolean.TRUE);
+					runnable.run();
+				}
+			}, prefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	public static ConcurrentExecutorService getInstance() {
+		return INSTANCE;
+	}
+}
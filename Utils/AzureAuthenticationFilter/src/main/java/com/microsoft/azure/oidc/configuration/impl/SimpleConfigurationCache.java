@@ -21,36 +21,119 @@
  ******************************************************************************/
 package com.microsoft.azure.oidc.configuration.impl;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
 import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.concurrent.executor.impl.SimpleConcurrentExecutorService;
 import com.microsoft.azure.oidc.configuration.Configuration;
 import com.microsoft.azure.oidc.configuration.ConfigurationCache;
 import com.microsoft.azure.oidc.configuration.ConfigurationLoader;
 import com.microsoft.azure.oidc.future.FutureHelper;
 import com.microsoft.azure.oidc.future.impl.SimpleFutureHelper;
 
+/**
+ * Once the configuration has been loaded, an expired entry is served stale while one background refresh reloads
+ * it, so the request path stays off the network. The stale window is measured from the load, so it spans the cache
+ * TTL plus STALE_GRACE_MILLIS, and a configuration expired for longer than the grace is never served.
+ */
 public class SimpleConfigurationCache implements ConfigurationCache {
 	private static final ConfigurationCache INSTANCE = new SimpleConfigurationCache();
+	private static final String KEY = "SINGLE";
+	// The TTL of the configuration cache entry in minutes, as the cache factory takes it
+	public static final Long CACHE_TTL = 60L;
+	private static final Long STALE_GRACE_MILLIS = 60L * 60L * 1000L;
+	private static final Long MAX_STALE_MILLIS = CACHE_TTL * 60L * 1000L + STALE_GRACE_MILLIS;
 
-	private final ConfigurationLoader configurationLoader = SimpleConfigurationLoader.getInstance();
+	private final ConfigurationLoader configurationLoader;
 
 	private final FutureHelper futureHelper = SimpleFutureHelper.getInstance();
 
-	private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
+	private final ConcurrentCacheService concurrentCacheService;
+
+	private final ConcurrentExecutorService concurrentExecutorService;
+
+	private final AtomicReference<FutureTask<Configuration>> inFlight = new AtomicReference<FutureTask<Configuration>>();
+
+	private volatile Configuration staleConfiguration;
+
+	private volatile long staleConfigurationTime;
+
+	public SimpleConfigurationCache() {
+		this(SimpleConfigurationLoader.getInstance(), SimpleConcurrentCacheService.getInstance(),
+				SimpleConcurrentExecutorService.getInstance());
+	}
+
+	SimpleConfigurationCache(final ConfigurationLoader configurationLoader,
+			final ConcurrentCacheService concurrentCacheService,
+			final ConcurrentExecutorService concurrentExecutorService) {
+		this.configurationLoader = configurationLoader;
+		this.concurrentCacheService = concurrentCacheService;
+		this.concurrentExecutorService = concurrentExecutorService;
+	}
 
 	@Override
 	public Configuration load() {
-		final String key = "SINGLE";
-		final Configuration entry = concurrentCacheService.getCache(Configuration.class, "configurationCache").get(key);
+		final Configuration entry = concurrentCacheService.getCache(Configuration.class, "configurationCache").get(KEY);
 		if (entry != null) {
 			return entry;
 		}
-		final Configuration result = futureHelper.getResult(configurationLoader.loadAsync());
-		if (result == null) {
-			return result;
+		final Configuration stale = staleConfiguration;
+		if (stale != null && currentTimeMillis() - staleConfigurationTime < MAX_STALE_MILLIS) {
+			refresh(Boolean.TRUE);
+			return stale;
+		}
+		return futureHelper.getResult(refresh(Boolean.FALSE));
+	}
+
+	private FutureTask<Configuration> refresh(final Boolean isBackground) {
+		while (true) {
+			final FutureTask<Configuration> running = inFlight.get();
+			if (running != null) {
+				return running;
+			}
+			final FutureTask<Configuration> task = new RefreshTask();
+			if (inFlight.compareAndSet(null, task)) {
+				if (isBackground) {
+					concurrentExecutorService.submit(Executors.callable(task));
+				} else {
+					task.run();
+				}
+				return task;
+			}
+		}
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private final class RefreshTask extends FutureTask<Configuration> {
+
+		RefreshTask() {
+			super(new Callable<Configuration>() {
+				public Configuration call() throws Exception {
+					final Configuration result = futureHelper.getResult(configurationLoader.loadAsync());
+					if (result == null) {
+						return result;
+					}
+					concurrentCacheService.getCache(Configuration.class, "configurationCache").putIfAbsent(KEY,
+							result);
+					staleConfigurationTime = currentTimeMillis();
+					staleConfiguration = result;
+					return result;
+				}
+			});
+		}
+
+		@Override
+		protected void done() {
+			inFlight.compareAndSet(this, null);
 		}
-		concurrentCacheService.getCache(Configuration.class, "configurationCache").putIfAbsent(key, result);
-		return result;
 	}
 
 	public static ConfigurationCache getInstance() {
@@ -24,8 +24,6 @@ package com.microsoft.azure.oidc.configuration.impl;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -35,6 +33,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.microsoft.azure.oidc.common.algorithm.Algorithm;
 import com.microsoft.azure.oidc.common.issuer.Issuer;
 import com.microsoft.azure.oidc.common.name.Name;
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.concurrent.executor.impl.SimpleConcurrentExecutorService;
 import com.microsoft.azure.oidc.configuration.Configuration;
 import com.microsoft.azure.oidc.configuration.ConfigurationFactory;
 import com.microsoft.azure.oidc.configuration.ConfigurationLoader;
@@ -67,16 +67,15 @@ public final class SimpleConfigurationLoader implements ConfigurationLoader {
 
 	private final FutureHelper futureHelper = SimpleFutureHelper.getInstance();
 
+	private final ConcurrentExecutorService concurrentExecutorService = SimpleConcurrentExecutorService.getInstance();
+
 	@Override
 	public Future<Configuration> loadAsync() {
-		final ExecutorService executorService = Executors.newSingleThreadExecutor();
-		final Future<Configuration> future = executorService.submit(new Callable<Configuration>() {
+		return concurrentExecutorService.submit(new Callable<Configuration>() {
 			public Configuration call() throws Exception {
 				return load();
 			}
 		});
-		executorService.shutdown();
-		return future;
 	}
 
 	public Configuration load() {
@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettings;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettingsLoader;
 import com.microsoft.azure.oidc.application.settings.impl.SimpleApplicationSettingsLoader;
@@ -71,6 +72,8 @@ public final class SimpleAuthenticationHelper implements AuthenticationHelper {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SimpleAuthenticationHelper.class);
 	private static final State NO_STATE = null;
 	private static final String[] ERROR_VALUES = { "access_denied", "interaction_required" };
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final ObjectReader STATE_READER = MAPPER.reader();
 
 	private final TokenParser tokenParser = SimpeTokenParser.getInstance();
 
@@ -324,8 +327,7 @@ public final class SimpleAuthenticationHelper implements AuthenticationHelper {
 
 			final String userID = token == null ? "" : token.getUserID().getValue();
 			final State state = stateFactory.createState(userID, sessionName, uriStringBuilder.toString());
-			final ObjectMapper mapper = new ObjectMapper();
-			final String stateString = mapper.writeValueAsString(state);
+			final String stateString = MAPPER.writeValueAsString(state);
 			final String urlString = String.format(
 					"%s%sclient_Id=%s&state=%s&nonce=defaultNonce&redirect_uri=%s&scope=openid%%20offline_access&response_type=code+id_token&prompt=%s&response_mode=form_post",
 					configuration.getAuthenticationEndPoint(), 
@@ -371,8 +373,7 @@ public final class SimpleAuthenticationHelper implements AuthenticationHelper {
 			if (stateString == null || stateString.equals("")) {
 				return null;
 			}
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode stateNode = mapper.readValue(stateString, JsonNode.class);
+			final JsonNode stateNode = STATE_READER.readTree(stateString);
 			final State state = stateFactory.createState(stateNode.get("userID").asText(""),
 					stateNode.get("sessionName").asText(""), stateNode.get("requestURI").asText());
 			return state;
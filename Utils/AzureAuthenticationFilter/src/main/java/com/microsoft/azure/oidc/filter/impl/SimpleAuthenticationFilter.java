@@ -34,7 +34,10 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
 import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.concurrent.executor.impl.SimpleConcurrentExecutorService;
 import com.microsoft.azure.oidc.configuration.Configuration;
+import com.microsoft.azure.oidc.configuration.impl.SimpleConfigurationCache;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.exception.PreconditionException;
 import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfigurationService;
@@ -64,9 +67,12 @@ public final class SimpleAuthenticationFilter implements Filter {
 
 	private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
 
+	private final ConcurrentExecutorService concurrentExecutorService = SimpleConcurrentExecutorService.getInstance();
+
 	@Override
 	public void destroy() {
 		concurrentCacheService.shutdownNow();
+		concurrentExecutorService.shutdownNow();
 	}
 
 	@Override
@@ -109,7 +115,14 @@ public final class SimpleAuthenticationFilter implements Filter {
 			concurrentCacheService.createCache(Boolean.class, "roleCache", 30L,
 					Long.parseLong(securityCacheSizeString));
 		}
-		concurrentCacheService.createCache(Configuration.class, "configurationCache", 60L, 1L);
+		concurrentCacheService.createCache(Configuration.class, "configurationCache", SimpleConfigurationCache.CACHE_TTL,
+				1L);
+		final String loaderThreadsString = filterConfig.getInitParameter("loaderThreads");
+		if (loaderThreadsString == null) {
+			concurrentExecutorService.createExecutor(8, 1000);
+		} else {
+			concurrentExecutorService.createExecutor(Integer.parseInt(loaderThreadsString), 1000);
+		}
 		authenticationConfigurationService.initialise(filterConfig, AUTHENTICATION_CONFIGURATION);
 		algorithmConfigurationService.initialise(filterConfig, ALGORITHM_CONFIGURATION);
 	}
@@ -21,6 +21,7 @@
  ******************************************************************************/
 package com.microsoft.azure.oidc.future.impl;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -40,13 +41,11 @@ public class SimpleFutureHelper implements FutureHelper {
 			throw new PreconditionException("Required parameter is null");
 		}
 		try {
-			while (!future.isDone() && !future.isCancelled()) {
-				Thread.sleep(10);
-			}
-			if (!future.isCancelled()) {
-				return future.get();
-			}
-		} catch (InterruptedException | ExecutionException e) {
+			return future.get();
+		} catch (InterruptedException e) {
+			LOGGER.error(e.getMessage(), e);
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | CancellationException e) {
 			LOGGER.error(e.getMessage(), e);
 		}
 		return null;
@@ -21,6 +21,11 @@
  ******************************************************************************/
 package com.microsoft.azure.oidc.graph.impl;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+
 import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
 import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
 import com.microsoft.azure.oidc.future.FutureHelper;
@@ -37,19 +42,36 @@ public class SimpleGraphCache implements GraphCache {
 
 	private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
 
+	private final ConcurrentMap<String, FutureTask<Boolean>> inFlightMap = new ConcurrentHashMap<String, FutureTask<Boolean>>();
+
 	@Override
-	public Boolean isUserInRole(String userID, String role) {
+	public Boolean isUserInRole(final String userID, final String role) {
 		final String key = String.format("%s:%s", userID, role);
 		final Boolean entry = concurrentCacheService.getCache(Boolean.class, "roleCache").get(key);
 		if (entry != null) {
 			return entry;
 		}
-		final Boolean result = futureHelper.getResult(springGraphService.isUserInRoleAsync(userID, role));
-		if (result == null) {
+		// Concurrent misses for the same key wait for the one request in flight
+		final FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return futureHelper.getResult(springGraphService.isUserInRoleAsync(userID, role));
+			}
+		});
+		final FutureTask<Boolean> inFlight = inFlightMap.putIfAbsent(key, task);
+		if (inFlight != null) {
+			return futureHelper.getResult(inFlight);
+		}
+		try {
+			task.run();
+			final Boolean result = futureHelper.getResult(task);
+			if (result == null) {
+				return result;
+			}
+			concurrentCacheService.getCache(Boolean.class, "roleCache").putIfAbsent(key, result);
 			return result;
+		} finally {
+			inFlightMap.remove(key, task);
 		}
-		concurrentCacheService.getCache(Boolean.class, "roleCache").putIfAbsent(key, result);
-		return result;
 	}
 
 	public static GraphCache getInstance() {
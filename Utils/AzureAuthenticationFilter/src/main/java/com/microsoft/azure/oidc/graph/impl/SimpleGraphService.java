@@ -21,31 +21,29 @@
  ******************************************************************************/
 package com.microsoft.azure.oidc.graph.impl;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
 import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-import javax.net.ssl.HttpsURLConnection;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettings;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettingsLoader;
 import com.microsoft.azure.oidc.application.settings.Secret;
 import com.microsoft.azure.oidc.application.settings.Tenant;
 import com.microsoft.azure.oidc.application.settings.impl.SimpleApplicationSettingsLoader;
 import com.microsoft.azure.oidc.common.id.ID;
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.concurrent.executor.impl.SimpleConcurrentExecutorService;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.graph.GraphService;
+import com.microsoft.azure.oidc.http.JsonHttpClient;
+import com.microsoft.azure.oidc.http.impl.SimpleJsonHttpClient;
 
 public final class SimpleGraphService implements GraphService {
 	private static final GraphService INSTANCE = new SimpleGraphService();
@@ -53,16 +51,17 @@ public final class SimpleGraphService implements GraphService {
 
 	private final ApplicationSettingsLoader applicationSettingsLoader = SimpleApplicationSettingsLoader.getInstance();
 
+	private final ConcurrentExecutorService concurrentExecutorService = SimpleConcurrentExecutorService.getInstance();
+
+	private final JsonHttpClient jsonHttpClient = SimpleJsonHttpClient.getInstance();
+
 	@Override
 	public Future<Boolean> isUserInRoleAsync(final String userID, final String role) {
-		final ExecutorService executorService = Executors.newSingleThreadExecutor();
-		final Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
+		return concurrentExecutorService.submit(new Callable<Boolean>() {
 			public Boolean call() throws Exception {
 				return isUserInRole(userID, role);
 			}
 		});
-		executorService.shutdown();
-		return future;
 	}
 
 	private Boolean isUserInRole(final String userID, final String role) {
@@ -90,24 +89,12 @@ public final class SimpleGraphService implements GraphService {
 			final String urlString = String.format("https://graph.windows.net/%s/isMemberOf?api-version=1.6",
 					tenant.getName());
 			final String payload = String.format("{\"groupId\":\"%s\",\"memberId\":\"%s\"}", groupID, userID);
-			final URL url = new URL(urlString);
-			final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-			connection.setRequestProperty("Host", "graph.windows.net");
-			connection.setRequestProperty("Content-Type", "application/json");
-			connection.setRequestProperty("Accept", "application/json");
-			connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
-			connection.setRequestMethod("POST");
-			connection.setDoOutput(true);
-			connection.getOutputStream().write(payload.getBytes());
-			connection.getOutputStream().flush();
-			final StringBuilder result = new StringBuilder();
-			try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-				for (String line = in.readLine(); line != null; line = in.readLine()) {
-					result.append(line);
-				}
-			}
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
+			final Map<String, String> headers = new HashMap<String, String>();
+			headers.put("Host", "graph.windows.net");
+			headers.put("Content-Type", "application/json");
+			headers.put("Accept", "application/json");
+			headers.put("Authorization", "Bearer " + bearerToken);
+			final JsonNode node = jsonHttpClient.post(urlString, headers, payload.getBytes("UTF-8"));
 			return node.get("value").asBoolean();
 		} catch (IOException e) {
 			LOGGER.error("IO Exception", e);
@@ -123,19 +110,11 @@ public final class SimpleGraphService implements GraphService {
 			final String urlString = String.format(
 					"https://graph.windows.net/%s/groups?$filter=displayName%%20eq%%20'%s'&api-version=1.6",
 					tenant.getName(), URLEncoder.encode(group, "UTF-8"));
-			final URL url = new URL(urlString);
-			final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-			connection.setRequestProperty("Host", "graph.windows.net");
-			connection.setRequestProperty("Accept", "application/json");
-			connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
-			final StringBuilder result = new StringBuilder();
-			try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-				for (String line = in.readLine(); line != null; line = in.readLine()) {
-					result.append(line);
-				}
-			}
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
+			final Map<String, String> headers = new HashMap<String, String>();
+			headers.put("Host", "graph.windows.net");
+			headers.put("Accept", "application/json");
+			headers.put("Authorization", "Bearer " + bearerToken);
+			final JsonNode node = jsonHttpClient.get(urlString, headers);
 			for (final JsonNode groupNode : node.get("value")) {
 				return groupNode.get("objectId").asText();
 			}
@@ -155,24 +134,13 @@ public final class SimpleGraphService implements GraphService {
 					"grant_type=client_credentials&client_id=%s&client_secret=%s&resource=%s", principal.getValue(),
 					URLEncoder.encode(secret.getValue(), "UTF-8"),
 					URLEncoder.encode("https://graph.windows.net", "UTF-8"));
-			final URL url = new URL(
-					String.format("https://login.microsoftonline.com/%s/oauth2/token", tenant.getName()));
-			final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.setRequestProperty("Host", "login.microsoftonline.com");
-			connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-			connection.setRequestProperty("Accept", "application/json");
-			connection.setDoOutput(true);
-			connection.getOutputStream().write(payload.getBytes());
-			connection.getOutputStream().flush();
-			final StringBuilder result = new StringBuilder();
-			try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-				for (String line = in.readLine(); line != null; line = in.readLine()) {
-					result.append(line);
-				}
-			}
-			final ObjectMapper mapper = new ObjectMapper();
-			final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
+			final String urlString = String.format("https://login.microsoftonline.com/%s/oauth2/token",
+					tenant.getName());
+			final Map<String, String> headers = new HashMap<String, String>();
+			headers.put("Host", "login.microsoftonline.com");
+			headers.put("Content-Type", "application/x-www-form-urlencoded");
+			headers.put("Accept", "application/json");
+			final JsonNode node = jsonHttpClient.post(urlString, headers, payload.getBytes("UTF-8"));
 			return node.get("access_token").asText();
 		} catch (IOException e) {
 			LOGGER.error("IO Exception", e);
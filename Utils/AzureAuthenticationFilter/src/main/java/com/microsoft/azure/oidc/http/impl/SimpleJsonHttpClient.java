@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.http.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.oidc.exception.PreconditionException;
+import com.microsoft.azure.oidc.http.JsonHttpClient;
+
+/**
+ * Parses the response body straight from the stream, and always drains and closes the response or error stream,
+ * so the JDK keeps the connection alive and reuses it for the next request to the same host.
+ */
+public final class SimpleJsonHttpClient implements JsonHttpClient {
+	private static final JsonHttpClient INSTANCE = new SimpleJsonHttpClient();
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final Integer CONNECT_TIMEOUT = 10000;
+	private static final Integer READ_TIMEOUT = 30000;
+
+	@Override
+	public JsonNode get(final String url, final Map<String, String> headers) throws IOException {
+		return execute("GET", url, headers, null);
+	}
+
+	@Override
+	public JsonNode post(final String url, final Map<String, String> headers, final byte[] payload)
+			throws IOException {
+		if (payload == null) {
+			throw new PreconditionException("Required parameter is null");
+		}
+		return execute("POST", url, headers, payload);
+	}
+
+	private JsonNode execute(final String method, final String url, final Map<String, String> headers,
+			final byte[] payload) throws IOException {
+		if (url == null) {
+			throw new PreconditionException("Required parameter is null");
+		}
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		final Map<String, String> requestHeaders = headers == null ? Collections.<String, String>emptyMap() : headers;
+		for (final Map.Entry<String, String> header : requestHeaders.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+		if (payload != null) {
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(payload.length);
+			try (final OutputStream out = connection.getOutputStream()) {
+				out.write(payload);
+			}
+		}
+		try (final InputStream in = connection.getInputStream()) {
+			return MAPPER.readTree(in);
+		} catch (IOException e) {
+			drain(connection.getErrorStream());
+			throw e;
+		}
+	}
+
+	private static void drain(final InputStream errorStream) {
+		if (errorStream == null) {
+			return;
+		}
+		try (final InputStream in = errorStream) {
+			final byte[] buffer = new byte[4096];
+			while (in.read(buffer) >= 0) {
+				continue;
+			}
+		} catch (IOException e) {
+			// The connection is simply not reused
+		}
+	}
+
+	public static JsonHttpClient getInstance() {
+		return INSTANCE;
+	}
+}
@@ -22,14 +22,15 @@
 package com.microsoft.azure.oidc.token.impl;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.codec.binary.Base64;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.microsoft.azure.oidc.common.algorithm.Algorithm;
 import com.microsoft.azure.oidc.common.algorithm.AlgorithmFactory;
 import com.microsoft.azure.oidc.common.algorithm.impl.SimpleAlgorithmFactory;
@@ -45,6 +46,8 @@ import com.microsoft.azure.oidc.common.name.impl.SimpleNameFactory;
 import com.microsoft.azure.oidc.common.timestamp.TimeStamp;
 import com.microsoft.azure.oidc.common.timestamp.TimeStampFactory;
 import com.microsoft.azure.oidc.common.timestamp.impl.SimpleTimeStampFactory;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheFactory;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.exception.PreconditionException;
 import com.microsoft.azure.oidc.token.Token;
@@ -60,7 +63,17 @@ import com.microsoft.azure.oidc.token.signature.Signature;
 import com.microsoft.azure.oidc.token.signature.SignatureFactory;
 import com.microsoft.azure.oidc.token.signature.impl.SimpleSignatureFactory;
 
+/**
+ * Finds the parts by scanning for the dots, and streams only the needed claims out of the decoded header and body
+ * without building JSON trees. The key name and algorithm are only taken from the header, and the other claims only
+ * from the body. A token parsed once is cached by its raw value, so the requests repeating the same
+ * cookie skip parsing. The expiration is still checked on every request by the filter.
+ */
 public final class SimpeTokenParser implements TokenParser {
+	private static final ObjectReader READER = new ObjectMapper().reader();
+	// In minutes, as the cache factory takes it
+	private static final Long PARSED_TOKEN_CACHE_TTL = 60L;
+	private static final Long PARSED_TOKEN_CACHE_SIZE = 1000L;
 	private static final TokenParser INSTANCE = new SimpeTokenParser();
 
 	private final SignatureFactory signatureFactory = SimpleSignatureFactory.getInstance();
@@ -81,114 +94,164 @@ public final class SimpeTokenParser implements TokenParser {
 
 	private final EmailFactory emailFactory = SimpleEmailFactory.getInstance();
 
+	private final ConcurrentCache<String, Token> parsedTokens = SimpleConcurrentCacheFactory
+			.getInstance(String.class, Token.class)
+			.createConcurrentCache(PARSED_TOKEN_CACHE_TTL, PARSED_TOKEN_CACHE_SIZE);
+
 	@Override
 	public Token getToken(String value) {
-		final String[] parts = value.split("\\.");
-		if (parts.length != 3) {
+		if (value == null) {
+			throw new PreconditionException("Required parameter is null");
+		}
+		final Token entry = parsedTokens.get(value);
+		if (entry != null) {
+			return entry;
+		}
+		final Token token = parseToken(value);
+		parsedTokens.putIfAbsent(value, token);
+		return token;
+	}
+
+	Token parseToken(final String value) {
+		final int headerEnd = value.indexOf('.');
+		final int bodyEnd = headerEnd < 0 ? -1 : value.indexOf('.', headerEnd + 1);
+		if (bodyEnd < 0 || bodyEnd == value.length() - 1 || value.indexOf('.', bodyEnd + 1) >= 0) {
 			throw new IllegalStateException(
-					String.format("Incorrect number of parts: Expected 3 got %s", parts.length));
+					String.format("Incorrect number of parts: Expected 3 got %s", value.split("\\.").length));
 		}
+		final String headerPart = value.substring(0, headerEnd);
+		final String bodyPart = value.substring(headerEnd + 1, bodyEnd);
+		final String signaturePart = value.substring(bodyEnd + 1);
 
-		final JsonNode header = parsePart(decodePart(parts[0]));
-		final JsonNode body = parsePart(decodePart(parts[1]));
+		final Claims claims = new Claims();
+		readClaims(decodePart(headerPart), claims, Boolean.TRUE);
+		readClaims(decodePart(bodyPart), claims, Boolean.FALSE);
 
-		final Name keyName = getKeyName(header);
-		final Algorithm algorithm = getAlgorithm(header);
+		final Name keyName = nameFactory.createKeyName(claims.keyName);
+		final Algorithm algorithm = algorithmFactory.createAlgorithm(claims.algorithm);
 
-		final TimeStamp issuedAt = getIssuedAt(body);
-		final TimeStamp notBefore = getNotBefore(body);
-		final TimeStamp expiration = getExpiration(body);
-		final Issuer issuer = getIssuer(body);
-		final ID audience = getAudience(body);
-		final ID userID = getUserID(body);
-		final List<Email> userEmails = getEmails(body);
+		final TimeStamp issuedAt = timeStampFactory.createTimeStamp(claims.issuedAt);
+		final TimeStamp notBefore = timeStampFactory.createTimeStamp(claims.notBefore);
+		final TimeStamp expiration = timeStampFactory.createTimeStamp(claims.expiration);
+		final Issuer issuer = issuerFactory.createIssuer(claims.issuer);
+		final ID audience = iDFactory.createID(claims.audience);
+		final ID userID = iDFactory.createID(claims.userID);
+		final List<Email> userEmails = claims.emails;
 
-		final Payload payload = getPayload(parts[0], parts[1]);
+		final Payload payload = payloadFactory.createPayload(headerPart, bodyPart);
 
-		final Signature signature = getSignature(parts[2]);
+		final Signature signature = signatureFactory.createSignature(signaturePart);
 
 		return tokenFactory.createToken(keyName, algorithm, issuedAt, notBefore, expiration, userID, userEmails, issuer,
 				audience, payload, signature);
 	}
 
-	private ID getUserID(final JsonNode node) {
-		final String value = node.has("oid") ? node.get("oid").asText() : null;
-		return iDFactory.createID(value);
-	}
-
-	private List<Email> getEmails(final JsonNode node) {
-		final List<Email> emails = new ArrayList<Email>();
-		for (final JsonNode n : node.get("emails")) {
-			emails.add(emailFactory.createEmail(n.asText()));
+	private void readClaims(final byte[] part, final Claims claims, final Boolean isHeader) {
+		try (final JsonParser parser = READER.getFactory().createParser(part)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new GeneralException("Token part is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				parser.nextToken();
+				if (isHeader) {
+					readHeaderClaim(parser, field, claims);
+				} else {
+					readBodyClaim(parser, field, claims);
+				}
+			}
+		} catch (IOException e) {
+			throw new GeneralException("IO Exception", e);
 		}
-		return emails;
-	}
-
-	private Payload getPayload(final String header, final String body) {
-		return payloadFactory.createPayload(header, body);
-	}
-
-	private Algorithm getAlgorithm(final JsonNode node) {
-		final String value = node.has("alg") ? node.get("alg").asText() : null;
-		return algorithmFactory.createAlgorithm(value);
-	}
-
-	private Name getKeyName(final JsonNode node) {
-		final String value = node.has("kid") ? node.get("kid").asText() : null;
-		return nameFactory.createKeyName(value);
 	}
 
-	private ID getAudience(final JsonNode node) {
-		final String value = node.has("aud") ? node.get("aud").asText() : null;
-		return iDFactory.createID(value);
-	}
-
-	private Issuer getIssuer(final JsonNode node) {
-		final String value = node.has("iss") ? node.get("iss").asText() : null;
-		return issuerFactory.createIssuer(value);
-	}
-
-	private TimeStamp getExpiration(final JsonNode node) {
-		final Long time = node.has("exp") ? node.get("exp").asLong() : Long.MAX_VALUE;
-		return timeStampFactory.createTimeStamp(time);
+	private void readHeaderClaim(final JsonParser parser, final String field, final Claims claims)
+			throws IOException {
+		switch (field) {
+		case "kid":
+			claims.keyName = readText(parser);
+			break;
+		case "alg":
+			claims.algorithm = readText(parser);
+			break;
+		default:
+			parser.skipChildren();
+		}
 	}
 
-	private TimeStamp getNotBefore(final JsonNode node) {
-		final Long time = node.has("nbf") ? node.get("nbf").asLong() : 0;
-		return timeStampFactory.createTimeStamp(time);
+	private void readBodyClaim(final JsonParser parser, final String field, final Claims claims) throws IOException {
+		switch (field) {
+		case "iss":
+			claims.issuer = readText(parser);
+			break;
+		case "aud":
+			claims.audience = readText(parser);
+			break;
+		case "oid":
+			claims.userID = readText(parser);
+			break;
+		case "iat":
+			claims.issuedAt = readLong(parser);
+			break;
+		case "nbf":
+			claims.notBefore = readLong(parser);
+			break;
+		case "exp":
+			claims.expiration = readLong(parser);
+			break;
+		case "emails":
+			readEmails(parser, claims.emails);
+			break;
+		default:
+			parser.skipChildren();
+		}
 	}
 
-	private TimeStamp getIssuedAt(final JsonNode node) {
-		final Long time = node.has("iat") ? node.get("iat").asLong() : 0;
-		return timeStampFactory.createTimeStamp(time);
+	private String readText(final JsonParser parser) throws IOException {
+		if (parser.getCurrentToken().isStructStart()) {
+			parser.skipChildren();
+			return "";
+		}
+		return parser.getText();
 	}
 
-	private Signature getSignature(final String value) {
-		return signatureFactory.createSignature(value);
+	private Long readLong(final JsonParser parser) throws IOException {
+		if (parser.getCurrentToken().isStructStart()) {
+			parser.skipChildren();
+			return 0L;
+		}
+		return parser.getValueAsLong(0L);
 	}
 
-	private String decodePart(final String part) {
-		if (part == null) {
-			throw new PreconditionException("Required parameter is null");
+	private void readEmails(final JsonParser parser, final List<Email> emails) throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return;
 		}
-		try {
-			final Base64 decoder = new Base64();
-			return new String(decoder.decode(part), "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new GeneralException("Unsupported Encoding Exception", e);
+		JsonToken token = parser.nextToken();
+		while (token != null && token != JsonToken.END_ARRAY) {
+			emails.add(emailFactory.createEmail(readText(parser)));
+			token = parser.nextToken();
 		}
 	}
 
-	private JsonNode parsePart(final String part) {
+	private byte[] decodePart(final String part) {
 		if (part == null) {
 			throw new PreconditionException("Required parameter is null");
 		}
-		try {
-			final ObjectMapper mapper = new ObjectMapper();
-			return mapper.readValue(part, JsonNode.class);
-		} catch (IOException e) {
-			throw new GeneralException("IO Exception", e);
-		}
+		return Base64.decodeBase64(part);
+	}
+
+	private static final class Claims {
+		private String keyName;
+		private String algorithm;
+		private String issuer;
+		private String audience;
+		private String userID;
+		private Long issuedAt = 0L;
+		private Long notBefore = 0L;
+		private Long expiration = Long.MAX_VALUE;
+		private final List<Email> emails = new ArrayList<Email>();
 	}
 
 	public static TokenParser getInstance() {
@@ -30,8 +30,13 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.RSAPublicKeySpec;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +46,12 @@ import com.microsoft.azure.oidc.application.settings.impl.SimpleApplicationSetti
 import com.microsoft.azure.oidc.common.timestamp.TimeStamp;
 import com.microsoft.azure.oidc.common.timestamp.TimeStampFactory;
 import com.microsoft.azure.oidc.common.timestamp.impl.SimpleTimeStampFactory;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheFactory;
 import com.microsoft.azure.oidc.configuration.Configuration;
 import com.microsoft.azure.oidc.configuration.ConfigurationCache;
 import com.microsoft.azure.oidc.configuration.impl.SimpleConfigurationCache;
+import com.microsoft.azure.oidc.configuration.key.Key;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.exception.PreconditionException;
 import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfigurationService;
@@ -54,21 +62,41 @@ import com.microsoft.azure.oidc.token.TokenValidator;
 public class SimpleTokenValidator implements TokenValidator {
 	private static final TokenValidator INSTANCE = new SimpleTokenValidator();
 	private static final Logger LOGGER = LoggerFactory.getLogger(SimpleTokenValidator.class);
+	private static final Long VERIFIED_TOKEN_CACHE_TTL = 60L;
+	private static final Long VERIFIED_TOKEN_CACHE_SIZE = 10000L;
 
 	private final ApplicationSettingsLoader applicationSettingsLoader = SimpleApplicationSettingsLoader.getInstance();
 
-	private final ConfigurationCache configurationCache = SimpleConfigurationCache.getInstance();
+	private final ConfigurationCache configurationCache;
 
-	private final TimeStampFactory timeStampFactory = SimpleTimeStampFactory.getInstance();
+	private final TimeStampFactory timeStampFactory;
 
-	private final AlgorithmConfigurationService algorithmConfigurationService = SimpleAlgorithmConfigurationService.getInstance();
+	private final AlgorithmConfigurationService algorithmConfigurationService;
+
+	private final ConcurrentMap<String, Queue<Signature>> signaturePools = new ConcurrentHashMap<String, Queue<Signature>>();
+
+	private volatile KeyCache keyCache;
+
+	public SimpleTokenValidator() {
+		this(SimpleConfigurationCache.getInstance(), SimpleTimeStampFactory.getInstance(),
+				SimpleAlgorithmConfigurationService.getInstance());
+	}
+
+	SimpleTokenValidator(final ConfigurationCache configurationCache, final TimeStampFactory timeStampFactory,
+			final AlgorithmConfigurationService algorithmConfigurationService) {
+		this.configurationCache = configurationCache;
+		this.timeStampFactory = timeStampFactory;
+		this.algorithmConfigurationService = algorithmConfigurationService;
+	}
 
 	@Override
 	public Boolean validateSignature(final Token token) {
 		if (token == null) {
 			throw new PreconditionException("Required parameter is null");
 		}
-		if (algorithmConfigurationService.get().getAlgorithmClassMap().get(token.getAlgorithm().getName()).equals("HMAC")) {
+		final String keyAlgorithm = algorithmConfigurationService.get().getAlgorithmClassMap()
+				.get(token.getAlgorithm().getName());
+		if (keyAlgorithm.equals("HMAC")) {
 			return Boolean.FALSE;
 		}
 		final Configuration configuration = configurationCache.load();
@@ -77,29 +105,94 @@ public class SimpleTokenValidator implements TokenValidator {
 		}
 		try {
 			final TimeStamp now = timeStampFactory.createTimeStamp(System.currentTimeMillis() / 1000);
-			if (configuration.getKey(token.getKeyName()).getNotBefore().compareTo(now) > 0) {
+			final Key key = configuration.getKey(token.getKeyName());
+			if (key.getNotBefore().compareTo(now) > 0) {
 				return Boolean.FALSE;
 			}
-			final Base64 decoder = new Base64();
-			final BigInteger exponent = new BigInteger(1,
-					decoder.decode(configuration.getKey(token.getKeyName()).getExponent().getValue()));
-			final BigInteger modulus = new BigInteger(1,
-					decoder.decode(configuration.getKey(token.getKeyName()).getSecret().getValue()));
-			final RSAPublicKeySpec pubKeySpec = new RSAPublicKeySpec(modulus, exponent);
-			final KeyFactory keyFactory = KeyFactory
-					.getInstance(algorithmConfigurationService.get().getAlgorithmClassMap().get(token.getAlgorithm().getName()));
-			final PublicKey pubKey = keyFactory.generatePublic(pubKeySpec);
-			final Signature sig = Signature
-					.getInstance(algorithmConfigurationService.get().getAlgorithmMap().get(token.getAlgorithm().getName()));
-			sig.initVerify(pubKey);
-			sig.update(token.getPayload().getValue().getBytes());
-			return sig.verify(decoder.decode(token.getSignature().getValue()));
+			final KeyCache currentKeyCache = getKeyCache(configuration);
+			final String tokenHash = DigestUtils.sha256Hex(token.getValue());
+			final TimeStamp verifiedExpiration = currentKeyCache.verifiedTokens.get(tokenHash);
+			if (verifiedExpiration != null && verifiedExpiration.compareTo(now) > 0) {
+				return Boolean.TRUE;
+			}
+			final PublicKey pubKey = getPublicKey(currentKeyCache, token.getKeyName().getName(), keyAlgorithm, key);
+			final String signatureAlgorithm = algorithmConfigurationService.get().getAlgorithmMap()
+					.get(token.getAlgorithm().getName());
+			final Boolean verified = verify(signatureAlgorithm, pubKey, token);
+			if (verified && token.getExpiration().compareTo(now) > 0) {
+				currentKeyCache.verifiedTokens.putIfAbsent(tokenHash, token.getExpiration());
+			}
+			return verified;
 		} catch (NoSuchAlgorithmException | InvalidKeySpecException | SignatureException | InvalidKeyException e) {
 			LOGGER.error(e.getMessage(), e);
 			return Boolean.FALSE;
 		}
 	}
 
+	/**
+	 * The public keys and the verified tokens are cached along with the configuration, and dropped as soon as the
+	 * configuration is reloaded, which may have the keys rotated.
+	 */
+	private KeyCache getKeyCache(final Configuration configuration) {
+		final KeyCache current = keyCache;
+		if (current != null && current.configuration == configuration) {
+			return current;
+		}
+		final KeyCache reloaded = new KeyCache(configuration);
+		keyCache = reloaded;
+		return reloaded;
+	}
+
+	private PublicKey getPublicKey(final KeyCache currentKeyCache, final String keyName, final String keyAlgorithm,
+			final Key key) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		final String cacheKey = keyAlgorithm + ":" + keyName;
+		final PublicKey cached = currentKeyCache.publicKeys.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+		final Base64 decoder = new Base64();
+		final BigInteger exponent = new BigInteger(1, decoder.decode(key.getExponent().getValue()));
+		final BigInteger modulus = new BigInteger(1, decoder.decode(key.getSecret().getValue()));
+		final RSAPublicKeySpec pubKeySpec = new RSAPublicKeySpec(modulus, exponent);
+		final PublicKey pubKey = KeyFactory.getInstance(keyAlgorithm).generatePublic(pubKeySpec);
+		final PublicKey existing = currentKeyCache.publicKeys.putIfAbsent(cacheKey, pubKey);
+		return existing == null ? pubKey : existing;
+	}
+
+	private Boolean verify(final String signatureAlgorithm, final PublicKey pubKey, final Token token)
+			throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+		Queue<Signature> pool = signaturePools.get(signatureAlgorithm);
+		if (pool == null) {
+			final Queue<Signature> created = new ConcurrentLinkedQueue<Signature>();
+			pool = signaturePools.putIfAbsent(signatureAlgorithm, created);
+			if (pool == null) {
+				pool = created;
+			}
+		}
+		Signature sig = pool.poll();
+		if (sig == null) {
+			sig = Signature.getInstance(signatureAlgorithm);
+		}
+		// initVerify resets the signature object, so a pooled one is as good as a new one
+		sig.initVerify(pubKey);
+		sig.update(token.getPayload().getValue().getBytes());
+		final Boolean verified = sig.verify(new Base64().decode(token.getSignature().getValue()));
+		pool.offer(sig);
+		return verified;
+	}
+
+	private static final class KeyCache {
+		private final Configuration configuration;
+		private final ConcurrentMap<String, PublicKey> publicKeys = new ConcurrentHashMap<String, PublicKey>();
+		private final ConcurrentCache<String, TimeStamp> verifiedTokens = SimpleConcurrentCacheFactory
+				.getInstance(String.class, TimeStamp.class)
+				.createConcurrentCache(VERIFIED_TOKEN_CACHE_TTL, VERIFIED_TOKEN_CACHE_SIZE);
+
+		private KeyCache(final Configuration configuration) {
+			this.configuration = configuration;
+		}
+	}
+
 	@Override
 	public Boolean validateAudience(final Token token) {
 		if (token == null) {
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.concurrent.cache.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheFactory;
+
+/**
+ * The role cache access by 64 request threads, mostly hits with a few misses putting new entries,
+ * run by `main()` with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class ConcurrentCacheBenchmark {
+	private static final long CACHE_SIZE = 10000L;
+
+	// The keys beyond the cache size are misses evicting the least recently used entries
+	@Param({ "10000", "12000" })
+	public int keysCount;
+
+	private ConcurrentCache<String, Boolean> cache;
+
+	private String[] keys;
+
+	@Setup
+	public void setUp() {
+		final ConcurrentCacheFactory<String, Boolean> factory = SimpleConcurrentCacheFactory.getInstance(String.class,
+				Boolean.class);
+		cache = factory.createConcurrentCache(30L, CACHE_SIZE);
+		keys = new String[keysCount];
+		for (int i = 0; i < keysCount; i++) {
+			keys[i] = "user" + i + ":role" + (i % 10);
+			if (i < CACHE_SIZE) {
+				cache.putIfAbsent(keys[i], Boolean.TRUE);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		cache.shutdownNow();
+	}
+
+	@Benchmark
+	public Boolean getOrPut() {
+		final String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+		final Boolean value = cache.get(key);
+		if (value != null) {
+			return value;
+		}
+		cache.putIfAbsent(key, Boolean.TRUE);
+		return Boolean.TRUE;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ConcurrentCacheBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
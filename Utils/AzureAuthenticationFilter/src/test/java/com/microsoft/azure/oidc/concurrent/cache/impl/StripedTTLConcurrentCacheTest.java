@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.concurrent.cache.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class StripedTTLConcurrentCacheTest {
+	private final AtomicLong now = new AtomicLong(1540220400000L);
+
+	@Test
+	public void testEntryExpiresAfterTtl() {
+		final StripedTTLConcurrentCache<String, String> cache = createCache(1L, 10L, 1);
+		assertNull(cache.putIfAbsent("a", "1"));
+
+		now.addAndGet(60000L - 1L);
+		assertEquals("1", cache.get("a"));
+		assertEquals("1", cache.putIfAbsent("a", "2"));
+
+		now.addAndGet(1L);
+		assertNull(cache.get("a"));
+		assertEquals(0L, cache.size());
+		assertEquals(1L, cache.getExpirationCount());
+
+		assertNull(cache.putIfAbsent("a", "2"));
+		assertEquals("2", cache.get("a"));
+	}
+
+	@Test
+	public void testExpiredEntryIsReplacedByPut() {
+		final StripedTTLConcurrentCache<String, String> cache = createCache(1L, 10L, 1);
+		cache.putIfAbsent("a", "1");
+
+		now.addAndGet(60000L);
+		assertNull(cache.putIfAbsent("a", "2"));
+		assertEquals("2", cache.get("a"));
+		assertEquals(1L, cache.getExpirationCount());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvictedWhenStripeIsFull() {
+		final StripedTTLConcurrentCache<String, String> cache = createCache(1L, 2L, 1);
+		cache.putIfAbsent("a", "1");
+		cache.putIfAbsent("b", "2");
+
+		// Reading "a" makes "b" the least recently used one
+		assertEquals("1", cache.get("a"));
+		assertNull(cache.putIfAbsent("c", "3"));
+
+		assertEquals(2L, cache.size());
+		assertEquals(1L, cache.getEvictionCount());
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.get("c"));
+		assertEquals(0L, cache.getExpirationCount());
+	}
+
+	@Test
+	public void testNonPositiveTtlExpiresEntriesAtOnce() {
+		for (final long ttl : new long[] { 0L, -1L }) {
+			final StripedTTLConcurrentCache<String, String> cache = createCache(ttl, 10L, 1);
+			assertNull(cache.putIfAbsent("a", "1"));
+			assertNull(cache.putIfAbsent("a", "2"));
+			assertNull(cache.get("a"));
+
+			assertEquals(0L, cache.size());
+			assertEquals(2L, cache.getExpirationCount());
+			assertEquals(0L, cache.getHitCount());
+			assertEquals(1L, cache.getMissCount());
+		}
+	}
+
+	@Test
+	public void testNonPositiveMaxSizeKeepsLatestEntry() {
+		for (final long maxSize : new long[] { 0L, -1L }) {
+			final StripedTTLConcurrentCache<String, String> cache = new StripedTTLConcurrentCache<String, String>(1L,
+					maxSize);
+			cache.putIfAbsent("a", "1");
+			cache.putIfAbsent("b", "2");
+
+			assertEquals(1L, cache.size());
+			assertEquals(1L, cache.getEvictionCount());
+			assertNull(cache.get("a"));
+			assertEquals("2", cache.get("b"));
+		}
+	}
+
+	@Test
+	public void testCountersAreSummedOverStripes() {
+		final StripedTTLConcurrentCache<Integer, String> cache = createCache(1L, 64L, 16);
+		for (int i = 0; i < 32; i++) {
+			cache.putIfAbsent(i, String.valueOf(i));
+		}
+		for (int i = 0; i < 48; i++) {
+			cache.get(i);
+		}
+
+		assertEquals(32L, cache.size());
+		assertEquals(32L, cache.getHitCount());
+		assertEquals(16L, cache.getMissCount());
+		assertEquals(0L, cache.getEvictionCount());
+
+		cache.shutdownNow();
+		assertEquals(0L, cache.size());
+		assertNull(cache.get(0));
+	}
+
+	private <K, V> StripedTTLConcurrentCache<K, V> createCache(final long ttl, final long maxSize,
+			final long concurrency) {
+		return new StripedTTLConcurrentCache<K, V>(ttl, maxSize, concurrency) {
+			@Override
+			long currentTimeMillis() {
+				return now.get();
+			}
+		};
+	}
+}
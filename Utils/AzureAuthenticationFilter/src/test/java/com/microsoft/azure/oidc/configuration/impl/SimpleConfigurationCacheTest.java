@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.configuration.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.oidc.common.algorithm.impl.SimpleAlgorithmFactory;
+import com.microsoft.azure.oidc.common.issuer.impl.SimpleIssuerFactory;
+import com.microsoft.azure.oidc.common.name.Name;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.executor.ConcurrentExecutorService;
+import com.microsoft.azure.oidc.concurrent.executor.impl.SimpleConcurrentExecutorService;
+import com.microsoft.azure.oidc.configuration.Configuration;
+import com.microsoft.azure.oidc.configuration.ConfigurationLoader;
+import com.microsoft.azure.oidc.configuration.endpoint.impl.SimpleEndPointFactory;
+import com.microsoft.azure.oidc.configuration.key.Key;
+
+public class SimpleConfigurationCacheTest {
+	private final ConcurrentCacheService concurrentCacheService = new SimpleConcurrentCacheService();
+
+	private final ConcurrentExecutorService concurrentExecutorService = new SimpleConcurrentExecutorService();
+
+	private final BlockingQueue<FutureTask<Configuration>> loads = new LinkedBlockingQueue<FutureTask<Configuration>>();
+
+	private final AtomicInteger loadCount = new AtomicInteger();
+
+	private final AtomicLong now = new AtomicLong(1540220400000L);
+
+	private SimpleConfigurationCache configurationCache;
+
+	@Before
+	public void setUp() {
+		concurrentCacheService.createCache(Configuration.class, "configurationCache", SimpleConfigurationCache.CACHE_TTL,
+				1L);
+		concurrentExecutorService.createExecutor(1, 10);
+
+		// Every load waits for the test to complete it
+		final ConfigurationLoader configurationLoader = new ConfigurationLoader() {
+			@Override
+			public Future<Configuration> loadAsync() {
+				loadCount.incrementAndGet();
+				final FutureTask<Configuration> load = new FutureTask<Configuration>(new Callable<Configuration>() {
+					@Override
+					public Configuration call() {
+						return createConfiguration("https://login.microsoftonline.com/tenant" + loadCount.get());
+					}
+				});
+				loads.add(load);
+				return load;
+			}
+		};
+		configurationCache = new SimpleConfigurationCache(configurationLoader, concurrentCacheService,
+				concurrentExecutorService) {
+			@Override
+			long currentTimeMillis() {
+				return now.get();
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		concurrentExecutorService.shutdownNow();
+		concurrentCacheService.shutdownNow();
+	}
+
+	@Test
+	public void testExpiredConfigurationIsServedStaleWhileRefreshing() throws Exception {
+		final Configuration first = loadInForeground();
+		assertSame(first, configurationCache.load());
+		assertEquals(1, loadCount.get());
+
+		expire(SimpleConfigurationCache.CACHE_TTL * 60L * 1000L + 1000L);
+
+		// The stale configuration is served at once, while the refresh waits for the loader in the background
+		assertSame(first, loadWithoutWaiting());
+		final FutureTask<Configuration> refresh = loads.poll(5, TimeUnit.SECONDS);
+		assertFalse(refresh.isDone());
+		assertSame(first, loadWithoutWaiting());
+		assertEquals(2, loadCount.get());
+
+		refresh.run();
+		final Configuration second = refresh.get();
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (configurationCache.load() != second && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertSame(second, configurationCache.load());
+		assertEquals(2, loadCount.get());
+	}
+
+	@Test
+	public void testConfigurationExpiredPastGraceIsLoadedInForeground() throws Exception {
+		final Configuration first = loadInForeground();
+
+		expire(2L * SimpleConfigurationCache.CACHE_TTL * 60L * 1000L + 1000L);
+
+		final Configuration second = loadInForeground();
+		assertNotSame(first, second);
+		assertSame(second, configurationCache.load());
+		assertEquals(2, loadCount.get());
+	}
+
+	/**
+	 * Move the clock and drop the cache entry, as the cache TTL passed
+	 */
+	private void expire(final long millis) {
+		now.addAndGet(millis);
+		concurrentCacheService.createCache(Configuration.class, "configurationCache", SimpleConfigurationCache.CACHE_TTL,
+				1L);
+	}
+
+	private Configuration loadWithoutWaiting() throws Exception {
+		final FutureTask<Configuration> load = new FutureTask<Configuration>(new Callable<Configuration>() {
+			@Override
+			public Configuration call() {
+				return configurationCache.load();
+			}
+		});
+		final Thread loader = new Thread(load);
+		loader.setDaemon(true);
+		loader.start();
+		return load.get(5, TimeUnit.SECONDS);
+	}
+
+	private Configuration loadInForeground() throws Exception {
+		final Thread completer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					loads.take().run();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		completer.start();
+		final Configuration configuration = configurationCache.load();
+		completer.join();
+		return configuration;
+	}
+
+	private static Configuration createConfiguration(final String issuer) {
+		return SimpleConfigurationFactory.getInstance().createConfiguration(
+				Collections.singletonList(SimpleAlgorithmFactory.getInstanc().createAlgorithm("RS256")),
+				Collections.<Name, Key>emptyMap(), SimpleIssuerFactory.getInstance().createIssuer(issuer),
+				SimpleEndPointFactory.getInstance().createEndPoint(issuer + "/authorize"),
+				SimpleEndPointFactory.getInstance().createEndPoint(issuer + "/logout"));
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.token.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import com.microsoft.azure.oidc.exception.GeneralException;
+import com.microsoft.azure.oidc.token.Token;
+
+public class SimpeTokenParserTest {
+	private static final String HEADER = "{\"typ\":\"JWT\",\"alg\":\"RS256\",\"kid\":\"header-key\","
+			+ "\"iss\":\"header-issuer\",\"exp\":1}";
+
+	private static final String BODY = "{\"kid\":\"body-key\",\"alg\":\"none\",\"exp\":1540224000,"
+			+ "\"nbf\":1540220400,\"iat\":1540220300,\"iss\":\"https://login.microsoftonline.com/tenant/v2.0/\","
+			+ "\"aud\":\"application\",\"oid\":\"user\",\"emails\":[\"user@contoso.com\"],"
+			+ "\"extension\":{\"kid\":\"nested-key\"}}";
+
+	private final SimpeTokenParser parser = new SimpeTokenParser();
+
+	@Test
+	public void testHeaderAndBodyClaimsAreSeparate() {
+		final String value = createToken(HEADER, BODY, "signature");
+		final Token token = parser.parseToken(value);
+
+		assertEquals("header-key", token.getKeyName().getName());
+		assertEquals("RS256", token.getAlgorithm().getName());
+		assertEquals("https://login.microsoftonline.com/tenant/v2.0/", token.getIssuer().getName());
+		assertEquals(Long.valueOf(1540224000L), token.getExpiration().getTime());
+		assertEquals(Long.valueOf(1540220400L), token.getNotBefore().getTime());
+		assertEquals(Long.valueOf(1540220300L), token.getIssuedAt().getTime());
+		assertEquals("application", token.getAudience().getValue());
+		assertEquals("user", token.getUserID().getValue());
+		assertEquals(1, token.getUserEmails().size());
+		assertEquals("user@contoso.com", token.getUserEmails().get(0).getValue());
+		assertEquals(value.substring(0, value.lastIndexOf('.')), token.getPayload().getValue());
+		assertEquals(encode("signature"), token.getSignature().getValue());
+	}
+
+	@Test
+	public void testMalformedTokensAreRejected() {
+		final String header = encode(HEADER);
+		final String body = encode(BODY);
+
+		assertRejected("", IllegalStateException.class);
+		assertRejected(header, IllegalStateException.class);
+		assertRejected(header + "." + body, IllegalStateException.class);
+		assertRejected(header + "." + body + ".", IllegalStateException.class);
+		assertRejected(header + "." + body + ".signature.more", IllegalStateException.class);
+		assertRejected(header + ".." + encode("signature"), GeneralException.class);
+		assertRejected(header + "." + encode("[\"not an object\"]") + "." + encode("signature"),
+				GeneralException.class);
+	}
+
+	@Test
+	public void testParsedTokenIsCached() {
+		final String value = createToken(HEADER, BODY, "signature");
+
+		final Token token = parser.getToken(value);
+		assertSame(token, parser.getToken(value));
+		assertNotSame(token, parser.parseToken(value));
+
+		final Token other = parser.getToken(createToken(HEADER, BODY, "other signature"));
+		assertNotSame(token, other);
+		assertEquals(encode("other signature"), other.getSignature().getValue());
+	}
+
+	private void assertRejected(final String value, final Class<? extends RuntimeException> expected) {
+		try {
+			parser.getToken(value);
+			fail("Parsed the malformed token " + value);
+		} catch (RuntimeException e) {
+			assertEquals(expected, e.getClass());
+		}
+	}
+
+	private static String createToken(final String header, final String body, final String signature) {
+		return encode(header) + "." + encode(body) + "." + encode(signature);
+	}
+
+	private static String encode(final String value) {
+		return Base64.encodeBase64URLSafeString(value.getBytes(StandardCharsets.UTF_8));
+	}
+}
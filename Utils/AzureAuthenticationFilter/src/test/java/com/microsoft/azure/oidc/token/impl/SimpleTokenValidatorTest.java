@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.token.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterConfig;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.oidc.common.algorithm.Algorithm;
+import com.microsoft.azure.oidc.common.algorithm.impl.SimpleAlgorithmFactory;
+import com.microsoft.azure.oidc.common.issuer.impl.SimpleIssuerFactory;
+import com.microsoft.azure.oidc.common.name.Name;
+import com.microsoft.azure.oidc.common.name.impl.SimpleNameFactory;
+import com.microsoft.azure.oidc.common.timestamp.TimeStamp;
+import com.microsoft.azure.oidc.common.timestamp.TimeStampFactory;
+import com.microsoft.azure.oidc.common.timestamp.impl.SimpleTimeStampFactory;
+import com.microsoft.azure.oidc.configuration.Configuration;
+import com.microsoft.azure.oidc.configuration.ConfigurationCache;
+import com.microsoft.azure.oidc.configuration.endpoint.impl.SimpleEndPointFactory;
+import com.microsoft.azure.oidc.configuration.impl.SimpleConfigurationFactory;
+import com.microsoft.azure.oidc.configuration.key.Key;
+import com.microsoft.azure.oidc.configuration.key.exponent.impl.SimpleExponentFactory;
+import com.microsoft.azure.oidc.configuration.key.impl.SimpleKeyFactory;
+import com.microsoft.azure.oidc.configuration.key.modulus.impl.SimpleModulusFactory;
+import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfiguration;
+import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfigurationService;
+import com.microsoft.azure.oidc.token.Token;
+
+public class SimpleTokenValidatorTest {
+	private static final String KEY_NAME = "key1";
+
+	private final AtomicLong now = new AtomicLong(1540220400L);
+
+	private final AtomicReference<Configuration> configuration = new AtomicReference<Configuration>();
+
+	private final Map<String, String> algorithmMap = new HashMap<String, String>();
+
+	private final Map<String, String> algorithmClassMap = new HashMap<String, String>();
+
+	private SimpleTokenValidator validator;
+
+	@Before
+	public void setUp() {
+		algorithmMap.put("RS256", "SHA256withRSA");
+		algorithmClassMap.put("RS256", "RSA");
+
+		final TimeStampFactory clock = new TimeStampFactory() {
+			@Override
+			public TimeStamp createTimeStamp(final Long time) {
+				return SimpleTimeStampFactory.getInstance().createTimeStamp(now.get());
+			}
+		};
+		final ConfigurationCache configurationCache = new ConfigurationCache() {
+			@Override
+			public Configuration load() {
+				return configuration.get();
+			}
+		};
+		final AlgorithmConfiguration algorithmConfiguration = new AlgorithmConfiguration() {
+			@Override
+			public Map<String, String> getAlgorithmMap() {
+				return algorithmMap;
+			}
+
+			@Override
+			public Map<String, String> getAlgorithmClassMap() {
+				return algorithmClassMap;
+			}
+		};
+		final AlgorithmConfigurationService algorithmConfigurationService = new AlgorithmConfigurationService() {
+			@Override
+			public void initialise(final FilterConfig filterConfig, final String parameterName) {
+			}
+
+			@Override
+			public AlgorithmConfiguration get() {
+				return algorithmConfiguration;
+			}
+		};
+		validator = new SimpleTokenValidator(configurationCache, clock, algorithmConfigurationService);
+	}
+
+	@Test
+	public void testTamperedSignatureIsNotServedFromCache() throws Exception {
+		final KeyPair keyPair = generateKeyPair();
+		configuration.set(createConfiguration(keyPair));
+		final String value = createToken(keyPair, now.get() + 3600);
+
+		assertTrue(validator.validateSignature(parse(value)));
+
+		// The same header and body with another signature, right after the genuine token got cached
+		final String payload = value.substring(0, value.lastIndexOf('.'));
+		final String forged = payload + "." + Base64.encodeBase64URLSafeString(sign(generateKeyPair(), payload));
+		assertFalse(validator.validateSignature(parse(forged)));
+
+		assertTrue(validator.validateSignature(parse(value)));
+	}
+
+	@Test
+	public void testNewConfigurationDropsCachedKeys() throws Exception {
+		final KeyPair oldKeyPair = generateKeyPair();
+		configuration.set(createConfiguration(oldKeyPair));
+		final String oldToken = createToken(oldKeyPair, now.get() + 3600);
+
+		assertTrue(validator.validateSignature(parse(oldToken)));
+
+		// The key is rotated under the same name, so neither the public key nor the verified token is reused
+		final KeyPair newKeyPair = generateKeyPair();
+		configuration.set(createConfiguration(newKeyPair));
+
+		assertFalse(validator.validateSignature(parse(oldToken)));
+		assertTrue(validator.validateSignature(parse(createToken(newKeyPair, now.get() + 3600))));
+	}
+
+	@Test
+	public void testExpiredTokenIsNotServedFromCache() throws Exception {
+		final KeyPair keyPair = generateKeyPair();
+		configuration.set(createConfiguration(keyPair));
+		final Token token = parse(createToken(keyPair, now.get() + 60));
+
+		assertTrue(validator.validateSignature(token));
+		assertTrue(validator.validateExpiration(token));
+
+		now.addAndGet(120);
+
+		// The signature can't be verified with this algorithm, so only a cache hit could still accept the token
+		algorithmMap.put("RS256", "SHA512withRSA");
+
+		assertFalse(validator.validateSignature(token));
+		assertFalse(validator.validateExpiration(token));
+	}
+
+	private Token parse(final String value) {
+		return new SimpeTokenParser().parseToken(value);
+	}
+
+	private String createToken(final KeyPair keyPair, final long expiration) throws Exception {
+		final String header = "{\"typ\":\"JWT\",\"alg\":\"RS256\",\"kid\":\"" + KEY_NAME + "\"}";
+		final String body = "{\"exp\":" + expiration + ",\"nbf\":" + now.get() + ",\"iat\":" + now.get()
+				+ ",\"iss\":\"https://login.microsoftonline.com/tenant/v2.0/\",\"aud\":\"application\","
+				+ "\"oid\":\"user\",\"emails\":[\"user@contoso.com\"]}";
+		final String payload = Base64.encodeBase64URLSafeString(header.getBytes(StandardCharsets.UTF_8)) + "."
+				+ Base64.encodeBase64URLSafeString(body.getBytes(StandardCharsets.UTF_8));
+		return payload + "." + Base64.encodeBase64URLSafeString(sign(keyPair, payload));
+	}
+
+	private static byte[] sign(final KeyPair keyPair, final String payload) throws Exception {
+		final java.security.Signature signature = java.security.Signature.getInstance("SHA256withRSA");
+		signature.initSign(keyPair.getPrivate());
+		signature.update(payload.getBytes(StandardCharsets.UTF_8));
+		return signature.sign();
+	}
+
+	private static KeyPair generateKeyPair() throws Exception {
+		final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		return generator.generateKeyPair();
+	}
+
+	private static Configuration createConfiguration(final KeyPair keyPair) {
+		final RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+		final Key key = SimpleKeyFactory.getInstance().createKey(
+				SimpleTimeStampFactory.getInstance().createTimeStamp(0L),
+				SimpleModulusFactory.getInstance().createKeyValue(
+						Base64.encodeBase64URLSafeString(publicKey.getModulus().toByteArray())),
+				SimpleExponentFactory.getInstance().createKeyExponent(
+						Base64.encodeBase64URLSafeString(publicKey.getPublicExponent().toByteArray())));
+		final Algorithm algorithm = SimpleAlgorithmFactory.getInstanc().createAlgorithm("RS256");
+		return SimpleConfigurationFactory.getInstance().createConfiguration(Collections.singletonList(algorithm),
+				Collections.<Name, Key>singletonMap(SimpleNameFactory.getInstance().createKeyName(KEY_NAME), key),
+				SimpleIssuerFactory.getInstance().createIssuer("https://login.microsoftonline.com/tenant/v2.0/"),
+				SimpleEndPointFactory.getInstance().createEndPoint("https://login.microsoftonline.com/authorize"),
+				SimpleEndPointFactory.getInstance().createEndPoint("https://login.microsoftonline.com/logout"));
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell 
+ * copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.microsoft.azure.oidc.token.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.oidc.token.Token;
+
+/**
+ * Parsing an Azure AD B2C id_token with an RS256 signature, compared with the former split and JSON tree parsing,
+ * run by `main()` with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenParserBenchmark {
+	private static final String HEADER = "{\"typ\":\"JWT\",\"alg\":\"RS256\","
+			+ "\"kid\":\"X5eXk4xyojNFum1kl2Ytv8dlNP4-c57dO6QGTVBwaNk\"}";
+
+	private static final String BODY = "{\"exp\":1540224000,\"nbf\":1540220400,\"ver\":\"1.0\","
+			+ "\"iss\":\"https://login.microsoftonline.com/775527ff-9a37-4307-8b3d-cc311f58d925/v2.0/\","
+			+ "\"sub\":\"Not supported currently. Use oid claim.\","
+			+ "\"aud\":\"9e2a7f4c-1b3d-4e5f-8a6b-7c8d9e0f1a2b\",\"nonce\":\"defaultNonce\",\"iat\":1540220400,"
+			+ "\"auth_time\":1540220400,\"oid\":\"1c4b9e2d-7f3a-4b6c-9d8e-2f1a3b5c7d9e\","
+			+ "\"given_name\":\"Alex\",\"family_name\":\"Wilber\",\"name\":\"Alex Wilber\","
+			+ "\"idp\":\"live.com\",\"emails\":[\"alex.wilber@contoso.com\"],\"tfp\":\"B2C_1_SiUpIn\","
+			+ "\"c_hash\":\"Dr9bzGmOTRBgqKNbP3h4Lw\",\"at_hash\":\"HGNdZ4l4cM4vWzZ3iJ5e1Q\"}";
+
+	private final ObjectMapper legacyMapper = new ObjectMapper();
+
+	private SimpeTokenParser parser;
+
+	private String token;
+
+	@Setup
+	public void setUp() {
+		final byte[] signature = new byte[256];
+		new Random(42).nextBytes(signature);
+		token = Base64.encodeBase64URLSafeString(HEADER.getBytes(StandardCharsets.UTF_8)) + "."
+				+ Base64.encodeBase64URLSafeString(BODY.getBytes(StandardCharsets.UTF_8)) + "."
+				+ Base64.encodeBase64URLSafeString(signature);
+		parser = (SimpeTokenParser) SimpeTokenParser.getInstance();
+	}
+
+	@Benchmark
+	public Token cached() {
+		return parser.getToken(token);
+	}
+
+	@Benchmark
+	public Token streaming() {
+		return parser.parseToken(token);
+	}
+
+	@Benchmark
+	public JsonNode treeModel() throws IOException {
+		final String[] parts = token.split("\\.");
+		new ObjectMapper().readValue(new String(new Base64().decode(parts[0]), "UTF-8"), JsonNode.class);
+		return legacyMapper.readValue(new String(new Base64().decode(parts[1]), "UTF-8"), JsonNode.class);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(TokenParserBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
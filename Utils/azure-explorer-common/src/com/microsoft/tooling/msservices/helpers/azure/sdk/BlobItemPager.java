@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.model.storage.BlobDirectory;
+
+import java.io.Closeable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The Blob Items pager, which lists a directory page by page, and prefetches the next page in the background
+ * while the caller is rendering the current one. Only one page is prefetched at a time, so a closed or abandoned
+ * pager costs at most one extra listing request.
+ */
+public class BlobItemPager implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "BlobItemPager-prefetch");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    interface PageLoader {
+        @NotNull
+        BlobItemPage load(@Nullable ResultContinuation continuationToken) throws AzureCmdException;
+    }
+
+    @NotNull
+    private final PageLoader loader;
+
+    @Nullable
+    private volatile Future<BlobItemPage> prefetching;
+
+    private boolean started = false;
+
+    private volatile boolean finished = false;
+
+    public BlobItemPager(@NotNull String connectionString, @NotNull BlobDirectory blobDirectory, int pageSize) {
+        this(continuationToken -> StorageClientSDKManager.getManager()
+                .getBlobItemsPage(connectionString, blobDirectory, pageSize, continuationToken));
+    }
+
+    BlobItemPager(@NotNull PageLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Get the next page, which is fetched already in most cases except the first page
+     *
+     * @return the next page, null if there is no more page or the pager is closed
+     */
+    @Nullable
+    public synchronized BlobItemPage nextPage() throws AzureCmdException {
+        if (finished) {
+            return null;
+        }
+
+        BlobItemPage page;
+
+        if (!started) {
+            started = true;
+            page = loader.load(null);
+        } else {
+            page = waitPrefetching();
+
+            if (page == null) {
+                return null;
+            }
+        }
+
+        if (page.hasMore() && !finished) {
+            ResultContinuation continuationToken = page.getContinuationToken();
+            prefetching = prefetchExecutor.submit(() -> loader.load(continuationToken));
+        } else {
+            finished = true;
+        }
+
+        return page;
+    }
+
+    @Nullable
+    private BlobItemPage waitPrefetching() throws AzureCmdException {
+        Future<BlobItemPage> current = prefetching;
+
+        if (current == null) {
+            throw new IllegalStateException("No Blob Items page is prefetching");
+        }
+
+        try {
+            return current.get();
+        } catch (CancellationException ex) {
+            // Closed by the other thread
+            return null;
+        } catch (InterruptedException ex) {
+            current.cancel(true);
+            finished = true;
+            Thread.currentThread().interrupt();
+
+            throw new AzureCmdException("Interrupted while retrieving the Blob Item list", ex);
+        } catch (ExecutionException ex) {
+            finished = true;
+
+            if (ex.getCause() instanceof AzureCmdException) {
+                throw (AzureCmdException) ex.getCause();
+            }
+
+            throw new AzureCmdException("Error retrieving the Blob Item list", ex.getCause());
+        } finally {
+            prefetching = null;
+        }
+    }
+
+    /**
+     * Stop paging and cancel the prefetching page, which doesn't wait for the page fetching in nextPage()
+     */
+    @Override
+    public void close() {
+        finished = true;
+
+        Future<BlobItemPage> current = prefetching;
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.BlockSearchMode;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.core.Base64;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The block blob uploader, which reads the local file blocks by positional reads of a FileChannel and uploads
+ * several blocks in parallel, then commits the block list. Each block is retried by itself.
+ *
+ * The block IDs are derived from the file name, length, modified time and the block size, so uploading the same
+ * file again after a failure skips the blocks uploaded but not committed yet with the same ID and size.
+ */
+public class ParallelBlockBlobUploader {
+    public static final int DEFAULT_MAX_BLOCKS_IN_FLIGHT = 4;
+
+    public static final int DEFAULT_RETRIES_MAX = 3;
+
+    static final long MIN_BLOCK_SIZE = 1024 * 1024;
+
+    static final long MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    // The max blocks count of a block blob
+    private static final long MAX_BLOCKS_COUNT = 50000;
+
+    // The blocks count for each upload thread to balance the load, unless the blocks are too small or too large
+    private static final long BLOCKS_PER_THREAD = 8;
+
+    private static final long RETRY_DELAY_MILLISECONDS = 1000;
+
+    @NotNull
+    private final CloudBlockBlob blob;
+
+    private final int maxBlocksInFlight;
+
+    private final int retriesMax;
+
+    public ParallelBlockBlobUploader(@NotNull CloudBlockBlob blob) {
+        this(blob, DEFAULT_MAX_BLOCKS_IN_FLIGHT, DEFAULT_RETRIES_MAX);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param blob the block blob to upload to
+     * @param maxBlocksInFlight the max count of blocks uploading in parallel
+     * @param retriesMax the max attempts count to upload one block
+     */
+    public ParallelBlockBlobUploader(@NotNull CloudBlockBlob blob, int maxBlocksInFlight, int retriesMax) {
+        this.blob = blob;
+        this.maxBlocksInFlight = Math.max(1, maxBlocksInFlight);
+        this.retriesMax = Math.max(1, retriesMax);
+    }
+
+    /**
+     * Get the block size adapted to the file length, which makes enough blocks for the upload threads,
+     * and keeps the memory used by the blocks in flight bounded
+     *
+     * @param length the file length
+     * @return the block size in bytes
+     */
+    long getBlockSize(long length) {
+        long blockSize = length / (maxBlocksInFlight * BLOCKS_PER_THREAD);
+        blockSize = Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, blockSize));
+
+        // Round up to MB
+        blockSize = (blockSize + MIN_BLOCK_SIZE - 1) / MIN_BLOCK_SIZE * MIN_BLOCK_SIZE;
+
+        return Math.max(blockSize, (length + MAX_BLOCKS_COUNT - 1) / MAX_BLOCKS_COUNT);
+    }
+
+    /**
+     * Upload the local file to the block blob
+     *
+     * @param file the local file to upload
+     * @param processBlock the callback with the uploaded bytes count, called with 0 at first and after
+     *                     each block is uploaded
+     * @throws Exception for the upload failures, or InterruptedException if the upload is cancelled
+     */
+    public void upload(@NotNull File file, @Nullable CallableSingleArg<Void, Long> processBlock) throws Exception {
+        long length = file.length();
+        long blockSize = getBlockSize(length);
+        int blocksCount = (int) ((length + blockSize - 1) / blockSize);
+        String uploadId = UUID.nameUUIDFromBytes(String.format("%s|%d|%d|%d",
+                file.getName(), length, file.lastModified(), blockSize).getBytes(StandardCharsets.UTF_8)).toString();
+
+        Map<String, Long> uncommittedBlocks = getUncommittedBlocks();
+        List<BlockEntry> blockEntries = new ArrayList<>(blocksCount);
+        List<Future<?>> blockUploads = new ArrayList<>(blocksCount);
+        AtomicLong uploadedBytes = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxBlocksInFlight, Math.max(1, blocksCount)));
+
+        reportProgress(processBlock, uploadedBytes, 0);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (int i = 0; i < blocksCount; i++) {
+                long offset = i * blockSize;
+                int size = (int) Math.min(blockSize, length - offset);
+                String blockId = Base64.encode(String.format("%s-%06d", uploadId, i).getBytes(StandardCharsets.UTF_8));
+
+                blockEntries.add(new BlockEntry(blockId, BlockSearchMode.LATEST));
+
+                if (uncommittedBlocks.getOrDefault(blockId, -1L) == size) {
+                    // Uploaded by the last failed upload
+                    reportProgress(processBlock, uploadedBytes, size);
+                    continue;
+                }
+
+                blockUploads.add(executor.submit(() -> {
+                    uploadBlock(channel, blockId, offset, size);
+                    reportProgress(processBlock, uploadedBytes, size);
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> blockUpload : blockUploads) {
+                try {
+                    blockUpload.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof Exception) {
+                        throw (Exception) ex.getCause();
+                    }
+
+                    throw ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        blob.commitBlockList(blockEntries);
+    }
+
+    private void uploadBlock(@NotNull FileChannel channel, @NotNull String blockId, long offset, int size)
+            throws Exception {
+        byte[] buffer = new byte[size];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+
+        while (byteBuffer.hasRemaining()) {
+            if (channel.read(byteBuffer, offset + byteBuffer.position()) < 0) {
+                throw new EOFException(String.format(
+                        "Unexpected file end at %d, the file may be changed", offset + byteBuffer.position()));
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                blob.uploadBlock(blockId, new ByteArrayInputStream(buffer), size);
+
+                return;
+            } catch (StorageException | IOException ex) {
+                if (attempt >= retriesMax) {
+                    throw ex;
+                }
+
+                TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLISECONDS * attempt);
+            }
+        }
+    }
+
+    @NotNull
+    private Map<String, Long> getUncommittedBlocks() throws StorageException {
+        Map<String, Long> blocks = new HashMap<>();
+
+        try {
+            for (BlockEntry block : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, null, null, null)) {
+                blocks.put(block.getId(), block.getSize());
+            }
+        } catch (StorageException ex) {
+            if (ex.getHttpStatusCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw ex;
+            }
+        }
+
+        return blocks;
+    }
+
+    private static void reportProgress(@Nullable CallableSingleArg<Void, Long> processBlock,
+                                       @NotNull AtomicLong uploadedBytes,
+                                       long blockUploadedBytes) throws Exception {
+        // Report in order of the uploaded bytes increasing
+        synchronized (uploadedBytes) {
+            long bytes = uploadedBytes.addAndGet(blockUploadedBytes);
+
+            if (processBlock != null) {
+                processBlock.call(bytes);
+            }
+        }
+    }
+}
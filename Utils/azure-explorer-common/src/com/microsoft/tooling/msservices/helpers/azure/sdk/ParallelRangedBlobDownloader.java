@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The blob downloader, which downloads several ranges of the blob in parallel and writes them straight into the
+ * preallocated local file at their offsets by a FileChannel. Each range is retried by itself.
+ *
+ * The downloaded ranges are recorded in a sidecar checkpoint file next to the target file, so downloading the same
+ * blob to the same file again after a failure or cancellation only downloads the missing ranges, as long as the
+ * blob isn't changed, which is checked by the ETag. The checkpoint file is deleted after the download completes.
+ */
+public class ParallelRangedBlobDownloader {
+    public static final int DEFAULT_MAX_RANGES_IN_FLIGHT = 4;
+
+    public static final int DEFAULT_RETRIES_MAX = 3;
+
+    public static final String CHECKPOINT_FILE_SUFFIX = ".download";
+
+    static final long MIN_RANGE_SIZE = 1024 * 1024;
+
+    static final long MAX_RANGE_SIZE = 16 * 1024 * 1024;
+
+    // The ranges count for each download thread to balance the load, unless the ranges are too small or too large
+    private static final long RANGES_PER_THREAD = 8;
+
+    private static final long RETRY_DELAY_MILLISECONDS = 1000;
+
+    private static final String ETAG_KEY = "etag";
+
+    private static final String LENGTH_KEY = "length";
+
+    private static final String RANGE_SIZE_KEY = "rangeSize";
+
+    private static final String COMPLETED_RANGES_KEY = "completedRanges";
+
+    @NotNull
+    private final CloudBlob blob;
+
+    private final int maxRangesInFlight;
+
+    private final int retriesMax;
+
+    public ParallelRangedBlobDownloader(@NotNull CloudBlob blob) {
+        this(blob, DEFAULT_MAX_RANGES_IN_FLIGHT, DEFAULT_RETRIES_MAX);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param blob the blob to download
+     * @param maxRangesInFlight the max count of ranges downloading in parallel
+     * @param retriesMax the max attempts count to download one range
+     */
+    public ParallelRangedBlobDownloader(@NotNull CloudBlob blob, int maxRangesInFlight, int retriesMax) {
+        this.blob = blob;
+        this.maxRangesInFlight = Math.max(1, maxRangesInFlight);
+        this.retriesMax = Math.max(1, retriesMax);
+    }
+
+    /**
+     * Get the range size adapted to the blob length, which makes enough ranges for the download threads,
+     * and keeps the memory used by the ranges in flight bounded
+     *
+     * @param length the blob length
+     * @return the range size in bytes
+     */
+    long getRangeSize(long length) {
+        long rangeSize = length / (maxRangesInFlight * RANGES_PER_THREAD);
+        rangeSize = Math.max(MIN_RANGE_SIZE, Math.min(MAX_RANGE_SIZE, rangeSize));
+
+        // Round up to MB
+        return (rangeSize + MIN_RANGE_SIZE - 1) / MIN_RANGE_SIZE * MIN_RANGE_SIZE;
+    }
+
+    @NotNull
+    public static File getCheckpointFile(@NotNull File target) {
+        return new File(target.getPath() + CHECKPOINT_FILE_SUFFIX);
+    }
+
+    /**
+     * Download the blob to the local file, resuming from the checkpoint of the last download if it's valid
+     *
+     * @param target the local file to write
+     * @param processRange the callback with the downloaded bytes count, called with the resumed bytes count
+     *                     at first and after each range is downloaded
+     * @throws Exception for the download failures, or InterruptedException if the download is cancelled
+     */
+    public void download(@NotNull File target, @Nullable CallableSingleArg<Void, Long> processRange)
+            throws Exception {
+        blob.downloadAttributes();
+
+        String etag = blob.getProperties().getEtag();
+        long length = blob.getProperties().getLength();
+        long rangeSize = getRangeSize(length);
+        int rangesCount = (int) ((length + rangeSize - 1) / rangeSize);
+        File checkpointFile = getCheckpointFile(target);
+        BitSet completedRanges = loadCheckpoint(checkpointFile, target, etag, length, rangeSize);
+        AccessCondition ifMatchCondition = AccessCondition.generateIfMatchCondition(etag);
+
+        boolean isResuming = completedRanges != null;
+        final BitSet completed = isResuming ? completedRanges : new BitSet(rangesCount);
+        AtomicLong downloadedBytes = new AtomicLong(0);
+        List<Future<?>> rangeDownloads = new ArrayList<>(rangesCount);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxRangesInFlight, Math.max(1, rangesCount)));
+
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            if (!isResuming) {
+                // The target file content is unknown, download from scratch
+                file.setLength(0);
+            }
+
+            file.setLength(length);
+            FileChannel channel = file.getChannel();
+
+            for (int i = 0; i < rangesCount; i++) {
+                if (completed.get(i)) {
+                    downloadedBytes.addAndGet(Math.min(rangeSize, length - i * rangeSize));
+                }
+            }
+
+            reportProgress(processRange, downloadedBytes, 0);
+
+            for (int i = 0; i < rangesCount; i++) {
+                long offset = i * rangeSize;
+                int size = (int) Math.min(rangeSize, length - offset);
+
+                if (completed.get(i)) {
+                    continue;
+                }
+
+                final int rangeIndex = i;
+                rangeDownloads.add(executor.submit(() -> {
+                    downloadRange(channel, ifMatchCondition, offset, size);
+
+                    synchronized (completed) {
+                        completed.set(rangeIndex);
+                        saveCheckpoint(checkpointFile, etag, length, rangeSize, completed);
+                    }
+
+                    reportProgress(processRange, downloadedBytes, size);
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> rangeDownload : rangeDownloads) {
+                try {
+                    rangeDownload.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof Exception) {
+                        throw (Exception) ex.getCause();
+                    }
+
+                    throw ex;
+                }
+            }
+
+            channel.force(false);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Files.deleteIfExists(checkpointFile.toPath());
+    }
+
+    private void downloadRange(@NotNull FileChannel channel,
+                               @NotNull AccessCondition ifMatchCondition,
+                               long offset,
+                               int size) throws Exception {
+        byte[] buffer = new byte[size];
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int read = 0;
+                while (read < size) {
+                    // The blob may return less bytes than requested, continue from there
+                    int count = blob.downloadRangeToByteArray(
+                            offset + read, (long) (size - read), buffer, read, ifMatchCondition, null, null);
+                    if (count <= 0) {
+                        throw new EOFException(String.format("Unexpected blob end at %d", offset + read));
+                    }
+
+                    read += count;
+                }
+
+                break;
+            } catch (StorageException | IOException ex) {
+                // Retrying doesn't help if the blob is changed
+                if (attempt >= retriesMax || (ex instanceof StorageException
+                        && ((StorageException) ex).getHttpStatusCode() == HttpURLConnection.HTTP_PRECON_FAILED)) {
+                    throw ex;
+                }
+
+                TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLISECONDS * attempt);
+            }
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer, offset + byteBuffer.position());
+        }
+    }
+
+    /**
+     * Load the completed ranges from the checkpoint file
+     *
+     * @return the completed ranges, or null if the checkpoint doesn't exist or doesn't match the blob and target
+     */
+    @Nullable
+    private static BitSet loadCheckpoint(@NotNull File checkpointFile,
+                                         @NotNull File target,
+                                         @Nullable String etag,
+                                         long length,
+                                         long rangeSize) {
+        if (!checkpointFile.isFile() || !target.isFile() || target.length() != length) {
+            return null;
+        }
+
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile.toPath())) {
+            checkpoint.load(in);
+
+            if (etag == null
+                    || !Objects.equals(etag, checkpoint.getProperty(ETAG_KEY))
+                    || length != Long.parseLong(checkpoint.getProperty(LENGTH_KEY, "-1"))
+                    || rangeSize != Long.parseLong(checkpoint.getProperty(RANGE_SIZE_KEY, "-1"))) {
+                return null;
+            }
+
+            return BitSet.valueOf(hexToBytes(checkpoint.getProperty(COMPLETED_RANGES_KEY, "")));
+        } catch (IOException | IllegalArgumentException ignored) {
+            // The broken checkpoint, download from scratch
+            return null;
+        }
+    }
+
+    private static void saveCheckpoint(@NotNull File checkpointFile,
+                                       @Nullable String etag,
+                                       long length,
+                                       long rangeSize,
+                                       @NotNull BitSet completedRanges) throws IOException {
+        if (etag == null) {
+            // Can't check whether the blob is changed when resuming
+            return;
+        }
+
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(ETAG_KEY, etag);
+        checkpoint.setProperty(LENGTH_KEY, Long.toString(length));
+        checkpoint.setProperty(RANGE_SIZE_KEY, Long.toString(rangeSize));
+        checkpoint.setProperty(COMPLETED_RANGES_KEY, bytesToHex(completedRanges.toByteArray()));
+
+        try (OutputStream out = Files.newOutputStream(checkpointFile.toPath())) {
+            checkpoint.store(out, null);
+        }
+    }
+
+    @NotNull
+    private static String bytesToHex(@NotNull byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    @NotNull
+    private static byte[] hexToBytes(@NotNull String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Bad hex string length: " + hex.length());
+        }
+
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+
+        return bytes;
+    }
+
+    private static void reportProgress(@Nullable CallableSingleArg<Void, Long> processRange,
+                                       @NotNull AtomicLong downloadedBytes,
+                                       long rangeDownloadedBytes) throws Exception {
+        // Report in order of the downloaded bytes increasing
+        synchronized (downloadedBytes) {
+            long bytes = downloadedBytes.addAndGet(rangeDownloadedBytes);
+
+            if (processRange != null) {
+                processRange.call(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.queue.CloudQueue;
+import com.microsoft.azure.storage.queue.CloudQueueMessage;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The queue messages batcher for the bulk operations, which keeps several message requests in flight.
+ *
+ * The Queue service has no batch API to add or delete messages, but receives up to 32 messages in one request,
+ * so the bulk dequeue is a pipeline, which receives the next batch while the last batch is being deleted.
+ * The in-flight requests are bounded, so neither the messages to enqueue nor the messages received pile up
+ * in memory.
+ */
+public class QueueMessageBatcher {
+    // The max messages count the Queue service returns in one request
+    public static final int MAX_MESSAGES_PER_REQUEST = 32;
+
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 16;
+
+    public static final int DEFAULT_VISIBILITY_TIMEOUT_SECONDS = 30;
+
+    @NotNull
+    private final CloudQueue cloudQueue;
+
+    private final int maxRequestsInFlight;
+
+    @NotNull
+    private final ThroughputMeter meter;
+
+    public QueueMessageBatcher(@NotNull CloudQueue cloudQueue, @Nullable ThroughputMeter meter) {
+        this(cloudQueue, DEFAULT_MAX_REQUESTS_IN_FLIGHT, meter);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cloudQueue the queue to operate
+     * @param maxRequestsInFlight the max count of the add or delete message requests in parallel
+     * @param meter the meter to record the messages enqueued or dequeued, null to create a new one
+     */
+    public QueueMessageBatcher(@NotNull CloudQueue cloudQueue,
+                               int maxRequestsInFlight,
+                               @Nullable ThroughputMeter meter) {
+        this.cloudQueue = cloudQueue;
+        this.maxRequestsInFlight = Math.max(1, maxRequestsInFlight);
+        this.meter = meter != null ? meter : new ThroughputMeter();
+    }
+
+    @NotNull
+    public ThroughputMeter getMeter() {
+        return meter;
+    }
+
+    /**
+     * Add the messages to the queue
+     *
+     * @param contents the messages contents, which are iterated lazily
+     * @param timeToLiveInSeconds the messages time to live, 0 for the service default 7 days
+     * @return the messages count added
+     * @throws Exception for the first failure, or InterruptedException if the enqueue is cancelled
+     */
+    public long enqueue(@NotNull Iterable<String> contents, int timeToLiveInSeconds) throws Exception {
+        return runBounded(requests -> {
+            for (String content : contents) {
+                requests.submit(() -> cloudQueue.addMessage(
+                        new CloudQueueMessage(content), timeToLiveInSeconds, 0, null, null));
+            }
+        });
+    }
+
+    /**
+     * Receive and delete the messages from the queue, until the max count is reached or the queue is empty
+     *
+     * @param maxCount the max messages count to dequeue
+     * @return the messages count dequeued
+     * @throws Exception for the first failure, or InterruptedException if the dequeue is cancelled
+     */
+    public long dequeue(long maxCount) throws Exception {
+        return runBounded(requests -> {
+            long received = 0;
+
+            while (received < maxCount) {
+                int batchReceived = 0;
+
+                for (CloudQueueMessage message : cloudQueue.retrieveMessages(
+                        (int) Math.min(MAX_MESSAGES_PER_REQUEST, maxCount - received),
+                        DEFAULT_VISIBILITY_TIMEOUT_SECONDS, null, null)) {
+                    batchReceived++;
+                    requests.submit(() -> cloudQueue.deleteMessage(message));
+                }
+
+                if (batchReceived == 0) {
+                    break;
+                }
+
+                received += batchReceived;
+            }
+        });
+    }
+
+    private interface MessageRequest {
+        void run() throws Exception;
+    }
+
+    private interface MessageRequestsProducer {
+        void produce(@NotNull BoundedRequests requests) throws Exception;
+    }
+
+    private long runBounded(@NotNull MessageRequestsProducer producer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(maxRequestsInFlight);
+        BoundedRequests requests = new BoundedRequests(executor);
+
+        try {
+            producer.produce(requests);
+            requests.awaitAll();
+
+            return requests.done.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private class BoundedRequests {
+        @NotNull
+        private final ExecutorService executor;
+
+        private final Semaphore inFlight = new Semaphore(maxRequestsInFlight);
+
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        private final AtomicLong done = new AtomicLong(0);
+
+        BoundedRequests(@NotNull ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        void submit(@NotNull MessageRequest request) throws Exception {
+            inFlight.acquire();
+
+            if (failure.get() != null) {
+                inFlight.release();
+                throwIfFailed();
+            }
+
+            executor.execute(() -> {
+                try {
+                    request.run();
+                    done.incrementAndGet();
+                    meter.record(1);
+                } catch (Exception ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        void awaitAll() throws Exception {
+            inFlight.acquire(maxRequestsInFlight);
+            inFlight.release(maxRequestsInFlight);
+            throwIfFailed();
+        }
+
+        private void throwIfFailed() throws Exception {
+            Exception ex = failure.get();
+
+            if (ex != null) {
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.RequestCompletedEvent;
+import com.microsoft.azure.storage.RequestResult;
+import com.microsoft.azure.storage.StorageEvent;
+import com.microsoft.azure.storage.blob.CloudBlobClient;
+import com.microsoft.azure.storage.queue.CloudQueueClient;
+import com.microsoft.azure.storage.table.CloudTableClient;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The registry of the storage accounts and their service clients, keyed by the normalized connection string,
+ * so the connection string is parsed once and the clients are reused across the storage operations.
+ * The least recently used accounts are evicted when the registry is full.
+ *
+ * The requests of the registered accounts are counted by the storage SDK request completed events, see
+ * {@link #getMetrics()}.
+ */
+public class StorageClientRegistry {
+    private static final int MAX_ACCOUNTS = 64;
+
+    private static class LazyHolder {
+        static final StorageClientRegistry INSTANCE = new StorageClientRegistry(MAX_ACCOUNTS);
+
+        static {
+            OperationContext.getGlobalRequestCompletedEventHandler().addListener(
+                    new StorageEvent<RequestCompletedEvent>() {
+                        @Override
+                        public void eventOccurred(RequestCompletedEvent event) {
+                            INSTANCE.onRequestCompleted(event);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * The storage account with its service clients created on demand
+     */
+    private static class AccountClients {
+        @NotNull
+        final CloudStorageAccount account;
+
+        @NotNull
+        final StorageRequestMetrics metrics;
+
+        @NotNull
+        final Supplier<CloudBlobClient> blobClient;
+
+        @NotNull
+        final Supplier<CloudQueueClient> queueClient;
+
+        @NotNull
+        final Supplier<CloudTableClient> tableClient;
+
+        AccountClients(@NotNull CloudStorageAccount account) {
+            this.account = account;
+            this.metrics = new StorageRequestMetrics(
+                    account.getCredentials() == null || account.getCredentials().getAccountName() == null
+                            ? "" : account.getCredentials().getAccountName());
+            this.blobClient = Suppliers.memoize(account::createCloudBlobClient);
+            this.queueClient = Suppliers.memoize(account::createCloudQueueClient);
+            this.tableClient = Suppliers.memoize(account::createCloudTableClient);
+        }
+
+        @NotNull
+        Stream<String> getEndpointHosts() {
+            return Stream.of(account.getBlobStorageUri(), account.getQueueStorageUri(), account.getTableStorageUri())
+                    .filter(uri -> uri != null)
+                    .flatMap(uri -> Stream.of(uri.getPrimaryUri(), uri.getSecondaryUri()))
+                    .filter(uri -> uri != null && uri.getHost() != null)
+                    .map(URI::getHost);
+        }
+    }
+
+    @NotNull
+    private final Cache<String, AccountClients> accounts;
+
+    // The metrics of the registered accounts by the service endpoint hosts, to find the metrics of a request
+    private final Map<String, StorageRequestMetrics> metricsByHost = new ConcurrentHashMap<>();
+
+    StorageClientRegistry(long maxAccounts) {
+        // Single segment for the exact LRU eviction, the registry is small and mostly read
+        this.accounts = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumSize(maxAccounts)
+                .recordStats()
+                .removalListener((RemovalListener<String, AccountClients>) notification -> {
+                    AccountClients removed = notification.getValue();
+
+                    if (removed != null) {
+                        removed.getEndpointHosts().forEach(host -> metricsByHost.remove(host, removed.metrics));
+                    }
+                })
+                .build();
+    }
+
+    @NotNull
+    public static StorageClientRegistry getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    /**
+     * Normalize the connection string by trimming the settings and sorting them by the case insensitive keys
+     *
+     * @param connectionString the storage connection string, such as DefaultEndpointsProtocol=https;AccountName=...
+     * @return the normalized connection string
+     */
+    @NotNull
+    static String normalizeConnectionString(@NotNull String connectionString) {
+        return Arrays.stream(connectionString.split(";"))
+                .map(String::trim)
+                .filter(setting -> !setting.isEmpty())
+                .map(setting -> {
+                    int eq = setting.indexOf('=');
+
+                    return eq < 0 ? setting : setting.substring(0, eq).trim() + "=" + setting.substring(eq + 1).trim();
+                })
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.joining(";"));
+    }
+
+    @NotNull
+    private AccountClients getAccountClients(@NotNull String connectionString)
+            throws URISyntaxException, InvalidKeyException {
+        try {
+            return accounts.get(normalizeConnectionString(connectionString), () -> {
+                AccountClients clients = new AccountClients(CloudStorageAccount.parse(connectionString));
+                clients.getEndpointHosts().forEach(host -> metricsByHost.put(host, clients.metrics));
+
+                return clients;
+            });
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            }
+
+            if (cause instanceof InvalidKeyException) {
+                throw (InvalidKeyException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IllegalArgumentException("Can't parse the storage connection string", cause);
+        }
+    }
+
+    @NotNull
+    public CloudStorageAccount getAccount(@NotNull String connectionString)
+            throws URISyntaxException, InvalidKeyException {
+        return getAccountClients(connectionString).account;
+    }
+
+    @NotNull
+    public CloudBlobClient getBlobClient(@NotNull String connectionString)
+            throws URISyntaxException, InvalidKeyException {
+        return getAccountClients(connectionString).blobClient.get();
+    }
+
+    @NotNull
+    public CloudQueueClient getQueueClient(@NotNull String connectionString)
+            throws URISyntaxException, InvalidKeyException {
+        return getAccountClients(connectionString).queueClient.get();
+    }
+
+    @NotNull
+    public CloudTableClient getTableClient(@NotNull String connectionString)
+            throws URISyntaxException, InvalidKeyException {
+        return getAccountClients(connectionString).tableClient.get();
+    }
+
+    /**
+     * Remove the account of the connection string, such as the account key is regenerated
+     */
+    public void invalidate(@NotNull String connectionString) {
+        accounts.invalidate(normalizeConnectionString(connectionString));
+    }
+
+    public void invalidateAll() {
+        accounts.invalidateAll();
+    }
+
+    @NotNull
+    public CacheStats getCacheStats() {
+        return accounts.stats();
+    }
+
+    /**
+     * Get the request metrics of the registered accounts
+     *
+     * @return the map from the account name to its request metrics
+     */
+    @NotNull
+    public Map<String, StorageRequestMetrics> getMetrics() {
+        Map<String, StorageRequestMetrics> metrics = new HashMap<>();
+        accounts.asMap().values().forEach(clients -> metrics.put(clients.metrics.getAccountName(), clients.metrics));
+
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Record the completed request to the metrics of the account with the request host
+     *
+     * @return the metrics recorded to, null if the host isn't of a registered account
+     */
+    @Nullable
+    StorageRequestMetrics recordRequest(@NotNull String host, long latencyMillis, int statusCode) {
+        StorageRequestMetrics metrics = metricsByHost.get(host);
+
+        if (metrics != null) {
+            // The status code is 0 or -1 if there is no response
+            metrics.record(latencyMillis, statusCode <= 0 || statusCode >= HttpURLConnection.HTTP_BAD_REQUEST);
+        }
+
+        return metrics;
+    }
+
+    private void onRequestCompleted(@NotNull RequestCompletedEvent event) {
+        if (!(event.getConnectionObject() instanceof HttpURLConnection)) {
+            return;
+        }
+
+        RequestResult result = event.getRequestResult();
+        String host = ((HttpURLConnection) event.getConnectionObject()).getURL().getHost();
+        long latencyMillis = result == null || result.getStartDate() == null
+                ? 0
+                : (result.getStopDate() == null ? System.currentTimeMillis() : result.getStopDate().getTime())
+                        - result.getStartDate().getTime();
+
+        recordRequest(host, latencyMillis, result == null ? -1 : result.getStatusCode());
+    }
+}
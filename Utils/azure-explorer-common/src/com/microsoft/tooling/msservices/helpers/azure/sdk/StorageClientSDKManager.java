@@ -23,6 +23,8 @@ package com.microsoft.tooling.msservices.helpers.azure.sdk;
 
 import com.google.common.base.Strings;
 import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.*;
 import com.microsoft.azure.storage.core.Base64;
@@ -50,6 +52,7 @@ import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.utils.StorageAccoutUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
@@ -58,6 +61,9 @@ import java.util.*;
 import java.util.Map.Entry;
 
 public class StorageClientSDKManager {
+    // The max entities count the Table service returns in one response
+    public static final int TABLE_MAX_PAGE_SIZE = 1000;
+
     private static StorageClientSDKManager apiManager;
 
     private StorageClientSDKManager() {
@@ -239,53 +245,10 @@ public class StorageClientSDKManager {
             CloudBlobDirectory directory = container.getDirectoryReference(blobDirectory.getPath());
 
             for (ListBlobItem item : directory.listBlobs()) {
-                String uri = item.getUri() != null ? item.getUri().toString() : "";
-
-                if (item instanceof CloudBlobDirectory) {
-                    CloudBlobDirectory subDirectory = (CloudBlobDirectory) item;
-
-                    String name = extractBlobItemName(subDirectory.getPrefix(), delimiter);
-                    String path = Strings.nullToEmpty(subDirectory.getPrefix());
-
-                    biList.add(new BlobDirectory(name, uri, containerName, path));
-                } else if (item instanceof CloudBlob) {
-                    CloudBlob blob = (CloudBlob) item;
-
-                    String name = extractBlobItemName(blob.getName(), delimiter);
-                    String path = Strings.nullToEmpty(blob.getName());
-                    String type = "";
-                    String cacheControlHeader = "";
-                    String contentEncoding = "";
-                    String contentLanguage = "";
-                    String contentType = "";
-                    String contentMD5Header = "";
-                    String eTag = "";
-                    Calendar lastModified = new GregorianCalendar();
-                    long size = 0;
-
-                    BlobProperties properties = blob.getProperties();
-
-                    if (properties != null) {
-                        if (properties.getBlobType() != null) {
-                            type = properties.getBlobType().toString();
-                        }
-
-                        cacheControlHeader = Strings.nullToEmpty(properties.getCacheControl());
-                        contentEncoding = Strings.nullToEmpty(properties.getContentEncoding());
-                        contentLanguage = Strings.nullToEmpty(properties.getContentLanguage());
-                        contentType = Strings.nullToEmpty(properties.getContentType());
-                        contentMD5Header = Strings.nullToEmpty(properties.getContentMD5());
-                        eTag = Strings.nullToEmpty(properties.getEtag());
-
-                        if (properties.getLastModified() != null) {
-                            lastModified.setTime(properties.getLastModified());
-                        }
-
-                        size = properties.getLength();
-                    }
+                BlobItem blobItem = toBlobItem(item, containerName, delimiter);
 
-                    biList.add(new BlobFile(name, uri, containerName, path, type, cacheControlHeader, contentEncoding,
-                            contentLanguage, contentType, contentMD5Header, eTag, lastModified, size));
+                if (blobItem != null) {
+                    biList.add(blobItem);
                 }
             }
 
@@ -295,6 +258,90 @@ public class StorageClientSDKManager {
         }
     }
 
+    /**
+     * Get one page of the Blob Items in the directory, to list a large directory page by page rather than
+     * listing all of them before rendering anything.
+     *
+     * @param connectionString the storage account connection string
+     * @param blobDirectory the directory to list
+     * @param pageSize the max Blob Items count of the page, up to 5000 as the service limits
+     * @param continuationToken the token got from the previous page, null for the first page
+     * @return the Blob Items page with the continuation token for the next page
+     */
+    @NotNull
+    public BlobItemPage getBlobItemsPage(@NotNull String connectionString,
+                                         @NotNull BlobDirectory blobDirectory,
+                                         int pageSize,
+                                         @Nullable ResultContinuation continuationToken)
+            throws AzureCmdException {
+        try {
+            CloudBlobClient client = getCloudBlobClient(connectionString);
+            String containerName = blobDirectory.getContainerName();
+            String delimiter = client.getDirectoryDelimiter();
+
+            CloudBlobContainer container = client.getContainerReference(containerName);
+            CloudBlobDirectory directory = container.getDirectoryReference(blobDirectory.getPath());
+
+            ResultSegment<ListBlobItem> segment = directory.listBlobsSegmented("", false,
+                    EnumSet.noneOf(BlobListingDetails.class), pageSize, continuationToken, null, null);
+            List<BlobItem> biList = new ArrayList<BlobItem>(segment.getResults().size());
+
+            for (ListBlobItem item : segment.getResults()) {
+                BlobItem blobItem = toBlobItem(item, containerName, delimiter);
+
+                if (blobItem != null) {
+                    biList.add(blobItem);
+                }
+            }
+
+            return new BlobItemPage(biList, segment.getHasMoreResults() ? segment.getContinuationToken() : null);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error retrieving the Blob Item list", t);
+        }
+    }
+
+    @Nullable
+    private static BlobItem toBlobItem(@NotNull ListBlobItem item,
+                                       @NotNull String containerName,
+                                       @Nullable String delimiter) {
+        String uri = item.getUri() != null ? item.getUri().toString() : "";
+
+        if (item instanceof CloudBlobDirectory) {
+            CloudBlobDirectory subDirectory = (CloudBlobDirectory) item;
+
+            String name = extractBlobItemName(subDirectory.getPrefix(), delimiter);
+            String path = Strings.nullToEmpty(subDirectory.getPrefix());
+
+            return new BlobDirectory(name, uri, containerName, path);
+        } else if (item instanceof CloudBlob) {
+            CloudBlob blob = (CloudBlob) item;
+
+            String name = extractBlobItemName(blob.getName(), delimiter);
+            String path = Strings.nullToEmpty(blob.getName());
+            BlobProperties properties = blob.getProperties();
+
+            if (properties == null) {
+                return new BlobFile(name, uri, containerName, path, "", "", "", "", "", "", "",
+                        System.currentTimeMillis(), 0);
+            }
+
+            return new BlobFile(name, uri, containerName, path,
+                    properties.getBlobType() != null ? properties.getBlobType().toString() : "",
+                    Strings.nullToEmpty(properties.getCacheControl()),
+                    Strings.nullToEmpty(properties.getContentEncoding()),
+                    Strings.nullToEmpty(properties.getContentLanguage()),
+                    Strings.nullToEmpty(properties.getContentType()),
+                    Strings.nullToEmpty(properties.getContentMD5()),
+                    Strings.nullToEmpty(properties.getEtag()),
+                    properties.getLastModified() != null
+                            ? properties.getLastModified().getTime()
+                            : System.currentTimeMillis(),
+                    properties.getLength());
+        }
+
+        return null;
+    }
+
     @NotNull
     public BlobDirectory createBlobDirectory(@NotNull StorageAccount storageAccount,
                                              @NotNull BlobDirectory parentBlobDirectory,
@@ -359,6 +406,20 @@ public class StorageClientSDKManager {
         }
     }
 
+    public boolean blobFileExists(@NotNull String connectionString,
+                                  @NotNull String containerName,
+                                  @NotNull String filePath)
+            throws AzureCmdException {
+        try {
+            CloudBlobClient client = getCloudBlobClient(connectionString);
+            CloudBlobContainer container = client.getContainerReference(containerName);
+
+            return container.getBlockBlobReference(filePath).exists();
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error checking the Blob File existence", t);
+        }
+    }
+
     public void uploadBlobFileContent(@NotNull String connectionString,
                                       @NotNull BlobContainer blobContainer,
                                       @NotNull String filePath,
@@ -404,6 +465,27 @@ public class StorageClientSDKManager {
         }
     }
 
+    /**
+     * Upload the local file to the block blob with several blocks in parallel, the block size is adapted to the
+     * file size, and the blocks uploaded by the last failed upload of the same file are reused
+     */
+    public void uploadBlobFileContent(@NotNull String connectionString,
+                                      @NotNull BlobContainer blobContainer,
+                                      @NotNull String filePath,
+                                      @NotNull File file,
+                                      @Nullable CallableSingleArg<Void, Long> processBlock)
+            throws AzureCmdException {
+        try {
+            CloudBlobClient client = getCloudBlobClient(connectionString);
+            CloudBlobContainer container = client.getContainerReference(blobContainer.getName());
+            CloudBlockBlob blob = container.getBlockBlobReference(filePath);
+
+            new ParallelBlockBlobUploader(blob).upload(file, processBlock);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error uploading the Blob File content", t);
+        }
+    }
+
     public void downloadBlobFileContent(@NotNull String connectionString,
                                         @NotNull BlobFile blobFile,
                                         @NotNull OutputStream content)
@@ -422,6 +504,26 @@ public class StorageClientSDKManager {
         }
     }
 
+    /**
+     * Download the blob to the local file with several ranges in parallel, and resume from the checkpoint
+     * of the last failed or cancelled download of the same blob to the same file
+     */
+    public void downloadBlobFileContent(@NotNull String connectionString,
+                                        @NotNull BlobFile blobFile,
+                                        @NotNull File target,
+                                        @Nullable CallableSingleArg<Void, Long> processBlock)
+            throws AzureCmdException {
+        try {
+            CloudBlobClient client = getCloudBlobClient(connectionString);
+            CloudBlobContainer container = client.getContainerReference(blobFile.getContainerName());
+            CloudBlob blob = getCloudBlob(container, blobFile);
+
+            new ParallelRangedBlobDownloader(blob).download(target, processBlock);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error downloading the Blob File content", t);
+        }
+    }
+
     @NotNull
     public List<Queue> getQueues(@NotNull StorageAccount storageAccount)
             throws AzureCmdException {
@@ -490,7 +592,7 @@ public class StorageClientSDKManager {
 
             CloudQueue cloudQueue = client.getQueueReference(queueName);
 
-            for (CloudQueueMessage cqm : cloudQueue.peekMessages(32)) {
+            for (CloudQueueMessage cqm : cloudQueue.peekMessages(QueueMessageBatcher.MAX_MESSAGES_PER_REQUEST)) {
                 String id = Strings.nullToEmpty(cqm.getId());
                 String content = Strings.nullToEmpty(cqm.getMessageContentAsString());
 
@@ -543,6 +645,73 @@ public class StorageClientSDKManager {
         }
     }
 
+    /**
+     * Add the messages to the queue with several requests in flight, for seeding a queue with lots of messages
+     *
+     * @param storageAccount the storage account
+     * @param queue the queue to add messages to
+     * @param contents the messages contents, which are iterated lazily
+     * @param timeToLiveInSeconds the messages time to live, 0 for the service default
+     * @param meter the meter to watch the messages count and rate enqueued, nullable
+     * @return the messages count added
+     */
+    public long createQueueMessages(@NotNull StorageAccount storageAccount,
+                                    @NotNull Queue queue,
+                                    @NotNull Iterable<String> contents,
+                                    int timeToLiveInSeconds,
+                                    @Nullable ThroughputMeter meter)
+            throws AzureCmdException {
+        try {
+            CloudQueueClient client = getCloudQueueClient(storageAccount);
+            CloudQueue cloudQueue = client.getQueueReference(queue.getName());
+
+            return new QueueMessageBatcher(cloudQueue, meter).enqueue(contents, timeToLiveInSeconds);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error creating the Queue Messages", t);
+        }
+    }
+
+    /**
+     * Receive and delete the messages in batches of 32, for draining a queue with lots of messages
+     *
+     * @param storageAccount the storage account
+     * @param queue the queue to dequeue messages from
+     * @param maxCount the max messages count to dequeue
+     * @param meter the meter to watch the messages count and rate dequeued, nullable
+     * @return the messages count dequeued
+     */
+    public long dequeueQueueMessages(@NotNull StorageAccount storageAccount,
+                                     @NotNull Queue queue,
+                                     long maxCount,
+                                     @Nullable ThroughputMeter meter)
+            throws AzureCmdException {
+        try {
+            CloudQueueClient client = getCloudQueueClient(storageAccount);
+            CloudQueue cloudQueue = client.getQueueReference(queue.getName());
+
+            return new QueueMessageBatcher(cloudQueue, meter).dequeue(maxCount);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error dequeuing the Queue Messages", t);
+        }
+    }
+
+    /**
+     * Get the approximate messages count of the queue, since only the first 32 messages can be peeked, the count
+     * tells how many messages are behind them
+     */
+    public long getApproximateQueueMessageCount(@NotNull StorageAccount storageAccount, @NotNull Queue queue)
+            throws AzureCmdException {
+        try {
+            CloudQueueClient client = getCloudQueueClient(storageAccount);
+            CloudQueue cloudQueue = client.getQueueReference(queue.getName());
+            cloudQueue.downloadAttributes();
+
+            return cloudQueue.getApproximateMessageCount();
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error retrieving the Queue Message count", t);
+        }
+    }
+
     @NotNull
     public QueueMessage dequeueFirstQueueMessage(@NotNull StorageAccount storageAccount, @NotNull Queue queue)
             throws AzureCmdException {
@@ -645,26 +814,90 @@ public class StorageClientSDKManager {
                                               @NotNull String filter)
             throws AzureCmdException {
         List<TableEntity> teList = new ArrayList<TableEntity>();
+        ResultContinuation continuationToken = null;
+
+        do {
+            TableEntityPage page = getTableEntitiesPage(storageAccount, table, filter, null, TABLE_MAX_PAGE_SIZE,
+                    continuationToken, TablePayloadFormat.Json);
+
+            teList.addAll(page.getEntities());
+            continuationToken = page.getContinuationToken();
+        } while (continuationToken != null);
 
+        return teList;
+    }
+
+    /**
+     * Query one page of the Table Entities, to show the first page quickly and query more on demand, rather than
+     * holding all matched entities of a large table in memory.
+     *
+     * The JsonNoMetadata payload format is the smallest one, but the Int64, DateTime, Guid and Binary values are
+     * typed as String without the metadata, so use it only to view the entities. The Json format, which is the minimal
+     * metadata one, keeps the type annotations the entities need to be edited and written back.
+     *
+     * @param storageAccount the storage account
+     * @param table the table to query
+     * @param filter the OData filter, empty for all entities
+     * @param columns the property names to select, null for all properties
+     * @param pageSize the max entities count of the page, up to 1000 as the service limits
+     * @param continuationToken the token got from the previous page, null for the first page
+     * @param payloadFormat the response payload format
+     * @return the Table Entities page with the continuation token for the next page
+     */
+    @NotNull
+    public TableEntityPage getTableEntitiesPage(@NotNull StorageAccount storageAccount,
+                                                @NotNull Table table,
+                                                @NotNull String filter,
+                                                @Nullable List<String> columns,
+                                                int pageSize,
+                                                @Nullable ResultContinuation continuationToken,
+                                                @NotNull TablePayloadFormat payloadFormat)
+            throws AzureCmdException {
         try {
             CloudTableClient client = getCloudTableClient(storageAccount);
-            String tableName = table.getName();
-            CloudTable cloudTable = client.getTableReference(tableName);
+            CloudTable cloudTable = client.getTableReference(table.getName());
 
-            TableQuery<DynamicTableEntity> tableQuery = TableQuery.from(DynamicTableEntity.class);
+            return getTableEntitiesPage(cloudTable, filter, columns, pageSize, continuationToken, payloadFormat);
+        } catch (AzureCmdException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error retrieving the Table Entity list", t);
+        }
+    }
+
+    @NotNull
+    static TableEntityPage getTableEntitiesPage(@NotNull CloudTable cloudTable,
+                                                @NotNull String filter,
+                                                @Nullable List<String> columns,
+                                                int pageSize,
+                                                @Nullable ResultContinuation continuationToken,
+                                                @NotNull TablePayloadFormat payloadFormat)
+            throws AzureCmdException {
+        try {
+            String tableName = cloudTable.getName();
+            TableQuery<DynamicTableEntity> tableQuery = TableQuery.from(DynamicTableEntity.class)
+                    .take(Math.max(1, Math.min(pageSize, TABLE_MAX_PAGE_SIZE)));
 
             if (!filter.isEmpty()) {
                 tableQuery.where(filter);
             }
 
+            if (columns != null && !columns.isEmpty()) {
+                tableQuery.select(columns.toArray(new String[0]));
+            }
+
             TableRequestOptions tro = new TableRequestOptions();
-            tro.setTablePayloadFormat(TablePayloadFormat.JsonFullMetadata);
+            tro.setTablePayloadFormat(payloadFormat);
+
+            ResultSegment<DynamicTableEntity> segment =
+                    cloudTable.executeSegmented(tableQuery, continuationToken, tro, null);
+            List<TableEntity> teList = new ArrayList<TableEntity>(segment.getResults().size());
 
-            for (DynamicTableEntity dte : cloudTable.execute(tableQuery, tro, null)) {
+            for (DynamicTableEntity dte : segment.getResults()) {
                 teList.add(getTableEntity(tableName, dte));
             }
 
-            return teList;
+            return new TableEntityPage(teList, segment.getHasMoreResults() ? segment.getContinuationToken() : null);
         } catch (Throwable t) {
             throw new AzureCmdException("Error retrieving the Table Entity list", t);
         }
@@ -744,43 +977,35 @@ public class StorageClientSDKManager {
 
     @NotNull
     public static CloudStorageAccount getCloudStorageAccount(@NotNull String connectionString) throws URISyntaxException, InvalidKeyException {
-        return CloudStorageAccount.parse(connectionString);
+        return StorageClientRegistry.getInstance().getAccount(connectionString);
     }
 
     @NotNull
     private static CloudBlobClient getCloudBlobClient(@NotNull ClientStorageAccount storageAccount)
             throws Exception {
-        CloudStorageAccount csa = getCloudStorageAccount(storageAccount.getConnectionString());
-
-        return csa.createCloudBlobClient();
+        return getCloudBlobClient(storageAccount.getConnectionString());
     }
 
     @NotNull
     private static CloudBlobClient getCloudBlobClient(@NotNull StorageAccount storageAccount) throws Exception {
-        CloudStorageAccount csa = getCloudStorageAccount(getConnectionString(storageAccount));
-        return csa.createCloudBlobClient();
+        return getCloudBlobClient(getConnectionString(storageAccount));
     }
 
     @NotNull
     private static CloudBlobClient getCloudBlobClient(@NotNull String connectionString) throws Exception {
-        CloudStorageAccount csa = getCloudStorageAccount(connectionString);
-        return csa.createCloudBlobClient();
+        return StorageClientRegistry.getInstance().getBlobClient(connectionString);
     }
 
     @NotNull
     private static CloudQueueClient getCloudQueueClient(@NotNull StorageAccount storageAccount)
             throws Exception {
-        CloudStorageAccount csa = getCloudStorageAccount(getConnectionString(storageAccount));
-
-        return csa.createCloudQueueClient();
+        return StorageClientRegistry.getInstance().getQueueClient(getConnectionString(storageAccount));
     }
 
     @NotNull
     private static CloudTableClient getCloudTableClient(@NotNull StorageAccount storageAccount)
             throws Exception {
-        CloudStorageAccount csa = getCloudStorageAccount(getConnectionString(storageAccount));
-
-        return csa.createCloudTableClient();
+        return StorageClientRegistry.getInstance().getTableClient(getConnectionString(storageAccount));
     }
 
     @NotNull
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The request counters and latency histogram of one storage account, for diagnostics
+ */
+public class StorageRequestMetrics {
+    /**
+     * The upper bounds in milliseconds of the latency histogram buckets, the last bucket is for the longer ones
+     */
+    public static final long[] LATENCY_BUCKET_BOUNDS_MILLIS = { 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    @NotNull
+    private final String accountName;
+
+    private final AtomicLong requestCount = new AtomicLong(0);
+
+    private final AtomicLong failedCount = new AtomicLong(0);
+
+    private final AtomicLong totalLatencyMillis = new AtomicLong(0);
+
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKET_BOUNDS_MILLIS.length + 1);
+
+    public StorageRequestMetrics(@NotNull String accountName) {
+        this.accountName = accountName;
+    }
+
+    /**
+     * Record a completed request
+     *
+     * @param latencyMillis the request latency in milliseconds
+     * @param isFailed whether the request failed, such as no response or an error status code
+     */
+    public void record(long latencyMillis, boolean isFailed) {
+        requestCount.incrementAndGet();
+        totalLatencyMillis.addAndGet(Math.max(0, latencyMillis));
+
+        if (isFailed) {
+            failedCount.incrementAndGet();
+        }
+
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKET_BOUNDS_MILLIS.length && latencyMillis > LATENCY_BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+
+        latencyHistogram.incrementAndGet(bucket);
+    }
+
+    @NotNull
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getTotalLatencyMillis() {
+        return totalLatencyMillis.get();
+    }
+
+    /**
+     * Get the latency histogram
+     *
+     * @return the requests count of each bucket bounded by LATENCY_BUCKET_BOUNDS_MILLIS, plus the longer ones
+     */
+    @NotNull
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[latencyHistogram.length()];
+
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = latencyHistogram.get(i);
+        }
+
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        long count = getRequestCount();
+
+        return String.format("%s: %d requests, %d failed, %d ms average latency",
+                accountName, count, getFailedCount(), count == 0 ? 0 : getTotalLatencyMillis() / count);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The throughput meter counting the items processed since it's created, such as the queue messages enqueued,
+ * which is thread safe to be recorded by the worker threads and read by the UI thread.
+ */
+public class ThroughputMeter {
+    private final long startNanos;
+
+    private final AtomicLong count = new AtomicLong(0);
+
+    public ThroughputMeter() {
+        this(System.nanoTime());
+    }
+
+    ThroughputMeter(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public void record(long processed) {
+        count.addAndGet(processed);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Get the average items processed per second since the meter is created
+     *
+     * @return the items count per second, 0 if no time elapsed
+     */
+    public double getRatePerSecond() {
+        return getRatePerSecond(System.nanoTime());
+    }
+
+    double getRatePerSecond(long nowNanos) {
+        long elapsedNanos = nowNanos - startNanos;
+
+        return elapsedNanos <= 0 ? 0 : (double) count.get() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -25,6 +25,7 @@ import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.tooling.msservices.model.ServiceTreeItem;
 
 import java.util.Calendar;
+import java.util.GregorianCalendar;
 
 public class BlobFile implements ServiceTreeItem, BlobItem {
     private boolean loading;
@@ -39,7 +40,8 @@ public class BlobFile implements ServiceTreeItem, BlobItem {
     private String contentType;
     private String contentMD5Header;
     private String eTag;
-    private Calendar lastModified;
+    // Keep the epoch milliseconds rather than a Calendar, which is much heavier for thousands of blobs
+    private long lastModifiedMillis;
     private long size;
 
     public BlobFile(@NotNull String name,
@@ -55,6 +57,23 @@ public class BlobFile implements ServiceTreeItem, BlobItem {
                     @NotNull String eTag,
                     @NotNull Calendar lastModified,
                     @NotNull long size) {
+        this(name, uri, containerName, path, type, cacheControlHeader, contentEncoding, contentLanguage, contentType,
+                contentMD5Header, eTag, lastModified.getTimeInMillis(), size);
+    }
+
+    public BlobFile(@NotNull String name,
+                    @NotNull String uri,
+                    @NotNull String containerName,
+                    @NotNull String path,
+                    @NotNull String type,
+                    @NotNull String cacheControlHeader,
+                    @NotNull String contentEncoding,
+                    @NotNull String contentLanguage,
+                    @NotNull String contentType,
+                    @NotNull String contentMD5Header,
+                    @NotNull String eTag,
+                    long lastModifiedMillis,
+                    long size) {
         this.name = name;
         this.uri = uri;
         this.containerName = containerName;
@@ -66,7 +85,7 @@ public class BlobFile implements ServiceTreeItem, BlobItem {
         this.contentType = contentType;
         this.contentMD5Header = contentMD5Header;
         this.eTag = eTag;
-        this.lastModified = lastModified;
+        this.lastModifiedMillis = lastModifiedMillis;
         this.size = size;
     }
 
@@ -185,11 +204,18 @@ public class BlobFile implements ServiceTreeItem, BlobItem {
 
     @NotNull
     public Calendar getLastModified() {
+        Calendar lastModified = new GregorianCalendar();
+        lastModified.setTimeInMillis(lastModifiedMillis);
+
         return lastModified;
     }
 
     public void setLastModified(@NotNull Calendar lastModified) {
-        this.lastModified = lastModified;
+        this.lastModifiedMillis = lastModified.getTimeInMillis();
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
     }
 
     public long getSize() {
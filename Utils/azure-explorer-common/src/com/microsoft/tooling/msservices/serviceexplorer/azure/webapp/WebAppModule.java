@@ -30,9 +30,11 @@ import com.microsoft.azure.management.resources.fluentcore.arm.ResourceId;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.utils.AzureModelSnapshot;
 import com.microsoft.azuretools.utils.AzureUIRefreshCore;
 import com.microsoft.azuretools.utils.AzureUIRefreshEvent;
 import com.microsoft.azuretools.utils.AzureUIRefreshListener;
+import com.microsoft.azuretools.utils.Pair;
 import com.microsoft.azuretools.utils.WebAppUtils;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
@@ -139,4 +141,35 @@ public class WebAppModule extends AzureRefreshableNode implements WebAppModuleVi
             node.refreshItems();
         }
     }
+
+    @Override
+    public void renderSnapshotChildren(@NotNull final List<Pair<String, AzureModelSnapshot.WebAppRecord>> webApps) {
+        for (final Pair<String, AzureModelSnapshot.WebAppRecord> webApp : webApps) {
+            final AzureModelSnapshot.WebAppRecord app = webApp.second();
+            // The deployment slots are left to the web apps listed from Azure soon
+            addChildNode(new WebAppNode(this, webApp.first(), app.getId(), app.getName(), app.getState(),
+                app.getDefaultHostName(), app.getOperatingSystem(),
+                new HashMap<String, String>() {
+                    {
+                        put("regionName", app.getRegion());
+                    }
+                }));
+        }
+    }
+
+    @Override
+    public synchronized void replaceChildren(@NotNull final List<ResourceEx<WebApp>> resourceExes) {
+        if (loading) {
+            // A refresh is running, which renders the latest web apps by itself
+            return;
+        }
+
+        setLoading(true);
+        try {
+            removeAllChildNodes();
+            renderChildren(resourceExes);
+        } finally {
+            setLoading(false);
+        }
+    }
 }
@@ -4,16 +4,50 @@ import java.io.IOException;
 
 import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpPresenter;
+import com.microsoft.azuretools.utils.AzureModelSnapshot;
+import com.microsoft.azuretools.utils.AzureModelSnapshotStore;
+import com.microsoft.tooling.msservices.components.DefaultLoader;
+import rx.Observable;
+import rx.schedulers.Schedulers;
 
 public class WebAppModulePresenter<V extends WebAppModuleView> extends MvpPresenter<V> {
+    private boolean snapshotChecked = false;
+
     /**
      * Called from view when the view needs refresh.
+     *
+     * The first refresh renders the web apps saved in the snapshot at once if there is, and then lists the web apps
+     * from Azure in background to replace them.
      */
     public void onModuleRefresh() {
         final WebAppModuleView view = getMvpView();
-        if (view != null) {
-            view.renderChildren(AzureWebAppMvpModel.getInstance().listAllWebApps(true));
+        if (view == null) {
+            return;
+        }
+
+        if (!snapshotChecked) {
+            snapshotChecked = true;
+
+            final AzureModelSnapshot snapshot = AzureModelSnapshotStore.loadCurrent();
+            if (snapshot != null && !snapshot.listWebApps().isEmpty()) {
+                view.renderSnapshotChildren(snapshot.listWebApps());
+                Observable.fromCallable(() -> AzureWebAppMvpModel.getInstance().refreshAllWebApps())
+                        .subscribeOn(Schedulers.io())
+                        .subscribe(webApps -> {
+                            final WebAppModuleView attachedView = getMvpView();
+                            if (attachedView != null) {
+                                attachedView.replaceChildren(webApps);
+                            }
+
+                            AzureModelSnapshotStore.saveCurrent();
+                        }, err -> DefaultLoader.getUIHelper().logError(
+                                "WebAppModulePresenter::onModuleRefresh failed to list web apps", err));
+                return;
+            }
         }
+
+        view.renderChildren(AzureWebAppMvpModel.getInstance().refreshAllWebApps());
+        AzureModelSnapshotStore.saveCurrent();
     }
 
     public void onDeleteWebApp(String sid, String id) throws IOException {
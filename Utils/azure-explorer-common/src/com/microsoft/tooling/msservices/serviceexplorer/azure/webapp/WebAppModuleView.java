@@ -27,7 +27,19 @@ import java.util.List;
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azuretools.core.mvp.model.ResourceEx;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpView;
+import com.microsoft.azuretools.utils.AzureModelSnapshot;
+import com.microsoft.azuretools.utils.Pair;
 
 public interface WebAppModuleView extends MvpView {
     void renderChildren(List<ResourceEx<WebApp>> resourceExes);
+
+    /**
+     * Render the web apps saved in the snapshot by their subscription IDs, before they are listed from Azure.
+     */
+    void renderSnapshotChildren(List<Pair<String, AzureModelSnapshot.WebAppRecord>> webApps);
+
+    /**
+     * Replace all the children rendered with the web apps listed from Azure in one go.
+     */
+    void replaceChildren(List<ResourceEx<WebApp>> resourceExes);
 }
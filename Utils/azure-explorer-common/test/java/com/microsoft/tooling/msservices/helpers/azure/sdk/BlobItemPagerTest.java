@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.tooling.msservices.model.storage.BlobDirectory;
+import com.microsoft.tooling.msservices.model.storage.BlobItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BlobItemPagerTest {
+    private static ResultContinuation token(int page) {
+        ResultContinuation token = new ResultContinuation();
+        token.setNextMarker(String.valueOf(page));
+
+        return token;
+    }
+
+    private static int pageOf(ResultContinuation token) {
+        return token == null ? 0 : Integer.parseInt(token.getNextMarker());
+    }
+
+    private static BlobItemPage page(int page, int pagesCount) {
+        BlobItem item = new BlobDirectory("dir" + page, "uri" + page, "container", "dir" + page + "/");
+
+        return new BlobItemPage(Collections.singletonList(item), page + 1 < pagesCount ? token(page + 1) : null);
+    }
+
+    @Test
+    public void testPagesListedInOrder() throws Exception {
+        List<Integer> loaded = Collections.synchronizedList(new ArrayList<>());
+        BlobItemPager pager = new BlobItemPager(token -> {
+            loaded.add(pageOf(token));
+            return page(pageOf(token), 3);
+        });
+
+        List<String> names = new ArrayList<>();
+        for (BlobItemPage page = pager.nextPage(); page != null; page = pager.nextPage()) {
+            names.add(page.getItems().get(0).getName());
+        }
+
+        assertEquals(3, names.size());
+        assertEquals("dir0", names.get(0));
+        assertEquals("dir1", names.get(1));
+        assertEquals("dir2", names.get(2));
+        assertEquals(3, loaded.size());
+        assertNull(pager.nextPage());
+    }
+
+    @Test
+    public void testNextPagePrefetched() throws Exception {
+        CountDownLatch secondPageLoading = new CountDownLatch(1);
+        BlobItemPager pager = new BlobItemPager(token -> {
+            if (pageOf(token) == 1) {
+                secondPageLoading.countDown();
+            }
+
+            return page(pageOf(token), 2);
+        });
+
+        BlobItemPage first = pager.nextPage();
+
+        assertTrue(first.hasMore());
+        // The second page is requested before asking for it
+        assertTrue(secondPageLoading.await(5, TimeUnit.SECONDS));
+        assertFalse(pager.nextPage().hasMore());
+        assertNull(pager.nextPage());
+    }
+
+    @Test
+    public void testClosedPagerStopsPaging() throws Exception {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        BlobItemPager pager = new BlobItemPager(token -> {
+            if (pageOf(token) > 0) {
+                try {
+                    neverReleased.await();
+                } catch (InterruptedException ex) {
+                    throw new AzureCmdException("interrupted", ex);
+                }
+            }
+
+            return page(pageOf(token), 10);
+        });
+
+        assertTrue(pager.nextPage().hasMore());
+        pager.close();
+        assertNull(pager.nextPage());
+    }
+
+    @Test
+    public void testPrefetchingErrorThrownFromNextPage() throws Exception {
+        AzureCmdException error = new AzureCmdException("Error retrieving the Blob Item list");
+        BlobItemPager pager = new BlobItemPager(token -> {
+            if (pageOf(token) == 1) {
+                throw error;
+            }
+
+            return page(pageOf(token), 3);
+        });
+
+        pager.nextPage();
+
+        try {
+            pager.nextPage();
+            fail("The prefetching error should be thrown");
+        } catch (AzureCmdException ex) {
+            assertSame(error, ex);
+        }
+
+        assertNull(pager.nextPage());
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(CloudBlockBlob.class)
+@PowerMockIgnore("javax.management.*")
+public class ParallelBlockBlobUploaderTest {
+    private static final int MB = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CloudBlockBlob blobMock;
+    private Map<String, byte[]> uploadedBlocks;
+    private List<BlockEntry> committedBlocks;
+    private AtomicInteger uploadCalls;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+    private Map<Integer, Integer> failuresBySize;
+
+    @Before
+    public void setUp() throws Exception {
+        blobMock = PowerMockito.mock(CloudBlockBlob.class);
+        uploadedBlocks = new ConcurrentHashMap<>();
+        committedBlocks = new ArrayList<>();
+        uploadCalls = new AtomicInteger(0);
+        inFlight = new AtomicInteger(0);
+        maxInFlight = new AtomicInteger(0);
+        failuresBySize = new ConcurrentHashMap<>();
+
+        doAnswer(invocation -> {
+            uploadCalls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            try {
+                long size = invocation.getArgument(2);
+                if (failuresBySize.computeIfPresent((int) size, (k, count) -> count > 0 ? count - 1 : null) != null) {
+                    throw new IOException("Upload block failure");
+                }
+
+                Thread.sleep(20);
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                IOUtils.copy((InputStream) invocation.getArgument(1), content);
+                uploadedBlocks.put(invocation.getArgument(0), content.toByteArray());
+
+                return null;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }).when(blobMock).uploadBlock(anyString(), any(InputStream.class), anyLong());
+
+        doAnswer(invocation -> {
+            for (BlockEntry entry : (Iterable<BlockEntry>) invocation.getArgument(0)) {
+                committedBlocks.add(entry);
+            }
+
+            return null;
+        }).when(blobMock).commitBlockList(any());
+
+        doReturn(new ArrayList<BlockEntry>()).when(blobMock)
+                .downloadBlockList(eq(BlockListingFilter.UNCOMMITTED), isNull(), isNull(), isNull());
+    }
+
+    private File createFile(int length) throws IOException {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), content);
+
+        return file;
+    }
+
+    private byte[] getCommittedContent() {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        for (BlockEntry entry : committedBlocks) {
+            byte[] block = uploadedBlocks.get(entry.getId());
+            content.write(block, 0, block.length);
+        }
+
+        return content.toByteArray();
+    }
+
+    @Test
+    public void testBlockSizeAdaptedToFileLength() {
+        ParallelBlockBlobUploader uploader = new ParallelBlockBlobUploader(blobMock, 4, 1);
+
+        assertEquals(MB, uploader.getBlockSize(0));
+        assertEquals(MB, uploader.getBlockSize(10 * MB));
+        assertEquals(4 * MB, uploader.getBlockSize(100 * MB));
+        assertEquals(16 * MB, uploader.getBlockSize(10L * 1024 * MB));
+        assertEquals(ParallelBlockBlobUploader.MAX_BLOCK_SIZE * 2,
+                uploader.getBlockSize(ParallelBlockBlobUploader.MAX_BLOCK_SIZE * 2 * 50000));
+    }
+
+    @Test
+    public void testUploadBlocksInParallel() throws Exception {
+        File file = createFile(5 * MB + 123);
+        List<Long> progresses = Collections.synchronizedList(new ArrayList<>());
+
+        new ParallelBlockBlobUploader(blobMock, 3, 1).upload(file, new CallableSingleArg<Void, Long>() {
+            @Override
+            public Void call(Long uploadedBytes) {
+                progresses.add(uploadedBytes);
+                return null;
+            }
+        });
+
+        assertEquals(6, committedBlocks.size());
+        assertArrayEquals(Files.readAllBytes(file.toPath()), getCommittedContent());
+        assertTrue(maxInFlight.get() > 1 && maxInFlight.get() <= 3);
+        assertEquals(7, progresses.size());
+        assertEquals(0L, (long) progresses.get(0));
+        assertEquals(file.length(), (long) progresses.get(progresses.size() - 1));
+    }
+
+    @Test
+    public void testUploadEmptyFile() throws Exception {
+        new ParallelBlockBlobUploader(blobMock).upload(createFile(0), null);
+
+        assertTrue(committedBlocks.isEmpty());
+        verify(blobMock).commitBlockList(any());
+        verify(blobMock, never()).uploadBlock(anyString(), any(InputStream.class), anyLong());
+    }
+
+    @Test
+    public void testFailedBlockRetried() throws Exception {
+        File file = createFile(2 * MB + 100);
+        failuresBySize.put(100, 1);
+
+        new ParallelBlockBlobUploader(blobMock, 2, 2).upload(file, null);
+
+        assertArrayEquals(Files.readAllBytes(file.toPath()), getCommittedContent());
+    }
+
+    @Test
+    public void testResumeFromUncommittedBlocks() throws Exception {
+        File file = createFile(3 * MB + 100);
+        failuresBySize.put(100, 1);
+
+        try {
+            new ParallelBlockBlobUploader(blobMock, 2, 1).upload(file, null);
+            fail("The upload should fail");
+        } catch (IOException expected) {
+        }
+
+        assertTrue(committedBlocks.isEmpty());
+        assertEquals(3, uploadedBlocks.size());
+
+        ArrayList<BlockEntry> uncommitted = new ArrayList<>();
+        uploadedBlocks.forEach((id, content) -> {
+            BlockEntry entry = new BlockEntry(id);
+            entry.setSize(content.length);
+            uncommitted.add(entry);
+        });
+        doReturn(uncommitted).when(blobMock)
+                .downloadBlockList(eq(BlockListingFilter.UNCOMMITTED), isNull(), isNull(), isNull());
+
+        uploadCalls.set(0);
+        new ParallelBlockBlobUploader(blobMock, 2, 1).upload(file, null);
+
+        // Only the failed block is uploaded again
+        assertEquals(1, uploadCalls.get());
+        assertEquals(4, committedBlocks.size());
+        assertArrayEquals(Files.readAllBytes(file.toPath()), getCommittedContent());
+    }
+
+    @Test
+    public void testNotFoundBlobHasNoUncommittedBlocks() throws Exception {
+        doAnswer(invocation -> {
+            throw new StorageException("BlobNotFound", "The specified blob does not exist.", 404, null, null);
+        }).when(blobMock).downloadBlockList(eq(BlockListingFilter.UNCOMMITTED), isNull(), isNull(), isNull());
+
+        File file = createFile(MB);
+        new ParallelBlockBlobUploader(blobMock).upload(file, null);
+
+        assertArrayEquals(Files.readAllBytes(file.toPath()), getCommittedContent());
+    }
+}
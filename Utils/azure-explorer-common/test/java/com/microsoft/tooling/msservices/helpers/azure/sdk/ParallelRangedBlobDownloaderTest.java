@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobProperties;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ CloudBlob.class, CloudBlockBlob.class, BlobProperties.class })
+@PowerMockIgnore("javax.management.*")
+public class ParallelRangedBlobDownloaderTest {
+    private static final int MB = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CloudBlockBlob blobMock;
+    private BlobProperties propertiesMock;
+    private byte[] blobContent;
+    private List<Long> rangesRequested;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+    private Map<Long, Integer> failuresByOffset;
+    private File target;
+
+    @Before
+    public void setUp() throws Exception {
+        blobMock = PowerMockito.mock(CloudBlockBlob.class);
+        propertiesMock = PowerMockito.mock(BlobProperties.class);
+        rangesRequested = Collections.synchronizedList(new ArrayList<>());
+        inFlight = new AtomicInteger(0);
+        maxInFlight = new AtomicInteger(0);
+        failuresByOffset = new ConcurrentHashMap<>();
+        target = new File(tempFolder.getRoot(), "blob.bin");
+
+        doNothing().when(blobMock).downloadAttributes();
+        doReturn(propertiesMock).when(blobMock).getProperties();
+        doReturn("\"etag1\"").when(propertiesMock).getEtag();
+
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            try {
+                long offset = invocation.getArgument(0);
+                long length = invocation.getArgument(1);
+                byte[] buffer = invocation.getArgument(2);
+                int bufferOffset = invocation.getArgument(3);
+
+                rangesRequested.add(offset);
+                if (failuresByOffset.computeIfPresent(offset, (k, count) -> count > 0 ? count - 1 : null) != null) {
+                    throw new StorageException("ServerBusy", "The server is busy.", 503, null, null);
+                }
+
+                Thread.sleep(20);
+                // Return at most half MB to simulate the partial response
+                int count = (int) Math.min(Math.min(length, MB / 2), blobContent.length - offset);
+                System.arraycopy(blobContent, (int) offset, buffer, bufferOffset, count);
+
+                return count;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }).when(blobMock).downloadRangeToByteArray(
+                anyLong(), any(), any(byte[].class), anyInt(), any(AccessCondition.class), isNull(), isNull());
+    }
+
+    private void setBlobContent(int length) {
+        blobContent = new byte[length];
+        new Random(length).nextBytes(blobContent);
+
+        doReturn((long) length).when(propertiesMock).getLength();
+    }
+
+    @Test
+    public void testRangeSizeAdaptedToBlobLength() {
+        ParallelRangedBlobDownloader downloader = new ParallelRangedBlobDownloader(blobMock, 4, 1);
+
+        assertEquals(MB, downloader.getRangeSize(0));
+        assertEquals(MB, downloader.getRangeSize(10 * MB));
+        assertEquals(4 * MB, downloader.getRangeSize(100 * MB));
+        assertEquals(16 * MB, downloader.getRangeSize(10L * 1024 * MB));
+    }
+
+    @Test
+    public void testDownloadRangesInParallel() throws Exception {
+        setBlobContent(5 * MB + 123);
+        List<Long> progresses = Collections.synchronizedList(new ArrayList<>());
+
+        new ParallelRangedBlobDownloader(blobMock, 3, 1).download(target, new CallableSingleArg<Void, Long>() {
+            @Override
+            public Void call(Long downloadedBytes) {
+                progresses.add(downloadedBytes);
+                return null;
+            }
+        });
+
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+        assertTrue(maxInFlight.get() > 1 && maxInFlight.get() <= 3);
+        assertEquals(7, progresses.size());
+        assertEquals(0L, (long) progresses.get(0));
+        assertEquals(blobContent.length, (long) progresses.get(progresses.size() - 1));
+        assertFalse(ParallelRangedBlobDownloader.getCheckpointFile(target).exists());
+    }
+
+    @Test
+    public void testOverwriteLongerFile() throws Exception {
+        Files.write(target.toPath(), new byte[3 * MB]);
+        setBlobContent(MB + 1);
+
+        new ParallelRangedBlobDownloader(blobMock).download(target, null);
+
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testFailedRangeRetried() throws Exception {
+        setBlobContent(2 * MB + 100);
+        failuresByOffset.put((long) MB, 1);
+
+        new ParallelRangedBlobDownloader(blobMock, 2, 2).download(target, null);
+
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        setBlobContent(3 * MB + 100);
+        failuresByOffset.put(3L * MB, 1);
+
+        try {
+            new ParallelRangedBlobDownloader(blobMock, 2, 1).download(target, null);
+            fail("The download should fail");
+        } catch (StorageException expected) {
+        }
+
+        assertTrue(ParallelRangedBlobDownloader.getCheckpointFile(target).exists());
+
+        rangesRequested.clear();
+        new ParallelRangedBlobDownloader(blobMock, 2, 1).download(target, null);
+
+        // Only the failed range is downloaded again
+        assertEquals(Collections.singletonList(3L * MB), rangesRequested);
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+        assertFalse(ParallelRangedBlobDownloader.getCheckpointFile(target).exists());
+    }
+
+    @Test
+    public void testRestartIfBlobChanged() throws Exception {
+        setBlobContent(2 * MB + 100);
+        failuresByOffset.put(2L * MB, 1);
+
+        try {
+            new ParallelRangedBlobDownloader(blobMock, 2, 1).download(target, null);
+            fail("The download should fail");
+        } catch (StorageException expected) {
+        }
+
+        doReturn("\"etag2\"").when(propertiesMock).getEtag();
+        rangesRequested.clear();
+        new ParallelRangedBlobDownloader(blobMock, 2, 1).download(target, null);
+
+        assertEquals(3, rangesRequested.stream().filter(offset -> offset % MB == 0).count());
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testBrokenCheckpointIgnored() throws Exception {
+        setBlobContent(MB + 100);
+        Files.write(target.toPath(), new byte[MB + 100]);
+        Files.write(ParallelRangedBlobDownloader.getCheckpointFile(target).toPath(),
+                "etag=\"etag1\"\nlength=1048676\nrangeSize=1048576\ncompletedRanges=0".getBytes());
+
+        new ParallelRangedBlobDownloader(blobMock).download(target, null);
+
+        assertArrayEquals(blobContent, Files.readAllBytes(target.toPath()));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.queue.CloudQueue;
+import com.microsoft.azure.storage.queue.CloudQueueMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(CloudQueue.class)
+@PowerMockIgnore("javax.management.*")
+public class QueueMessageBatcherTest {
+    private CloudQueue cloudQueue;
+
+    private final LinkedList<CloudQueueMessage> messages = new LinkedList<>();
+
+    private final List<CloudQueueMessage> deleted = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Integer> retrieveRequests = new ArrayList<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    private final AtomicInteger maxInFlight = new AtomicInteger(0);
+
+    private void request() throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        TimeUnit.MILLISECONDS.sleep(2);
+        inFlight.decrementAndGet();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cloudQueue = PowerMockito.mock(CloudQueue.class);
+
+        doAnswer(invocation -> {
+            request();
+
+            synchronized (messages) {
+                messages.add(invocation.getArgument(0));
+            }
+
+            return null;
+        }).when(cloudQueue).addMessage(any(CloudQueueMessage.class), anyInt(), anyInt(), isNull(), isNull());
+
+        doAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            List<CloudQueueMessage> batch = new ArrayList<>();
+
+            synchronized (messages) {
+                retrieveRequests.add(count);
+
+                while (batch.size() < count && !messages.isEmpty()) {
+                    batch.add(messages.poll());
+                }
+            }
+
+            return batch;
+        }).when(cloudQueue).retrieveMessages(anyInt(), anyInt(), isNull(), isNull());
+
+        doAnswer(invocation -> {
+            request();
+            deleted.add(invocation.getArgument(0));
+
+            return null;
+        }).when(cloudQueue).deleteMessage(any(CloudQueueMessage.class));
+    }
+
+    private static List<String> contents(int count) {
+        List<String> contents = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            contents.add("message" + i);
+        }
+
+        return contents;
+    }
+
+    @Test
+    public void testEnqueueWithBoundedRequestsInFlight() throws Exception {
+        QueueMessageBatcher batcher = new QueueMessageBatcher(cloudQueue, 4, null);
+
+        assertEquals(100, batcher.enqueue(contents(100), 0));
+        assertEquals(100, messages.size());
+        assertEquals(100, batcher.getMeter().getCount());
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testDequeueByBatches() throws Exception {
+        for (String content : contents(70)) {
+            messages.add(new CloudQueueMessage(content));
+        }
+
+        QueueMessageBatcher batcher = new QueueMessageBatcher(cloudQueue, 8, null);
+
+        assertEquals(40, batcher.dequeue(40));
+        assertEquals(40, deleted.size());
+        assertEquals(30, messages.size());
+
+        assertEquals(30, batcher.dequeue(Long.MAX_VALUE));
+        assertEquals(70, deleted.size());
+        assertEquals(70, batcher.getMeter().getCount());
+        assertTrue(maxInFlight.get() <= 8);
+
+        // 32 + 8 for the first dequeue, 30 and an empty batch for the second one
+        assertEquals(4, retrieveRequests.size());
+        assertEquals(Integer.valueOf(32), retrieveRequests.get(0));
+        assertEquals(Integer.valueOf(8), retrieveRequests.get(1));
+    }
+
+    @Test
+    public void testEnqueueFailureThrown() throws Exception {
+        StorageException error = new StorageException("ServerBusy", "The server is busy", 503, null, null);
+        AtomicInteger calls = new AtomicInteger(0);
+
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 5) {
+                throw error;
+            }
+
+            return null;
+        }).when(cloudQueue).addMessage(any(CloudQueueMessage.class), anyInt(), anyInt(), isNull(), isNull());
+
+        try {
+            new QueueMessageBatcher(cloudQueue, 2, null).enqueue(contents(1000), 0);
+            fail("The enqueue failure should be thrown");
+        } catch (StorageException ex) {
+            assertSame(error, ex);
+        }
+
+        // The rest messages are not sent after the failure
+        assertTrue(calls.get() < 1000);
+    }
+
+    @Test
+    public void testThroughputMeterRate() {
+        ThroughputMeter meter = new ThroughputMeter(0);
+        meter.record(30);
+        meter.record(20);
+
+        assertEquals(50, meter.getCount());
+        assertEquals(25.0, meter.getRatePerSecond(TimeUnit.SECONDS.toNanos(2)), 0.001);
+        assertEquals(0.0, meter.getRatePerSecond(0), 0.001);
+    }
+}
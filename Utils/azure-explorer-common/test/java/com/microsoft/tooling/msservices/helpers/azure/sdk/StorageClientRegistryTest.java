@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.blob.CloudBlobClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Base64;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StorageClientRegistryTest {
+    private static final String KEY = Base64.getEncoder().encodeToString("storage-account-key".getBytes());
+
+    private StorageClientRegistry registry;
+
+    private static String connectionString(String accountName) {
+        return String.format("DefaultEndpointsProtocol=https;AccountName=%s;AccountKey=%s;EndpointSuffix=core.windows.net",
+                accountName, KEY);
+    }
+
+    @Before
+    public void setUp() {
+        registry = new StorageClientRegistry(2);
+    }
+
+    @Test
+    public void testNormalizeConnectionString() {
+        assertEquals("AccountKey=k==;AccountName=acc1;DefaultEndpointsProtocol=https",
+                StorageClientRegistry.normalizeConnectionString(
+                        " DefaultEndpointsProtocol=https ; AccountName = acc1;AccountKey=k==;"));
+        assertEquals(StorageClientRegistry.normalizeConnectionString("AccountName=acc1;AccountKey=k=="),
+                StorageClientRegistry.normalizeConnectionString("AccountKey=k==;AccountName=acc1;"));
+    }
+
+    @Test
+    public void testClientsReusedForEquivalentConnectionStrings() throws Exception {
+        CloudBlobClient client = registry.getBlobClient(connectionString("acc1"));
+
+        assertSame(client, registry.getBlobClient(connectionString("acc1") + ";"));
+        assertSame(registry.getAccount(connectionString("acc1")),
+                registry.getAccount("AccountKey=" + KEY + ";AccountName=acc1;EndpointSuffix=core.windows.net;"
+                        + "DefaultEndpointsProtocol=https"));
+        assertEquals("acc1", client.getCredentials().getAccountName());
+        assertEquals(1, registry.getCacheStats().missCount());
+        assertEquals(3, registry.getCacheStats().hitCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAccountEvicted() throws Exception {
+        CloudBlobClient client1 = registry.getBlobClient(connectionString("acc1"));
+        registry.getBlobClient(connectionString("acc2"));
+        registry.getBlobClient(connectionString("acc1"));
+        registry.getBlobClient(connectionString("acc3"));
+
+        assertSame(client1, registry.getBlobClient(connectionString("acc1")));
+        assertEquals(2, registry.getMetrics().size());
+        assertTrue(registry.getMetrics().containsKey("acc1"));
+        assertTrue(registry.getMetrics().containsKey("acc3"));
+
+        // The evicted account's requests are not recorded any more
+        assertNull(registry.recordRequest("acc2.blob.core.windows.net", 10, 200));
+        assertNotSame(client1, registry.getBlobClient(connectionString("acc2")));
+    }
+
+    @Test
+    public void testRequestMetricsRecordedByHost() throws Exception {
+        registry.getQueueClient(connectionString("acc1"));
+
+        registry.recordRequest("acc1.blob.core.windows.net", 5, 200);
+        registry.recordRequest("acc1.queue.core.windows.net", 120, 201);
+        registry.recordRequest("acc1-secondary.table.core.windows.net", 20000, 503);
+        registry.recordRequest("acc1.table.core.windows.net", 30, -1);
+        assertNull(registry.recordRequest("other.blob.core.windows.net", 10, 200));
+
+        StorageRequestMetrics metrics = registry.getMetrics().get("acc1");
+        assertEquals(4, metrics.getRequestCount());
+        assertEquals(2, metrics.getFailedCount());
+        assertEquals(20155, metrics.getTotalLatencyMillis());
+        assertArrayEquals(new long[] { 1, 1, 0, 1, 0, 0, 0, 0, 0, 1 }, metrics.getLatencyHistogram());
+    }
+}
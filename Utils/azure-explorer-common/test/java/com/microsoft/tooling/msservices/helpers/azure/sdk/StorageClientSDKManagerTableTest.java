@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.table.CloudTable;
+import com.microsoft.azure.storage.table.DynamicTableEntity;
+import com.microsoft.azure.storage.table.EntityProperty;
+import com.microsoft.azure.storage.table.TablePayloadFormat;
+import com.microsoft.azure.storage.table.TableQuery;
+import com.microsoft.azure.storage.table.TableRequestOptions;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(CloudTable.class)
+@PowerMockIgnore("javax.management.*")
+public class StorageClientSDKManagerTableTest {
+    private CloudTable cloudTable;
+
+    private static DynamicTableEntity entity(String rowKey) {
+        HashMap<String, EntityProperty> properties = new HashMap<>();
+        properties.put("Count", new EntityProperty(42L));
+
+        DynamicTableEntity entity = new DynamicTableEntity("pk", rowKey, properties);
+        entity.setEtag("etag-" + rowKey);
+
+        return entity;
+    }
+
+    @Before
+    public void setUp() {
+        cloudTable = PowerMockito.mock(CloudTable.class);
+        doReturn("table1").when(cloudTable).getName();
+    }
+
+    @Test
+    public void testQueryPageWithProjection() throws Exception {
+        ResultContinuation next = new ResultContinuation();
+        next.setNextPartitionKey("pk");
+        next.setNextRowKey("r3");
+        doReturn(new ResultSegment<>(new ArrayList<>(Arrays.asList(entity("r1"), entity("r2"))), 2, next))
+                .when(cloudTable).executeSegmented(any(TableQuery.class), isNull(), any(TableRequestOptions.class),
+                        isNull());
+
+        TableEntityPage page = StorageClientSDKManager.getTableEntitiesPage(cloudTable, "PartitionKey eq 'pk'",
+                Arrays.asList("Count"), 2, null, TablePayloadFormat.JsonNoMetadata);
+
+        ArgumentCaptor<TableQuery> query = ArgumentCaptor.forClass(TableQuery.class);
+        ArgumentCaptor<TableRequestOptions> options = ArgumentCaptor.forClass(TableRequestOptions.class);
+        verify(cloudTable).executeSegmented(query.capture(), isNull(), options.capture(), isNull());
+
+        assertEquals(Integer.valueOf(2), query.getValue().getTakeCount());
+        assertEquals("PartitionKey eq 'pk'", query.getValue().getFilterString());
+        assertArrayEquals(new String[] { "Count" }, query.getValue().getColumns());
+        assertEquals(TablePayloadFormat.JsonNoMetadata, options.getValue().getTablePayloadFormat());
+
+        assertTrue(page.hasMore());
+        assertSame(next, page.getContinuationToken());
+        assertEquals(2, page.getEntities().size());
+
+        TableEntity first = page.getEntities().get(0);
+        assertEquals("table1", first.getTableName());
+        assertEquals("r1", first.getRowKey());
+        assertEquals(Long.valueOf(42L), first.getProperties().get("Count").getValueAsLong());
+    }
+
+    @Test
+    public void testLastPageWithoutContinuation() throws Exception {
+        ResultContinuation token = new ResultContinuation();
+        doReturn(new ResultSegment<>(new ArrayList<>(Arrays.asList(entity("r3"))), 1000, null))
+                .when(cloudTable).executeSegmented(any(TableQuery.class), any(ResultContinuation.class),
+                        any(TableRequestOptions.class), isNull());
+
+        TableEntityPage page = StorageClientSDKManager.getTableEntitiesPage(cloudTable, "", null, 5000, token,
+                TablePayloadFormat.Json);
+
+        ArgumentCaptor<TableQuery> query = ArgumentCaptor.forClass(TableQuery.class);
+        verify(cloudTable).executeSegmented(query.capture(), any(ResultContinuation.class),
+                any(TableRequestOptions.class), isNull());
+
+        // The page size is capped by the service limit, and all columns are selected
+        assertEquals(Integer.valueOf(StorageClientSDKManager.TABLE_MAX_PAGE_SIZE), query.getValue().getTakeCount());
+        assertNull(query.getValue().getFilterString());
+        assertNull(query.getValue().getColumns());
+
+        assertFalse(page.hasMore());
+        assertEquals(1, page.getEntities().size());
+    }
+}
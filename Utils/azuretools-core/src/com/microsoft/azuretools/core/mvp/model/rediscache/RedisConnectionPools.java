@@ -33,14 +33,21 @@ import redis.clients.jedis.JedisPoolConfig;
 
 public class RedisConnectionPools {
 
-    private static final int TIMEOUT = 500;
-    private static final int MAX_CONNECTIONS = 1;
+    // Enough for the TLS handshake to a remote Redis Cache
+    private static final int TIMEOUT = 5000;
+    static final int MAX_POOLS = 8;
+    private static final int MAX_CONNECTIONS_PER_POOL = 8;
+    private static final int MIN_IDLE_CONNECTIONS_PER_POOL = 1;
+    private static final long EVICTION_RUN_INTERVAL_MILLIS = 30 * 1000L;
+    // Azure Redis Cache closes the connections idle for 10 minutes, evict them earlier
+    private static final long MIN_EVICTABLE_IDLE_MILLIS = 5 * 60 * 1000L;
     private static final String GANNOT_GET_RESID = "Cannot get Redis Cache from Azure.";
 
-    private LinkedHashMap<String, JedisPool> pools;
+    // In access order, the least recently used pool is destroyed when there are too many
+    private final LinkedHashMap<String, JedisPool> pools;
 
     private RedisConnectionPools() {
-        this.pools = new LinkedHashMap<String, JedisPool>(MAX_CONNECTIONS);
+        this.pools = new LinkedHashMap<String, JedisPool>(MAX_POOLS, 0.75f, true);
     }
 
     private static final class RedisConnectionFactoryHolder {
@@ -52,7 +59,7 @@ public class RedisConnectionPools {
     }
 
     /**
-     * Get Jedis connection.
+     * Get Jedis connection, the connections of the same Redis Cache can be used concurrently.
      *
      * @param sid
      *            subscription id of Redis Cache
@@ -61,14 +68,14 @@ public class RedisConnectionPools {
      * @return jedis connection
      * @throws IOException Error getting the Redis Cache
      */
-    public synchronized Jedis getJedis(String sid, String id) throws Exception  {
-        if (pools.get(id) == null) {
-            if (pools.size() == MAX_CONNECTIONS) {
-                releasePool(pools.keySet().iterator().next());
-            }
-            connect(sid, id);
+    public Jedis getJedis(String sid, String id) throws Exception  {
+        JedisPool pool = getPool(id);
+        if (pool == null) {
+            // Get the Redis Cache settings from Azure without blocking the other caches
+            pool = addPool(id, connect(sid, id));
         }
-        return pools.get(id).getResource();
+        // Borrow the connection outside the lock, which may wait for a connection returned or connect
+        return pool.getResource();
     }
 
     /**
@@ -78,16 +85,48 @@ public class RedisConnectionPools {
      *            id of the jedisPool which needs to be destroyed
      */
     public synchronized void releasePool(String id) {
-        if (pools.containsKey(id)) {
-            JedisPool jedisPool = pools.get(id);
-            if (jedisPool != null) {
-                jedisPool.destroy();
-            }
-            pools.remove(id);
+        JedisPool jedisPool = pools.remove(id);
+        if (jedisPool != null) {
+            // The connections in use are closed as soon as they are returned
+            jedisPool.destroy();
         }
     }
 
-    private void connect(String sid, String id) throws Exception {
+    /**
+     * Get the statistics of the jedisPool.
+     *
+     * @param id
+     *            id of the jedisPool
+     * @return the statistics, null if the jedisPool doesn't exist
+     */
+    public synchronized RedisPoolStats getPoolStats(String id) {
+        JedisPool jedisPool = pools.get(id);
+        if (jedisPool == null) {
+            return null;
+        }
+        return new RedisPoolStats(jedisPool.getNumActive(), jedisPool.getNumIdle(), jedisPool.getNumWaiters(),
+                jedisPool.getMeanBorrowWaitTimeMillis(), jedisPool.getMaxBorrowWaitTimeMillis());
+    }
+
+    private synchronized JedisPool getPool(String id) {
+        return pools.get(id);
+    }
+
+    private synchronized JedisPool addPool(String id, JedisPool pool) {
+        JedisPool existing = pools.get(id);
+        if (existing != null) {
+            // Created by another thread already, no connection is made by the new pool yet
+            pool.destroy();
+            return existing;
+        }
+        if (pools.size() >= MAX_POOLS) {
+            releasePool(pools.keySet().iterator().next());
+        }
+        pools.put(id, pool);
+        return pool;
+    }
+
+    private JedisPool connect(String sid, String id) throws Exception {
         RedisCache redisCache = AzureRedisMvpModel.getInstance().getRedisCache(sid, id);
 
         if (redisCache == null) {
@@ -100,7 +139,23 @@ public class RedisConnectionPools {
         int port = redisCache.sslPort();
 
         // create connection pool according to redis setting
-        JedisPool pool = new JedisPool(new JedisPoolConfig(), hostName, port, TIMEOUT, password, true);
-        pools.put(id, pool);
+        return new JedisPool(createPoolConfig(), hostName, port, TIMEOUT, password, true);
+    }
+
+    static JedisPoolConfig createPoolConfig() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(MAX_CONNECTIONS_PER_POOL);
+        config.setMaxIdle(MAX_CONNECTIONS_PER_POOL);
+        // Keep one connection to switch back to the cache without TLS handshake
+        config.setMinIdle(MIN_IDLE_CONNECTIONS_PER_POOL);
+        config.setMaxWaitMillis(TIMEOUT);
+        // Validate the idle connections by PING in background rather than on every borrowing
+        config.setTestOnBorrow(false);
+        config.setTestWhileIdle(true);
+        config.setTimeBetweenEvictionRunsMillis(EVICTION_RUN_INTERVAL_MILLIS);
+        config.setMinEvictableIdleTimeMillis(-1);
+        config.setSoftMinEvictableIdleTimeMillis(MIN_EVICTABLE_IDLE_MILLIS);
+        config.setNumTestsPerEvictionRun(-1);
+        return config;
     }
 }
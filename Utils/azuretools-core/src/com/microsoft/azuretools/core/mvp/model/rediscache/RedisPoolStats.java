@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.rediscache;
+
+/**
+ * The statistics of the connection pool of one Redis Cache.
+ */
+public class RedisPoolStats {
+
+    private final int numActive;
+    private final int numIdle;
+    private final int numWaiters;
+    private final long meanBorrowWaitTimeMillis;
+    private final long maxBorrowWaitTimeMillis;
+
+    public RedisPoolStats(int numActive, int numIdle, int numWaiters, long meanBorrowWaitTimeMillis,
+                          long maxBorrowWaitTimeMillis) {
+        this.numActive = numActive;
+        this.numIdle = numIdle;
+        this.numWaiters = numWaiters;
+        this.meanBorrowWaitTimeMillis = meanBorrowWaitTimeMillis;
+        this.maxBorrowWaitTimeMillis = maxBorrowWaitTimeMillis;
+    }
+
+    public int getNumActive() {
+        return numActive;
+    }
+
+    public int getNumIdle() {
+        return numIdle;
+    }
+
+    public int getNumWaiters() {
+        return numWaiters;
+    }
+
+    public long getMeanBorrowWaitTimeMillis() {
+        return meanBorrowWaitTimeMillis;
+    }
+
+    public long getMaxBorrowWaitTimeMillis() {
+        return maxBorrowWaitTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active: %d, idle: %d, waiters: %d, mean borrow wait: %dms, max borrow wait: %dms",
+                numActive, numIdle, numWaiters, meanBorrowWaitTimeMillis, maxBorrowWaitTimeMillis);
+    }
+}
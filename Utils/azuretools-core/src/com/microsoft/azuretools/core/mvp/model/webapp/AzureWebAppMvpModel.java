@@ -34,6 +34,7 @@ import com.microsoft.azure.management.appservice.RuntimeStack;
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.appservice.WebAppBase;
 import com.microsoft.azure.management.appservice.WebContainer;
+import com.microsoft.azure.management.appservice.implementation.SiteInner;
 import com.microsoft.azure.management.resources.Subscription;
 import com.microsoft.azure.management.resources.fluentcore.arm.Region;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
@@ -54,10 +55,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class AzureWebAppMvpModel {
@@ -518,6 +522,19 @@ public class AzureWebAppMvpModel {
      * @return list of Web App
      */
     public List<ResourceEx<WebApp>> listAllWebApps(final boolean force) {
+        return listAllWebApps(sid -> listWebApps(sid, force));
+    }
+
+    /**
+     * Refresh all the Web Apps in selected subscriptions conditionally, refer to {@link #refreshWebApps(String)}.
+     *
+     * @return list of Web App
+     */
+    public List<ResourceEx<WebApp>> refreshAllWebApps() {
+        return listAllWebApps(this::refreshWebApps);
+    }
+
+    private List<ResourceEx<WebApp>> listAllWebApps(final Function<String, List<ResourceEx<WebApp>>> listBySid) {
         final List<ResourceEx<WebApp>> webApps = new ArrayList<>();
         List<Subscription> subs = AzureMvpModel.getInstance().getSelectedSubscriptions();
         if (subs.size() == 0) {
@@ -525,7 +542,7 @@ public class AzureWebAppMvpModel {
         }
         Observable.from(subs).flatMap((sd) ->
             Observable.create((subscriber) -> {
-                List<ResourceEx<WebApp>> webAppList = listWebApps(sd.subscriptionId(), force);
+                List<ResourceEx<WebApp>> webAppList = listBySid.apply(sd.subscriptionId());
                 synchronized (webApps) {
                     webApps.addAll(webAppList);
                 }
@@ -577,6 +594,80 @@ public class AzureWebAppMvpModel {
         return webApps;
     }
 
+    /**
+     * Refresh the web apps of the subscription conditionally, and update the cache.
+     *
+     * The sites are listed without their configurations in one paged request, and only the web apps new or modified
+     * since cached are got in full, instead of getting the configurations of all web apps as listing them in full.
+     * The web apps are listed in full if none are cached yet.
+     */
+    @NotNull
+    public List<ResourceEx<WebApp>> refreshWebApps(final String subscriptionId) {
+        final List<ResourceEx<WebApp>> cached = subscriptionIdToWebApps.get(subscriptionId);
+        if (cached == null) {
+            return listWebApps(subscriptionId, true);
+        }
+
+        try {
+            final Azure azure = AuthMethodManager.getInstance().getAzureClient(subscriptionId);
+            final List<ResourceEx<WebApp>> webApps = reconcileWebApps(subscriptionId,
+                azure.webApps().inner().list(), cached, azure.webApps()::getById);
+            subscriptionIdToWebApps.put(subscriptionId, webApps);
+            return webApps;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return cached;
+        }
+    }
+
+    /**
+     * Reconcile the cached web apps with the sites listed, the unmodified ones are reused.
+     *
+     * @param subscriptionId subscription id
+     * @param sites          the sites listed, including function apps which are skipped
+     * @param cached         the web apps cached
+     * @param loader         the loader to get the web app in full by id
+     * @return list of Web App in the order of sites
+     */
+    @NotNull
+    static List<ResourceEx<WebApp>> reconcileWebApps(@NotNull final String subscriptionId,
+                                                     @NotNull final List<SiteInner> sites,
+                                                     @NotNull final List<ResourceEx<WebApp>> cached,
+                                                     @NotNull final Function<String, WebApp> loader) {
+        final Map<String, ResourceEx<WebApp>> cachedById = new HashMap<>();
+        for (final ResourceEx<WebApp> webApp : cached) {
+            if (webApp.getResource().id() != null) {
+                cachedById.put(webApp.getResource().id().toLowerCase(), webApp);
+            }
+        }
+
+        final List<ResourceEx<WebApp>> webApps = new ArrayList<>();
+        for (final SiteInner site : sites) {
+            // The same filter as WebApps.list() to skip the function apps
+            if (site.id() == null || (site.kind() != null && !Arrays.asList(site.kind().split(",")).contains("app"))) {
+                continue;
+            }
+
+            final ResourceEx<WebApp> cachedApp = cachedById.get(site.id().toLowerCase());
+            if (cachedApp != null && isUnmodified(cachedApp.getResource(), site)) {
+                webApps.add(cachedApp);
+                continue;
+            }
+
+            final WebApp webApp = loader.apply(site.id());
+            if (webApp != null) {
+                webApps.add(new ResourceEx<>(webApp, subscriptionId));
+            }
+        }
+        return webApps;
+    }
+
+    private static boolean isUnmodified(@NotNull final WebApp webApp, @NotNull final SiteInner site) {
+        return site.lastModifiedTimeUtc() != null && webApp.lastModifiedTime() != null
+            && site.lastModifiedTimeUtc().isEqual(webApp.lastModifiedTime())
+            && Objects.equals(site.state(), webApp.state());
+    }
+
     /**
      * List available web containers for jar files.
      */
@@ -682,6 +773,14 @@ public class AzureWebAppMvpModel {
         }
     }
 
+    /**
+     * Get the web apps cached by subscription IDs, without listing them from Azure.
+     */
+    @NotNull
+    public Map<String, List<ResourceEx<WebApp>>> getCachedWebApps() {
+        return Collections.unmodifiableMap(subscriptionIdToWebApps);
+    }
+
     public void clearWebAppsCache() {
         subscriptionIdToWebApps.clear();
     }
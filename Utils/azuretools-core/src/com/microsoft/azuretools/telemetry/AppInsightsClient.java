@@ -114,10 +114,7 @@ public class AppInsightsClient {
             if (prefValue == null || prefValue.isEmpty() || prefValue.equalsIgnoreCase("true") || force) {
                 TelemetryClient telemetry = TelemetryClientSingleton.getTelemetry();
                 Map<String, String> properties = buildProperties(version, myProperties);
-                synchronized (TelemetryClientSingleton.class) {
-                    telemetry.trackEvent(eventName, properties, metrics);
-                    telemetry.flush();
-                }
+                TelemetryPipeline.getInstance().send(telemetry, eventName, properties, metrics);
             }
         }
     }
@@ -177,10 +174,7 @@ public class AppInsightsClient {
                 properties.put("Installation ID", instID);
             }
         }
-        synchronized(TelemetryClientSingleton.class){
-            telemetry.trackEvent(eventName, properties, null);
-            telemetry.flush();
-        }
+        TelemetryPipeline.getInstance().send(telemetry, eventName, properties, null);
     }
 
     private static boolean isAppInsightsClientAvailable() {
@@ -192,6 +186,7 @@ public class AppInsightsClient {
             TelemetryManager.getInstance().setCommonProperties(buildProperties("", new HashMap<>()));
             TelemetryManager.getInstance().setTelemetryClient(TelemetryClientSingleton.getTelemetry());
             TelemetryManager.getInstance().setEventNamePrefix(configuration.eventName());
+            TelemetryPipeline.getInstance().loadPending(TelemetryClientSingleton.getTelemetry());
         } catch (Exception ignore) {
         }
     }
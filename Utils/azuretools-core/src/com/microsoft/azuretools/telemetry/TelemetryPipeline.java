@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.telemetry;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The asynchronous telemetry pipeline. The events are put into a bounded lock-free queue and sent by one background
+ * thread, which tracks them in batches and flushes the clients once per batch, when the batch size is reached or
+ * the flush interval is passed. The events beyond the queue capacity are dropped and counted instead of blocking
+ * the caller.
+ *
+ * The events not sent yet are saved to the settings folder at JVM shutdown, and queued again when the telemetry is
+ * initialized next time. The events tracked while offline are kept by the Application Insights channel itself.
+ */
+public class TelemetryPipeline {
+    private static final Logger LOGGER = Logger.getLogger(TelemetryPipeline.class.getName());
+    private static final int QUEUE_CAPACITY = 2000;
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_INTERVAL_SECONDS = 10;
+    private static final String PENDING_DIR_NAME = "telemetry";
+    private static final String PENDING_FILE_NAME = "pending-events.json";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Queue<PendingEvent> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    @NotNull
+    private final ScheduledExecutorService executor;
+
+    private long reportedDroppedCount = 0;
+
+    private static final class SingletonHolder {
+        private static final TelemetryPipeline INSTANCE = createDefault();
+    }
+
+    TelemetryPipeline(int capacity, int batchSize, @NotNull ScheduledExecutorService executor) {
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    public static TelemetryPipeline getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private static TelemetryPipeline createDefault() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "azure-telemetry-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        TelemetryPipeline pipeline = new TelemetryPipeline(QUEUE_CAPACITY, BATCH_SIZE, executor);
+
+        executor.scheduleWithFixedDelay(pipeline::drain, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> pipeline.savePending(getPendingFile()),
+                "azure-telemetry-shutdown"));
+
+        return pipeline;
+    }
+
+    /**
+     * Queue the event to send in background, never blocks
+     *
+     * @return false if the event is dropped for the queue is full
+     */
+    public boolean send(@NotNull TelemetryClient client,
+                        @NotNull String eventName,
+                        @Nullable Map<String, String> properties,
+                        @Nullable Map<String, Double> metrics) {
+        if (queuedCount.incrementAndGet() > capacity) {
+            queuedCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        queue.offer(new PendingEvent(client, eventName, properties, metrics));
+
+        if (queuedCount.get() >= batchSize && isDrainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                isDrainScheduled.set(false);
+            }
+        }
+
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Track all the queued events, and flush the clients after every batch, run by the background thread only
+     */
+    void drain() {
+        isDrainScheduled.set(false);
+
+        Set<TelemetryClient> clients = Collections.newSetFromMap(new IdentityHashMap<>());
+        int tracked = 0;
+        PendingEvent event;
+
+        while ((event = queue.poll()) != null) {
+            queuedCount.decrementAndGet();
+
+            try {
+                event.client.trackEvent(event.eventName, event.properties, event.metrics);
+                clients.add(event.client);
+            } catch (Exception ignore) {
+            }
+
+            if (++tracked % batchSize == 0) {
+                flush(clients);
+            }
+        }
+
+        flush(clients);
+
+        long dropped = droppedCount.get();
+        if (dropped > reportedDroppedCount) {
+            LOGGER.warning(String.format("%d telemetry events are dropped for the queue is full",
+                    dropped - reportedDroppedCount));
+            reportedDroppedCount = dropped;
+        }
+    }
+
+    private static void flush(@NotNull Set<TelemetryClient> clients) {
+        for (TelemetryClient client : clients) {
+            try {
+                client.flush();
+            } catch (Exception ignore) {
+            }
+        }
+
+        clients.clear();
+    }
+
+    @Nullable
+    private static File getPendingFile() {
+        String baseDir = CommonSettings.getSettingsBaseDir();
+
+        return baseDir == null ? null : new File(new File(baseDir, PENDING_DIR_NAME), PENDING_FILE_NAME);
+    }
+
+    /**
+     * Save the events not sent yet, without touching the network
+     */
+    void savePending(@Nullable File file) {
+        List<PendingEvent> pending = new ArrayList<>();
+        PendingEvent event;
+
+        while ((event = queue.poll()) != null) {
+            queuedCount.decrementAndGet();
+            pending.add(event);
+        }
+
+        if (file == null || pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            mapper.writeValue(file, pending);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Can't save the pending telemetry events to " + file, ex);
+        }
+    }
+
+    /**
+     * Queue the events saved last time again
+     *
+     * @param client the client to send the saved events
+     */
+    public void loadPending(@NotNull TelemetryClient client) {
+        loadPending(client, getPendingFile());
+    }
+
+    void loadPending(@NotNull TelemetryClient client, @Nullable File file) {
+        if (file == null || !file.isFile()) {
+            return;
+        }
+
+        try {
+            List<PendingEvent> pending = mapper.readValue(file, new TypeReference<List<PendingEvent>>() {});
+
+            if (pending != null) {
+                pending.stream()
+                        .filter(saved -> saved.eventName != null)
+                        .forEach(saved -> send(client, saved.eventName, saved.properties, saved.metrics));
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Ignore the broken pending telemetry events " + file, ex);
+        } finally {
+            if (!file.delete()) {
+                LOGGER.warning("Can't delete the pending telemetry events " + file);
+            }
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class PendingEvent {
+        private transient TelemetryClient client;
+
+        @JsonProperty
+        private String eventName;
+
+        @JsonProperty
+        private Map<String, String> properties;
+
+        @JsonProperty
+        private Map<String, Double> metrics;
+
+        // For JSON deserialization
+        private PendingEvent() {
+        }
+
+        PendingEvent(@NotNull TelemetryClient client,
+                     @NotNull String eventName,
+                     @Nullable Map<String, String> properties,
+                     @Nullable Map<String, Double> metrics) {
+            this.client = client;
+            this.eventName = eventName;
+            this.properties = properties == null ? null : new HashMap<>(properties);
+            this.metrics = metrics == null ? null : new HashMap<>(metrics);
+        }
+    }
+}
@@ -24,6 +24,7 @@ package com.microsoft.azuretools.telemetrywrapper;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.azuretools.adauth.StringUtils;
+import com.microsoft.azuretools.telemetry.TelemetryPipeline;
 import org.joda.time.Instant;
 
 import java.util.HashMap;
@@ -52,7 +53,7 @@ public class CommonUtil {
         return merged;
     }
 
-    public synchronized static void sendTelemetry(EventType eventType, String serviceName, Map<String, String> properties,
+    public static void sendTelemetry(EventType eventType, String serviceName, Map<String, String> properties,
         Map<String, Double> metrics) {
         Map<String, String> mutableProps = properties == null ? new HashMap<>() : new HashMap<>(properties);
         // Tag UTC time as timestamp
@@ -61,8 +62,7 @@ public class CommonUtil {
             if (!StringUtils.isNullOrEmpty(serviceName)) {
                 mutableProps.put(SERVICE_NAME, serviceName);
             }
-            client.trackEvent(getFullEventName(eventType), mutableProps, metrics);
-            client.flush();
+            TelemetryPipeline.getInstance().send(client, getFullEventName(eventType), mutableProps, metrics);
         }
     }
 
@@ -28,6 +28,7 @@ import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.resources.Location;
 import com.microsoft.azure.management.resources.ResourceGroup;
 import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azure.management.resources.fluentcore.arm.models.HasResourceGroup;
 import com.microsoft.azuretools.adauth.AuthException;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.CommonSettings;
@@ -36,31 +37,50 @@ import com.microsoft.azuretools.authmanage.SubscriptionManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.WebAppUtils.WebAppDetails;
+import com.microsoft.rest.RestException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import rx.Observable;
-import rx.Subscriber;
 import rx.exceptions.Exceptions;
-import rx.functions.Action1;
-import rx.functions.Func1;
 import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
 
 /**
  * Created by vlashch on 1/9/17.
  */
 public class AzureModelController {
     private final static Logger LOGGER = Logger.getLogger(AzureModelController.class.getName());
+
+    // The max subscriptions refreshed in parallel, to keep the ARM requests from being throttled
+    static final int MAX_CONCURRENT_SUBSCRIPTIONS = 4;
+
+    static final int THROTTLING_RETRIES_MAX = 3;
+
+    // The delay for the throttled request without Retry-After header, which is doubled for each retry
+    private static final long DEFAULT_THROTTLING_DELAY_SECONDS = 5;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final Subject<String, String> subscriptionRefreshCancellation =
+            PublishSubject.<String>create().toSerialized();
+
     private static ISubscriptionSelectionListener subscriptionSelectionListener = new ISubscriptionSelectionListener() {
         @Override
         public void update(boolean isRefresh) {
@@ -74,6 +94,13 @@ public class AzureModelController {
                 @Override
                 public void work(IProgressIndicator pi) {
                     try {
+                        // Stop the running refresh of the deselected subscriptions rather than waiting for it
+                        AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
+                        if (azureManager != null) {
+                            cancelDeselectedSubscriptionsRefresh(
+                                    azureManager.getSubscriptionManager().getSubscriptionDetails());
+                        }
+
                         subscriptionSelectionChanged(pi);
                     } catch (Exception e) {
                         e.printStackTrace();
@@ -134,38 +161,12 @@ public class AzureModelController {
             return;
         }
 
+        List<SubscriptionDetail> sdToRefreshList = new ArrayList<>();
         for (SubscriptionDetail sd : sdl) {
             if (!srgMap.containsKey(sd)) {
-                if (!sd.isSelected()) continue;
-
-                if(progressIndicator != null && progressIndicator.isCanceled()) {
-                    progressIndicator.setText("Cancelling...");
-                    clearAll();
-                    return;
-                    // FIXME: throw exception?
+                if (sd.isSelected()) {
+                    sdToRefreshList.add(sd);
                 }
-
-                Azure azure = azureManager.getAzure(sd.getSubscriptionId());
-                // subscription locations
-                List<Subscription> sl = azureManager.getSubscriptions();
-                System.out.println("Updating subscription locations");
-                Subscription subscription = sidToSubscriptionMap.get(sd.getSubscriptionId());
-                if(progressIndicator != null) progressIndicator.setText(String.format("Updating subscription '%s' locations...", subscription.displayName()));
-                List<Location> locl = subscription.listLocations();
-                Collections.sort(locl, new Comparator<Location>() {
-                    @Override
-                    public int compare(Location lhs, Location rhs) {
-                        return lhs.displayName().compareTo(rhs.displayName());
-                    }
-                });
-
-                Map<SubscriptionDetail, List<Location>> sdlocMap = azureModel.getSubscriptionToLocationMap();
-                sdlocMap.put(sd, locl);
-
-                // resource group maps
-                List<ResourceGroup> rgList = azure.resourceGroups().list();
-                srgMap.put(sd, rgList);
-                updateResGrDependency(azure, rgList, progressIndicator, rgwaMap, rgspMap);
             } else {
                 // find and modify the key
                 for (SubscriptionDetail sdk : srgMap.keySet()) {
@@ -175,70 +176,142 @@ public class AzureModelController {
                 }
             }
         }
+
+        Map<SubscriptionDetail, List<Location>> sdlocMap = azureModel.getSubscriptionToLocationMap();
+        Observable.from(sdToRefreshList).flatMap(sd -> refreshSubscription(sd.getSubscriptionId(), () -> {
+            if (progressIndicator != null && progressIndicator.isCanceled()) {
+                return sd;
+            }
+
+            Azure azure = azureManager.getAzure(sd.getSubscriptionId());
+            Subscription subscription = sidToSubscriptionMap.get(sd.getSubscriptionId());
+            if (progressIndicator != null) {
+                progressIndicator.setText(String.format("Updating subscription '%s'...", subscription.displayName()));
+            }
+
+            // subscription locations
+            List<Location> locl = callArm(subscription::listLocations);
+            Collections.sort(locl, Comparator.comparing(Location::displayName));
+            sdlocMap.put(sd, locl);
+
+            // resource group maps
+            List<ResourceGroup> rgList = callArm(() -> azure.resourceGroups().list());
+            srgMap.put(sd, rgList);
+            updateResGrDependency(azure, rgList, progressIndicator, rgwaMap, rgspMap);
+
+            return sd;
+        }), MAX_CONCURRENT_SUBSCRIPTIONS).toBlocking().subscribe();
+
+        if (progressIndicator != null && progressIndicator.isCanceled()) {
+            progressIndicator.setText("Cancelling...");
+            clearAll();
+        }
+    }
+
+    /**
+     * Cancel the refreshing of the subscription, the other subscriptions are kept refreshing
+     *
+     * @param subscriptionId the subscription ID to cancel
+     */
+    public static void cancelSubscriptionRefresh(String subscriptionId) {
+        subscriptionRefreshCancellation.onNext(subscriptionId);
     }
 
-    static class RgDepParams {
-        ResourceGroup rg;
-        List<WebApp> wal;
-        List<AppServicePlan> aspl;
+    static void cancelDeselectedSubscriptionsRefresh(List<SubscriptionDetail> sdl) {
+        if (sdl == null) {
+            return;
+        }
 
-        public RgDepParams(ResourceGroup rg, List<WebApp> wal, List<AppServicePlan> aspl) {
-            this.rg = rg;
-            this.wal = wal;
-            this.aspl = aspl;
+        for (SubscriptionDetail sd : sdl) {
+            if (!sd.isSelected()) {
+                cancelSubscriptionRefresh(sd.getSubscriptionId());
+            }
         }
     }
 
+    static <T> Observable<T> refreshSubscription(String subscriptionId, Callable<T> refresh) {
+        return Observable.fromCallable(refresh)
+                .subscribeOn(Schedulers.io())
+                .takeUntil(subscriptionRefreshCancellation.filter(subscriptionId::equals))
+                // Keep the other subscriptions refreshing
+                .onErrorResumeNext(err -> {
+                    LOGGER.log(Level.WARNING, "Failed to refresh subscription " + subscriptionId, err);
+                    return Observable.empty();
+                });
+    }
+
+    /**
+     * Call ARM and retry it after the delay in Retry-After header if it's throttled
+     */
+    static <T> T callArm(Callable<T> call) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (RestException ex) {
+                if (ex.response() == null || ex.response().code() != HTTP_TOO_MANY_REQUESTS
+                        || attempt >= THROTTLING_RETRIES_MAX) {
+                    throw ex;
+                }
+
+                long delaySeconds = getRetryAfterSeconds(ex.response().headers().get("Retry-After"), attempt);
+                LOGGER.warning(String.format("ARM request is throttled, retry it after %d seconds", delaySeconds));
+                TimeUnit.SECONDS.sleep(delaySeconds);
+            }
+        }
+    }
+
+    static long getRetryAfterSeconds(String retryAfter, int attempt) {
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                // The HTTP date format isn't used by ARM
+            }
+        }
+
+        return DEFAULT_THROTTLING_DELAY_SECONDS << (attempt - 1);
+    }
+
+    /**
+     * Group the subscription level resources by their resource groups, every resource group gets a list even
+     * though there is no resource in it
+     */
+    static <T extends HasResourceGroup> Map<ResourceGroup, List<T>> groupByResourceGroup(List<ResourceGroup> rgList,
+                                                                                       Collection<T> resources) {
+        Map<String, ResourceGroup> nameToRg = new HashMap<>();
+        Map<ResourceGroup, List<T>> rgToResources = new HashMap<>();
+        for (ResourceGroup rg : rgList) {
+            nameToRg.put(rg.name().toLowerCase(Locale.ROOT), rg);
+            rgToResources.put(rg, new ArrayList<>());
+        }
+
+        for (T resource : resources) {
+            String rgName = resource.resourceGroupName();
+            ResourceGroup rg = rgName == null ? null : nameToRg.get(rgName.toLowerCase(Locale.ROOT));
+            // The resource group created after listing resource groups is left to the next refresh
+            if (rg != null) {
+                rgToResources.get(rg).add(resource);
+            }
+        }
+
+        return rgToResources;
+    }
+
     private static void updateResGrDependency(Azure azure,
             List<ResourceGroup> rgList,
             IProgressIndicator progressIndicator,
             Map<ResourceGroup, List<WebApp>> rgwaMap,
-            Map<ResourceGroup, List<AppServicePlan>> rgspMap) {
+            Map<ResourceGroup, List<AppServicePlan>> rgspMap) throws Exception {
 
         if (progressIndicator != null) progressIndicator.setText("Reading App Services...");
-        int tasksSize = rgList.size();
-        if (tasksSize == 0) return;
-        Observable.from(rgList).flatMap(new Func1<ResourceGroup, Observable<? extends RgDepParams>>() {
-            @Override
-            public Observable<? extends RgDepParams> call(ResourceGroup rg) {
-                return Observable.create(new Observable.OnSubscribe<RgDepParams>() {
-                    @Override
-                    public void call(Subscriber<? super RgDepParams> subscriber) {
-                        List<WebApp> wal = azure.webApps().listByResourceGroup(rg.name());
-                        List<AppServicePlan> aspl = azure.appServices().appServicePlans().listByResourceGroup(rg.name())
-                                .stream().collect(Collectors.toList());
-                        subscriber.onNext(new RgDepParams(rg, wal, aspl));
-                        subscriber.onCompleted();
-                    }
-                }).subscribeOn(Schedulers.io());
-            }
-        }, tasksSize)
-        .subscribeOn(Schedulers.newThread())
-        .toBlocking()
-        .subscribe(new Action1<RgDepParams>() {
-            @Override
-            public void call(RgDepParams params) {
-                synchronized (rgwaMap) {
-                    synchronized (rgspMap) {
-                        rgwaMap.put(params.rg, params.wal);
-                        rgspMap.put(params.rg, params.aspl);
-                    }
-                }
-            }
-        });
+        if (rgList.size() == 0) return;
+
+        // List the subscription level resources and group them locally, rather than two requests per resource group
+        List<WebApp> wal = callArm(() -> new ArrayList<>(azure.webApps().list()));
+        List<AppServicePlan> aspl = callArm(() -> new ArrayList<>(azure.appServices().appServicePlans().list()));
 
-//        for (ResourceGroup rg : rgList) {
-//            if (progressIndicator != null && progressIndicator.isCanceled()) {
-//                clearAll();
-//                return;
-//            }
-//            //System.out.println("rg : " + rg);
-//            if (progressIndicator != null) progressIndicator.setText("Reading resource group '" + rg.name() + "'");
-//            List<WebApp> waList = azure.webApps().listByGroup(rg.name());
-//            rgwaMap.put(rg, waList);
-//            List<AppServicePlan> aspl = azure.appServices().appServicePlans().listByGroup(rg.name());
-//            rgspMap.put(rg, aspl);
-//        }
+        rgwaMap.putAll(groupByResourceGroup(rgList, wal));
+        rgspMap.putAll(groupByResourceGroup(rgList, aspl));
     }
 
     public static synchronized void updateSubscriptionMaps(IProgressIndicator progressIndicator) throws IOException, CanceledByUserException, AuthException {
@@ -282,10 +355,11 @@ public class AzureModelController {
                             }
                             Azure azure = azureManager.getAzure(sd.getSubscriptionId());
 
-                            List<ResourceGroup> rgList = azure.resourceGroups().list();
+                            List<ResourceGroup> rgList = callArm(() -> azure.resourceGroups().list());
                             sdrgMap.put(sd, rgList);
 
-                            List<Location> locl = sidToSubscriptionMap.get(sd.getSubscriptionId()).listLocations();
+                            List<Location> locl = callArm(
+                                    sidToSubscriptionMap.get(sd.getSubscriptionId())::listLocations);
                             Collections.sort(locl, Comparator.comparing(Location::displayName));
                             sdlocMap.put(sd, locl);
                         }
@@ -293,7 +367,9 @@ public class AzureModelController {
                     } catch (Exception e) {
                         Exceptions.propagate(e);
                     }
-                }).subscribeOn(Schedulers.io()), sdl.size()).subscribeOn(Schedulers.io()).toBlocking().subscribe();
+                }).subscribeOn(Schedulers.io())
+                        .takeUntil(subscriptionRefreshCancellation.filter(sd.getSubscriptionId()::equals)),
+                    MAX_CONCURRENT_SUBSCRIPTIONS).subscribeOn(Schedulers.io()).toBlocking().subscribe();
         }
         azureModel.setSubscriptionToResourceGroupMap(sdrgMap);
         azureModel.setSubscriptionToLocationMap(sdlocMap);
@@ -320,17 +396,23 @@ public class AzureModelController {
             Observable.create((subscriber) -> {
                 try {
                     List<ResourceGroup> rgList = azureModel.getSubscriptionToResourceGroupMap().get(sd);
-                    if (rgList.size() > 0) {
+                    if (rgList.size() > 0 && (progressIndicator == null || !progressIndicator.isCanceled())) {
                         Azure azure = azureManager.getAzure(sd.getSubscriptionId());
                         updateResGrDependency(azure, rgList, progressIndicator, rgwaMap, rgspMap);
                     }
                     subscriber.onCompleted();
                 } catch (Exception e) {
                     Exceptions.propagate(e);
-                } finally {
-                    countDownLatch.countDown();
                 }
-            }).subscribeOn(Schedulers.io()), sdSet.size()).subscribeOn(Schedulers.io()).subscribe();
+            }).subscribeOn(Schedulers.io())
+                    .takeUntil(subscriptionRefreshCancellation.filter(sd.getSubscriptionId()::equals))
+                    // Keep the other subscriptions waiting for their turns refreshing
+                    .onErrorResumeNext(err -> {
+                        LOGGER.log(Level.WARNING, "Failed to refresh subscription " + sd.getSubscriptionId(), err);
+                        return Observable.empty();
+                    })
+                    .doOnTerminate(countDownLatch::countDown),
+                MAX_CONCURRENT_SUBSCRIPTIONS).subscribeOn(Schedulers.io()).subscribe();
 
         Thread cancelCheckThread = new Thread(() -> {
             try {
@@ -365,6 +447,7 @@ public class AzureModelController {
 
         azureModel.setResourceGroupToWebAppMap(rgwaMap);
         azureModel.setResourceGroupToAppServicePlanMap(rgspMap);
+        AzureModelSnapshotStore.saveCurrent();
     }
 
     public static void addNewResourceGroup(SubscriptionDetail sd, ResourceGroup rg) {
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *   <p/>
+ *  All rights reserved.
+ *   <p/>
+ *  MIT License
+ *   <p/>
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ *  the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ *  to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *  <p/>
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ *  the Software.
+ *   <p/>
+ *  THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ *  THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.AppServicePlan;
+import com.microsoft.azure.management.appservice.WebApp;
+import com.microsoft.azure.management.resources.Location;
+import com.microsoft.azure.management.resources.ResourceGroup;
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The snapshot of the Azure resources cached in AzureModel and AzureWebAppMvpModel, to be saved to disk and
+ * rendered at the next startup before the resources are listed from ARM again.
+ *
+ * The SDK resource objects can't be restored from disk, so only the fields the explorer renders are kept,
+ * nested by subscription and resource group without repeating them in each resource.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AzureModelSnapshot {
+    // Increase it when the snapshot format is changed incompatibly, the snapshot of other versions is dropped
+    public static final int VERSION = 1;
+
+    @JsonProperty
+    private int version = VERSION;
+
+    @JsonProperty
+    private long createdTime;
+
+    @JsonProperty
+    private List<SubscriptionRecord> subscriptions = new ArrayList<>();
+
+    // for jackson json
+    public AzureModelSnapshot() {
+    }
+
+    public AzureModelSnapshot(long createdTime, List<SubscriptionRecord> subscriptions) {
+        this.createdTime = createdTime;
+        this.subscriptions = subscriptions;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public List<SubscriptionRecord> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * Get the web apps of the subscriptions in the snapshot
+     *
+     * @return the web apps records with their subscription IDs as keys
+     */
+    public List<Pair<String, WebAppRecord>> listWebApps() {
+        List<Pair<String, WebAppRecord>> webApps = new ArrayList<>();
+        for (SubscriptionRecord subscription : subscriptions) {
+            for (ResourceGroupRecord rg : subscription.resourceGroups) {
+                for (WebAppRecord webApp : rg.webApps) {
+                    webApps.add(new Pair<>(subscription.subscriptionId, webApp));
+                }
+            }
+        }
+
+        return webApps;
+    }
+
+    /**
+     * Capture the snapshot of the subscriptions from the resources cached
+     *
+     * @param sdl the subscriptions to capture, the ones without any resources cached are skipped
+     * @param sdrgMap the resource groups of subscriptions, nullable
+     * @param sdlocMap the locations of subscriptions, nullable
+     * @param rgwaMap the web apps of resource groups, nullable
+     * @param rgspMap the app service plans of resource groups, nullable
+     * @param sidToWebApps the web apps of subscriptions listed by AzureWebAppMvpModel, which take precedence
+     *                     over the ones of resource groups
+     * @return the snapshot
+     */
+    public static AzureModelSnapshot capture(List<SubscriptionDetail> sdl,
+                                             Map<SubscriptionDetail, List<ResourceGroup>> sdrgMap,
+                                             Map<SubscriptionDetail, List<Location>> sdlocMap,
+                                             Map<ResourceGroup, List<WebApp>> rgwaMap,
+                                             Map<ResourceGroup, List<AppServicePlan>> rgspMap,
+                                             Map<String, List<ResourceEx<WebApp>>> sidToWebApps) {
+        List<SubscriptionRecord> subscriptions = new ArrayList<>();
+
+        for (SubscriptionDetail sd : sdl) {
+            List<ResourceGroup> rgList = sdrgMap == null ? null : sdrgMap.get(sd);
+            List<ResourceEx<WebApp>> webApps = sidToWebApps == null ? null : sidToWebApps.get(sd.getSubscriptionId());
+            if (rgList == null && webApps == null) {
+                // Nothing of the subscription is cached, leave its previous snapshot as it is
+                continue;
+            }
+
+            SubscriptionRecord subscription = new SubscriptionRecord(sd.getSubscriptionId(), sd.getTenantId());
+            Map<String, ResourceGroupRecord> rgRecords = new LinkedHashMap<>();
+
+            List<Location> locl = sdlocMap == null ? null : sdlocMap.get(sd);
+            if (locl != null) {
+                for (Location loc : locl) {
+                    subscription.locations.add(new LocationRecord(loc.name(), loc.displayName()));
+                }
+            }
+
+            if (rgList != null) {
+                for (ResourceGroup rg : rgList) {
+                    ResourceGroupRecord rgRecord = getOrAddResourceGroup(rgRecords, rg.name(), rg.regionName());
+
+                    List<AppServicePlan> aspl = rgspMap == null ? null : rgspMap.get(rg);
+                    if (aspl != null) {
+                        for (AppServicePlan asp : aspl) {
+                            rgRecord.appServicePlans.add(new AppServicePlanRecord(asp.id(), asp.name(),
+                                    asp.regionName(), Objects.toString(asp.pricingTier(), null)));
+                        }
+                    }
+                }
+            }
+
+            if (webApps != null) {
+                for (ResourceEx<WebApp> webApp : webApps) {
+                    getOrAddResourceGroup(rgRecords, webApp.getResource().resourceGroupName(), null)
+                            .webApps.add(WebAppRecord.of(webApp.getResource()));
+                }
+            } else if (rgwaMap != null) {
+                for (ResourceGroup rg : rgList) {
+                    for (WebApp webApp : rgwaMap.getOrDefault(rg, Collections.emptyList())) {
+                        getOrAddResourceGroup(rgRecords, rg.name(), null).webApps.add(WebAppRecord.of(webApp));
+                    }
+                }
+            }
+
+            subscription.resourceGroups.addAll(rgRecords.values());
+            subscriptions.add(subscription);
+        }
+
+        return new AzureModelSnapshot(System.currentTimeMillis(), subscriptions);
+    }
+
+    private static ResourceGroupRecord getOrAddResourceGroup(Map<String, ResourceGroupRecord> rgRecords,
+                                                             String name,
+                                                             String region) {
+        return rgRecords.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> new ResourceGroupRecord(name, region));
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class SubscriptionRecord {
+        @JsonProperty
+        private String subscriptionId;
+
+        @JsonProperty
+        private String tenantId;
+
+        @JsonProperty
+        private List<LocationRecord> locations = new ArrayList<>();
+
+        @JsonProperty
+        private List<ResourceGroupRecord> resourceGroups = new ArrayList<>();
+
+        // for jackson json
+        public SubscriptionRecord() {
+        }
+
+        public SubscriptionRecord(String subscriptionId, String tenantId) {
+            this.subscriptionId = subscriptionId;
+            this.tenantId = tenantId;
+        }
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public List<LocationRecord> getLocations() {
+            return locations;
+        }
+
+        public List<ResourceGroupRecord> getResourceGroups() {
+            return resourceGroups;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class LocationRecord {
+        @JsonProperty
+        private String name;
+
+        @JsonProperty
+        private String displayName;
+
+        // for jackson json
+        public LocationRecord() {
+        }
+
+        public LocationRecord(String name, String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ResourceGroupRecord {
+        @JsonProperty
+        private String name;
+
+        @JsonProperty
+        private String region;
+
+        @JsonProperty
+        private List<WebAppRecord> webApps = new ArrayList<>();
+
+        @JsonProperty
+        private List<AppServicePlanRecord> appServicePlans = new ArrayList<>();
+
+        // for jackson json
+        public ResourceGroupRecord() {
+        }
+
+        public ResourceGroupRecord(String name, String region) {
+            this.name = name;
+            this.region = region;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public List<WebAppRecord> getWebApps() {
+            return webApps;
+        }
+
+        public List<AppServicePlanRecord> getAppServicePlans() {
+            return appServicePlans;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class WebAppRecord {
+        @JsonProperty
+        private String id;
+
+        @JsonProperty
+        private String name;
+
+        @JsonProperty
+        private String region;
+
+        @JsonProperty
+        private String state;
+
+        @JsonProperty
+        private String defaultHostName;
+
+        @JsonProperty
+        private String operatingSystem;
+
+        // for jackson json
+        public WebAppRecord() {
+        }
+
+        public WebAppRecord(String id, String name, String region, String state, String defaultHostName,
+                            String operatingSystem) {
+            this.id = id;
+            this.name = name;
+            this.region = region;
+            this.state = state;
+            this.defaultHostName = defaultHostName;
+            this.operatingSystem = operatingSystem;
+        }
+
+        static WebAppRecord of(WebApp webApp) {
+            return new WebAppRecord(webApp.id(), webApp.name(), webApp.regionName(), webApp.state(),
+                    webApp.defaultHostName(), Objects.toString(webApp.operatingSystem(), null));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public String getDefaultHostName() {
+            return defaultHostName;
+        }
+
+        public String getOperatingSystem() {
+            return operatingSystem;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AppServicePlanRecord {
+        @JsonProperty
+        private String id;
+
+        @JsonProperty
+        private String name;
+
+        @JsonProperty
+        private String region;
+
+        @JsonProperty
+        private String pricingTier;
+
+        // for jackson json
+        public AppServicePlanRecord() {
+        }
+
+        public AppServicePlanRecord(String id, String name, String region, String pricingTier) {
+            this.id = id;
+            this.name = name;
+            this.region = region;
+            this.pricingTier = pricingTier;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public String getPricingTier() {
+            return pricingTier;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *   <p/>
+ *  All rights reserved.
+ *   <p/>
+ *  MIT License
+ *   <p/>
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ *  the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ *  to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *  <p/>
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ *  the Software.
+ *   <p/>
+ *  THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ *  THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azuretools.authmanage.AuthMethodManager;
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.authmanage.models.AuthMethodDetails;
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.azurecommons.util.GetHashMac;
+import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
+import com.microsoft.azuretools.sdkmanage.AzureManager;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The on-disk store of the Azure model snapshots, with one gzipped JSON file for each account and tenant.
+ *
+ * The snapshot file is replaced atomically by moving a fully written temp file, so a crash or a concurrent
+ * save never leaves a broken snapshot. The saves are serialized across the stores, so that a concurrent
+ * read-merge-write doesn't drop the subscriptions merged by the other. A missing, broken or other versions
+ * snapshot is just ignored.
+ */
+public class AzureModelSnapshotStore {
+    private static final Logger LOGGER = Logger.getLogger(AzureModelSnapshotStore.class.getName());
+    private static final String SNAPSHOTS_DIR_NAME = "snapshots";
+    private static final String SNAPSHOT_FILE_SUFFIX = ".json.gz";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // The stores are created for each save, so the lock is shared by all of them
+    private static final Object SAVE_LOCK = new Object();
+
+    @NotNull
+    private final File dir;
+
+    public AzureModelSnapshotStore(@NotNull File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Get the store under the settings folder
+     *
+     * @return the store, null if the settings folder isn't set up yet
+     */
+    @Nullable
+    public static AzureModelSnapshotStore getDefault() {
+        String baseDir = CommonSettings.getSettingsBaseDir();
+
+        return baseDir == null ? null : new AzureModelSnapshotStore(new File(baseDir, SNAPSHOTS_DIR_NAME));
+    }
+
+    /**
+     * Get the key of the signed in account, which is the same across the sign-ins of the same account
+     */
+    @NotNull
+    public static String getAccountKey(@NotNull AuthMethodDetails authMethodDetails) {
+        String account = authMethodDetails.getAccountEmail() != null
+                ? authMethodDetails.getAccountEmail()
+                : authMethodDetails.getCredFilePath();
+
+        return String.join("|", Objects.toString(authMethodDetails.getAuthMethod(), ""),
+                Objects.toString(account, ""), Objects.toString(authMethodDetails.getAzureEnv(), ""));
+    }
+
+    @NotNull
+    File getSnapshotFile(@NotNull String accountKey, @Nullable String tenantId) {
+        // Hash the account and tenant to keep the account name out of the file name
+        return new File(dir, GetHashMac.hash(accountKey + "|" + Objects.toString(tenantId, "")) + SNAPSHOT_FILE_SUFFIX);
+    }
+
+    /**
+     * Save the snapshot by tenants, the subscriptions not in the snapshot keep their previous snapshots
+     *
+     * @param accountKey the account key
+     * @param snapshot the snapshot to save
+     * @throws IOException the snapshot file can't be written
+     */
+    public void save(@NotNull String accountKey, @NotNull AzureModelSnapshot snapshot) throws IOException {
+        Map<String, List<AzureModelSnapshot.SubscriptionRecord>> tenantToSubscriptions = snapshot.getSubscriptions()
+                .stream()
+                .collect(Collectors.groupingBy(sub -> Objects.toString(sub.getTenantId(), "")));
+
+        synchronized (SAVE_LOCK) {
+            Files.createDirectories(dir.toPath());
+
+            for (Map.Entry<String, List<AzureModelSnapshot.SubscriptionRecord>> entry :
+                    tenantToSubscriptions.entrySet()) {
+                File file = getSnapshotFile(accountKey, entry.getKey());
+                Map<String, AzureModelSnapshot.SubscriptionRecord> merged = new LinkedHashMap<>();
+
+                AzureModelSnapshot previous = read(file);
+                if (previous != null) {
+                    previous.getSubscriptions().forEach(sub -> merged.put(sub.getSubscriptionId(), sub));
+                }
+
+                entry.getValue().forEach(sub -> merged.put(sub.getSubscriptionId(), sub));
+
+                write(file, new AzureModelSnapshot(snapshot.getCreatedTime(), new ArrayList<>(merged.values())));
+            }
+        }
+    }
+
+    /**
+     * Load the snapshot of the subscriptions
+     *
+     * @param accountKey the account key
+     * @param subscriptions the subscriptions to load
+     * @return the snapshot of the subscriptions found, null if none is found
+     */
+    @Nullable
+    public AzureModelSnapshot load(@NotNull String accountKey, @NotNull Collection<SubscriptionDetail> subscriptions) {
+        Set<String> tenantIds = subscriptions.stream()
+                .map(sd -> Objects.toString(sd.getTenantId(), ""))
+                .collect(Collectors.toSet());
+        Set<String> sids = subscriptions.stream()
+                .map(sd -> sd.getSubscriptionId().toLowerCase())
+                .collect(Collectors.toSet());
+
+        List<AzureModelSnapshot.SubscriptionRecord> found = new ArrayList<>();
+        long createdTime = Long.MAX_VALUE;
+
+        for (String tenantId : tenantIds) {
+            AzureModelSnapshot snapshot = read(getSnapshotFile(accountKey, tenantId));
+            if (snapshot == null) {
+                continue;
+            }
+
+            createdTime = Math.min(createdTime, snapshot.getCreatedTime());
+            snapshot.getSubscriptions().stream()
+                    .filter(sub -> sub.getSubscriptionId() != null
+                            && sids.contains(sub.getSubscriptionId().toLowerCase()))
+                    .forEach(found::add);
+        }
+
+        return found.isEmpty() ? null : new AzureModelSnapshot(createdTime, found);
+    }
+
+    @Nullable
+    private static AzureModelSnapshot read(@NotNull File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            AzureModelSnapshot snapshot = mapper.readValue(in, AzureModelSnapshot.class);
+
+            return snapshot != null && snapshot.getVersion() == AzureModelSnapshot.VERSION ? snapshot : null;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Ignore the broken Azure model snapshot " + file, ex);
+            return null;
+        }
+    }
+
+    private static void write(@NotNull File file, @NotNull AzureModelSnapshot snapshot) throws IOException {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                mapper.writeValue(out, snapshot);
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Load the snapshot of the selected subscriptions of the signed in account
+     *
+     * @return the snapshot, null if not signed in or no snapshot found
+     */
+    @Nullable
+    public static AzureModelSnapshot loadCurrent() {
+        AzureModelSnapshotStore store = getDefault();
+        if (store == null) {
+            return null;
+        }
+
+        try {
+            AuthMethodManager authMethodManager = AuthMethodManager.getInstance();
+            AzureManager azureManager = authMethodManager.getAzureManager();
+            if (azureManager == null) {
+                return null;
+            }
+
+            return store.load(getAccountKey(authMethodManager.getAuthMethodDetails()),
+                    azureManager.getSubscriptionManager().getSelectedSubscriptionDetails());
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Failed to load the Azure model snapshot", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Save the snapshot of the resources cached for the selected subscriptions of the signed in account,
+     * the failure is logged only since the snapshot is just for a faster startup
+     */
+    public static void saveCurrent() {
+        AzureModelSnapshotStore store = getDefault();
+        if (store == null) {
+            return;
+        }
+
+        try {
+            AuthMethodManager authMethodManager = AuthMethodManager.getInstance();
+            AzureManager azureManager = authMethodManager.getAzureManager();
+            if (azureManager == null) {
+                return;
+            }
+
+            AzureModel azureModel = AzureModel.getInstance();
+            AzureModelSnapshot snapshot = AzureModelSnapshot.capture(
+                    azureManager.getSubscriptionManager().getSelectedSubscriptionDetails(),
+                    azureModel.getSubscriptionToResourceGroupMap(),
+                    azureModel.getSubscriptionToLocationMap(),
+                    azureModel.getResourceGroupToWebAppMap(),
+                    azureModel.getResourceGroupToAppServicePlanMap(),
+                    AzureWebAppMvpModel.getInstance().getCachedWebApps());
+
+            store.save(getAccountKey(authMethodManager.getAuthMethodDetails()), snapshot);
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Failed to save the Azure model snapshot", ex);
+        }
+    }
+}
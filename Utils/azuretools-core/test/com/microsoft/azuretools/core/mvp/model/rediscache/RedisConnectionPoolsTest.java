@@ -22,6 +22,10 @@
 
 package com.microsoft.azuretools.core.mvp.model.rediscache;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -41,6 +45,7 @@ import com.microsoft.azure.management.redis.RedisCache;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({
@@ -107,4 +112,49 @@ public class RedisConnectionPoolsTest {
         RedisConnectionPools.getInstance().releasePool(MOCK_REDIS_ID);
         verify(jedisPoolMock, times(0)).destroy();
     }
+
+    @Test
+    public void testLeastRecentlyUsedPoolReleased() throws Exception {
+        RedisConnectionPools pools = RedisConnectionPools.getInstance();
+        for (int i = 0; i < RedisConnectionPools.MAX_POOLS; i++) {
+            pools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + i);
+        }
+        // Use the first one again, so the second one is the least recently used
+        pools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + 0);
+        verify(jedisPoolMock, times(0)).destroy();
+
+        pools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID);
+        verify(jedisPoolMock, times(1)).destroy();
+        assertNull(pools.getPoolStats(MOCK_REDIS_ID + 1));
+
+        for (int i = 0; i < RedisConnectionPools.MAX_POOLS; i++) {
+            pools.releasePool(MOCK_REDIS_ID + i);
+        }
+        pools.releasePool(MOCK_REDIS_ID);
+    }
+
+    @Test
+    public void testGetPoolStats() throws Exception {
+        when(jedisPoolMock.getNumActive()).thenReturn(2);
+        when(jedisPoolMock.getNumIdle()).thenReturn(1);
+        when(jedisPoolMock.getMaxBorrowWaitTimeMillis()).thenReturn(10L);
+
+        RedisConnectionPools.getInstance().getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID);
+        RedisPoolStats stats = RedisConnectionPools.getInstance().getPoolStats(MOCK_REDIS_ID);
+        assertEquals(2, stats.getNumActive());
+        assertEquals(1, stats.getNumIdle());
+        assertEquals(10L, stats.getMaxBorrowWaitTimeMillis());
+
+        RedisConnectionPools.getInstance().releasePool(MOCK_REDIS_ID);
+        assertNull(RedisConnectionPools.getInstance().getPoolStats(MOCK_REDIS_ID));
+    }
+
+    @Test
+    public void testCreatePoolConfig() {
+        JedisPoolConfig config = RedisConnectionPools.createPoolConfig();
+        assertTrue(config.getMaxTotal() > 1);
+        assertTrue(config.getTestWhileIdle());
+        assertFalse(config.getTestOnBorrow());
+        assertTrue(config.getTimeBetweenEvictionRunsMillis() > 0);
+    }
 }
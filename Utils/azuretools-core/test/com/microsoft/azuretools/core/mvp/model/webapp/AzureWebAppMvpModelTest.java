@@ -5,6 +5,7 @@ import com.microsoft.azure.PagedList;
 import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.appservice.*;
 import com.microsoft.azure.management.appservice.implementation.AppServiceManager;
+import com.microsoft.azure.management.appservice.implementation.SiteInner;
 import com.microsoft.azure.management.resources.Subscription;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
@@ -13,6 +14,7 @@ import com.microsoft.azuretools.core.mvp.model.ResourceEx;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.WebAppUtils;
 import com.microsoft.rest.RestException;
+import org.joda.time.DateTime;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -307,6 +309,60 @@ public class AzureWebAppMvpModelTest {
         reset(webAppsMock);
     }
 
+    @Test
+    public void testRefreshWebAppsConditionally() throws IOException {
+        final DateTime modifiedTime = new DateTime(2019, 9, 1, 0, 0);
+        final WebApp app1 = mockWebApp("id1", modifiedTime, "Running");
+        final WebApp app2 = mockWebApp("id2", modifiedTime, "Running");
+        final List<WebApp> webAppList = prepareMockWebAppList();
+        webAppList.clear();
+        webAppList.add(app1);
+        webAppList.add(app2);
+        when(webAppsMock.list()).thenReturn((PagedList<WebApp>) webAppList);
+
+        // Nothing cached, list them in full
+        List<ResourceEx<WebApp>> resultList = azureWebAppMvpModel.refreshWebApps(MOCK_SUBSCRIPTION);
+        assertEquals(2, resultList.size());
+
+        // app1 unmodified, app2 modified, app3 created and the function app skipped
+        final List<SiteInner> sites = new ArrayList<>();
+        sites.add(mockSite("ID1", "app", modifiedTime, "Running"));
+        sites.add(mockSite("id2", "app,linux", modifiedTime.plusMinutes(1), "Running"));
+        sites.add(mockSite("id3", null, modifiedTime, "Stopped"));
+        sites.add(mockSite("id4", "functionapp", modifiedTime, "Running"));
+        final WebApp app2Modified = mockWebApp("id2", modifiedTime.plusMinutes(1), "Running");
+        final WebApp app3 = mockWebApp("id3", modifiedTime, "Stopped");
+        when(webAppsMock.getById("id2")).thenReturn(app2Modified);
+        when(webAppsMock.getById("id3")).thenReturn(app3);
+
+        resultList = AzureWebAppMvpModel.reconcileWebApps(MOCK_SUBSCRIPTION, sites, resultList,
+            webAppsMock::getById);
+        assertEquals(3, resultList.size());
+        assertSame(app1, resultList.get(0).getResource());
+        assertSame(app2Modified, resultList.get(1).getResource());
+        assertSame(app3, resultList.get(2).getResource());
+        verify(webAppsMock, never()).getById("ID1");
+        verify(webAppsMock, never()).getById("id4");
+        verify(webAppsMock, times(1)).list();
+    }
+
+    private static WebApp mockWebApp(String id, DateTime lastModifiedTime, String state) {
+        final WebApp app = mock(WebApp.class);
+        when(app.id()).thenReturn(id);
+        when(app.lastModifiedTime()).thenReturn(lastModifiedTime);
+        when(app.state()).thenReturn(state);
+        return app;
+    }
+
+    private static SiteInner mockSite(String id, String kind, DateTime lastModifiedTime, String state) {
+        final SiteInner site = mock(SiteInner.class);
+        when(site.id()).thenReturn(id);
+        when(site.kind()).thenReturn(kind);
+        when(site.lastModifiedTimeUtc()).thenReturn(lastModifiedTime);
+        when(site.state()).thenReturn(state);
+        return site;
+    }
+
     @Test
     public void testListWebAppsOnLinux() throws IOException {
         final List<WebApp> storedList = prepareMockWebAppList();
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Microsoft Corporation
+ * 
+ * All rights reserved.
+ * 
+ * MIT License
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+
+public class TelemetryPipelineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+
+    private TelemetryClient clientMock;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        clientMock = mock(TelemetryClient.class);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSendReturnsBeforeTracking() {
+        TelemetryPipeline pipeline = new TelemetryPipeline(10, 10, executor);
+
+        assertTrue(pipeline.send(clientMock, "event", Collections.singletonMap("key", "value"), null));
+        verify(clientMock, never()).trackEvent(anyString(), anyMap(), anyMap());
+        verify(clientMock, never()).flush();
+        assertEquals(1, pipeline.getQueuedCount());
+    }
+
+    @Test
+    public void testDrainFlushesOncePerBatch() {
+        TelemetryPipeline pipeline = new TelemetryPipeline(10, 100, executor);
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.send(clientMock, "event" + i, null, null);
+        }
+        pipeline.drain();
+
+        verify(clientMock, times(5)).trackEvent(anyString(), eq(null), eq(null));
+        verify(clientMock, times(1)).flush();
+        assertEquals(0, pipeline.getQueuedCount());
+    }
+
+    @Test
+    public void testDropsEventsBeyondCapacity() {
+        TelemetryPipeline pipeline = new TelemetryPipeline(2, 100, executor);
+
+        assertTrue(pipeline.send(clientMock, "event1", null, null));
+        assertTrue(pipeline.send(clientMock, "event2", null, null));
+        assertFalse(pipeline.send(clientMock, "event3", null, null));
+        assertEquals(1, pipeline.getDroppedCount());
+        assertEquals(2, pipeline.getQueuedCount());
+    }
+
+    @Test
+    public void testBatchSizeTriggersBackgroundDrain() {
+        TelemetryPipeline pipeline = new TelemetryPipeline(10, 2, executor);
+
+        pipeline.send(clientMock, "event1", null, null);
+        pipeline.send(clientMock, "event2", null, null);
+
+        verify(clientMock, timeout(5000).times(1)).flush();
+        verify(clientMock, times(2)).trackEvent(anyString(), eq(null), eq(null));
+    }
+
+    @Test
+    public void testSaveAndLoadPendingEvents() throws Exception {
+        File file = new File(tempFolder.getRoot(), "telemetry/pending-events.json");
+        TelemetryPipeline pipeline = new TelemetryPipeline(10, 100, executor);
+
+        pipeline.send(clientMock, "event", Collections.singletonMap("key", "value"),
+                Collections.singletonMap("duration", 1.0));
+        pipeline.savePending(file);
+
+        assertTrue(file.isFile());
+        assertEquals(0, pipeline.getQueuedCount());
+
+        TelemetryClient newClientMock = mock(TelemetryClient.class);
+        pipeline.loadPending(newClientMock, file);
+
+        assertFalse(file.exists());
+        assertEquals(1, pipeline.getQueuedCount());
+
+        pipeline.drain();
+        verify(newClientMock).trackEvent("event", Collections.singletonMap("key", "value"),
+                Collections.singletonMap("duration", 1.0));
+    }
+}
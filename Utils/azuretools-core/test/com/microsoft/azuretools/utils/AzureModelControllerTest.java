@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *   <p/>
+ *  All rights reserved.
+ *   <p/>
+ *  MIT License
+ *   <p/>
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ *  the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ *  to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *  <p/>
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ *  the Software.
+ *   <p/>
+ *  THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ *  THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.WebApp;
+import com.microsoft.azure.management.resources.ResourceGroup;
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.rest.RestException;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+import retrofit2.Response;
+import rx.Observable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AzureModelControllerTest {
+    private static ResourceGroup resourceGroup(String name) {
+        ResourceGroup rg = mock(ResourceGroup.class);
+        when(rg.name()).thenReturn(name);
+
+        return rg;
+    }
+
+    private static WebApp webApp(String rgName) {
+        WebApp webApp = mock(WebApp.class);
+        when(webApp.resourceGroupName()).thenReturn(rgName);
+
+        return webApp;
+    }
+
+    private static RestException armException(int code, String retryAfter) {
+        okhttp3.Response.Builder rawBuilder = new okhttp3.Response.Builder()
+                .code(code)
+                .message("ARM error")
+                .protocol(Protocol.HTTP_1_1)
+                .request(new Request.Builder().url("https://management.azure.com/").build());
+        if (retryAfter != null) {
+            rawBuilder.header("Retry-After", retryAfter);
+        }
+
+        Response<ResponseBody> response = Response.error(
+                ResponseBody.create(MediaType.parse("application/json"), "{}"), rawBuilder.build());
+
+        return new RestException("ARM error", response);
+    }
+
+    @Test
+    public void testGroupByResourceGroup() {
+        ResourceGroup rg1 = resourceGroup("RG1");
+        ResourceGroup rg2 = resourceGroup("rg2");
+        ResourceGroup rg3 = resourceGroup("rg3");
+        WebApp app1 = webApp("rg1");
+        WebApp app2 = webApp("RG2");
+        WebApp app3 = webApp("rg2");
+        WebApp appInNewGroup = webApp("rg4");
+
+        Map<ResourceGroup, List<WebApp>> grouped = AzureModelController.groupByResourceGroup(
+                Arrays.asList(rg1, rg2, rg3), Arrays.asList(app1, app2, app3, appInNewGroup));
+
+        assertEquals(3, grouped.size());
+        assertEquals(Arrays.asList(app1), grouped.get(rg1));
+        assertEquals(Arrays.asList(app2, app3), grouped.get(rg2));
+        assertTrue(grouped.get(rg3).isEmpty());
+
+        // The lists are modified for the web apps created or removed later
+        grouped.get(rg3).add(appInNewGroup);
+    }
+
+    @Test
+    public void testThrottledCallRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger(0);
+
+        String result = AzureModelController.callArm(() -> {
+            if (calls.incrementAndGet() < AzureModelController.THROTTLING_RETRIES_MAX) {
+                throw armException(429, "0");
+            }
+
+            return "listed";
+        });
+
+        assertEquals("listed", result);
+        assertEquals(AzureModelController.THROTTLING_RETRIES_MAX, calls.get());
+    }
+
+    @Test
+    public void testNotThrottledErrorThrown() throws Exception {
+        RestException error = armException(404, null);
+        AtomicInteger calls = new AtomicInteger(0);
+
+        try {
+            AzureModelController.callArm(() -> {
+                calls.incrementAndGet();
+                throw error;
+            });
+            fail("The not throttled error should be thrown");
+        } catch (RestException ex) {
+            assertSame(error, ex);
+        }
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testDeselectedSubscriptionRefreshCanceled() throws Exception {
+        CountDownLatch refreshing = new CountDownLatch(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+
+        try {
+            Observable<List<String>> refreshes = Observable.merge(
+                    AzureModelController.refreshSubscription("sub1", () -> {
+                        refreshing.countDown();
+                        blocked.await();
+                        return "sub1";
+                    }),
+                    AzureModelController.refreshSubscription("sub2", () -> {
+                        refreshing.countDown();
+                        return "sub2";
+                    }))
+                    .toList()
+                    .cache();
+            refreshes.subscribe();
+            assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+
+            AzureModelController.cancelDeselectedSubscriptionsRefresh(Arrays.asList(
+                    new SubscriptionDetail("sub1", "Subscription 1", "tenant", false),
+                    new SubscriptionDetail("sub2", "Subscription 2", "tenant", true)));
+
+            // The deselected subscription is dropped without waiting for its refresh to complete
+            assertEquals(Arrays.asList("sub2"), refreshes.toBlocking().single());
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    public void testRetryAfterSeconds() {
+        assertEquals(7, AzureModelController.getRetryAfterSeconds("7", 1));
+        assertEquals(5, AzureModelController.getRetryAfterSeconds(null, 1));
+        assertEquals(10, AzureModelController.getRetryAfterSeconds("Wed, 21 Oct 2015 07:28:00 GMT", 2));
+    }
+}
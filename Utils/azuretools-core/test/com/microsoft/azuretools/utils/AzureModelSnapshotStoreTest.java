@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *   <p/>
+ *  All rights reserved.
+ *   <p/>
+ *  MIT License
+ *   <p/>
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ *  the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ *  to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *  <p/>
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ *  the Software.
+ *   <p/>
+ *  THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ *  THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.OperatingSystem;
+import com.microsoft.azure.management.appservice.WebApp;
+import com.microsoft.azure.management.resources.ResourceGroup;
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AzureModelSnapshotStoreTest {
+    private static final String ACCOUNT_KEY = "AD|user@contoso.com|GLOBAL";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static SubscriptionDetail subscription(String sid, String tenantId) {
+        return new SubscriptionDetail(sid, sid + "-name", tenantId, true);
+    }
+
+    private static ResourceEx<WebApp> webApp(String sid, String rgName, String name) {
+        WebApp webApp = mock(WebApp.class);
+        when(webApp.id()).thenReturn("/subscriptions/" + sid + "/resourceGroups/" + rgName + "/sites/" + name);
+        when(webApp.name()).thenReturn(name);
+        when(webApp.resourceGroupName()).thenReturn(rgName);
+        when(webApp.regionName()).thenReturn("westus");
+        when(webApp.state()).thenReturn("Running");
+        when(webApp.defaultHostName()).thenReturn(name + ".azurewebsites.net");
+        when(webApp.operatingSystem()).thenReturn(OperatingSystem.LINUX);
+
+        return new ResourceEx<>(webApp, sid);
+    }
+
+    @Test
+    public void testSaveAndLoadByTenants() throws Exception {
+        SubscriptionDetail sub1 = subscription("sub1", "tenant1");
+        SubscriptionDetail sub2 = subscription("sub2", "tenant2");
+        ResourceGroup rg = mock(ResourceGroup.class);
+        when(rg.name()).thenReturn("RG1");
+        when(rg.regionName()).thenReturn("westus");
+
+        Map<SubscriptionDetail, List<ResourceGroup>> sdrgMap = new HashMap<>();
+        sdrgMap.put(sub1, Collections.singletonList(rg));
+        Map<String, List<ResourceEx<WebApp>>> sidToWebApps = new HashMap<>();
+        sidToWebApps.put("sub1", Collections.singletonList(webApp("sub1", "rg1", "app1")));
+        sidToWebApps.put("sub2", Arrays.asList(webApp("sub2", "rg2", "app2"), webApp("sub2", "rg2", "app3")));
+
+        AzureModelSnapshotStore store = new AzureModelSnapshotStore(tempFolder.getRoot());
+        store.save(ACCOUNT_KEY, AzureModelSnapshot.capture(
+                Arrays.asList(sub1, sub2), sdrgMap, null, null, null, sidToWebApps));
+
+        assertEquals(2, tempFolder.getRoot().listFiles().length);
+
+        AzureModelSnapshot loaded = store.load(ACCOUNT_KEY, Arrays.asList(sub1, sub2));
+        assertEquals(3, loaded.listWebApps().size());
+
+        AzureModelSnapshot loaded1 = store.load(ACCOUNT_KEY, Collections.singletonList(sub1));
+        assertEquals(1, loaded1.getSubscriptions().size());
+
+        // The web app is put into the resource group listed, matching the name case-insensitively
+        AzureModelSnapshot.SubscriptionRecord record = loaded1.getSubscriptions().get(0);
+        assertEquals(1, record.getResourceGroups().size());
+        assertEquals("RG1", record.getResourceGroups().get(0).getName());
+
+        AzureModelSnapshot.WebAppRecord app1 = loaded1.listWebApps().get(0).second();
+        assertEquals("sub1", loaded1.listWebApps().get(0).first());
+        assertEquals("app1", app1.getName());
+        assertEquals("westus", app1.getRegion());
+        assertEquals("Running", app1.getState());
+        assertEquals("app1.azurewebsites.net", app1.getDefaultHostName());
+        assertEquals(OperatingSystem.LINUX.toString(), app1.getOperatingSystem());
+
+        assertNull(store.load("AD|other@contoso.com|GLOBAL", Arrays.asList(sub1, sub2)));
+    }
+
+    @Test
+    public void testSaveKeepsSubscriptionsNotCaptured() throws Exception {
+        SubscriptionDetail sub1 = subscription("sub1", "tenant1");
+        SubscriptionDetail sub2 = subscription("sub2", "tenant1");
+        AzureModelSnapshotStore store = new AzureModelSnapshotStore(tempFolder.getRoot());
+
+        Map<String, List<ResourceEx<WebApp>>> sidToWebApps = new HashMap<>();
+        sidToWebApps.put("sub1", Collections.singletonList(webApp("sub1", "rg1", "app1")));
+        sidToWebApps.put("sub2", Collections.singletonList(webApp("sub2", "rg2", "app2")));
+        store.save(ACCOUNT_KEY, AzureModelSnapshot.capture(
+                Arrays.asList(sub1, sub2), null, null, null, null, sidToWebApps));
+
+        // Only sub1 is refreshed
+        sidToWebApps.remove("sub2");
+        sidToWebApps.put("sub1", Collections.emptyList());
+        store.save(ACCOUNT_KEY, AzureModelSnapshot.capture(
+                Arrays.asList(sub1, sub2), null, null, null, null, sidToWebApps));
+
+        AzureModelSnapshot loaded = store.load(ACCOUNT_KEY, Arrays.asList(sub1, sub2));
+        assertEquals(2, loaded.getSubscriptions().size());
+        assertEquals(1, loaded.listWebApps().size());
+        assertEquals("app2", loaded.listWebApps().get(0).second().getName());
+    }
+
+    @Test
+    public void testConcurrentSavesKeepAllSubscriptions() throws Exception {
+        final int count = 16;
+        List<SubscriptionDetail> subs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < count; i++) {
+                SubscriptionDetail sub = subscription("sub" + i, "tenant1");
+                subs.add(sub);
+
+                // Each save merges its own subscription into the same tenant snapshot, from a separate store
+                futures.add(executor.submit(() -> {
+                    Map<String, List<ResourceEx<WebApp>>> sidToWebApps = new HashMap<>();
+                    sidToWebApps.put(sub.getSubscriptionId(),
+                            Collections.singletonList(webApp(sub.getSubscriptionId(), "rg", "app")));
+
+                    new AzureModelSnapshotStore(tempFolder.getRoot()).save(ACCOUNT_KEY, AzureModelSnapshot.capture(
+                            Collections.singletonList(sub), null, null, null, null, sidToWebApps));
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        AzureModelSnapshot loaded = new AzureModelSnapshotStore(tempFolder.getRoot()).load(ACCOUNT_KEY, subs);
+        assertEquals(count, loaded.getSubscriptions().size());
+        assertEquals(count, loaded.listWebApps().size());
+        assertEquals(1, tempFolder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testLoadIgnoresBrokenSnapshot() throws Exception {
+        SubscriptionDetail sub1 = subscription("sub1", "tenant1");
+        AzureModelSnapshotStore store = new AzureModelSnapshotStore(tempFolder.getRoot());
+        File file = store.getSnapshotFile(ACCOUNT_KEY, "tenant1");
+
+        Files.write(file.toPath(), "not a gzip file".getBytes());
+        assertNull(store.load(ACCOUNT_KEY, Collections.singletonList(sub1)));
+
+        // The broken snapshot is replaced by the next save
+        Map<String, List<ResourceEx<WebApp>>> sidToWebApps = new HashMap<>();
+        sidToWebApps.put("sub1", Collections.singletonList(webApp("sub1", "rg1", "app1")));
+        store.save(ACCOUNT_KEY, AzureModelSnapshot.capture(
+                Collections.singletonList(sub1), null, null, null, null, sidToWebApps));
+
+        assertEquals(1, store.load(ACCOUNT_KEY, Collections.singletonList(sub1)).listWebApps().size());
+        assertEquals(1, tempFolder.getRoot().listFiles().length);
+    }
+}
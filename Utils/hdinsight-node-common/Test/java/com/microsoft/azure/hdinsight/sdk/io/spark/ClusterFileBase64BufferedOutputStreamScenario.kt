@@ -24,27 +24,33 @@ package com.microsoft.azure.hdinsight.sdk.io.spark
 
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Statement
 import cucumber.api.java.Before
 import cucumber.api.java.en.And
 import cucumber.api.java.en.Given
 import cucumber.api.java.en.Then
+import org.apache.commons.codec.binary.Base64OutputStream
 import org.apache.commons.io.IOUtils
 import org.assertj.core.api.Assertions.assertThat
-import org.mockito.ArgumentCaptor
 import org.mockito.ArgumentMatchers
 import org.mockito.Mockito.*
 import rx.Observable
 import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.net.URI
+import java.util.Base64
+import java.util.Random
+import java.util.zip.CRC32
 
 class ClusterFileBase64BufferedOutputStreamScenario {
     var clusterFileBase64OutputStream: ClusterFileBase64BufferedOutputStream? = null
     var sessionMock: Session? = null
-    var runCodesArg: ArgumentCaptor<String>? = null
+    val codesRun = mutableListOf<String>()
+    var bytesUploaded: ByteArray = ByteArray(0)
 
     @Before
     fun setUp() {
-        runCodesArg = ArgumentCaptor.forClass(String::class.java)
+        codesRun.clear()
     }
 
     @Then("^uploading the following BASE64 string$")
@@ -55,11 +61,55 @@ class ClusterFileBase64BufferedOutputStreamScenario {
         }
     }
 
+    @Then("^uploading (\\d+)KB random bytes through the MIME BASE64 encoder$")
+    fun uploadRandomBytesThroughEncoder(sizeKB: Int) {
+        bytesUploaded = ByteArray(sizeKB * 1024 + 1).also { Random(sizeKB.toLong()).nextBytes(it) }
+        Base64OutputStream(clusterFileBase64OutputStream, true).use {
+            IOUtils.copy(ByteArrayInputStream(bytesUploaded), it)
+        }
+    }
+
+    @Then("^every string literal of the pages should be at most (\\d+) bytes$")
+    fun checkPageLiteralsLength(maxLength: Int) {
+        val literals = codesRun.filter { it.startsWith("writePage(") }
+                .flatMap { page -> "\"([^\"]*)\"".toRegex().findAll(page).map { it.groupValues[1] }.toList() }
+
+        assertThat(literals).isNotEmpty
+        literals.forEach { assertThat(it.toByteArray(Charsets.UTF_8).size).isLessThanOrEqualTo(maxLength) }
+    }
+
+    @Then("^the pages should be decoded to the bytes uploaded with the checksum matched$")
+    fun checkPagesDecoded() {
+        val decoded = ByteArrayOutputStream()
+
+        codesRun.filter { it.startsWith("writePage(") }.forEach { page ->
+            val pageBytes = Base64.getDecoder().decode(
+                    "\"([^\"]*)\"".toRegex().findAll(page).joinToString("") { it.groupValues[1] })
+            val crc = CRC32().apply { update(pageBytes) }
+
+            assertThat(page).endsWith(", ${crc.value}L)")
+            decoded.write(pageBytes)
+        }
+
+        assertThat(decoded.toByteArray()).isEqualTo(bytesUploaded)
+        assertThat(codesRun.last()).isEqualTo("closeAndVerify(${bytesUploaded.size})")
+    }
+
     @Given("^create a mocked Livy session for ClusterFileBase64KBBufferedOutputStream$")
     fun mockLivySessionForClusterFileBase64OutputStream() {
         sessionMock = mock(SparkSession::class.java)
+        doAnswer {
+            codesRun.add(it.getArgument(0))
+            Observable.just(hashMapOf("text/plain" to ""))
+        }.`when`(sessionMock!!).runCodes(ArgumentMatchers.anyString())
+
+        doAnswer {
+            codesRun.add(it.getArgument(0))
+            Observable.just(mock(Statement::class.java))
+        }.`when`(sessionMock!!).submitCodes(ArgumentMatchers.anyString())
+
         doReturn(Observable.just(hashMapOf("text/plain" to ""))).`when`(sessionMock!!)
-                .runCodes(runCodesArg!!.capture())
+                .awaitStatementResult(ArgumentMatchers.any())
     }
 
     @And("^create a Spark cluster file BASE64 output stream '(.+)' with page size (\\d+)KB$")
@@ -67,11 +117,22 @@ class ClusterFileBase64BufferedOutputStreamScenario {
         clusterFileBase64OutputStream = ClusterFileBase64BufferedOutputStream(sessionMock, URI.create(dest), pageSize)
     }
 
+    @And("^create a Spark cluster file BASE64 output stream '(.+)' with page size from (\\d+)KB to (\\d+)KB and (\\d+) statements in flight$")
+    fun createTunedClusterFileBase64OutputStream(dest: String, minPageSize: Int, maxPageSize: Int, maxInFlight: Int) {
+        clusterFileBase64OutputStream = ClusterFileBase64BufferedOutputStream(
+                sessionMock, URI.create(dest), minPageSize, maxPageSize, maxInFlight)
+    }
+
+    @Then("^the Livy session should wait for (\\d+) statements? result$")
+    fun checkStatementsAwaited(countExpect: Int) {
+        verify(sessionMock!!, times(countExpect)).awaitStatementResult(ArgumentMatchers.any())
+    }
+
     @Then("^check the statements send to Livy session should be:$")
     fun checkStetementsOutput(codesExpect: String) {
         val codeLinesExpect = codesExpect.split("###__CMD_END__###\r?\n?".toRegex()).dropLastWhile { it.isEmpty() }
-        codeLinesExpect.zip(runCodesArg!!.allValues).forEach { assertThat(it.second).isEqualToNormalizingNewlines(it.first) }
+        codeLinesExpect.zip(codesRun).forEach { assertThat(it.second).isEqualToNormalizingNewlines(it.first) }
 
-        verify(sessionMock!!, times(codeLinesExpect.size)).runCodes(ArgumentMatchers.anyString())
+        assertThat(codesRun).hasSize(codeLinesExpect.size)
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.rest.spark.event
+
+import cucumber.api.DataTable
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import java.io.ByteArrayInputStream
+
+class SparkEventLogReaderScenario {
+    private var eventLog = ""
+    private var events = listOf<Any>()
+
+    private val eventClasses = mapOf<String, Class<*>>(
+            SparkEventLogReader.JOB_START_EVENT to JobStartEventLog::class.java,
+            SparkEventLogReader.STAGE_COMPLETED_EVENT to StageCompletedEventLog::class.java,
+            SparkEventLogReader.TASK_END_EVENT to TaskEndEventLog::class.java,
+            "SparkListenerExecutorAdded" to Any::class.java)
+
+    @Given("^the Spark event log lines$")
+    fun setEventLog(lines: List<String>) {
+        eventLog = lines.joinToString("\n", postfix = "\n")
+    }
+
+    @When("^read the '(.+)' events from the Spark event log$")
+    fun readEvents(eventName: String) {
+        events = SparkEventLogReader.readEvents(
+                ByteArrayInputStream(eventLog.toByteArray()), eventName, eventClasses[eventName]!!)
+    }
+
+    @When("^read the events of types '(.+)' from the Spark event log$")
+    fun readEventsOfTypes(eventNames: String) {
+        val types = eventNames.split(",").associate { it to eventClasses[it]!! }
+
+        SparkEventLogReader(ByteArrayInputStream(eventLog.toByteArray()), types).use { reader ->
+            events = generateSequence { reader.next() }.toList()
+        }
+    }
+
+    @Then("^the job IDs of the job start events read should be '(.+)'$")
+    fun checkJobIds(jobIdsExpect: String) {
+        assertThat(events.map { (it as JobStartEventLog).jobId }.joinToString(",")).isEqualTo(jobIdsExpect)
+    }
+
+    @Then("^the task end events read should be$")
+    fun checkTaskEndEvents(eventsTable: DataTable) {
+        val eventsExpect = eventsTable.asMaps(String::class.java, String::class.java)
+
+        assertThat(events).hasSize(eventsExpect.size)
+
+        events.map { it as TaskEndEventLog }.zip(eventsExpect).forEach { (actual, expect) ->
+            assertThat(actual.event).isEqualTo(SparkEventLogReader.TASK_END_EVENT)
+            assertThat(actual.stageId).isEqualTo(expect["stageId"]!!.toInt())
+            assertThat(actual.taskInfo.taskId).isEqualTo(expect["taskId"]!!.toLong())
+            assertThat(actual.taskInfo.host).isEqualTo(expect["host"])
+            assertThat(actual.taskInfo.isFailed).isEqualTo(expect["failed"]!!.toBoolean())
+        }
+    }
+
+    @Then("^the event classes read should be '(.+)'$")
+    fun checkEventClasses(classesExpect: String) {
+        assertThat(events.map { it.javaClass.simpleName }.joinToString(",")).isEqualTo(classesExpect)
+    }
+
+    @Then("^the stage completed event read should be for stage (\\d+) named '(.+)'$")
+    fun checkStageCompletedEvent(stageIdExpect: Int, stageNameExpect: String) {
+        val stageCompleted = events.filterIsInstance<StageCompletedEventLog>().single()
+
+        assertThat(stageCompleted.stageInfo.stageId).isEqualTo(stageIdExpect)
+        assertThat(stageCompleted.stageInfo.stageName).isEqualTo(stageNameExpect)
+    }
+
+    @Then("^no Spark events should be read$")
+    fun checkNoEvents() {
+        assertThat(events).isEmpty()
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.storage.webhdfs
+
+import com.github.tomakehurst.wiremock.client.WireMock.*
+import com.microsoft.azure.hdinsight.sdk.common.HttpObservable
+import com.microsoft.azure.hdinsight.spark.common.MockHttpService
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg
+import cucumber.api.java.After
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import java.io.File
+
+class WebHdfsChunkedUploaderScenario {
+    private var httpServerMock: MockHttpService? = null
+    private var localFile: File? = null
+    private val progress = mutableListOf<Long>()
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        progress.clear()
+    }
+
+    @After
+    fun cleanUp() {
+        localFile?.delete()
+    }
+
+    @Given("^prepare a local file with content '(.*)' to upload to WebHDFS$")
+    fun prepareLocalFile(content: String) {
+        localFile = File.createTempFile("WebHdfsChunkedUploaderScenario", ".jar").apply {
+            writeText(content)
+        }
+    }
+
+    @Given("^mock a WebHDFS service in WebHdfsChunkedUploaderScenario for (.+) request '(.+)' to redirect to '(.+)'$")
+    fun mockRedirect(method: String, url: String, redirectUrl: String) {
+        httpServerMock!!.stubWithHeader(
+                method, url, 307, "", mapOf("Location" to httpServerMock!!.completeUrl(redirectUrl)))
+    }
+
+    @Given("^mock a WebHDFS service in WebHdfsChunkedUploaderScenario for (.+) request '(.+)' to return '(.*)' with status code (\\d+)$")
+    fun mockHttpService(method: String, url: String, response: String, responseCode: Int) {
+        httpServerMock!!.stub(method, url, responseCode, response)
+    }
+
+    @When("^upload the local file to WebHDFS '(.+)' with chunk size (\\d+)$")
+    fun upload(filePath: String, chunkSize: Int) {
+        WebHdfsChunkedUploader(HttpObservable(), chunkSize, 2, null)
+                .upload(httpServerMock!!.completeUrl(filePath), localFile!!, object : CallableSingleArg<Void, Long>() {
+                    override fun call(uploadedBytes: Long?): Void? {
+                        progress.add(uploadedBytes!!)
+                        return null
+                    }
+                })
+                .toBlocking()
+                .single()
+    }
+
+    @Then("^the WebHDFS upload progress should be (.+)$")
+    fun checkProgress(progressExpect: List<Long>) {
+        assertThat(progress).containsExactlyElementsOf(progressExpect)
+    }
+
+    @Then("^the WebHDFS (.+) request '(.+)' should be sent (\\d+) times? with body '(.*)'$")
+    fun checkRequest(method: String, url: String, countExpect: Int, bodyExpect: String) {
+        val requestPattern = when (method) {
+            "PUT" -> putRequestedFor(urlEqualTo(url))
+            "POST" -> postRequestedFor(urlEqualTo(url))
+            else -> getRequestedFor(urlEqualTo(url))
+        }
+
+        httpServerMock!!.livyServerMock.verify(countExpect, requestPattern.withRequestBody(equalTo(bodyExpect)))
+    }
+}
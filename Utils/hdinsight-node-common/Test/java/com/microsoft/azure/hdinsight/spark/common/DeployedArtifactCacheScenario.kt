@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common
+
+import cucumber.api.java.After
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import java.io.File
+import java.nio.file.Files
+
+class DeployedArtifactCacheScenario {
+    private var workDir: File? = null
+    private var cache: DeployedArtifactCache? = null
+    private val remoteFiles = mutableSetOf<String>()
+    private var uploadedCount = 0
+    private var deployedUri: String? = null
+
+    @Before
+    fun setUp() {
+        workDir = Files.createTempDirectory("DeployedArtifactCacheScenario").toFile()
+        remoteFiles.clear()
+        uploadedCount = 0
+    }
+
+    @After
+    fun cleanUp() {
+        workDir?.deleteRecursively()
+    }
+
+    @Given("^create a deployed artifacts cache with the index file '(.+)'$")
+    fun createCache(indexFileName: String) {
+        cache = DeployedArtifactCache(File(workDir, indexFileName))
+    }
+
+    @Given("^create a deployed artifacts cache with the index file '(.+)' keeping (\\d+) artifacts? per storage$")
+    fun createBoundedCache(indexFileName: String, maxArtifactsPerStorage: Int) {
+        cache = DeployedArtifactCache(File(workDir, indexFileName), maxArtifactsPerStorage)
+    }
+
+    @Given("^prepare a local artifact '(.+)' with content '(.*)' to deploy$")
+    fun prepareLocalArtifact(fileName: String, content: String) {
+        File(workDir, fileName).writeText(content)
+    }
+
+    @Given("^remove the deployed artifact '(.+)' from the remote storage$")
+    fun removeRemoteFile(uri: String) {
+        remoteFiles.remove(uri)
+    }
+
+    @When("^deploy the local artifact '(.+)' into the storage '(.+)' with the deployed artifacts cache$")
+    fun deploy(fileName: String, storageKey: String) {
+        val upload = Observable.fromCallable {
+            uploadedCount++
+            val uri = "$storageKey$uploadedCount/$fileName"
+            remoteFiles.add(uri)
+
+            uri
+        }
+
+        deployedUri = cache!!.deploy(storageKey, File(workDir, fileName), { Observable.just(remoteFiles.contains(it)) }, upload, null)
+                .toBlocking()
+                .single()
+    }
+
+    @Then("^the artifact should be deployed to '(.+)' with (\\d+) uploads? in total$")
+    fun checkDeployedUri(uriExpect: String, uploadedCountExpect: Int) {
+        assertThat(deployedUri).isEqualTo(uriExpect)
+        assertThat(uploadedCount).isEqualTo(uploadedCountExpect)
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.microsoft.azure.hdinsight.spark.common
+
+import com.github.tomakehurst.wiremock.client.WireMock.*
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import rx.Observable
+import java.net.URI
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class LivyBatchStatusPollerScenario {
+    private var httpServerMock: MockHttpService? = null
+    private var submission: SparkBatchSubmission? = null
+    private var statusStream: Observable<SparkSubmitResponse>? = null
+    private var statesGot: List<String> = emptyList()
+    private var connectUri: URI? = null
+    private var batchId: Int = 0
+    private var retriesMax: Int = 0
+    private var doneStates: List<String> = emptyList()
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        submission = SparkBatchSubmission()
+    }
+
+    @Given("^mock a Livy service in LivyBatchStatusPollerScenario for (.+) request '(.+)' to return '(.*)' with status code (\\d+)$")
+    fun mockHttpService(method: String, url: String, response: String, responseCode: Int) {
+        httpServerMock!!.stub(method, url, responseCode, response)
+    }
+
+    @Given("^get the status stream of Livy batch (\\d+) of '(.+)' with (\\d+) retries done at states (.+)$")
+    fun getStatusStream(batchId: Int, connectUrl: String, retriesMax: Int, doneStates: List<String>) {
+        this.connectUri = URI.create(if (connectUrl.startsWith("http")) connectUrl
+                                     else httpServerMock!!.completeUrl(connectUrl))
+        this.batchId = batchId
+        this.retriesMax = retriesMax
+        this.doneStates = doneStates
+        statusStream = createStatusStream(submission!!)
+    }
+
+    @Given("^take the first status of the stream by (\\d+) consumers one by one$")
+    fun takeFirstStatusOneByOne(consumers: Int) {
+        statesGot = (1..consumers).map { statusStream!!.toBlocking().first().state }
+    }
+
+    @Then("^the first status states got should be (.+)$")
+    fun checkStatesGot(statesExpect: List<String>) {
+        assertThat(statesGot).isEqualTo(statesExpect)
+    }
+
+    @Then("^the status stream should be shared by the same submission only$")
+    fun checkStreamShared() {
+        assertThat(createStatusStream(submission!!)).isSameAs(statusStream)
+        assertThat(createStatusStream(SparkBatchSubmission())).isNotSameAs(statusStream)
+    }
+
+    @Then("^the status stream should complete with the last state '(.+)' in (\\d+) seconds$")
+    fun checkStreamCompleted(stateExpect: String, timeoutSeconds: Long) {
+        assertThat(statusStream!!.timeout(timeoutSeconds, TimeUnit.SECONDS).toBlocking().last().state)
+                .isEqualTo(stateExpect)
+    }
+
+    @Then("^the status stream should neither emit nor fail in (\\d+) seconds$")
+    fun checkStreamPollingThrough(timeoutSeconds: Long) {
+        assertThatThrownBy { statusStream!!.timeout(timeoutSeconds, TimeUnit.SECONDS).toBlocking().first() }
+                .hasCauseInstanceOf(TimeoutException::class.java)
+    }
+
+    @Then("^the status stream should fail with (.+) in (\\d+) seconds$")
+    fun checkStreamFailed(exceptionExpect: String, timeoutSeconds: Long) {
+        assertThatThrownBy { statusStream!!.timeout(timeoutSeconds, TimeUnit.SECONDS).toBlocking().first() }
+                .hasCauseInstanceOf(Class.forName(exceptionExpect).asSubclass(Throwable::class.java))
+    }
+
+    @Then("^the status poller GET request '(.+)' should be sent (\\d+) times?$")
+    fun checkRequestCount(url: String, countExpect: Int) {
+        httpServerMock!!.livyServerMock.verify(countExpect, getRequestedFor(urlEqualTo(url)))
+    }
+
+    @Then("^the status poller GET request '(.+)' should be sent more than (\\d+) times?$")
+    fun checkRequestCountMoreThan(url: String, countExpect: Int) {
+        assertThat(httpServerMock!!.livyServerMock.findAll(getRequestedFor(urlEqualTo(url))).size).isGreaterThan(countExpect)
+    }
+
+    private fun createStatusStream(submission: SparkBatchSubmission): Observable<SparkSubmitResponse> =
+            LivyBatchStatusPoller.getStatusStream(submission, connectUri!!, batchId, retriesMax, 1) {
+                doneStates.contains(it)
+            }
+}
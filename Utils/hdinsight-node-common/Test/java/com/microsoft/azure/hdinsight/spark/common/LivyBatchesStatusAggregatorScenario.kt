@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common
+
+import com.github.tomakehurst.wiremock.client.WireMock.*
+import com.google.common.base.Ticker
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import java.util.concurrent.TimeUnit
+
+class LivyBatchesStatusAggregatorScenario {
+    private var httpServerMock: MockHttpService? = null
+    private var aggregator: LivyBatchesStatusAggregator? = null
+    private var tickerNanos: Long = 0
+    private val ticker = object : Ticker() {
+        override fun read(): Long = tickerNanos
+    }
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+    }
+
+    @Given("^mock a Livy service in LivyBatchesStatusAggregatorScenario for (.+) request '(.+)' to return '(.*)' with status code (\\d+)$")
+    fun mockHttpService(method: String, url: String, response: String, responseCode: Int) {
+        httpServerMock!!.stub(method, url, responseCode, response)
+    }
+
+    @Given("^watch Livy batches (.+) of '(.+)' with the batches status aggregator$")
+    fun watchBatches(batchIds: List<Int>, connectUrl: String) {
+        aggregator = SparkBatchSubmission().getBatchesStatusAggregator(httpServerMock!!.completeUrl(connectUrl))
+        batchIds.forEach { aggregator!!.watch(it) }
+    }
+
+    @Given("^watch Livy batches (.+) of '(.+)' with a manual ticking batches status aggregator$")
+    fun watchBatchesManualTicking(batchIds: List<Int>, connectUrl: String) {
+        aggregator = LivyBatchesStatusAggregator(SparkBatchSubmission(), httpServerMock!!.completeUrl(connectUrl), ticker)
+        batchIds.forEach { aggregator!!.watch(it) }
+    }
+
+    @Given("^the batches status aggregator ticker advances (\\d+) minutes$")
+    fun advanceTicker(minutes: Long) {
+        tickerNanos += TimeUnit.MINUTES.toNanos(minutes)
+    }
+
+    @Then("^the batches status aggregator of '(.+)' should be shared by the same submission only$")
+    fun checkAggregatorShared(connectUrl: String) {
+        val submission = SparkBatchSubmission()
+        val url = httpServerMock!!.completeUrl(connectUrl)
+        val shared = submission.getBatchesStatusAggregator(url)
+
+        assertThat(submission.getBatchesStatusAggregator("$url/")).isSameAs(shared)
+        assertThat(SparkBatchSubmission().getBatchesStatusAggregator(url)).isNotSameAs(shared)
+    }
+
+    @Then("^the aggregated Livy batch (\\d+) state should be '(.+)'$")
+    fun checkAggregatedState(batchId: Int, stateExpect: String) {
+        assertThat(aggregator!!.getStatus(batchId)?.state).isEqualTo(stateExpect)
+    }
+
+    @Then("^the aggregated Livy batch (\\d+) status should be absent$")
+    fun checkAggregatedStatusAbsent(batchId: Int) {
+        assertThat(aggregator!!.getStatus(batchId)).isNull()
+    }
+
+    @Then("^the batches status aggregator should (be|not be) aggregating$")
+    fun checkAggregating(beOrNot: String) {
+        assertThat(aggregator!!.isAggregating).isEqualTo(beOrNot == "be")
+    }
+
+    @Then("^the Livy GET request '(.+)' should be sent (\\d+) times?$")
+    fun checkRequestCount(url: String, countExpect: Int) {
+        httpServerMock!!.livyServerMock.verify(countExpect, getRequestedFor(urlEqualTo(url)))
+    }
+}
@@ -55,6 +55,8 @@ public class SparkBatchRemoteDebugJobScenario {
         submissionParameterArgumentCaptor = ArgumentCaptor.forClass(SparkSubmissionParameter.class);
         submissionMock = mock(SparkBatchSubmission.class);
         when(submissionMock.getBatchSparkJobStatus(anyString(), anyInt())).thenCallRealMethod();
+        when(submissionMock.getBatchesSparkJobs(anyString(), anyInt(), anyInt())).thenCallRealMethod();
+        when(submissionMock.getBatchesStatusAggregator(anyString())).thenCallRealMethod();
         when(submissionMock.getHttpResponseViaGet(anyString())).thenCallRealMethod();
         when(submissionMock.getHttpResponseViaGet(anyString(), any(), any())).thenCallRealMethod();
         when(submissionMock.getHttpClient(anyBoolean())).thenCallRealMethod();
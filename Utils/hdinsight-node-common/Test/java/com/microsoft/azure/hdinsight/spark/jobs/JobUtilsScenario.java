@@ -21,12 +21,15 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
+import com.github.tomakehurst.wiremock.client.WireMock;
 import com.microsoft.azure.hdinsight.spark.common.MockHttpService;
 import cucumber.api.java.Before;
 import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import org.apache.http.client.CredentialsProvider;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -45,6 +48,27 @@ public class JobUtilsScenario {
         httpServerMock.stub(action, serviceUrl, statusCode, response);
     }
 
+    @Given("^mock a http service in JobUtilsScenario for (.+) request '(.+)' to return bytes '(.+)' with status code (\\d+)$")
+    public void mockHttpServiceWithBytes(String action, String serviceUrl, String response, int statusCode) throws Throwable {
+        // The response is UTF-8 encoded, except the \n for LF and the \xHH for the raw byte HH
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        for (int i = 0; i < response.length(); i++) {
+            if (response.startsWith("\\x", i)) {
+                body.write(Integer.parseInt(response.substring(i + 2, i + 4), 16));
+                i += 3;
+            } else if (response.startsWith("\\n", i)) {
+                body.write('\n');
+                i++;
+            } else {
+                body.write(response.substring(i, i + 1).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        httpServerMock.getLivyServerMock().stubFor(WireMock.request(action, WireMock.urlEqualTo(serviceUrl))
+                .willReturn(WireMock.aResponse().withStatus(statusCode).withBody(body.toByteArray())));
+    }
+
     @Then("^Yarn log observable from '(.*)' should produce events:$")
     public void checkYarnLogObservable(String logUrl, List<String> logs) throws Throwable {
         List<String> logsGot = JobUtils.createYarnLogObservable(null, null, httpServerMock.completeUrl(logUrl), "stderr", 10)
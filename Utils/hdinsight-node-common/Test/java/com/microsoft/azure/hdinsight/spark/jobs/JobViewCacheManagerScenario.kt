@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs
+
+import com.google.common.base.Ticker
+import com.google.common.cache.LoadingCache
+import com.google.common.cache.Weigher
+import com.google.common.util.concurrent.MoreExecutors
+import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail
+import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage
+import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.mockito.Mockito.doReturn
+import org.mockito.Mockito.mock
+import rx.schedulers.Schedulers
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Predicate
+
+class JobViewCacheManagerScenario {
+    private var nanos = 0L
+    private val ticker = object : Ticker() {
+        override fun read(): Long = nanos
+    }
+    private val loadedCounts = mutableMapOf<String, Int>()
+    private val completedApps = mutableSetOf<String>()
+    private var cache: LoadingCache<ApplicationKey, String>? = null
+    private var stagesTasksCount = mapOf<Int, Int>()
+    private val pagesFetched: MutableList<String> = Collections.synchronizedList(mutableListOf())
+    private val fetchingStages = AtomicInteger(0)
+    private val maxFetchingStages = AtomicInteger(0)
+    private var tasksFetched = listOf<Task>()
+    private var failingLoadsCount = 0
+    private var listCache: LoadingCache<ApplicationKey, List<String>>? = null
+    private val listLoadingFailures = JobViewCacheManager.newLoadingFailuresCache<ApplicationKey>()
+
+    @Before
+    fun setUp() {
+        nanos = 0L
+        loadedCounts.clear()
+        completedApps.clear()
+        pagesFetched.clear()
+        fetchingStages.set(0)
+        maxFetchingStages.set(0)
+        failingLoadsCount = 0
+    }
+
+    private fun appKey(cluster: String, appId: String): ApplicationKey {
+        val clusterMock = mock(IClusterDetail::class.java)
+        doReturn(cluster).`when`(clusterMock).connectionUrl
+
+        return ApplicationKey(clusterMock, appId)
+    }
+
+    @Given("^create a job view cache with max weight (\\d+)KB and (\\d+)KB for each entry$")
+    fun createCache(maxWeight: Long, entryWeight: Int) {
+        cache = JobViewCacheManager.newCache(
+                JobViewCacheManager.Loader<ApplicationKey, String> { key ->
+                    val count = (loadedCounts[key.appId] ?: 0) + 1
+                    loadedCounts[key.appId] = count
+
+                    "${key.appId}-$count"
+                },
+                Weigher<ApplicationKey, String> { _, _ -> entryWeight },
+                maxWeight,
+                Predicate<ApplicationKey> { key -> completedApps.contains(key.appId) },
+                ticker,
+                MoreExecutors.directExecutor())
+    }
+
+    @Given("^the application '(.+)' is completed$")
+    fun completeApplication(appId: String) {
+        completedApps.add(appId)
+    }
+
+    @When("^(\\d+) seconds passed$")
+    fun passTime(seconds: Long) {
+        nanos += TimeUnit.SECONDS.toNanos(seconds)
+    }
+
+    @Then("^getting the application '(.+)' of cluster '(.+)' from the job view cache should be '(.+)'$")
+    fun checkGet(appId: String, cluster: String, valueExpect: String) {
+        assertThat(cache!!.get(appKey(cluster, appId))).isEqualTo(valueExpect)
+    }
+
+    @When("^invalidate the cluster '(.+)' from the job view cache$")
+    fun invalidateCluster(cluster: String) {
+        JobViewCacheManager.invalidateCluster(cache!!, cluster)
+    }
+
+    @Then("^the job view cache should contain (\\d+) entries$")
+    fun checkSize(sizeExpect: Long) {
+        cache!!.cleanUp()
+        assertThat(cache!!.size()).isEqualTo(sizeExpect)
+    }
+
+    @Then("^the job view cache stats should be (\\d+) hits?, (\\d+) miss(?:es)? and (\\d+) loads?$")
+    fun checkStats(hitExpect: Long, missExpect: Long, loadExpect: Long) {
+        val stats = cache!!.stats()
+
+        assertThat(stats.hitCount()).isEqualTo(hitExpect)
+        assertThat(stats.missCount()).isEqualTo(missExpect)
+        assertThat(stats.loadCount()).isEqualTo(loadExpect)
+    }
+
+    @Given("^create a job view list cache failing the first (\\d+) loads?$")
+    fun createFailingListCache(failingLoadsCount: Int) {
+        this.failingLoadsCount = failingLoadsCount
+        listCache = JobViewCacheManager.newCache(
+                JobViewCacheManager.Loader<ApplicationKey, List<String>> { key ->
+                    val count = (loadedCounts[key.appId] ?: 0) + 1
+                    loadedCounts[key.appId] = count
+
+                    if (count <= this.failingLoadsCount) {
+                        throw IllegalStateException("load $count failed")
+                    }
+
+                    listOf("${key.appId}-$count")
+                },
+                Weigher<ApplicationKey, List<String>> { _, _ -> 1 },
+                1024,
+                Predicate<ApplicationKey> { false },
+                ticker,
+                MoreExecutors.directExecutor())
+    }
+
+    @Then("^getting the loaded application '(.+)' of cluster '(.+)' from the job view list cache should be (.*) and (loading|loaded)$")
+    fun checkGetLoaded(appId: String, cluster: String, valuesExpect: List<String>, loadingOrNot: String) {
+        val loaded = JobViewCacheManager.getLoaded(appKey(cluster, appId), listCache!!,
+                ConcurrentHashMap<ApplicationKey, List<String>>(), listLoadingFailures, MoreExecutors.directExecutor())
+
+        assertThat(loaded.left).isEqualTo(valuesExpect.filter { it.isNotEmpty() })
+        assertThat(loaded.right).isEqualTo(loadingOrNot == "loading")
+    }
+
+    @Then("^getting the loaded application '(.+)' of cluster '(.+)' from the job view list cache should fail with '(.+)'$")
+    fun checkGetLoadedFailed(appId: String, cluster: String, messageExpect: String) {
+        assertThatThrownBy {
+            JobViewCacheManager.getLoaded(appKey(cluster, appId), listCache!!,
+                    ConcurrentHashMap<ApplicationKey, List<String>>(), listLoadingFailures, MoreExecutors.directExecutor())
+        }
+                .isInstanceOf(ExecutionException::class.java)
+                .hasMessageContaining(messageExpect)
+    }
+
+    @Given("^the stages with tasks count$")
+    fun setStagesTasksCount(stagesTasksCount: Map<String, String>) {
+        this.stagesTasksCount = stagesTasksCount
+                .filterKeys { it != "stageId" }
+                .map { (stageId, count) -> stageId.toInt() to count.toInt() }
+                .toMap()
+    }
+
+    @When("^fetch the stages tasks with page length (\\d+) and max (\\d+) concurrent stages$")
+    fun fetchStagesTasks(pageLength: Int, maxConcurrent: Int) {
+        val stages = stagesTasksCount.keys.map { stageId ->
+            Stage().apply {
+                this.stageId = stageId
+                this.attemptId = 0
+            }
+        }
+
+        tasksFetched = JobViewCacheManager.fetchStagesTasks(
+                stages,
+                JobViewCacheManager.TasksPageLoader { stageId, _, offset, length ->
+                    maxFetchingStages.accumulateAndGet(fetchingStages.incrementAndGet(), Math::max)
+
+                    try {
+                        pagesFetched.add("$stageId-$offset")
+                        Thread.sleep(50)
+
+                        (offset until minOf(offset + length, stagesTasksCount[stageId] ?: 0)).map { index ->
+                            Task().apply {
+                                taskId = "$stageId-$index"
+                                this.index = index.toString()
+                            }
+                        }
+                    } finally {
+                        fetchingStages.decrementAndGet()
+                    }
+                },
+                maxConcurrent,
+                pageLength,
+                Schedulers.io())
+                .toList()
+                .toBlocking()
+                .single()
+                .flatten()
+    }
+
+    @Then("^the fetched tasks count should be (\\d+)$")
+    fun checkTasksFetchedCount(countExpect: Int) {
+        assertThat(tasksFetched).hasSize(countExpect)
+        assertThat(tasksFetched.map { it.taskId }.distinct()).hasSize(countExpect)
+    }
+
+    @Then("^the stage tasks pages fetched should be$")
+    fun checkPagesFetched(pagesExpect: List<String>) {
+        assertThat(pagesFetched).containsExactlyInAnyOrderElementsOf(pagesExpect)
+    }
+
+    @Then("^the max concurrent stages fetching should be no more than (\\d+)$")
+    fun checkMaxConcurrent(maxExpect: Int) {
+        assertThat(maxFetchingStages.get()).isLessThanOrEqualTo(maxExpect)
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.DomElement;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.html.HtmlPreformattedText;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Compare the Yarn container log page reading by HtmlUnit web client with the streaming log reader,
+ * run by `main()` with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YarnContainerLogReaderBenchmark {
+    private static final String LOG_PATH = "/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy";
+
+    @Param({ "4096", "1048576" })
+    public int logSize;
+
+    private WireMockServer httpServerMock;
+
+    private String logUrl;
+
+    @Setup
+    public void setUp() {
+        StringBuilder log = new StringBuilder(logSize);
+        for (int line = 0; log.length() < logSize; line++) {
+            log.append("19/07/01 02:36:09 INFO ApplicationMaster: Waiting for spark context &lt;").append(line).append("&gt;\n");
+        }
+
+        String page = "<!DOCTYPE html> <html> <title> Logs for container_e02_1492415936046_0015_01_000001 </title> " +
+                "<table id=\"layout\"> <tbody> <tr> <td id=\"navcell\"> <div id=\"nav\"> <h3> NodeManager </h3> " +
+                "<ul> <li> <a href=\"/yarnui/10.0.0.15/node/node\">Node Information</a> </ul> </div> </td> " +
+                "<td class=\"content\"> <p> Log Type: stderr <pre>" + log + "</pre> </td> </tr> </tbody> </table> </html>";
+
+        httpServerMock = new WireMockServer(wireMockConfig().dynamicPort());
+        httpServerMock.start();
+        httpServerMock.stubFor(WireMock.get(WireMock.urlEqualTo(LOG_PATH + "/stderr?start=0"))
+                .willReturn(WireMock.aResponse().withStatus(200).withBody(page)));
+
+        logUrl = "http://localhost:" + httpServerMock.port() + LOG_PATH;
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpServerMock.stop();
+    }
+
+    @Benchmark
+    public String htmlUnitWebClient() throws Exception {
+        try (WebClient client = new WebClient(BrowserVersion.CHROME)) {
+            client.setCache(JobUtils.getGlobalCache());
+
+            HtmlPage htmlPage = client.getPage(logUrl + "/stderr?start=0");
+            String logs = "";
+
+            for (DomElement node : htmlPage.getElementById("navcell").getNextElementSibling().getChildElements()) {
+                if (node instanceof HtmlPreformattedText) {
+                    logs = Optional.ofNullable(node.getFirstChild())
+                            .map(DomNode::getTextContent)
+                            .orElse("");
+                }
+            }
+
+            return logs;
+        }
+    }
+
+    @Benchmark
+    public String streamingReader() {
+        return YarnContainerLogReader.getInstance().getLog(null, logUrl, "stderr", 0, 0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(YarnContainerLogReaderBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,31 @@
+Feature: SparkEventLogReader unit tests
+
+  Background:
+    Given the Spark event log lines
+      | {"Event":"SparkListenerLogStart","Spark Version":"2.3.0"}                                                                            |
+      | {"Event":"SparkListenerJobStart","Job ID":0,"Stage Infos":[],"Stage IDs":[0,1],"Properties":{"spark.job.description":"count"}}       |
+      | {"Event":"SparkListenerTaskEnd","Stage ID":0,"Stage Attempt ID":0,"Task Type":"ResultTask","Task Info":{"Task ID":0,"Host":"wn0"}}   |
+      | {"Stage ID":1,"Event":"SparkListenerTaskEnd","Task Type":"ShuffleMapTask","Task Info":{"Task ID":1,"Host":"wn1","Failed":true}}      |
+      | {"Event":"SparkListenerStageCompleted","Stage Info":{"Stage ID":0,"Stage Name":"count","Accumulables":[{"ID":1,"Value":"2"}]}}       |
+      | {"Event":"SparkListenerJobStart","Job ID":1,"Stage Infos":[],"Stage IDs":[2],"Properties":{}}                                        |
+      | {"Event":"SparkListenerApplicationEnd","Timestamp":1530000000000}                                                                    |
+
+  Scenario: Read the job start events
+    When read the 'SparkListenerJobStart' events from the Spark event log
+    Then the job IDs of the job start events read should be '0,1'
+
+  Scenario: Read the task end events with the Event field not at first
+    When read the 'SparkListenerTaskEnd' events from the Spark event log
+    Then the task end events read should be
+      | stageId | taskId | host | failed |
+      | 0       | 0      | wn0  | false  |
+      | 1       | 1      | wn1  | true   |
+
+  Scenario: Read several types of events in the log order
+    When read the events of types 'SparkListenerStageCompleted,SparkListenerJobStart' from the Spark event log
+    Then the event classes read should be 'JobStartEventLog,StageCompletedEventLog,JobStartEventLog'
+    And the stage completed event read should be for stage 0 named 'count'
+
+  Scenario: Read no events if the type is not in the log
+    When read the 'SparkListenerExecutorAdded' events from the Spark event log
+    Then no Spark events should be read
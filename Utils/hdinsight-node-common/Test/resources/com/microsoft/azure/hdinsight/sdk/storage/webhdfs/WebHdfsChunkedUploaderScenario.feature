@@ -0,0 +1,32 @@
+Feature: WebHdfsChunkedUploader unit tests
+
+  Scenario: Upload a file by CREATE and APPEND chunks
+    Given prepare a local file with content '0123456789' to upload to WebHDFS
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/webhdfs/v1/a.jar?op=CREATE&overwrite=true' to redirect to '/datanode/a.jar?op=CREATE&overwrite=true'
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/datanode/a.jar?op=CREATE&overwrite=true' to return '' with status code 201
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for POST request '/webhdfs/v1/a.jar?op=APPEND' to redirect to '/datanode/a.jar?op=APPEND'
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for POST request '/datanode/a.jar?op=APPEND' to return '' with status code 200
+    When upload the local file to WebHDFS '/webhdfs/v1/a.jar' with chunk size 4
+    Then the WebHDFS upload progress should be 4, 8, 10
+    And the WebHDFS PUT request '/datanode/a.jar?op=CREATE&overwrite=true' should be sent 1 time with body '0123'
+    And the WebHDFS POST request '/datanode/a.jar?op=APPEND' should be sent 1 time with body '4567'
+    And the WebHDFS POST request '/datanode/a.jar?op=APPEND' should be sent 1 time with body '89'
+
+  Scenario: Upload an empty file by CREATE only
+    Given prepare a local file with content '' to upload to WebHDFS
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/webhdfs/v1/a.jar?op=CREATE&overwrite=true' to redirect to '/datanode/a.jar?op=CREATE&overwrite=true'
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/datanode/a.jar?op=CREATE&overwrite=true' to return '' with status code 201
+    When upload the local file to WebHDFS '/webhdfs/v1/a.jar' with chunk size 4
+    Then the WebHDFS upload progress should be 0
+    And the WebHDFS POST request '/webhdfs/v1/a.jar?op=APPEND' should be sent 0 times with body ''
+
+  Scenario: Skip re-appending the chunk appended by the failed APPEND request
+    Given prepare a local file with content '012345' to upload to WebHDFS
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/webhdfs/v1/a.jar?op=CREATE&overwrite=true' to redirect to '/datanode/a.jar?op=CREATE&overwrite=true'
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for PUT request '/datanode/a.jar?op=CREATE&overwrite=true' to return '' with status code 201
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for POST request '/webhdfs/v1/a.jar?op=APPEND' to redirect to '/datanode/a.jar?op=APPEND'
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for POST request '/datanode/a.jar?op=APPEND' to return 'gateway timeout' with status code 504
+    And mock a WebHDFS service in WebHdfsChunkedUploaderScenario for GET request '/webhdfs/v1/a.jar?op=GETFILESTATUS' to return '{"FileStatus":{"length":6,"type":"FILE"}}' with status code 200
+    When upload the local file to WebHDFS '/webhdfs/v1/a.jar' with chunk size 4
+    Then the WebHDFS upload progress should be 4, 6
+    And the WebHDFS POST request '/datanode/a.jar?op=APPEND' should be sent 1 time with body '45'
@@ -0,0 +1,55 @@
+Feature: DeployedArtifactCache unit tests
+
+  Background:
+    Given create a deployed artifacts cache with the index file 'index.json'
+    And prepare a local artifact 'a.jar' with content 'v1' to deploy
+
+  Scenario: Reuse the deployed artifact if it's unchanged
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/1/a.jar' with 1 upload in total
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/1/a.jar' with 1 upload in total
+
+  Scenario: Upload the artifact again if it's changed
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Given prepare a local artifact 'a.jar' with content 'v2' to deploy
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/2/a.jar' with 2 uploads in total
+    Given prepare a local artifact 'a.jar' with content 'v1' to deploy
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/1/a.jar' with 2 uploads in total
+
+  Scenario: Upload the artifact again if it's removed from the storage
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Given remove the deployed artifact 'wasbs://c@a/1/a.jar' from the remote storage
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/2/a.jar' with 2 uploads in total
+
+  Scenario: Upload the artifact with the same content to another storage or by another name
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    And deploy the local artifact 'a.jar' into the storage 'wasbs://c@b/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@b/2/a.jar' with 2 uploads in total
+    Given prepare a local artifact 'b.jar' with content 'v1' to deploy
+    When deploy the local artifact 'b.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/3/b.jar' with 3 uploads in total
+
+  Scenario: Reuse the deployed artifact indexed in the persisted index file
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Given create a deployed artifacts cache with the index file 'index.json'
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/1/a.jar' with 1 upload in total
+
+  Scenario: Keep only the most recently used artifacts of a storage in the index
+    Given create a deployed artifacts cache with the index file 'bounded.json' keeping 2 artifacts per storage
+    And prepare a local artifact 'b.jar' with content 'v2' to deploy
+    And prepare a local artifact 'c.jar' with content 'v3' to deploy
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    And deploy the local artifact 'b.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    And deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    And deploy the local artifact 'c.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/3/c.jar' with 3 uploads in total
+    Given create a deployed artifacts cache with the index file 'bounded.json' keeping 2 artifacts per storage
+    When deploy the local artifact 'a.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/1/a.jar' with 3 uploads in total
+    When deploy the local artifact 'b.jar' into the storage 'wasbs://c@a/' with the deployed artifacts cache
+    Then the artifact should be deployed to 'wasbs://c@a/4/b.jar' with 4 uploads in total
@@ -0,0 +1,25 @@
+Feature: LivyBatchStatusPoller tests
+
+  Scenario: Status consumers of the same submission share one status polling
+    Given mock a Livy service in LivyBatchStatusPollerScenario for GET request '/batches/11' to return '{"id":11,"state":"success"}' with status code 200
+    And get the status stream of Livy batch 11 of '/batches' with 3 retries done at states success,dead
+    Then the status stream should be shared by the same submission only
+    And take the first status of the stream by 2 consumers one by one
+    Then the first status states got should be success,success
+    Then the status poller GET request '/batches/11' should be sent 1 time
+
+  Scenario: Status stream completes at the done state of the job
+    Given mock a Livy service in LivyBatchStatusPollerScenario for GET request '/batches/12' to return '{"id":12,"state":"running"}' with status code 200
+    And get the status stream of Livy batch 12 of '/batches' with 3 retries done at states running
+    Then the status stream should complete with the last state 'running' in 5 seconds
+    Then the status poller GET request '/batches/12' should be sent 1 time
+
+  Scenario: Non-2xx responses are polled through
+    Given mock a Livy service in LivyBatchStatusPollerScenario for GET request '/batches/13' to return '{}' with status code 500
+    And get the status stream of Livy batch 13 of '/batches' with 1 retries done at states success
+    Then the status stream should neither emit nor fail in 3 seconds
+    Then the status poller GET request '/batches/13' should be sent more than 1 time
+
+  Scenario: Status stream fails after the maximum retries of request failures
+    Given get the status stream of Livy batch 14 of 'http://localhost:1/batches' with 1 retries done at states success
+    Then the status stream should fail with java.io.IOException in 5 seconds
@@ -0,0 +1,40 @@
+Feature: LivyBatchesStatusAggregator tests
+
+  Scenario: All watched batches status are got by one batches list request
+    Given mock a Livy service in LivyBatchesStatusAggregatorScenario for GET request '/batches?from=0&size=100' to return '{"from":0,"total":3,"sessions":[{"id":1,"state":"running","appId":"application_1_0001"},{"id":2,"state":"starting"},{"id":3,"state":"success"}]}' with status code 200
+    And watch Livy batches 1,2 of '/batches' with the batches status aggregator
+    Then the batches status aggregator should be aggregating
+    Then the aggregated Livy batch 1 state should be 'running'
+    Then the aggregated Livy batch 2 state should be 'starting'
+    Then the aggregated Livy batch 3 status should be absent
+    Then the Livy GET request '/batches?from=0&size=100' should be sent 1 time
+
+  Scenario: Single watched batch is polled by itself
+    Given mock a Livy service in LivyBatchesStatusAggregatorScenario for GET request '/batches?from=0&size=100' to return '{"from":0,"total":1,"sessions":[{"id":1,"state":"running"}]}' with status code 200
+    And watch Livy batches 1 of '/batches' with the batches status aggregator
+    Then the batches status aggregator should not be aggregating
+    Then the aggregated Livy batch 1 status should be absent
+    Then the Livy GET request '/batches?from=0&size=100' should be sent 0 times
+
+  Scenario: Fall back to per batch polling when the batches list API is unavailable
+    Given mock a Livy service in LivyBatchesStatusAggregatorScenario for GET request '/batches?from=0&size=100' to return '{}' with status code 404
+    And watch Livy batches 1,2 of '/batches' with the batches status aggregator
+    Then the aggregated Livy batch 1 status should be absent
+    Then the batches status aggregator should not be aggregating
+
+  Scenario: Aggregators are shared per Livy service and submission
+    Then the batches status aggregator of '/batches' should be shared by the same submission only
+
+  Scenario: Check the batches list API again after a while
+    Given mock a Livy service in LivyBatchesStatusAggregatorScenario for GET request '/batches?from=0&size=100' to return '{}' with status code 404
+    And watch Livy batches 1,2 of '/batches' with a manual ticking batches status aggregator
+    Then the aggregated Livy batch 1 status should be absent
+    Then the batches status aggregator should not be aggregating
+    Given the batches status aggregator ticker advances 1 minutes
+    Then the batches status aggregator should not be aggregating
+    Given mock a Livy service in LivyBatchesStatusAggregatorScenario for GET request '/batches?from=0&size=100' to return '{"from":0,"total":2,"sessions":[{"id":1,"state":"running"},{"id":2,"state":"starting"}]}' with status code 200
+    And the batches status aggregator ticker advances 5 minutes
+    Then the batches status aggregator should be aggregating
+    Then the aggregated Livy batch 1 state should be 'running'
+    Then the batches status aggregator should be aggregating
+    Then the Livy GET request '/batches?from=0&size=100' should be sent 2 times
@@ -34,3 +34,38 @@ Feature: JobUtils Testing
   Scenario: getInformationFromYarnLogDom can read Spark 2.2 Yarn History server log format
     Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0' to return '<!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01//EN" "http://www.w3.org/TR/html4/strict.dtd"> <html> <meta http-equiv="X-UA-Compatible" content="IE=8"> <meta http-equiv="Content-type" content="text/html; charset=UTF-8"> <title> Logs for container_e03_1492780173422_0013_02_000001 </title>   <table id="layout" class="ui-widget-content"> <thead> <tr> <td colspan="2"> <div id="header" class="ui-widget"> <div id="user"> Logged in as: dr.who </div> <div id="logo"> <img src="/yarnui/static/hadoop-st.png"> </div> <h1> Logs for container_e03_1492780173422_0013_02_000001 </h1> </div> </td> </tr> </thead> <tfoot> <tr> <td colspan="2"> <div id="footer" class="ui-widget"> </div> </td> </tr> </tfoot> <tbody> <tr> <td id="navcell"> <div id="nav"> <h3> ResourceManager </h3> <ul> <li> <a href="/yarnui/hn/">RM Home</a> </ul> <h3> NodeManager </h3> <ul> <li> <a href="/yarnui/10.0.0.15/node/node">Node Information</a> <li> <a href="/yarnui/10.0.0.15/node/allApplications">List of Applications</a> <li> <a href="/yarnui/10.0.0.15/node/allContainers">List of Containers</a> </ul> <h3> Tools </h3> <ul> <li> <a href="/yarnui/10.0.0.15/conf">Configuration</a> <li> <a href="/yarnui/10.0.0.15/logs">Local logs</a> <li> <a href="/yarnui/10.0.0.15/stacks">Server stacks</a> <li> <a href="/yarnui/10.0.0.15/jmx?qry=Hadoop:*">Server metrics</a> </ul> </div> </td> <td class="content"> <pre>\n\n</pre> <p> Log Type: stderr <pre>spark2.2stderr</pre> </td> </tr> </tbody> </table> </html>' with status code 200
     Then get YarnUI log 'stderr' from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should return 'spark2.2stderr'
+
+  Scenario: getInformationFromYarnLogDom can read the log type specified from several logs in history server page
+    Given mock a http service in JobUtilsScenario for GET request '/jobhistory/logs/10.0.0.15/port/30050/container_e02_1492415936046_0015_01_000001/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0' to return '<html> <table> <tr> <td id="navcell"> <div id="nav"> </div> </td> <td class="content"> <!-- <p> Log Type: stderr <pre>commented</pre> --> <p> Log Type: directory.info <pre>ls -l:</pre> <p> Log Type: stdout <pre>history stdout</pre> <P> Log Type: stderr <PRE>history stderr</PRE> <p> Log Type: prelaunch.err <pre>prelaunch</pre> </td> </tr> </table> </html>' with status code 200
+    Then get YarnUI log 'stderr' from '/jobhistory/logs/10.0.0.15/port/30050/container_e02_1492415936046_0015_01_000001/container_e02_1492415936046_0015_01_000001/livy' should return 'history stderr'
+
+  Scenario: getInformationFromYarnLogDom decodes HTML entities in log
+    Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0' to return '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <pre>at Main.&lt;init&gt;(Main.scala) &amp; &quot;done&quot;</pre> </td> </tr> </table> </html>' with status code 200
+    Then get YarnUI log 'stderr' from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should return 'at Main.<init>(Main.scala) & "done"'
+
+  Scenario: getInformationFromYarnLogDom returns empty log for error response
+    Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0' to return '<html> <pre>forbidden</pre> </html>' with status code 403
+    Then get YarnUI log 'stderr' from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should return ''
+
+  Scenario: createYarnLogObservable integration test with moving offset by log bytes
+    Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0&&end=10' to return '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>h&#233;llo&#13;\nwo</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=8&&end=18' to return '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>world&#13;\n</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=15&&end=25' to return '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre></pre> </td> </tr> </table> </html>' with status code 200
+    Then Yarn log observable from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should produce events:
+      | héllo |
+      | world |
+
+  Scenario: createYarnLogObservable moves forward by one byte for each invalid byte
+    Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0&&end=10' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>ab\xFFc\n\xFEd</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=5&&end=15' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>\xFEd&lt;\n</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=9&&end=19' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre></pre> </td> </tr> </table> </html>' with status code 200
+    Then Yarn log observable from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should produce events:
+      | ab�c |
+      | �d< |
+
+  Scenario: createYarnLogObservable leaves the bytes of a character split by the block end to the next block
+    Given mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=0&&end=10' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>ab\xE2\x82</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=2&&end=12' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre>\xE2\x82\xAC\xFF\n</pre> </td> </tr> </table> </html>' with status code 200
+    And mock a http service in JobUtilsScenario for GET request '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy/stderr?start=7&&end=17' to return bytes '<html> <table> <tr> <td id="navcell"> </td> <td class="content"> <p> Log Type: stderr <pre></pre> </td> </tr> </table> </html>' with status code 200
+    Then Yarn log observable from '/yarnui/10.0.0.15/node/containerlogs/container_e02_1492415936046_0015_01_000001/livy' should produce events:
+      | ab€� |
@@ -0,0 +1,58 @@
+Feature: JobViewCacheManager unit tests
+
+  Scenario: The running application data is reloaded after the refresh interval
+    Given create a job view cache with max weight 1024KB and 1KB for each entry
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+    When 10 seconds passed
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+    When 30 seconds passed
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-2'
+    And the job view cache stats should be 2 hits, 1 miss and 2 loads
+
+  Scenario: The completed application data isn't reloaded
+    Given create a job view cache with max weight 1024KB and 1KB for each entry
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+    Given the application 'app1' is completed
+    When 3600 seconds passed
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+
+  Scenario: The entries are evicted by weight
+    Given create a job view cache with max weight 2KB and 1KB for each entry
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+    And getting the application 'app2' of cluster 'https://cluster1' from the job view cache should be 'app2-1'
+    And getting the application 'app3' of cluster 'https://cluster1' from the job view cache should be 'app3-1'
+    Then the job view cache should contain 2 entries
+    And getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-2'
+
+  Scenario: Invalidate the entries by cluster
+    Given create a job view cache with max weight 1024KB and 1KB for each entry
+    Then getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-1'
+    And getting the application 'app2' of cluster 'https://cluster2' from the job view cache should be 'app2-1'
+    When invalidate the cluster 'https://CLUSTER1' from the job view cache
+    Then the job view cache should contain 1 entries
+    And getting the application 'app2' of cluster 'https://cluster2' from the job view cache should be 'app2-1'
+    And getting the application 'app1' of cluster 'https://cluster1' from the job view cache should be 'app1-2'
+
+  Scenario: Fetch the stages tasks by pages in parallel
+    Given the stages with tasks count
+      | stageId | tasksCount |
+      | 1       | 5          |
+      | 2       | 0          |
+      | 3       | 3          |
+    When fetch the stages tasks with page length 2 and max 2 concurrent stages
+    Then the fetched tasks count should be 8
+    And the stage tasks pages fetched should be
+      | 1-0 |
+      | 1-2 |
+      | 1-4 |
+      | 2-0 |
+      | 3-0 |
+      | 3-2 |
+    And the max concurrent stages fetching should be no more than 2
+
+  Scenario: The loading failure is responded to the next polling instead of loading forever
+    Given create a job view list cache failing the first 1 load
+    Then getting the loaded application 'app1' of cluster 'https://cluster1' from the job view list cache should be  and loading
+    Then getting the loaded application 'app1' of cluster 'https://cluster1' from the job view list cache should fail with 'load 1 failed'
+    Then getting the loaded application 'app1' of cluster 'https://cluster1' from the job view list cache should be  and loading
+    Then getting the loaded application 'app1' of cluster 'https://cluster1' from the job view list cache should be app1-2 and loaded
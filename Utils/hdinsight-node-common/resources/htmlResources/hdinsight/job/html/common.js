@@ -69,7 +69,7 @@ function getMessageAsync(url, type, callback, appId) {
                     return;
                 }
                 if (callback) {
-                    callback(s);
+                    callback(s, xmlHttp);
                 }
             }
         }
@@ -114,8 +114,9 @@ function commandBinding() {
     });
 
     $("#refreshButton").click(function () {
-        location.reload();
-        refreshGetSelectedApplication();
+        getMessageAsync("/actions/refresh", null, function () {
+            location.reload();
+        }, spark.appId);
     });
 
     $('#jobGraphBackButton').click(function() {
@@ -323,10 +324,18 @@ function renderStageDetails() {
 }
 
 function renderTaskDetails() {
-    getMessageAsync('/applications/tasks_summary','spark', function(s){
+    var appId = spark.appId;
+    getMessageAsync('/applications/tasks_summary','spark', function(s, xmlHttp){
+        if (appId !== spark.appId) {
+            return;
+        }
         var tasks = JSON.parse(s);
         renderTaskSummary(tasks);
-    }, spark.appId);
+        // The tasks are still in loading, poll again for the rest tasks
+        if (xmlHttp.getResponseHeader('X-Tasks-Loading') === 'true') {
+            setTimeout(renderTaskDetails, 2000);
+        }
+    }, appId);
 }
 
 function renderExecutors() {
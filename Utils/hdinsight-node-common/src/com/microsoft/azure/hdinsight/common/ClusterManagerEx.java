@@ -31,6 +31,7 @@ import com.microsoft.azure.hdinsight.metadata.ClusterMetaDataService;
 import com.microsoft.azure.hdinsight.sdk.cluster.*;
 import com.microsoft.azure.hdinsight.sdk.storage.HDStorageAccount;
 import com.microsoft.azure.hdinsight.sdk.storage.IHDIStorageAccount;
+import com.microsoft.azure.hdinsight.spark.jobs.JobViewCacheManager;
 import com.microsoft.azure.sqlbigdata.sdk.cluster.SqlBigDataLivyLinkClusterDetail;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
@@ -307,12 +308,14 @@ public class ClusterManagerEx implements ILogger {
                                 && clusterDetail1.getName().equals(clusterDetailToUpdate.getName())))
                 .collect(Collectors.toList());
         ClusterMetaDataService.getInstance().removeClusterFromCache(clusterDetailToUpdate);
+        JobViewCacheManager.invalidateCluster(clusterDetailToUpdate);
         addAdditionalCluster(clusterDetailToUpdate);
     }
 
     public synchronized void removeEmulatorCluster(EmulatorClusterDetail emulatorClusterDetail) {
         emulatorClusterDetails.remove(emulatorClusterDetail);
         ClusterMetaDataService.getInstance().removeClusterFromCache(emulatorClusterDetail);
+        JobViewCacheManager.invalidateCluster(emulatorClusterDetail);
 
         saveEmulatorClusters();
     }
@@ -320,6 +323,7 @@ public class ClusterManagerEx implements ILogger {
     public synchronized void removeAdditionalCluster(@NotNull IClusterDetail hdInsightClusterDetail) {
         additionalClusterDetails.remove(hdInsightClusterDetail);
         ClusterMetaDataService.getInstance().removeClusterFromCache(hdInsightClusterDetail);
+        JobViewCacheManager.invalidateCluster(hdInsightClusterDetail);
         saveAdditionalClusters();
     }
 
@@ -377,16 +377,38 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
 
     public Observable<Map<String, String>> runStatement(@NotNull Statement statement) {
         return awaitReady()
-            .flatMap(session -> statement
-                    .run()
-                    .map(result -> {
-                        if (!result.getStatus().toLowerCase().equals("ok")) {
-                            throw propagate(new StatementExecutionError(
-                                    result.getEname(), result.getEvalue(), result.getTraceback()));
-                        }
+            .flatMap(session -> statement.submit())
+            .flatMap(this::awaitStatementResult);
+    }
+
+    /**
+     * Submit the codes as a statement without waiting for the result, to pipeline the statements in the ready
+     * session, which runs the statements in the submission order
+     *
+     * @param codes the codes to run
+     * @return the Observable of the submitted statement
+     */
+    public Observable<Statement> submitCodes(@NotNull String codes) {
+        return new Statement(this, new ByteArrayInputStream(codes.getBytes(StandardCharsets.UTF_8))).submit();
+    }
+
+    /**
+     * Wait for the submitted statement result
+     *
+     * @param statement the submitted statement
+     * @return the Observable of the statement result data, or StatementExecutionError for the failed statement
+     */
+    public Observable<Map<String, String>> awaitStatementResult(@NotNull Statement statement) {
+        return statement
+                .awaitOutput()
+                .map(result -> {
+                    if (!result.getStatus().toLowerCase().equals("ok")) {
+                        throw propagate(new StatementExecutionError(
+                                result.getEname(), result.getEvalue(), result.getTraceback()));
+                    }
 
-                        return result.getData();
-                    }));
+                    return result.getData();
+                });
     }
 
     public Observable<Session> awaitReady(@Nullable Scheduler scheduler) {
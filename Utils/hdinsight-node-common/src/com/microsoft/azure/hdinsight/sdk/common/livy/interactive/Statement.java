@@ -133,14 +133,31 @@ public class Statement implements ILogger {
      */
 
     public Observable<StatementOutput> run() {
+        return submit()
+                .flatMap(Statement::awaitOutput);
+    }
+
+    /**
+     * Submit the statement without waiting for it done, the statements submitted to one session run in order
+     *
+     * @return the Observable of the submitted statement
+     */
+    public Observable<Statement> submit() {
         return runStatementRequest()
-                .map(this::updateWithResponse)
-                .flatMap(statement -> statement.get()                    // Get statement result
-                        .repeatWhen(ob -> ob.delay(1, TimeUnit.SECONDS)) // The unmet state won't trigger retries,
-                                                                         // which is handled by repeatWhen()
-                        .takeUntil(Statement::isDone)
-                        .filter(Statement::isDone)
-                )
+                .map(this::updateWithResponse);
+    }
+
+    /**
+     * Wait for the submitted statement done
+     *
+     * @return the Observable of the statement output
+     */
+    public Observable<StatementOutput> awaitOutput() {
+        return get()                                             // Get statement result
+                .repeatWhen(ob -> ob.delay(1, TimeUnit.SECONDS)) // The unmet state won't trigger retries,
+                                                                 // which is handled by repeatWhen()
+                .takeUntil(Statement::isDone)
+                .filter(Statement::isDone)
                 .map(Statement::getOutput);
     }
 
@@ -22,7 +22,9 @@
 
 package com.microsoft.azure.hdinsight.sdk.io.spark;
 
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Statement;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import org.apache.commons.codec.binary.Base64;
 
@@ -30,9 +32,39 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.CRC32;
 
-public class ClusterFileBase64BufferedOutputStream extends OutputStream {
-    private static final int DEFAULT_BLOCK_SIZE_KB = 32;      // 32KB block size
+/**
+ * The output stream to upload the BASE64 encoded file into the cluster through a Livy interactive session,
+ * which sends the file page by page as the Livy statements.
+ *
+ * The statements are pipelined, up to `maxStatementsInFlight` pages are submitted before the oldest one is done,
+ * since the session runs the statements in the submission order. Each page is written with its index and CRC32
+ * checksum, which are verified by the cluster side codes, as well as the file length at the end.
+ *
+ * The page size is auto-tuned between the min and max block sizes by the page submitting time, doubled for the fast
+ * network and halved for the slow one.
+ *
+ * Only the BASE64 alphabet is buffered, the line separators of the MIME style BASE64 encoder are dropped, and the pages
+ * are cut at the 4 characters quantum boundaries to be decoded separately. A page is written as several string
+ * literals, since the JVM class file limits one string constant to 65535 bytes.
+ */
+public class ClusterFileBase64BufferedOutputStream extends OutputStream implements ILogger {
+    private static final int DEFAULT_MIN_BLOCK_SIZE_KB = 1024;          // 1MB block size
+    private static final int DEFAULT_MAX_BLOCK_SIZE_KB = 8 * 1024;      // 8MB block size
+    private static final int DEFAULT_MAX_STATEMENTS_IN_FLIGHT = 4;
+
+    // The expected time to submit a page, the page size is tuned to keep the submitting time around it
+    private static final long TARGET_SUBMIT_MILLISECONDS = 2000;
+
+    // The max length of one string literal in the page codes, aligned to the BASE64 quantum, under the JVM
+    // string constant limit of 65535 bytes
+    static final int MAX_LITERAL_LENGTH = 60 * 1024;
+
+    private static final int BASE64_QUANTUM_LENGTH = 4;
 
     @NotNull
     private final Session session;
@@ -40,26 +72,76 @@ public class ClusterFileBase64BufferedOutputStream extends OutputStream {
     @NotNull
     private final ByteBuffer buf;
 
+    private final int minBlockSize;
+
+    private final int maxStatementsInFlight;
+
+    private int blockSize;
+
+    private long pageIndex = 0;
+
+    private long uploadedBytes = 0;
+
+    @NotNull
+    private final Deque<Statement> statementsInFlight = new ArrayDeque<>();
+
     private final String preloadedCodes = String.join("\n",
             "import java.io._",
             "import java.util.Base64",
+            "import java.util.zip.CRC32",
             "",
             "val jarOutput = \"%s\"",
             "val fs = org.apache.hadoop.fs.FileSystem.get(sc.hadoopConfiguration)",
             "val jarFileOutput = fs.create(new org.apache.hadoop.fs.Path(jarOutput), true)",
             "val out = new DataOutputStream(new BufferedOutputStream(jarFileOutput))",
+            "var nextPageIndex = 0L",
+            "",
+            "def writePage(pageIndex: Long, encodedBase64: String, checksum: Long) = {",
+            "    if (pageIndex != nextPageIndex) {",
+            "        throw new IOException(s\"Expect page $nextPageIndex of $jarOutput, but got page $pageIndex\")",
+            "    }",
             "",
-            "def writePage(encodedBase64: String) = {",
             "    val pageBytes = Base64.getDecoder.decode(encodedBase64)",
+            "    val crc = new CRC32()",
+            "    crc.update(pageBytes, 0, pageBytes.size)",
+            "",
+            "    if (crc.getValue != checksum) {",
+            "        throw new IOException(s\"The page $pageIndex of $jarOutput checksum mismatched\")",
+            "    }",
             "",
             "    out.write(pageBytes, 0, pageBytes.size)",
+            "    nextPageIndex += 1",
+            "}",
+            "",
+            "def closeAndVerify(length: Long) = {",
+            "    out.close()",
+            "",
+            "    val uploadedLength = fs.getFileStatus(new org.apache.hadoop.fs.Path(jarOutput)).getLen",
+            "    if (uploadedLength != length) {",
+            "        throw new IOException(s\"The uploaded $jarOutput length $uploadedLength mismatched the expected $length\")",
+            "    }",
             "}");
 
-
-    public ClusterFileBase64BufferedOutputStream(@NotNull Session session, @NotNull URI destination, final int blockSizeKB) {
+    /**
+     * Constructor
+     *
+     * @param session the Livy interactive session to run the uploading codes
+     * @param destination the cluster file path to upload to
+     * @param minBlockSizeKB the min page size in KB of the BASE64 codes
+     * @param maxBlockSizeKB the max page size in KB of the BASE64 codes, the same as the min one to disable tuning
+     * @param maxStatementsInFlight the max count of the submitted pages not done
+     */
+    public ClusterFileBase64BufferedOutputStream(@NotNull Session session,
+                                                 @NotNull URI destination,
+                                                 final int minBlockSizeKB,
+                                                 final int maxBlockSizeKB,
+                                                 final int maxStatementsInFlight) {
         this.session = session;
-        this.buf = ByteBuffer.allocate(blockSizeKB * 1024); // Due to BASE64 requirement, the block size
-                                                            // must be aligned to 4 bytes
+        this.minBlockSize = minBlockSizeKB * 1024;  // Due to BASE64 requirement, the block size
+                                                    // must be aligned to 4 bytes
+        this.blockSize = minBlockSize;
+        this.buf = ByteBuffer.allocate(Math.max(minBlockSizeKB, maxBlockSizeKB) * 1024);
+        this.maxStatementsInFlight = Math.max(1, maxStatementsInFlight);
 
         // Pre-load
         session.runCodes(String.format(preloadedCodes, destination.toString()))
@@ -67,25 +149,38 @@ public class ClusterFileBase64BufferedOutputStream extends OutputStream {
                 .singleOrDefault(null);
     }
 
+    public ClusterFileBase64BufferedOutputStream(@NotNull Session session, @NotNull URI destination, final int blockSizeKB) {
+        this(session, destination, blockSizeKB, blockSizeKB, DEFAULT_MAX_STATEMENTS_IN_FLIGHT);
+    }
+
     public ClusterFileBase64BufferedOutputStream(@NotNull Session session, @NotNull URI destination) {
-        this(session, destination, DEFAULT_BLOCK_SIZE_KB);
+        this(session, destination, DEFAULT_MIN_BLOCK_SIZE_KB, DEFAULT_MAX_BLOCK_SIZE_KB, DEFAULT_MAX_STATEMENTS_IN_FLIGHT);
     }
 
     @Override
     public void close() throws IOException {
-        flush();
+        try {
+            flush();
 
-        session.runCodes("out.close()")
-                .toBlocking()
-                .singleOrDefault(null);
+            if (buf.position() > 0) {
+                throw new IOException(String.format(
+                        "The BASE64 codes end with an incomplete quantum of %d characters", buf.position()));
+            }
 
-        session.close();
-        super.close();
+            while (!statementsInFlight.isEmpty()) {
+                awaitOldestStatement();
+            }
+
+            runCodes(String.format("closeAndVerify(%d)", uploadedBytes));
+        } finally {
+            session.close();
+            super.close();
+        }
     }
 
     @Override
     public void write(int b) throws IOException {
-        if (!buf.hasRemaining()) {
+        if (buf.position() >= blockSize) {
             flush();
         }
 
@@ -96,15 +191,117 @@ public class ClusterFileBase64BufferedOutputStream extends OutputStream {
 
     @Override
     public void flush() throws IOException {
-        if (buf.position() > 0) {
-            String codesPage = new String(buf.array(), 0, buf.position());
+        // Keep the incomplete BASE64 quantum for the next page
+        int pageSize = buf.position() - buf.position() % BASE64_QUANTUM_LENGTH;
+
+        if (pageSize > 0) {
+            ByteBuffer pageBytes = java.util.Base64.getDecoder().decode(ByteBuffer.wrap(buf.array(), 0, pageSize));
+            int pageBytesLength = pageBytes.remaining();
+            CRC32 crc = new CRC32();
+            crc.update(pageBytes);
+
+            String codesPage = new StringBuilder(pageSize + pageSize / MAX_LITERAL_LENGTH * 4 + 64)
+                    .append("writePage(")
+                    .append(pageIndex)
+                    .append(", ")
+                    .append(toStringLiterals(pageSize))
+                    .append(", ")
+                    .append(crc.getValue())
+                    .append("L)")
+                    .toString();
+
+            int restSize = buf.position() - pageSize;
+            System.arraycopy(buf.array(), pageSize, buf.array(), 0, restSize);
+            buf.position(restSize);
+
+            if (statementsInFlight.size() >= maxStatementsInFlight) {
+                awaitOldestStatement();
+            }
+
+            long submitStart = System.currentTimeMillis();
+            statementsInFlight.addLast(submitCodes(codesPage));
+            tuneBlockSize(pageSize, System.currentTimeMillis() - submitStart);
 
-            buf.clear();
-            session.runCodes(String.format("writePage(\"%s\")", codesPage))
+            pageIndex++;
+            uploadedBytes += pageBytesLength;
+        }
+
+        super.flush();
+    }
+
+    /**
+     * Convert the buffered BASE64 codes into the Scala string expression, a literal for the short page, and the
+     * literals concatenated at runtime for the long one, which won't be folded into one constant by the compiler
+     *
+     * @param pageSize the BASE64 codes length from the buffer start
+     * @return the Scala string expression
+     */
+    @NotNull
+    private String toStringLiterals(int pageSize) {
+        if (pageSize <= MAX_LITERAL_LENGTH) {
+            return "\"" + new String(buf.array(), 0, pageSize, StandardCharsets.US_ASCII) + "\"";
+        }
+
+        StringBuilder literals = new StringBuilder(pageSize + pageSize / MAX_LITERAL_LENGTH * 4 + 16).append("Seq(");
+
+        for (int start = 0; start < pageSize; start += MAX_LITERAL_LENGTH) {
+            literals.append(start == 0 ? "\"" : ", \"")
+                    .append(new String(buf.array(), start, Math.min(MAX_LITERAL_LENGTH, pageSize - start),
+                            StandardCharsets.US_ASCII))
+                    .append("\"");
+        }
+
+        return literals.append(").mkString").toString();
+    }
+
+    private void tuneBlockSize(int pageSize, long submitMilliseconds) {
+        if (pageSize < blockSize) {
+            // The last page isn't full
+            return;
+        }
+
+        if (submitMilliseconds < TARGET_SUBMIT_MILLISECONDS / 2 && blockSize * 2 <= buf.capacity()) {
+            blockSize *= 2;
+        } else if (submitMilliseconds > TARGET_SUBMIT_MILLISECONDS * 2 && blockSize / 2 >= minBlockSize) {
+            blockSize /= 2;
+        } else {
+            return;
+        }
+
+        log().debug(String.format("Tune the page size to %d after submitting %d bytes in %d ms",
+                blockSize, pageSize, submitMilliseconds));
+    }
+
+    @NotNull
+    private Statement submitCodes(@NotNull String codes) throws IOException {
+        try {
+            return session.submitCodes(codes)
+                    .toBlocking()
+                    .single();
+        } catch (RuntimeException ex) {
+            throw new IOException(String.format("Failed to submit the page %d to upload", pageIndex), ex);
+        }
+    }
+
+    private void awaitOldestStatement() throws IOException {
+        Statement statement = statementsInFlight.removeFirst();
+
+        try {
+            session.awaitStatementResult(statement)
                     .toBlocking()
                     .singleOrDefault(null);
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to upload the page", ex);
         }
+    }
 
-        super.flush();
+    private void runCodes(@NotNull String codes) throws IOException {
+        try {
+            session.runCodes(codes)
+                    .toBlocking()
+                    .singleOrDefault(null);
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to finish uploading", ex);
+        }
     }
 }
@@ -24,6 +24,7 @@ package com.microsoft.azure.hdinsight.sdk.rest;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -32,6 +33,8 @@ import org.apache.http.HttpEntity;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -78,6 +81,36 @@ public final class ObjectConvertUtils {
         return Optional.empty();
     }
 
+    /**
+     * Convert the JSON array entity to list by streaming, without reading the whole content as a String firstly
+     *
+     * @param entity the JSON array HTTP entity
+     * @param tClass the list element type
+     * @param <T> the list element type
+     * @return the converted list, empty for non JSON entity
+     * @throws IOException for the entity reading or parsing failure
+     */
+    public static <T> Optional<List<T>> convertJsonEntityToListStreaming(@NotNull HttpEntity entity,
+                                                                         @NotNull Class<T> tClass) throws IOException {
+        if (entity.getContentType() == null ||
+                !entity.getContentType().getValue().toLowerCase().startsWith("application/json")) {
+            EntityUtils.consumeQuietly(entity);
+
+            return Optional.empty();
+        }
+
+        List<T> list = new ArrayList<>();
+
+        try (InputStream content = entity.getContent();
+             MappingIterator<T> iterator = objectMapper.readerFor(tClass).readValues(content)) {
+            while (iterator.hasNextValue()) {
+                list.add(iterator.nextValue());
+            }
+        }
+
+        return Optional.of(list);
+    }
+
     public static <T> Optional<List<T>> convertJsonToList(@NotNull String jsonString, Class<T> tClass) throws IOException {
         List<T> myLists = objectMapper.readValue(jsonString, TypeFactory.defaultInstance().constructCollectionType(List.class, tClass));
         return Optional.ofNullable(myLists);
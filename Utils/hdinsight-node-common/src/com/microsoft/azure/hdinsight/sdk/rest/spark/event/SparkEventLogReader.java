@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.rest.spark.event;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Spark event log reader, which reads the events one by one from the event log stream of JSON lines
+ * by a streaming JSON parser, so the memory used is constant no matter how large the event log is.
+ *
+ * Only the events of the types concerned are deserialized, the other events are skipped token by token
+ * right after the Event field is read, without building any object for them.
+ */
+public class SparkEventLogReader implements Closeable, ILogger {
+    public static final String JOB_START_EVENT = "SparkListenerJobStart";
+
+    public static final String STAGE_COMPLETED_EVENT = "SparkListenerStageCompleted";
+
+    public static final String TASK_END_EVENT = "SparkListenerTaskEnd";
+
+    private static final String EVENT_FIELD = "Event";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @NotNull
+    private final JsonParser parser;
+
+    @NotNull
+    private final Map<String, Class<?>> eventTypes;
+
+    /**
+     * Constructor
+     *
+     * @param inputStream the event log stream, which is closed with the reader
+     * @param eventTypes the map from the event name, such as SparkListenerJobStart, to the event class to read
+     * @throws IOException for the stream reading exceptions
+     */
+    public SparkEventLogReader(@NotNull InputStream inputStream,
+                               @NotNull Map<String, Class<?>> eventTypes) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(inputStream);
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Read the next event of the types concerned
+     *
+     * @return the event object of the class mapped by the event name, null if no more events
+     * @throws IOException for the stream reading and JSON parsing exceptions
+     */
+    @Nullable
+    public Object next() throws IOException {
+        JsonToken token;
+
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            Object event = readEvent();
+            if (event != null) {
+                return event;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Read the event object with the parser at the START_OBJECT token
+     */
+    @Nullable
+    private Object readEvent() throws IOException {
+        // Spark writes the Event field at first, only the fields before it are buffered for the other order
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        buffer.writeStartObject();
+        Class<?> eventType = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (eventType == null && EVENT_FIELD.equals(parser.getCurrentName())) {
+                String eventName = parser.nextTextValue();
+                eventType = eventName == null ? null : eventTypes.get(eventName);
+
+                if (eventType == null) {
+                    skipRestFields();
+                    return null;
+                }
+
+                buffer.writeStringField(EVENT_FIELD, eventName);
+            } else {
+                // Copy the field name and its value
+                buffer.copyCurrentStructure(parser);
+            }
+        }
+
+        if (eventType == null) {
+            return null;
+        }
+
+        buffer.writeEndObject();
+
+        try (JsonParser eventParser = buffer.asParser()) {
+            return objectMapper.readValue(eventParser, eventType);
+        } catch (JsonProcessingException ex) {
+            log().warn("Skip the unrecognized Spark event log of " + eventType.getSimpleName() + ": " + ex);
+
+            return null;
+        }
+    }
+
+    private void skipRestFields() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * Read all events of one type from the event log stream
+     *
+     * @param inputStream the event log stream, which is closed after read
+     * @param eventName the event name to read, such as SparkListenerJobStart
+     * @param eventClass the event class
+     * @return the events list
+     * @throws IOException for the stream reading and JSON parsing exceptions
+     */
+    @NotNull
+    public static <T> List<T> readEvents(@NotNull InputStream inputStream,
+                                         @NotNull String eventName,
+                                         @NotNull Class<T> eventClass) throws IOException {
+        List<T> events = new ArrayList<>();
+
+        try (SparkEventLogReader reader = new SparkEventLogReader(
+                inputStream, Collections.singletonMap(eventName, eventClass))) {
+            Object event;
+
+            while ((event = reader.next()) != null) {
+                events.add(eventClass.cast(event));
+            }
+        }
+
+        return events;
+    }
+}
@@ -27,12 +27,15 @@ import com.microsoft.azure.hdinsight.sdk.rest.azure.storageaccounts.RemoteFile;
 import com.microsoft.azure.hdinsight.sdk.rest.azure.storageaccounts.api.GetRemoteFilesResponse;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.util.EntityUtils;
 import rx.Observable;
 
 import java.io.File;
@@ -90,6 +93,17 @@ public class ADLSGen2FSOperation {
                 .map(ignore -> true);
     }
 
+    public Observable<Boolean> exists(String filePath) {
+        return http.request(new HttpHead(filePath), null, null, null)
+                .map(resp -> {
+                    try {
+                        return resp.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+                    } finally {
+                        EntityUtils.consumeQuietly(resp.getEntity());
+                    }
+                });
+    }
+
     public Observable<Boolean> uploadData(String destFilePath, File src) {
         return appendData(destFilePath, src)
                 .flatMap(len -> flushData(destFilePath, len));
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.storage.webhdfs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import rx.Observable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.UnknownServiceException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The WebHDFS file uploader, which streams the local file to HDFS by a CREATE request with the first chunk,
+ * followed by APPEND requests with the rest chunks. Only one chunk is in memory no matter how large the file is.
+ *
+ * Each chunk is retried by itself. Since APPEND isn't idempotent, the remote file length is checked before
+ * retrying an APPEND, to skip the chunk appended by the failed request already.
+ */
+public class WebHdfsChunkedUploader implements ILogger {
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_RETRIES_MAX = 3;
+
+    private static final long RETRY_DELAY_MILLISECONDS = 1000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @NotNull
+    private final HttpObservable http;
+
+    private final int chunkSize;
+
+    private final int retriesMax;
+
+    @NotNull
+    private final List<NameValuePair> createReqParams;
+
+    @NotNull
+    private final List<NameValuePair> appendReqParams = new WebHdfsParamsBuilder("APPEND").build();
+
+    @NotNull
+    private final List<NameValuePair> getFileStatusReqParams = new WebHdfsParamsBuilder("GETFILESTATUS").build();
+
+    public WebHdfsChunkedUploader(@NotNull HttpObservable http) {
+        this(http, DEFAULT_CHUNK_SIZE, DEFAULT_RETRIES_MAX, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http the HTTP client for WebHDFS requests
+     * @param chunkSize the max bytes size of the chunk to upload in one request
+     * @param retriesMax the max attempts count to upload one chunk
+     * @param permission the created file permission, such as 777, null for the default permission
+     */
+    public WebHdfsChunkedUploader(@NotNull HttpObservable http,
+                                  int chunkSize,
+                                  int retriesMax,
+                                  @Nullable String permission) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The WebHDFS upload chunk size should be positive: " + chunkSize);
+        }
+
+        this.http = http;
+        this.chunkSize = chunkSize;
+        this.retriesMax = Math.max(1, retriesMax);
+
+        WebHdfsParamsBuilder createReqParamsBuilder = new WebHdfsParamsBuilder("CREATE").setOverwrite("true");
+        this.createReqParams = permission == null
+                ? createReqParamsBuilder.build()
+                : createReqParamsBuilder.setPermission(permission).build();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Upload the local file to WebHDFS
+     *
+     * @param filePath the WebHDFS file path to create, such as https://host/webhdfs/v1/dir/file.jar
+     * @param src the local file to upload
+     * @param uploadInProcessCallback the callback with the uploaded bytes count after each chunk is uploaded
+     * @return the Observable of uploaded bytes count
+     */
+    @NotNull
+    public Observable<Long> upload(@NotNull String filePath,
+                                   @NotNull File src,
+                                   @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) {
+        return Observable.fromCallable(() -> {
+            long length = src.length();
+            byte[] buffer = new byte[(int) Math.min(chunkSize, Math.max(length, 1))];
+            long uploadedBytes = 0;
+
+            try (RandomAccessFile file = new RandomAccessFile(src, "r")) {
+                do {
+                    int len = (int) Math.min(buffer.length, length - uploadedBytes);
+
+                    file.seek(uploadedBytes);
+                    file.readFully(buffer, 0, len);
+
+                    uploadChunk(filePath, uploadedBytes, buffer, len);
+                    uploadedBytes += len;
+
+                    if (uploadInProcessCallback != null) {
+                        uploadInProcessCallback.call(uploadedBytes);
+                    }
+                } while (uploadedBytes < length);
+            }
+
+            return uploadedBytes;
+        });
+    }
+
+    private void uploadChunk(@NotNull String filePath, long offset, @NotNull byte[] buffer, int len)
+            throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (offset == 0) {
+                    // CREATE with overwrite is idempotent, just do it again for retrying
+                    writeData(new HttpPut(filePath), createReqParams, HttpPut::new, HttpStatus.SC_CREATED,
+                            buffer, len);
+                } else if (attempt == 1 || isAppendNeeded(filePath, offset, len)) {
+                    writeData(new HttpPost(filePath), appendReqParams, HttpPost::new, HttpStatus.SC_OK,
+                            buffer, len);
+                }
+
+                return;
+            } catch (IOException | RuntimeException err) {
+                if (attempt >= retriesMax) {
+                    throw err;
+                }
+
+                log().warn(String.format("Failed to upload %d bytes at offset %d to %s, retry it: %s",
+                        len, offset, filePath, err.toString()));
+                TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLISECONDS * attempt);
+            }
+        }
+    }
+
+    /**
+     * Check whether the chunk should be appended again after the failed APPEND request
+     */
+    private boolean isAppendNeeded(@NotNull String filePath, long offset, int len) throws IOException {
+        long remoteLength = getFileLength(filePath);
+
+        if (remoteLength == offset) {
+            return true;
+        }
+
+        if (remoteLength == offset + len) {
+            return false;
+        }
+
+        throw new UnknownServiceException(String.format(
+                "The WebHDFS file %s length %d mismatches the uploaded offset %d", filePath, remoteLength, offset));
+    }
+
+    private long getFileLength(@NotNull String filePath) throws IOException {
+        try (CloseableHttpResponse resp = execute(new HttpGet(filePath), null, getFileStatusReqParams)) {
+            String message = resp.getEntity() == null ? "" : EntityUtils.toString(resp.getEntity());
+
+            if (resp.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new UnknownServiceException(String.format(
+                        "Can not get WebHDFS file %s status with code %d: %s",
+                        filePath, resp.getStatusLine().getStatusCode(), message));
+            }
+
+            JsonNode length = objectMapper.readTree(message).path("FileStatus").path("length");
+            if (!length.canConvertToLong()) {
+                throw new UnknownServiceException("Bad WebHDFS file status response: " + message);
+            }
+
+            return length.asLong();
+        }
+    }
+
+    /**
+     * Two steps to write data via WebHDFS:
+     *   1. request without data to get 307 redirect uri from response
+     *   2. request the redirect uri with data as entity
+     */
+    private void writeData(@NotNull HttpEntityEnclosingRequestBase req,
+                           @NotNull List<NameValuePair> params,
+                           @NotNull Function<URI, HttpEntityEnclosingRequestBase> redirectedReqCreator,
+                           int expectedStatusCode,
+                           @NotNull byte[] buffer,
+                           int len) throws IOException {
+        String redirectedUri;
+
+        try (CloseableHttpResponse resp = execute(req, null, params)) {
+            Header location = resp.getFirstHeader("Location");
+            EntityUtils.consumeQuietly(resp.getEntity());
+
+            if (location == null || StringUtils.isBlank(location.getValue())) {
+                throw new UnknownServiceException(String.format(
+                        "Can not get valid redirect uri using webHDFS storage type, response code: %d",
+                        resp.getStatusLine().getStatusCode()));
+            }
+
+            redirectedUri = location.getValue();
+        }
+
+        URI redirected = URI.create(redirectedUri);
+        ByteArrayEntity entity = new ByteArrayEntity(buffer, 0, len, ContentType.APPLICATION_OCTET_STREAM);
+
+        try (CloseableHttpResponse resp = execute(
+                redirectedReqCreator.apply(redirected), entity, URLEncodedUtils.parse(redirected, "UTF-8"))) {
+            String message = resp.getEntity() == null ? "" : EntityUtils.toString(resp.getEntity());
+
+            if (resp.getStatusLine().getStatusCode() != expectedStatusCode) {
+                throw new UnknownServiceException(String.format(
+                        "Failed to write data to %s with code %d: %s",
+                        req.getURI(), resp.getStatusLine().getStatusCode(), message));
+            }
+        }
+    }
+
+    @NotNull
+    private CloseableHttpResponse execute(@NotNull HttpRequestBase req,
+                                          @Nullable HttpEntity entity,
+                                          @NotNull List<NameValuePair> params) throws IOException {
+        try {
+            return http.request(req, entity, params, null).toBlocking().single();
+        } catch (RuntimeException err) {
+            if (err.getCause() instanceof IOException) {
+                throw (IOException) err.getCause();
+            }
+
+            throw err;
+        }
+    }
+}
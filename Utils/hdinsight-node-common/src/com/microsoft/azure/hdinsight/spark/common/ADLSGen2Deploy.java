@@ -78,7 +78,7 @@ public class ADLSGen2Deploy implements Deployable, ILogger {
         String filePath = String.format("%s/%s", dirPath, src.getName());
 
         ADLSGen2FSOperation op = new ADLSGen2FSOperation(this.http);
-        return op.createDir(dirPath)
+        Observable<String> upload = op.createDir(dirPath)
                 .onErrorReturn(err -> {
                     if (err.getMessage()!= null && (err.getMessage().contains(String.valueOf(HttpStatus.SC_FORBIDDEN))
                             || err.getMessage().contains(String.valueOf(HttpStatus.SC_NOT_FOUND)))) {
@@ -96,6 +96,13 @@ public class ADLSGen2Deploy implements Deployable, ILogger {
                 .flatMap(ignore -> op.uploadData(filePath, src))
                 .doOnNext(ignore -> log().info(String.format("Append data to file %s successfully.", filePath)))
                 .map(ignored -> AbfsUri.parse(filePath).getUri().toString());
+
+        return DeployedArtifactCache.getInstance().deploy(
+                destinationRootPath,
+                src,
+                deployedUri -> op.exists(AbfsUri.parse(deployedUri).getUrl().toString()),
+                upload,
+                logSubject);
     }
 
     public static String getForbiddenErrorHints(String fileSystemRootPath) {
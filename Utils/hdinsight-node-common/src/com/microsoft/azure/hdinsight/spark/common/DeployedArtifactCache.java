@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.hdinsight.common.MessageInfoType;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import rx.Observable;
+import rx.Observer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The content addressed cache of the deployed Spark job artifacts, which indexes the remote artifact URI by the
+ * artifact SHA-256 hash per storage, to reuse the deployed artifact if it's unchanged and still in the storage,
+ * rather than uploading it to a new unique folder again.
+ *
+ * The index is persisted into the settings base folder, to be reused across IDE sessions. It keeps only the most
+ * recently deployed or reused artifacts of the most recently used storages, to not grow with every deployment.
+ */
+public class DeployedArtifactCache implements ILogger {
+    public static final String INDEX_FILE_NAME = "SparkDeployedArtifacts.json";
+    public static final int MAX_STORAGES = 32;
+    public static final int MAX_ARTIFACTS_PER_STORAGE = 64;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final class LazyHolder {
+        static final DeployedArtifactCache INSTANCE = new DeployedArtifactCache(
+                Optional.ofNullable(CommonSettings.getSettingsBaseDir())
+                        .map(baseDir -> Paths.get(baseDir, INDEX_FILE_NAME).toFile())
+                        .orElse(null));
+    }
+
+    public static DeployedArtifactCache getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    private static final class FileHash {
+        private final long length;
+        private final long lastModified;
+        @NotNull
+        private final String sha256;
+
+        private FileHash(long length, long lastModified, @NotNull String sha256) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+        }
+    }
+
+    @Nullable
+    private final File indexFile;
+
+    private final int maxArtifactsPerStorage;
+
+    // Storage key -> { artifact key -> deployed artifact URI }, both in the least recently used first order
+    @Nullable
+    private LinkedHashMap<String, LinkedHashMap<String, String>> index;
+
+    // Local artifact absolute path -> hash, to skip hashing the unchanged artifact again
+    @NotNull
+    private final Map<String, FileHash> fileHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param indexFile the file to persist the index, null for the memory index only
+     */
+    public DeployedArtifactCache(@Nullable File indexFile) {
+        this(indexFile, MAX_ARTIFACTS_PER_STORAGE);
+    }
+
+    DeployedArtifactCache(@Nullable File indexFile, int maxArtifactsPerStorage) {
+        this.indexFile = indexFile;
+        this.maxArtifactsPerStorage = maxArtifactsPerStorage;
+    }
+
+    /**
+     * Deploy the artifact if it isn't in the storage yet
+     *
+     * @param storageKey the key of the storage to deploy the artifact into, such as the destination root path
+     * @param src the artifact to deploy
+     * @param remoteExists the function to check whether the deployed artifact URI still exists in the storage
+     * @param upload the Observable to upload the artifact and get the deployed artifact URI, subscribed only when
+     *               the artifact isn't found in the storage
+     * @param logSubject the subject to help print logs during deploying, null for printing into the log file
+     * @return the Observable of the deployed artifact URI
+     */
+    @NotNull
+    public Observable<String> deploy(@NotNull String storageKey,
+                                     @NotNull File src,
+                                     @NotNull Function<String, Observable<Boolean>> remoteExists,
+                                     @NotNull Observable<String> upload,
+                                     @Nullable Observer<SimpleImmutableEntry<MessageInfoType, String>> logSubject) {
+        return Observable.fromCallable(() -> getArtifactKey(src))
+                .flatMap(artifactKey -> {
+                    Observable<String> uploadAndIndex = upload
+                            .doOnNext(deployedUri -> put(storageKey, artifactKey, deployedUri));
+
+                    String cachedUri = get(storageKey, artifactKey);
+                    if (cachedUri == null) {
+                        return uploadAndIndex;
+                    }
+
+                    return remoteExists.apply(cachedUri)
+                            .onErrorReturn(err -> {
+                                log().warn("Failed to check the deployed artifact " + cachedUri + ": " + err);
+
+                                return false;
+                            })
+                            .flatMap(isExisted -> {
+                                if (isExisted) {
+                                    String message = String.format(
+                                            "Skip uploading unchanged file %s, reuse the deployed one %s",
+                                            src.getPath(), cachedUri);
+
+                                    if (logSubject != null) {
+                                        logSubject.onNext(new SimpleImmutableEntry<>(MessageInfoType.Info, message));
+                                    } else {
+                                        log().info(message);
+                                    }
+
+                                    put(storageKey, artifactKey, cachedUri);
+
+                                    return Observable.just(cachedUri);
+                                }
+
+                                remove(storageKey, artifactKey);
+
+                                return uploadAndIndex;
+                            });
+                });
+    }
+
+    /**
+     * Get the deployed artifact URI from the index
+     *
+     * @param storageKey the key of the storage the artifact deployed into
+     * @param src the artifact deployed
+     * @return the deployed artifact URI, null for not found
+     * @throws IOException for the artifact reading failure
+     */
+    @Nullable
+    public String getDeployedUri(@NotNull String storageKey, @NotNull File src) throws IOException {
+        return get(storageKey, getArtifactKey(src));
+    }
+
+    /**
+     * Get the SHA-256 hash of the file content in hex, which is calculated only once for the unchanged file
+     *
+     * @param file the file to calculate
+     * @return the hex SHA-256 hash
+     * @throws IOException for the file reading failure
+     */
+    @NotNull
+    public String getSha256(@NotNull File file) throws IOException {
+        File absoluteFile = file.getAbsoluteFile();
+        long length = absoluteFile.length();
+        long lastModified = absoluteFile.lastModified();
+
+        FileHash cached = fileHashes.get(absoluteFile.getPath());
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached.sha256;
+        }
+
+        String sha256;
+        try (InputStream in = new FileInputStream(absoluteFile)) {
+            sha256 = DigestUtils.sha256Hex(in);
+        }
+
+        fileHashes.put(absoluteFile.getPath(), new FileHash(length, lastModified, sha256));
+
+        return sha256;
+    }
+
+    @NotNull
+    private String getArtifactKey(@NotNull File src) throws IOException {
+        // The file name is kept in the deployed URI, so only the artifact with the same name can be reused
+        return getSha256(src) + "/" + src.getName();
+    }
+
+    @Nullable
+    private synchronized String get(@NotNull String storageKey, @NotNull String artifactKey) {
+        Map<String, String> artifacts = getIndex().get(storageKey);
+
+        return artifacts == null ? null : artifacts.get(artifactKey);
+    }
+
+    private synchronized void put(@NotNull String storageKey, @NotNull String artifactKey, @NotNull String uri) {
+        // Move the storage and the artifact to the most recently used end, then drop the least recently used ones
+        LinkedHashMap<String, LinkedHashMap<String, String>> storages = getIndex();
+        LinkedHashMap<String, String> artifacts = storages.remove(storageKey);
+        if (artifacts == null) {
+            artifacts = new LinkedHashMap<>();
+        }
+        storages.put(storageKey, artifacts);
+        trimEldest(storages, MAX_STORAGES);
+
+        artifacts.remove(artifactKey);
+        artifacts.put(artifactKey, uri);
+        trimEldest(artifacts, maxArtifactsPerStorage);
+
+        save();
+    }
+
+    private static void trimEldest(@NotNull LinkedHashMap<String, ?> map, int maxSize) {
+        Iterator<String> keys = map.keySet().iterator();
+        while (map.size() > maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private synchronized void remove(@NotNull String storageKey, @NotNull String artifactKey) {
+        Map<String, String> artifacts = getIndex().get(storageKey);
+
+        if (artifacts != null && artifacts.remove(artifactKey) != null) {
+            save();
+        }
+    }
+
+    @NotNull
+    private synchronized LinkedHashMap<String, LinkedHashMap<String, String>> getIndex() {
+        if (index == null) {
+            index = new LinkedHashMap<>();
+
+            if (indexFile != null && indexFile.isFile()) {
+                try {
+                    index.putAll(objectMapper.readValue(
+                            indexFile, new TypeReference<LinkedHashMap<String, LinkedHashMap<String, String>>>() {}));
+
+                    // The index file saved with larger bounds is trimmed too
+                    index.values().forEach(artifacts -> trimEldest(artifacts, maxArtifactsPerStorage));
+                    trimEldest(index, MAX_STORAGES);
+                } catch (IOException ex) {
+                    log().warn("Failed to load the deployed artifacts index " + indexFile + ": " + ex);
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private synchronized void save() {
+        if (indexFile == null) {
+            return;
+        }
+
+        try {
+            objectMapper.writeValue(indexFile, getIndex());
+        } catch (IOException ex) {
+            log().warn("Failed to save the deployed artifacts index " + indexFile + ": " + ex);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.HttpResponse;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import rx.Observable;
+import rx.Subscription;
+import rx.observables.ConnectableObservable;
+import rx.schedulers.Schedulers;
+
+import java.net.URI;
+import java.net.UnknownServiceException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * The Livy batch job status poller, which shares one status polling stream per Livy batch (connect URI + batch ID)
+ * and submission among all status consumers, such as job state, application ID, activity and job done checkers.
+ * The submission is a part of the key, since it holds the credentials to poll with.
+ *
+ * The polling interval starts from 1 second when the batch state changes, and doubles up to the delay seconds
+ * setting while the state keeps the same. The failed requests are retried with exponential back off, the stream
+ * fails after the maximum retry count of continuous failures is reached. The non-2xx responses are polled through
+ * with the same back off but without emitting any status, as the Livy service may be temporarily unavailable.
+ *
+ * The polling keeps going for one max polling interval after the last consumer unsubscribes, and a completed stream
+ * is kept for the same time, so the consumers checking the status one by one share the latest status got.
+ *
+ * The status is got from the cluster batches list by {@link LivyBatchesStatusAggregator} when there are other
+ * batches of the same Livy service watched.
+ */
+public class LivyBatchStatusPoller implements ILogger {
+    private static final long MIN_POLLING_INTERVAL_MILLISECONDS = 1000;
+
+    /**
+     * The maximum left shift bits of the error back off interval, 8 times of the maximum polling interval
+     */
+    private static final int MAX_BACKOFF_SHIFT = 3;
+
+    /**
+     * The active pollers, keyed by the Livy batch status URL and the submission
+     */
+    private static final ConcurrentMap<PollerKey, LivyBatchStatusPoller> activePollers = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final PollerKey key;
+
+    @NotNull
+    private final SparkBatchSubmission submission;
+
+    @NotNull
+    private final String connectUrl;
+
+    private final int batchId;
+
+    @NotNull
+    private final LivyBatchesStatusAggregator aggregator;
+
+    @NotNull
+    private final Predicate<String> isDone;
+
+    private final int retriesMax;
+
+    private final long maxIntervalMillis;
+
+    private final AtomicLong intervalMillis = new AtomicLong(MIN_POLLING_INTERVAL_MILLISECONDS);
+
+    private final AtomicInteger continuousFailures = new AtomicInteger(0);
+
+    private final AtomicInteger continuousUnavailable = new AtomicInteger(0);
+
+    @Nullable
+    private volatile String lastState;
+
+    private volatile boolean isCompleted = false;
+
+    @NotNull
+    private final ConnectableObservable<SparkSubmitResponse> replayedStatus;
+
+    @NotNull
+    private final Observable<SparkSubmitResponse> statusStream;
+
+    /**
+     * The consumers count, the polling connection and the linger timer, accessing with the poller instance lock
+     */
+    private int subscribersCount = 0;
+
+    @Nullable
+    private Subscription connection;
+
+    @Nullable
+    private Subscription lingerTimer;
+
+    private LivyBatchStatusPoller(@NotNull PollerKey key,
+                                  @NotNull SparkBatchSubmission submission,
+                                  @NotNull String connectUrl,
+                                  int batchId,
+                                  int retriesMax,
+                                  int delaySeconds,
+                                  @NotNull Predicate<String> isDone) {
+        this.key = key;
+        this.submission = submission;
+        this.connectUrl = connectUrl;
+        this.batchId = batchId;
+        this.aggregator = submission.getBatchesStatusAggregator(connectUrl);
+        this.isDone = isDone;
+        this.retriesMax = Math.max(1, retriesMax);
+        this.maxIntervalMillis = Math.max(MIN_POLLING_INTERVAL_MILLISECONDS, TimeUnit.SECONDS.toMillis(delaySeconds));
+        this.replayedStatus = Observable.fromCallable(this::fetchStatus)
+                .subscribeOn(Schedulers.io())
+                .retryWhen(errors -> errors.flatMap(err -> {
+                    int failures = continuousFailures.incrementAndGet();
+
+                    if (failures >= this.retriesMax) {
+                        return Observable.error(err);
+                    }
+
+                    log().debug("Got exception " + err.toString() + ", waiting for a while to try", err);
+
+                    return Observable.timer(getBackoffMillis(maxIntervalMillis, failures), TimeUnit.MILLISECONDS);
+                }))
+                .repeatWhen(completed -> completed.flatMap(ignored ->
+                        Observable.timer(intervalMillis.get(), TimeUnit.MILLISECONDS)))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .doOnNext(this::onStatusGot)
+                .takeUntil(status -> status.getState() != null && this.isDone.test(status.getState()))
+                .doOnSubscribe(() -> aggregator.watch(batchId))
+                .doOnCompleted(this::onCompleted)
+                .doOnError(ignored -> activePollers.remove(key, this))
+                .doOnUnsubscribe(this::onDisconnected)
+                .replay(1);
+        this.statusStream = Observable.defer(() -> {
+            acquire();
+
+            return replayedStatus.doOnUnsubscribe(this::releaseSubscriber);
+        });
+    }
+
+    /**
+     * Get the shared status stream of a Livy batch. The stream emits the latest got status to new subscribers,
+     * polls the status while there are any subscribers, and completes after the batch is done.
+     *
+     * @param submission the submission for RestAPI transaction
+     * @param connectUri the Livy batches connection URI, such as: http://livy:8998/batches
+     * @param batchId the Livy batch ID
+     * @param retriesMax the maximum continuous failures count
+     * @param delaySeconds the maximum polling interval in seconds
+     * @param isDone the job done checker of the Livy batch state
+     * @return the hot status Observable
+     */
+    @NotNull
+    public static Observable<SparkSubmitResponse> getStatusStream(@NotNull SparkBatchSubmission submission,
+                                                                  @NotNull URI connectUri,
+                                                                  int batchId,
+                                                                  int retriesMax,
+                                                                  int delaySeconds,
+                                                                  @NotNull Predicate<String> isDone) {
+        String connectUrl = StringUtils.stripEnd(connectUri.toString(), "/");
+        PollerKey key = new PollerKey(connectUrl + "/" + batchId, submission);
+
+        return activePollers
+                .computeIfAbsent(key, k -> new LivyBatchStatusPoller(
+                        k, submission, connectUrl, batchId, retriesMax, delaySeconds, isDone))
+                .statusStream;
+    }
+
+    @NotNull
+    private Optional<SparkSubmitResponse> fetchStatus() throws Exception {
+        // Share the cluster batches list with other watched batches, if it's available
+        SparkSubmitResponse aggregatedStatus = aggregator.getStatus(batchId);
+
+        if (aggregatedStatus != null) {
+            return Optional.of(aggregatedStatus);
+        }
+
+        HttpResponse httpResponse = submission.getBatchSparkJobStatus(connectUrl, batchId);
+
+        if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
+            return Optional.of(ObjectConvertUtils.convertJsonToObject(
+                    httpResponse.getMessage(), SparkSubmitResponse.class)
+                    .orElseThrow(() -> new UnknownServiceException(
+                            "Bad spark job response: " + httpResponse.getMessage())));
+        }
+
+        log().debug(String.format("Failed to get Spark batch job %d status. error code: %d, reason: %s.",
+                batchId, httpResponse.getCode(), httpResponse.getMessage()));
+
+        intervalMillis.set(getBackoffMillis(maxIntervalMillis, continuousUnavailable.incrementAndGet()));
+
+        return Optional.empty();
+    }
+
+    private void onStatusGot(@NotNull SparkSubmitResponse status) {
+        continuousFailures.set(0);
+        continuousUnavailable.set(0);
+
+        if (StringUtils.equals(lastState, status.getState())) {
+            intervalMillis.updateAndGet(interval -> Math.min(interval * 2, maxIntervalMillis));
+        } else {
+            lastState = status.getState();
+            intervalMillis.set(MIN_POLLING_INTERVAL_MILLISECONDS);
+        }
+    }
+
+    private static long getBackoffMillis(long maxIntervalMillis, int failures) {
+        return maxIntervalMillis << Math.min(failures - 1, MAX_BACKOFF_SHIFT);
+    }
+
+    /**
+     * Get the time to wait for the first status, which covers the maximum retries count of requests with back off,
+     * and a half of the polling interval more for the last request
+     *
+     * @param retriesMax the maximum continuous failures count
+     * @param delaySeconds the maximum polling interval in seconds
+     * @return the time to wait in milliseconds
+     */
+    public static long getMaxWaitMillis(int retriesMax, int delaySeconds) {
+        long maxIntervalMillis = Math.max(MIN_POLLING_INTERVAL_MILLISECONDS, TimeUnit.SECONDS.toMillis(delaySeconds));
+        long waitMillis = maxIntervalMillis / 2;
+
+        for (int failures = 1; failures < Math.max(1, retriesMax); failures++) {
+            waitMillis += getBackoffMillis(maxIntervalMillis, failures);
+        }
+
+        return waitMillis;
+    }
+
+    private synchronized void acquire() {
+        subscribersCount++;
+
+        if (lingerTimer != null) {
+            lingerTimer.unsubscribe();
+            lingerTimer = null;
+        }
+
+        if (connection == null) {
+            connection = replayedStatus.connect();
+        }
+    }
+
+    private synchronized void releaseSubscriber() {
+        if (--subscribersCount > 0 || connection == null || isCompleted) {
+            return;
+        }
+
+        lingerTimer = Observable.timer(maxIntervalMillis, TimeUnit.MILLISECONDS)
+                .subscribe(ignored -> disconnectIfIdle());
+    }
+
+    private synchronized void disconnectIfIdle() {
+        lingerTimer = null;
+
+        if (subscribersCount > 0 || connection == null) {
+            return;
+        }
+
+        connection.unsubscribe();
+        connection = null;
+    }
+
+    private void onCompleted() {
+        isCompleted = true;
+
+        // Keep the done status for the following consumers for a while
+        Observable.timer(maxIntervalMillis, TimeUnit.MILLISECONDS)
+                .subscribe(ignored -> activePollers.remove(key, this));
+    }
+
+    private void onDisconnected() {
+        aggregator.unwatch(batchId);
+
+        if (!isCompleted) {
+            activePollers.remove(key, this);
+        }
+    }
+
+    /**
+     * The poller key, the submission is compared by identity since it holds the credentials
+     */
+    private static final class PollerKey {
+        @NotNull
+        private final String statusUrl;
+
+        @NotNull
+        private final SparkBatchSubmission submission;
+
+        private PollerKey(@NotNull String statusUrl, @NotNull SparkBatchSubmission submission) {
+            this.statusUrl = statusUrl;
+            this.submission = submission;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof PollerKey)) {
+                return false;
+            }
+
+            PollerKey other = (PollerKey) obj;
+
+            return statusUrl.equals(other.statusUrl) && submission == other.submission;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * statusUrl.hashCode() + System.identityHashCode(submission);
+        }
+    }
+}
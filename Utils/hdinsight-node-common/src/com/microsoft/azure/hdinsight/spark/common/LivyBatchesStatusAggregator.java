@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.HttpResponse;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cluster scoped Livy batches status aggregator. When several batches of one Livy service are watched,
+ * their status are got by the paginated GET /batches?from=&size= list API once per polling tick, and fanned
+ * out to every watcher, instead of each watcher polling its own /batches/{id}.
+ *
+ * The per batch polling is the fallback when the list API is unavailable, or the batch isn't in the list.
+ * The unavailable list API is checked again after a while, since the Livy service may be upgraded or recovered.
+ *
+ * The aggregators are shared per Livy service and submission, since the submission holds the credentials,
+ * and evicted after being idle for a while.
+ */
+public class LivyBatchesStatusAggregator implements ILogger {
+    /**
+     * The max age of the batches list to share with all watchers, aligned with the min Livy batch polling interval
+     */
+    private static final long SNAPSHOT_MAX_AGE_MILLISECONDS = 1000;
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Per batch polling is cheaper than the list API for fewer watchers
+     */
+    private static final int MIN_WATCHERS_TO_AGGREGATE = 2;
+
+    private static final long LIST_API_RECHECK_MINUTES = 5;
+
+    private static final long IDLE_EXPIRATION_MINUTES = 10;
+
+    /**
+     * The aggregators keyed by the Livy service URL and the submission, watchers touch the entries to keep them
+     */
+    private static final Cache<AggregatorKey, LivyBatchesStatusAggregator> aggregators = CacheBuilder.newBuilder()
+            .expireAfterAccess(IDLE_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    @NotNull
+    private final SparkBatchSubmission submission;
+
+    @NotNull
+    private final String connectUrl;
+
+    @NotNull
+    private final Ticker ticker;
+
+    private final Set<Integer> watchedBatchIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The ticker read when the list API was found unavailable, or null for available
+     */
+    @Nullable
+    private volatile Long listApiUnavailableNanos;
+
+    /**
+     * The batches status got in the latest tick, accessing with the aggregator instance lock
+     */
+    @NotNull
+    private Map<Integer, SparkSubmitResponse> snapshot = Collections.emptyMap();
+
+    @Nullable
+    private Long snapshotNanos;
+
+    LivyBatchesStatusAggregator(@NotNull SparkBatchSubmission submission,
+                                @NotNull String connectUrl,
+                                @NotNull Ticker ticker) {
+        this.submission = submission;
+        this.connectUrl = connectUrl;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Get the aggregator of a Livy service
+     *
+     * @param submission the submission for RestAPI transaction
+     * @param connectUrl the Livy batches connection URL, such as: http://livy:8998/batches
+     * @return the aggregator shared by all batches of the Livy service with the same submission
+     */
+    @NotNull
+    static LivyBatchesStatusAggregator getAggregator(@NotNull SparkBatchSubmission submission,
+                                                     @NotNull String connectUrl) {
+        String normalizedUrl = StringUtils.stripEnd(connectUrl, "/");
+
+        try {
+            return aggregators.get(new AggregatorKey(normalizedUrl, submission),
+                    () -> new LivyBatchesStatusAggregator(submission, normalizedUrl, Ticker.systemTicker()));
+        } catch (ExecutionException ex) {
+            // Won't happen, since the aggregator constructor throws nothing
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    public void watch(int batchId) {
+        watchedBatchIds.add(batchId);
+        touch();
+    }
+
+    public void unwatch(int batchId) {
+        watchedBatchIds.remove(batchId);
+    }
+
+    public boolean isAggregating() {
+        return isListApiAvailable() && watchedBatchIds.size() >= MIN_WATCHERS_TO_AGGREGATE;
+    }
+
+    private boolean isListApiAvailable() {
+        Long unavailableNanos = listApiUnavailableNanos;
+
+        return unavailableNanos == null
+                || ticker.read() - unavailableNanos >= TimeUnit.MINUTES.toNanos(LIST_API_RECHECK_MINUTES);
+    }
+
+    /**
+     * Keep the aggregator in the shared cache while it's used
+     */
+    private void touch() {
+        aggregators.getIfPresent(new AggregatorKey(connectUrl, submission));
+    }
+
+    /**
+     * Get the batch status from the batches list got in the current tick, the list is fetched once per tick
+     * no matter how many watchers are asking
+     *
+     * @param batchId the Livy batch ID
+     * @return the batch status, or null for the batch should be polled by itself
+     */
+    @Nullable
+    public SparkSubmitResponse getStatus(int batchId) {
+        touch();
+
+        if (!isAggregating()) {
+            return null;
+        }
+
+        return getSnapshot().get(batchId);
+    }
+
+    @NotNull
+    private synchronized Map<Integer, SparkSubmitResponse> getSnapshot() {
+        if (snapshotNanos != null
+                && ticker.read() - snapshotNanos < TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_MAX_AGE_MILLISECONDS)) {
+            return snapshot;
+        }
+
+        try {
+            snapshot = fetchWatchedBatches();
+        } catch (IOException ex) {
+            log().debug("Got exception " + ex.toString() + " when listing Livy batches, fall back to per batch polling", ex);
+            snapshot = Collections.emptyMap();
+        }
+
+        snapshotNanos = ticker.read();
+
+        return snapshot;
+    }
+
+    @NotNull
+    private Map<Integer, SparkSubmitResponse> fetchWatchedBatches() throws IOException {
+        Set<Integer> pending = new HashSet<>(watchedBatchIds);
+        Map<Integer, SparkSubmitResponse> batches = new HashMap<>();
+        int from = 0;
+
+        while (!pending.isEmpty()) {
+            HttpResponse httpResponse = submission.getBatchesSparkJobs(connectUrl, from, PAGE_SIZE);
+
+            if (httpResponse.getCode() == HttpStatus.SC_NOT_FOUND
+                    || httpResponse.getCode() == HttpStatus.SC_METHOD_NOT_ALLOWED
+                    || httpResponse.getCode() == HttpStatus.SC_NOT_IMPLEMENTED) {
+                log().info("Livy batches list API " + connectUrl + " is unavailable, fall back to per batch polling");
+                listApiUnavailableNanos = ticker.read();
+
+                break;
+            }
+
+            listApiUnavailableNanos = null;
+
+            if (httpResponse.getCode() < 200 || httpResponse.getCode() >= 300) {
+                throw new IOException(String.format("Failed to list Livy batches. error code: %d, reason: %s.",
+                        httpResponse.getCode(), httpResponse.getMessage()));
+            }
+
+            SparkBatchesResponse page = ObjectConvertUtils.convertJsonToObject(
+                    httpResponse.getMessage(), SparkBatchesResponse.class)
+                    .orElseThrow(() -> new IOException("Bad Livy batches response: " + httpResponse.getMessage()));
+
+            for (SparkSubmitResponse batch : page.getSessions()) {
+                if (pending.remove(batch.getId())) {
+                    batches.put(batch.getId(), batch);
+                }
+            }
+
+            from += page.getSessions().size();
+
+            if (page.getSessions().isEmpty() || from >= page.getTotal()) {
+                break;
+            }
+        }
+
+        return batches;
+    }
+
+    /**
+     * The aggregator key, the submission is compared by identity since it holds the credentials
+     */
+    private static final class AggregatorKey {
+        @NotNull
+        private final String connectUrl;
+
+        @NotNull
+        private final SparkBatchSubmission submission;
+
+        private AggregatorKey(@NotNull String connectUrl, @NotNull SparkBatchSubmission submission) {
+            this.connectUrl = connectUrl;
+            this.submission = submission;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof AggregatorKey)) {
+                return false;
+            }
+
+            AggregatorKey other = (AggregatorKey) obj;
+
+            return connectUrl.equals(other.connectUrl) && submission == other.submission;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * connectUrl.hashCode() + System.identityHashCode(submission);
+        }
+    }
+}
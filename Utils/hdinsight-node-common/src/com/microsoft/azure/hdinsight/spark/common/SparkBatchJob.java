@@ -45,7 +45,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import rx.Observable;
 import rx.Observer;
-import rx.Subscriber;
 import rx.subjects.PublishSubject;
 
 import java.io.File;
@@ -55,6 +54,7 @@ import java.net.UnknownServiceException;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -497,6 +497,46 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
         return driverMatcher.matches() ? driverMatcher.group("host") : null;
     }
 
+    /**
+     * Get the shared Livy batch status stream, all the job status consumers subscribe to it for sharing one poller
+     *
+     * @param batchBaseUri the connection URI
+     * @param batchId the Livy batch job ID
+     * @return the hot Livy batch status Observable
+     */
+    @NotNull
+    protected Observable<SparkSubmitResponse> getStatusStream(@NotNull URI batchBaseUri, int batchId) {
+        return Observable.defer(() -> LivyBatchStatusPoller.getStatusStream(
+                getSubmission(), batchBaseUri, batchId, getRetriesMax(), getDelaySeconds(), this::isDone));
+    }
+
+    /**
+     * Wait for the first item of a status Observable, for the time of the maximum retries at most,
+     * since the non-2xx responses are polled through by the status stream
+     *
+     * @param status the status Observable to wait
+     * @return the first item got, or null for empty or timeout
+     * @throws IOException exceptions in transaction
+     */
+    @Nullable
+    private <T> T awaitFirstStatus(@NotNull Observable<T> status) throws IOException {
+        long waitMillis = LivyBatchStatusPoller.getMaxWaitMillis(getRetriesMax(), getDelaySeconds());
+
+        try {
+            return status.timeout(waitMillis, TimeUnit.MILLISECONDS).toBlocking().firstOrDefault(null);
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            if (ex.getCause() instanceof TimeoutException) {
+                return null;
+            }
+
+            throw ex;
+        }
+    }
+
     /**
      * Get Spark Job Yarn application state with retries
      *
@@ -509,34 +549,14 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted.");
         }
 
-        int retries = 0;
-
-        do {
-            try {
-                HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        this.getConnectUri().toString(), batchId);
-
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    return jobResp.getState();
-                }
-            } catch (IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
+        String state = awaitFirstStatus(getStatusStream(getConnectUri(), batchId)
+                .map(SparkSubmitResponse::getState));
 
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+        if (state == null) {
+            throw new UnknownServiceException("Failed to get job state: Unknown service error");
+        }
 
-        throw new UnknownServiceException("Failed to get job state: Unknown service error after " + --retries + " retries");
+        return state;
     }
 
     /**
@@ -548,36 +568,17 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
      * @throws IOException exceptions in transaction
      */
     String getSparkJobApplicationId(URI batchBaseUri, int batchId) throws IOException {
-        int retries = 0;
-
-        do {
-            try {
-                HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        batchBaseUri.toString(), batchId);
-
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    if (jobResp.getAppId() != null) {
-                        return jobResp.getAppId();
-                    }
-                }
-            } catch (IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
-
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+        String applicationId = awaitFirstStatus(getStatusStream(batchBaseUri, batchId)
+                .take(Math.max(1, getRetriesMax()))
+                .map(SparkSubmitResponse::getAppId)
+                .filter(Objects::nonNull));
+
+        if (applicationId == null) {
+            throw new UnknownServiceException("Failed to get job Application ID: Unknown service error after " +
+                    (Math.max(1, getRetriesMax()) - 1) + " retries");
+        }
 
-        throw new UnknownServiceException("Failed to get job Application ID: Unknown service error after " + --retries + " retries");
+        return applicationId;
     }
 
     /**
@@ -638,28 +639,10 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted."));
         }
 
-        return Observable.create(ob -> {
-            try {
-                HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        getConnectUri().toString(), getBatchId());
-
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    if (jobResp.getAppId() != null) {
-                        ob.onNext(jobResp.getAppId());
-                    }
-                }
-
-                ob.onCompleted();
-            } catch (IOException ex) {
-                log().warn("Got exception " + ex.toString());
-                ob.onError(ex);
-            }
-        });
+        return getStatusStream(getConnectUri(), getBatchId())
+                .first()
+                .map(SparkSubmitResponse::getAppId)
+                .filter(Objects::nonNull);
     }
 
     /**
@@ -720,37 +703,19 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
     @Nullable
     @Deprecated
     public String getSparkJobDriverLogUrl(URI batchBaseUri, int batchId) throws IOException {
-        int retries = 0;
-
-        do {
-            HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                    batchBaseUri.toString(), batchId);
-
-            try {
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    if (jobResp.getAppId() != null && jobResp.getAppInfo().get("driverLogUrl") != null) {
-                        return jobResp.getAppInfo().get("driverLogUrl").toString();
-                    }
-                }
-            } catch (IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
-
-
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+        String driverLogUrl = awaitFirstStatus(getStatusStream(batchBaseUri, batchId)
+                .take(Math.max(1, getRetriesMax()))
+                .filter(jobResp -> jobResp.getAppId() != null
+                        && jobResp.getAppInfo() != null
+                        && jobResp.getAppInfo().get("driverLogUrl") != null)
+                .map(jobResp -> jobResp.getAppInfo().get("driverLogUrl").toString()));
+
+        if (driverLogUrl == null) {
+            throw new UnknownServiceException("Failed to get job driver log URL: Unknown service error after " +
+                    (Math.max(1, getRetriesMax()) - 1) + " retries");
+        }
 
-        throw new UnknownServiceException("Failed to get job driver log URL: Unknown service error after " + --retries + " retries");
+        return driverLogUrl;
     }
 
     /**
@@ -869,34 +834,14 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted.");
         }
 
-        int retries = 0;
-
-        do {
-            try {
-                HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        this.getConnectUri().toString(), batchId);
+        Boolean isAlive = awaitFirstStatus(getStatusStream(getConnectUri(), batchId)
+                .map(SparkSubmitResponse::isAlive));
 
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    return jobResp.isAlive();
-                }
-            } catch (IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
-
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+        if (isAlive == null) {
+            throw new UnknownServiceException("Failed to detect job activity: Unknown service error");
+        }
 
-        throw new UnknownServiceException("Failed to detect job activity: Unknown service error after " + --retries + " retries");
+        return isAlive;
     }
 
     protected Observable<SimpleImmutableEntry<String, String>> getJobDoneObservable() {
@@ -905,43 +850,12 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted."));
         }
 
-        return Observable.create((Subscriber<? super SimpleImmutableEntry<String, String>> ob) -> {
-            try {
-                boolean isJobActive;
-                SparkBatchJobState state = SparkBatchJobState.NOT_STARTED;
-                String diagnostics = "";
-
-                do {
-                    HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                            this.getConnectUri().toString(), batchId);
-
-                    if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                        SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                                httpResponse.getMessage(), SparkSubmitResponse.class)
-                                .orElseThrow(() -> new UnknownServiceException(
-                                        "Bad spark job response: " + httpResponse.getMessage()));
-
-                        state = SparkBatchJobState.valueOf(jobResp.getState().toUpperCase());
-                        diagnostics = String.join("\n", jobResp.getLog());
-
-                        isJobActive = !isDone(state.toString());
-                    } else {
-                        isJobActive = false;
-                    }
-
-
-                    // Retry interval
-                    sleep(1000);
-                } while (isJobActive);
-
-                ob.onNext(new SimpleImmutableEntry<>(state.toString(), diagnostics));
-                ob.onCompleted();
-            } catch (IOException ex) {
-                ob.onError(ex);
-            } catch (InterruptedException ignored) {
-                ob.onCompleted();
-            }
-        });
+        return getStatusStream(getConnectUri(), getBatchId())
+                .filter(jobResp -> isDone(jobResp.getState()))
+                .take(1)
+                .map(jobResp -> new SimpleImmutableEntry<>(
+                        SparkBatchJobState.valueOf(jobResp.getState().toUpperCase()).toString(),
+                        String.join("\n", jobResp.getLog())));
     }
 
     protected Observable<String> getJobLogAggregationDoneObservable() {
@@ -1156,33 +1070,24 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted."));
         }
 
-        return Observable.fromCallable(() -> {
-            HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                    this.getConnectUri().toString(), getBatchId());
-
-            if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                return ObjectConvertUtils.convertJsonToObject(
-                        httpResponse.getMessage(), SparkSubmitResponse.class)
-                        .orElseThrow(() -> new UnknownServiceException(
-                                "Bad spark job response: " + httpResponse.getMessage()));
-            }
-
-            throw new SparkJobException("Can't get cluster " + getSubmissionParameter().getClusterName() + " status.");
-        });
+        return getStatusStream(getConnectUri(), getBatchId()).first();
     }
 
     @NotNull
     @Override
     public Observable<String> awaitStarted() {
-        return getStatus()
+        if (getConnectUri() == null) {
+            return Observable.error(new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
+                    "please configure Spark cluster which the Spark job will be submitted."));
+        }
+
+        return getStatusStream(getConnectUri(), getBatchId())
                 .map(status -> new SimpleImmutableEntry<>(status.getState(), String.join("\n", status.getLog())))
-                .retry(getRetriesMax())
-                .repeatWhen(ob -> ob
-                        .doOnNext(ignored -> {
-                            getCtrlSubject().onNext(new SimpleImmutableEntry<>(Info, "The Spark job is starting..."));
-                        })
-                        .delay(getDelaySeconds(), TimeUnit.SECONDS)
-                )
+                .doOnNext(stateLogPair -> {
+                    if (!isDone(stateLogPair.getKey()) && !isRunning(stateLogPair.getKey())) {
+                        getCtrlSubject().onNext(new SimpleImmutableEntry<>(Info, "The Spark job is starting..."));
+                    }
+                })
                 .takeUntil(stateLogPair -> isDone(stateLogPair.getKey()) || isRunning(stateLogPair.getKey()))
                 .filter(stateLogPair -> isDone(stateLogPair.getKey()) || isRunning(stateLogPair.getKey()))
                 .flatMap(stateLogPair -> {
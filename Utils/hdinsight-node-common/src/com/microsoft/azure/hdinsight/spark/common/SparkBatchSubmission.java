@@ -318,6 +318,28 @@ public class SparkBatchSubmission implements ILogger {
         return getHttpResponseViaGet(connectUrl);
     }
 
+    /**
+     * get a page of batches spark jobs
+     * @param connectUrl : eg http://localhost:8998/batches
+     * @param from : the start index of batches
+     * @param size : the max count of batches in the page
+     * @return response result
+     * @throws IOException
+     */
+    public HttpResponse getBatchesSparkJobs(String connectUrl, int from, int size) throws IOException {
+        return getHttpResponseViaGet(String.format("%s?from=%d&size=%d", connectUrl, from, size));
+    }
+
+    /**
+     * get the cluster scoped batches status aggregator, which fetches all watched batches status by pages
+     * @param connectUrl : eg http://localhost:8998/batches
+     * @return the aggregator shared by all batches of the Livy service with this submission
+     */
+    @NotNull
+    public LivyBatchesStatusAggregator getBatchesStatusAggregator(@NotNull String connectUrl) {
+        return LivyBatchesStatusAggregator.getAggregator(this, connectUrl);
+    }
+
     /**
      * create batch spark job
      * @param connectUrl : eg http://localhost:8998/batches
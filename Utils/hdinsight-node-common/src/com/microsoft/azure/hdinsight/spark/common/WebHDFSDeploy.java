@@ -30,26 +30,25 @@ import com.microsoft.azure.hdinsight.common.MessageInfoType;
 import com.microsoft.azure.hdinsight.common.logger.ILogger;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azure.hdinsight.sdk.storage.webhdfs.WebHdfsChunkedUploader;
 import com.microsoft.azure.hdinsight.sdk.storage.webhdfs.WebHdfsParamsBuilder;
 import com.microsoft.azure.hdinsight.spark.jobs.JobUtils;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.entity.BufferedHttpEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.util.EntityUtils;
 import rx.Observable;
 import rx.Observer;
 import rx.exceptions.Exceptions;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownServiceException;
@@ -67,7 +66,13 @@ public class WebHDFSDeploy implements Deployable, ILogger {
     private List<NameValuePair> createDirReqParams;
 
     @NotNull
-    private List<NameValuePair> uploadReqParams;
+    private List<NameValuePair> getFileStatusReqParams = new WebHdfsParamsBuilder("GETFILESTATUS").build();
+
+    @NotNull
+    private WebHdfsChunkedUploader uploader;
+
+    @Nullable
+    private CallableSingleArg<Void, Long> uploadInProcessCallback;
 
     @NotNull
     public String destinationRootPath;
@@ -75,17 +80,40 @@ public class WebHDFSDeploy implements Deployable, ILogger {
     public WebHDFSDeploy(@NotNull IClusterDetail cluster, @NotNull HttpObservable http, @NotNull String destinationRootPath) {
         this.cluster = cluster;
         this.destinationRootPath = destinationRootPath;
-        this.uploadReqParams = new WebHdfsParamsBuilder("CREATE")
-                .setOverwrite("true")
-                .setPermission("777")
-                .build();
-
         this.createDirReqParams = new WebHdfsParamsBuilder("MKDIRS")
                 .setPermission("777")
                 .build();
 
         this.http = http;
         http.setDefaultRequestConfig(RequestConfig.custom().setExpectContinueEnabled(true).build());
+
+        this.uploader = new WebHdfsChunkedUploader(
+                http, WebHdfsChunkedUploader.DEFAULT_CHUNK_SIZE, WebHdfsChunkedUploader.DEFAULT_RETRIES_MAX, "777");
+    }
+
+    /**
+     * Set the max bytes size of the artifact chunk uploaded in one request, the memory used by uploading is
+     * bounded by the chunk size no matter how large the artifact is
+     *
+     * @param chunkSize the chunk bytes size
+     * @return the current instance for chain calling
+     */
+    public WebHDFSDeploy setChunkSize(int chunkSize) {
+        this.uploader = new WebHdfsChunkedUploader(http, chunkSize, WebHdfsChunkedUploader.DEFAULT_RETRIES_MAX, "777");
+
+        return this;
+    }
+
+    /**
+     * Set the callback with the uploaded bytes count after each chunk is uploaded
+     *
+     * @param uploadInProcessCallback the upload progress callback
+     * @return the current instance for chain calling
+     */
+    public WebHDFSDeploy setUploadInProcessCallback(@Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) {
+        this.uploadInProcessCallback = uploadInProcessCallback;
+
+        return this;
     }
 
     private URI getUploadDir() {
@@ -96,13 +124,12 @@ public class WebHDFSDeploy implements Deployable, ILogger {
     @Override
     public Observable<String> deploy(File src,
                                      Observer<AbstractMap.SimpleImmutableEntry<MessageInfoType, String>> logSubject) {
-        //three steps to upload via webhdfs
+        //two steps to upload via webhdfs
         // 1.put request to create new dir
-        // 2.put request to get 307 redirect uri from response
-        // 3.put redirect request with file content as setEntity
+        // 2.create the file with the first chunk and append the rest chunks, refer to WebHdfsChunkedUploader
         URI dest = getUploadDir();
         HttpPut req = new HttpPut(dest.toString());
-        return http.request(req, null, this.createDirReqParams, null)
+        Observable<String> upload = http.request(req, null, this.createDirReqParams, null)
                 .doOnNext(
                         resp -> {
                             if (resp.getStatusLine().getStatusCode() != 200) {
@@ -110,28 +137,9 @@ public class WebHDFSDeploy implements Deployable, ILogger {
                             }
                         }
                 )
-                .map(ignored -> new HttpPut(dest.resolve(src.getName()).toString()))
-                .flatMap(put -> http.request(put, null, this.uploadReqParams, null))
-                .map(resp -> resp.getFirstHeader("Location").getValue())
-                .doOnNext(redirectedUri -> {
-                    if (StringUtils.isBlank(redirectedUri)) {
-                        Exceptions.propagate(new UnknownServiceException("Can not get valid redirect uri using webHDFS storage type"));
-                    }
-                })
-                .map(redirectedUri -> new HttpPut(redirectedUri))
-                .flatMap(put -> {
-                    try {
-                        InputStreamEntity reqEntity = new InputStreamEntity(
-                                new FileInputStream(src),
-                                -1,
-                                ContentType.APPLICATION_OCTET_STREAM);
-                        reqEntity.setChunked(true);
-
-                        return http.request(put, new BufferedHttpEntity(reqEntity), URLEncodedUtils.parse(put.getURI(), "UTF-8"), null);
-                    } catch (IOException ex) {
-                        throw new RuntimeException(new IllegalArgumentException("Can not get local artifact when uploading" + ex.toString()));
-                    }
-                })
+                .flatMap(ignored -> uploader.upload(dest.resolve(src.getName()).toString(), src, uploadInProcessCallback))
+                .doOnNext(uploadedBytes -> log().info(String.format(
+                        "Uploaded %d bytes to %s in chunks of %d bytes", uploadedBytes, dest, uploader.getChunkSize())))
                 .map(ignored -> {
                     try {
                         return getArtifactUploadedPath(dest.resolve(src.getName()).toString());
@@ -139,6 +147,27 @@ public class WebHDFSDeploy implements Deployable, ILogger {
                         throw new RuntimeException(new IllegalArgumentException("Can not get valid artifact upload path" + ex.toString()));
                     }
                 });
+
+        return DeployedArtifactCache.getInstance().deploy(destinationRootPath, src, this::isFileExisted, upload, logSubject);
+    }
+
+    /**
+     * Check whether the uploaded artifact still exists by WebHDFS GETFILESTATUS operation
+     *
+     * @param uploadedPath the artifact uploaded path with OPEN operation
+     * @return the Observable of whether the artifact exists
+     */
+    private Observable<Boolean> isFileExisted(String uploadedPath) {
+        String filePath = StringUtils.substringBefore(uploadedPath, "?");
+
+        return http.request(new HttpGet(filePath), null, this.getFileStatusReqParams, null)
+                .map(resp -> {
+                    try {
+                        return resp.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+                    } finally {
+                        EntityUtils.consumeQuietly(resp.getEntity());
+                    }
+                });
     }
 
     @Nullable
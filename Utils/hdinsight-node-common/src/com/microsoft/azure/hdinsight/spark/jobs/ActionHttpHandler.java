@@ -51,6 +51,10 @@ public class ActionHttpHandler implements HttpHandler {
                 JobUtils.setResponse(httpExchange, "open browser error", 500);
                 DefaultLoader.getUIHelper().showError(e.getMessage(), "open browser error");
             }
+        } else if (path.contains("refresh")) {
+            // Drop the cached data of the application to have the job view reloaded with the latest one
+            JobViewCacheManager.invalidateApplication(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
+            JobUtils.setResponse(httpExchange, "refresh successfully");
         }
     }
 }
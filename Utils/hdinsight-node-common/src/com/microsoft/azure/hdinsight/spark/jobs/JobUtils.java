@@ -21,11 +21,7 @@
  */
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.Cache;
-import com.gargoylesoftware.htmlunit.FailingHttpStatusCodeException;
-import com.gargoylesoftware.htmlunit.WebClient;
-import com.gargoylesoftware.htmlunit.html.*;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -50,7 +46,9 @@ import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azure.hdinsight.sdk.storage.HDStorageAccount;
 import com.microsoft.azure.hdinsight.sdk.storage.IHDIStorageAccount;
 import com.microsoft.azure.hdinsight.sdk.storage.StorageAccountType;
+import com.microsoft.azure.hdinsight.sdk.storage.webhdfs.WebHdfsChunkedUploader;
 import com.microsoft.azure.hdinsight.sdk.storage.webhdfs.WebHdfsParamsBuilder;
+import com.microsoft.azure.hdinsight.spark.common.DeployedArtifactCache;
 import com.microsoft.azure.hdinsight.spark.common.SparkBatchEspMfaSubmission;
 import com.microsoft.azure.hdinsight.spark.common.SparkBatchSubmission;
 import com.microsoft.azure.hdinsight.spark.jobs.livy.LivyBatchesInformation;
@@ -73,25 +71,15 @@ import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.BufferedHttpEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.Observer;
 import rx.Single;
-import rx.Subscription;
-import rx.schedulers.Schedulers;
 
 import java.awt.*;
 import java.io.*;
@@ -104,12 +92,8 @@ import java.util.*;
 import java.util.List;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.microsoft.azure.hdinsight.common.MessageInfoType.Info;
-import static org.apache.http.HttpHeaders.AUTHORIZATION;
 import static rx.exceptions.Exceptions.propagate;
 
 public class JobUtils {
@@ -251,90 +235,22 @@ public class JobUtils {
         return new ApplicationMasterLogs(standout, standerr, directoryInfo);
     }
 
+    /**
+     * Get the Yarn container log from YarnUI or Yarn History server container log page
+     *
+     * @param authCode the authCode in request's Authorization header
+     * @param baseUrl the container log url
+     * @param type the log type
+     * @param start the log start offset
+     * @param size the log size to get, the value 0 or negative for to the end
+     * @return the log got, or empty string for any failures
+     */
     public static String getInformationFromYarnLogDom(@Nullable String authCode,
                                                       @NotNull String baseUrl,
                                                       @NotNull String type,
                                                       long start,
                                                       int size) {
-        final WebClient HTTP_WEB_CLIENT = new WebClient(BrowserVersion.CHROME);
-        HTTP_WEB_CLIENT.getOptions().setUseInsecureSSL(HttpObservable.isSSLCertificateValidationDisabled());
-        HTTP_WEB_CLIENT.setCache(globalCache);
-
-        if (authCode != null) {
-            HTTP_WEB_CLIENT.addRequestHeader(AUTHORIZATION, authCode);
-        }
-
-        return getInformationFromYarnLogDom(HTTP_WEB_CLIENT, baseUrl, type, start, size);
-    }
-
-    private static String getInformationFromYarnLogDom(@NotNull WebClient client,
-                                                      @NotNull String baseUrl,
-                                                      @NotNull String type,
-                                                      long start,
-                                                      int size) {
-        URI url = null;
-
-        try {
-            url = new URI(baseUrl + "/").resolve(
-                    String.format("%s?start=%d", type, start) +
-                            (size <= 0 ? "" : String.format("&&end=%d", start + size)));
-            HtmlPage htmlPage = client.getPage(url.toString());
-
-            Iterator<DomElement> iterator = htmlPage.getElementById("navcell").getNextElementSibling().getChildElements().iterator();
-
-            HashMap<String, String> logTypeMap = new HashMap<>();
-            final AtomicReference<String> logType = new AtomicReference<>();
-            String logs = "";
-
-            while (iterator.hasNext()) {
-                DomElement node = iterator.next();
-
-                if (node instanceof HtmlParagraph) {
-                    // In history server, need to read log type paragraph in page
-                    final Pattern logTypePattern = Pattern.compile("Log Type:\\s+(\\S+)");
-
-                    Optional.ofNullable(node.getFirstChild())
-                            .map(DomNode::getTextContent)
-                            .map(String::trim)
-                            .map(logTypePattern::matcher)
-                            .filter(Matcher::matches)
-                            .map(matcher -> matcher.group(1))
-                            .ifPresent(logType::set);
-                } else if (node instanceof HtmlPreformattedText) {
-                    // In running, no log type paragraph in page
-                    logs = Optional.ofNullable(node.getFirstChild())
-                                .map(DomNode::getTextContent)
-                                .orElse("");
-
-                    if (logType.get() != null) {
-                        // Only get the first <pre>...</pre>
-                        logTypeMap.put(logType.get(), logs);
-
-                        logType.set(null);
-                    }
-                }
-            }
-
-            return logTypeMap.getOrDefault(type, logs);
-        } catch (FailingHttpStatusCodeException httpError) {
-            // If the URL is wrong, will get 200 response with content:
-            //      Unable to locate 'xxx' log for container
-            //  OR
-            //      Logs not available for <user>. Aggregation may not be complete, Check back later or try the nodemanager at...
-            //  OR
-            //      Cannot get container logs without ...
-            //
-            // if fetching Yarn log hits the gap between the job running and stop, will get the status 403
-            // the log is moving to job history server, just wait and retry.
-            if (httpError.getStatusCode() != HttpStatus.SC_FORBIDDEN) {
-                LOGGER.warn("The GET request to " + url + " responded error: " + httpError.getMessage());
-            }
-        } catch (URISyntaxException e) {
-            LOGGER.error("baseUrl has syntax error: " + baseUrl);
-        } catch (Exception e) {
-            LOGGER.warn("get Spark job log Error", e);
-        }
-        return "";
+        return YarnContainerLogReader.getInstance().getLog(authCode, baseUrl, type, start, size);
     }
 
     /**
@@ -352,71 +268,28 @@ public class JobUtils {
                                                              @NotNull final String containerLogUrl,
                                                              @NotNull final String type,
                                                              final int blockSize) {
-        int retryIntervalMs = 1000;
-
-        if (blockSize <= 0)
-            return Observable.empty();
-
-        return Observable.create((Observable.OnSubscribe<String>) ob -> {
-            long nextStart = 0;
-            String remainedLine = "";
-            String logs;
-            Thread currentThread = Thread.currentThread();
-
-            // Refer to the Observable.window() operation:
-            //    http://reactivex.io/documentation/operators/window.html
-            // The event from `stop` observable will stop the log fetch
-            Optional<Subscription> stopSubscriptionOptional = Optional.ofNullable(stop).map(stopOb ->
-                    stopOb.subscribe(any -> currentThread.interrupt()));
-
-            try {
-                while (!ob.isUnsubscribed()) {
-                    logs = JobUtils.getInformationFromYarnLogDom(
-                            authCode, containerLogUrl, type, nextStart, blockSize);
-                    int lastLineBreak = logs.lastIndexOf('\n');
-
-                    if (lastLineBreak < 0) {
-                        // No linebreak found
-                        if (logs.isEmpty()) {
-                            // Remained line is a full line since the backend producing logs line by line
-                            ob.onNext(remainedLine);
-                            remainedLine = "";
-                        } else {
-                            remainedLine += logs;
-                            nextStart += logs.length();
-                        }
-                    } else {
-                        long handledLength = new BufferedReader(new StringReader(
-                                                remainedLine + logs.substring(0, lastLineBreak)))
-                                .lines()
-                                .map(line -> {
-                                    ob.onNext(line);
-
-                                    // Count the line length with linebreak
-                                    // We need to handle this since the web client may convert the LF to CRLF
-                                    return (line.length() + 1);
-                                })
-                                .reduce((x, y) -> x + y)
-                                .orElse(0);
-
-                        nextStart += handledLength - remainedLine.length();
-                        remainedLine = "";
-                    }
-
-                    Thread.sleep(retryIntervalMs);
-                }
-            } catch (InterruptedException ignore) {
-            } finally {
-                // Get the rest logs from history server
-                // Don't worry about the log is moved to history server, the YarnUI can do URL redirect by itself
-                logs = JobUtils.getInformationFromYarnLogDom(authCode, containerLogUrl, type, nextStart, 0);
-
-                new BufferedReader(new StringReader(remainedLine + logs)).lines().forEach(ob::onNext);
-            }
+        return createYarnLogChunkObservable(authCode, stop, containerLogUrl, type, blockSize)
+                .flatMapIterable(lines -> lines);
+    }
 
-            ob.onCompleted();
-            stopSubscriptionOptional.ifPresent(Subscription::unsubscribe);
-        }).subscribeOn(Schedulers.io());
+    /**
+     * To create an Observable for specified Yarn container log type, which emits the lines got in one fetch
+     * as a chunk
+     *
+     * @param authCode the authCode in request's Authorization header
+     * @param stop the stop observable to cancel the log fetch, refer to Observable.window() operation
+     * @param containerLogUrl the contaniner log url
+     * @param type the log type
+     * @param blockSize the block size in bytes for one fetch
+     * @return the log lines chunk Observable
+     */
+    public static Observable<List<String>> createYarnLogChunkObservable(@Nullable final String authCode,
+                                                                        @Nullable final Observable<Object> stop,
+                                                                        @NotNull final String containerLogUrl,
+                                                                        @NotNull final String type,
+                                                                        final int blockSize) {
+        return Observable.defer(() -> new YarnContainerLogTailer(authCode, containerLogUrl, type, blockSize)
+                .tail(stop));
     }
 
     public static HttpEntity getEntity(@NotNull final IClusterDetail clusterDetail, @NotNull final String url) throws IOException, HDIException {
@@ -466,35 +339,31 @@ public class JobUtils {
                                            @NotNull Observer<SimpleImmutableEntry<MessageInfoType, String>> logSubject,
                                            @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) throws Exception {
         if(storageAccount.getAccountType() == StorageAccountType.BLOB) {
-            try (FileInputStream fileInputStream = new FileInputStream(file)) {
-                try (BufferedInputStream bufferedInputStream = new BufferedInputStream(fileInputStream)) {
-                    HDStorageAccount blobStorageAccount = (HDStorageAccount) storageAccount;
-                    BlobContainer container = getSparkClusterContainer(blobStorageAccount, containerName);
-                    if (container == null) {
-                        throw new IllegalArgumentException("Can't get the valid container.");
-                    }
-
-                    String path = String.format("SparkSubmission/%s/%s", uploadFolderPath, file.getName());
-                    String uploadedPath = String.format("wasbs://%s@%s/%s", containerName, blobStorageAccount.getFullStorageBlobName(), path);
+            HDStorageAccount blobStorageAccount = (HDStorageAccount) storageAccount;
+            String storageKey = String.format(
+                    "wasbs://%s@%s/", containerName, blobStorageAccount.getFullStorageBlobName());
 
-                    logSubject.onNext(new SimpleImmutableEntry<>(Info,
-                            String.format("Begin uploading file %s to Azure Blob Storage Account %s ...",
-                                          file.getPath(), uploadedPath)));
-
-                    StorageClientSDKManager.getManager().uploadBlobFileContent(
-                            blobStorageAccount.getConnectionString(),
-                            container,
-                            path,
-                            bufferedInputStream,
-                            uploadInProcessCallback,
-                            1024 * 1024,
-                            file.length());
-
-                    logSubject.onNext(new SimpleImmutableEntry<>(Info,
-                            String.format("Submit file to azure blob '%s' successfully.", uploadedPath)));
-
-                    return uploadedPath;
+            try {
+                return DeployedArtifactCache.getInstance()
+                        .deploy(storageKey,
+                                file,
+                                deployedUri -> Observable.fromCallable(() -> StorageClientSDKManager.getManager()
+                                        .blobFileExists(blobStorageAccount.getConnectionString(),
+                                                        containerName,
+                                                        URI.create(deployedUri).getPath().substring(1))),
+                                Observable.fromCallable(() -> uploadFileToAzureBlob(
+                                        file, blobStorageAccount, containerName, uploadFolderPath, logSubject,
+                                        uploadInProcessCallback)),
+                                logSubject)
+                        .toBlocking()
+                        .single();
+            } catch (RuntimeException ex) {
+                // Unwrap the checked exception propagated by Observable
+                if (ex.getClass() == RuntimeException.class && ex.getCause() instanceof Exception) {
+                    throw (Exception) ex.getCause();
                 }
+
+                throw ex;
             }
         } else if(storageAccount.getAccountType() == StorageAccountType.ADLS) {
             String uploadPath = String.format("adl://%s.azuredatalakestore.net%s%s", storageAccount.getName(), storageAccount.getDefaultContainerOrRootPath(), "SparkSubmission");
@@ -511,6 +380,37 @@ public class JobUtils {
 
     }
 
+    private static String uploadFileToAzureBlob(@NotNull File file,
+                                                @NotNull HDStorageAccount blobStorageAccount,
+                                                @NotNull String containerName,
+                                                @NotNull String uploadFolderPath,
+                                                @NotNull Observer<SimpleImmutableEntry<MessageInfoType, String>> logSubject,
+                                                @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) throws Exception {
+        BlobContainer container = getSparkClusterContainer(blobStorageAccount, containerName);
+        if (container == null) {
+            throw new IllegalArgumentException("Can't get the valid container.");
+        }
+
+        String path = String.format("SparkSubmission/%s/%s", uploadFolderPath, file.getName());
+        String uploadedPath = String.format("wasbs://%s@%s/%s", containerName, blobStorageAccount.getFullStorageBlobName(), path);
+
+        logSubject.onNext(new SimpleImmutableEntry<>(Info,
+                String.format("Begin uploading file %s to Azure Blob Storage Account %s ...",
+                              file.getPath(), uploadedPath)));
+
+        StorageClientSDKManager.getManager().uploadBlobFileContent(
+                blobStorageAccount.getConnectionString(),
+                container,
+                path,
+                file,
+                uploadInProcessCallback);
+
+        logSubject.onNext(new SimpleImmutableEntry<>(Info,
+                String.format("Submit file to azure blob '%s' successfully.", uploadedPath)));
+
+        return uploadedPath;
+    }
+
     public static String sftpFileToEmulator(String localFile, String folderPath, IClusterDetail clusterDetail)
                                            throws  IOException,HDIException, JSchException, SftpException {
         EmulatorClusterDetail emulatorClusterDetail = (EmulatorClusterDetail) clusterDetail;
@@ -651,9 +551,9 @@ public class JobUtils {
     public static Observable<String> deployArtifactToADLS(@NotNull String artifactLocalPath,
                                                  @NotNull String adlRootPath,
                                                  @NotNull String accessToken) {
-        return Observable.fromCallable(() -> {
-            File localFile = new File(artifactLocalPath);
+        File localFile = new File(artifactLocalPath);
 
+        Observable<String> upload = Observable.fromCallable(() -> {
             URI remote = URI.create(adlRootPath)
                     .resolve("SparkSubmission/")
                     .resolve(getFormatPathByDate() + "/")
@@ -670,6 +570,17 @@ public class JobUtils {
                 return remote.toString();
             }
         });
+
+        return DeployedArtifactCache.getInstance().deploy(
+                adlRootPath,
+                localFile,
+                deployedUri -> Observable.fromCallable(() -> {
+                    URI remote = URI.create(deployedUri);
+
+                    return ADLStoreClient.createClient(remote.getHost(), accessToken).checkExists(remote.getPath());
+                }),
+                upload,
+                null);
     }
 
     public static Observable<String> deployArtifact(@NotNull String artifactLocalPath,
@@ -709,63 +620,38 @@ public class JobUtils {
     public static Observable<String> deployArtifact(@NotNull SparkBatchSubmission submission,
                                                     @NotNull String destinationRootPath,
                                                     @NotNull String artifactPath) {
-        return Observable.fromCallable(() -> {
-            File file = new File(artifactPath);
-            String webHdfsUploadPath = destinationRootPath.concat(file.getName());
-            String redirectUri = null;
-
-            List<NameValuePair> params = new WebHdfsParamsBuilder("CREATE")
-                    .setOverwrite("true")
-                    .build();
-
-            URIBuilder uriBuilder = new URIBuilder(webHdfsUploadPath);
-            uriBuilder.addParameters(params);
-
-            HttpUriRequest req = RequestBuilder
-                    .put(uriBuilder.build())
-                    .build();
-
-            CloseableHttpClient httpclient = submission.getHttpClient();
-            try (CloseableHttpResponse response = httpclient.execute(req)) {
-                //two steps to upload via webhdfs
-                // 1.put request the get 307 redirect uri from response
-                // 2.put redirect request with file content as setEntity
-                redirectUri = response
-                        .getFirstHeader("Location")
-                        .getValue();
-
-                if (StringUtils.isBlank(redirectUri)) {
-                    throw new UnknownServiceException("can not get valid redirect uri using webhdfs");
-                }
-            } catch (Exception ex) {
-                throw new UnknownServiceException("using webhdfs encounter problem:".concat(ex.toString()));
-            }
+        return deployArtifact(submission, destinationRootPath, artifactPath, null);
+    }
 
-            InputStreamEntity reqEntity = new InputStreamEntity(
-                    new FileInputStream(file),
-                    -1,
-                    ContentType.APPLICATION_OCTET_STREAM);
-            reqEntity.setChunked(true);
-            BufferedHttpEntity reqEntityBuf = new BufferedHttpEntity(reqEntity);
-
-            //setup url with redirect url and entity ,config 100 continue to header
-            req = RequestBuilder
-                    .put(redirectUri)
-                    .setEntity(reqEntityBuf)
-                    .setConfig(RequestConfig.custom().setExpectContinueEnabled(true).build())
-                    .build();
-
-            // execute put request
-            try (CloseableHttpResponse putResp = httpclient.execute(req)) {
-                params = new WebHdfsParamsBuilder("OPEN")
-                        .build();
-                uriBuilder = new URIBuilder(webHdfsUploadPath);
-                uriBuilder.addParameters(params);
-
-                //return get file uri
-                return uriBuilder.build().toString();
-            }
-        });
+    public static Observable<String> deployArtifact(@NotNull SparkBatchSubmission submission,
+                                                    @NotNull String destinationRootPath,
+                                                    @NotNull String artifactPath,
+                                                    @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) {
+        return Observable.fromCallable(() -> {
+                    // Upload the artifact by chunks to keep the memory bounded for the large artifact
+                    HttpObservable http = new HttpObservable().setHttpClient(submission.getHttpClient());
+
+                    return new WebHdfsChunkedUploader(http);
+                })
+                .flatMap(uploader -> {
+                    File file = new File(artifactPath);
+                    String webHdfsUploadPath = destinationRootPath.concat(file.getName());
+
+                    return uploader.upload(webHdfsUploadPath, file, uploadInProcessCallback)
+                            .onErrorResumeNext(ex -> Observable.error(new UnknownServiceException(
+                                    "using webhdfs encounter problem:".concat(ex.toString()))))
+                            .map(uploadedBytes -> {
+                                try {
+                                    URIBuilder uriBuilder = new URIBuilder(webHdfsUploadPath);
+                                    uriBuilder.addParameters(new WebHdfsParamsBuilder("OPEN").build());
+
+                                    //return get file uri
+                                    return uriBuilder.build().toString();
+                                } catch (URISyntaxException ex) {
+                                    throw propagate(ex);
+                                }
+                            });
+                });
     }
 
     public static Cache getGlobalCache() {
@@ -21,9 +21,13 @@
  */
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.base.Ticker;
+import com.google.common.cache.*;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.hdinsight.common.JobViewManager;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
@@ -35,99 +39,252 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+/**
+ * The Spark job view data caches. The entries are weighed by the estimated object size to bound the heap used,
+ * and refreshed asynchronously after the refresh interval if the application is still running, while the entries of
+ * completed applications are kept until evicted or invalidated.
+ */
 public class JobViewCacheManager {
-    private static final LoadingCache<ApplicationKey, List<Job>> sparkJobLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Job>>() {
-                @Override
-                public List<Job> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getLastAttemptJobsFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Stage>> sparkStageLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Stage>>() {
-                @Override
-                public List<Stage> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getAllStageFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Executor>> sparkExecutorLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Executor>>() {
-                @Override
-                public List<Executor> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getAllExecutorFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<String, List<Application>> sparkApplicationsLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<String, List<Application>>() {
-                @Override
-                public List<Application> load(String key) throws Exception {
-                    return SparkRestUtil.getSparkApplications(JobViewManager.getCluster(key));
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Task>> sparkTasksSummaryLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Task>>() {
-                @Override
-                public List<Task> load(ApplicationKey key) throws Exception {
-                    List<Task> allTasks = new ArrayList<>();
-                    List<Stage> stages = sparkStageLocalCache.get(key);
-                    for (Stage stage: stages) {
-                        int stageId = stage.getStageId();
-                        int attemptedId = stage.getAttemptId();
-                        List<Task> tasks = SparkRestUtil.getSparkTasks(key, stageId, attemptedId);
-                        allTasks.addAll(tasks);
+    // The caches weight unit is KB, the max weight is for each cache
+    private static final long MAX_WEIGHT_KB = 64 * 1024;
+
+    private static final long REFRESH_INTERVAL_SECONDS = 30;
+
+    private static final int MAX_CONCURRENT_STAGES_FETCHING = 8;
+
+    private static final int TASKS_PAGE_LENGTH = 1000;
+
+    // The estimated object sizes in bytes
+    private static final int JOB_SIZE = 1024;
+    private static final int STAGE_SIZE = 4 * 1024;
+    private static final int TASK_SIZE = 2 * 1024;
+    private static final int EXECUTOR_SIZE = 1024;
+    private static final int APPLICATION_SIZE = 1024;
+    private static final int YARN_APP_SIZE = 2 * 1024;
+    private static final int JOB_START_EVENT_LOG_SIZE = 2 * 1024;
+
+    // The loading failure is kept for the next polling to get
+    private static final long LOADING_FAILURE_EXPIRE_SECONDS = 60;
+
+    private static final java.util.concurrent.Executor reloadExecutor = Executors.newFixedThreadPool(
+            4, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("job-view-cache-reload-%d").build());
+
+    // The tasks loading of all stages takes long, run them out of the reload executor to not block the refreshing
+    private static final java.util.concurrent.Executor tasksLoadingExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("job-view-tasks-loading-%d").build());
+
+    /**
+     * The cache loader interface with checked exception
+     */
+    interface Loader<K, V> {
+        V load(@NotNull K key) throws Exception;
+    }
+
+    /**
+     * Create a weighed and refreshable cache
+     *
+     * @param loader the loader to load or reload the value
+     * @param weigher the weigher in KB
+     * @param maxWeightKB the max total weight in KB
+     * @param isCompleted the predicate whether the key's value is completed, which won't be reloaded any more
+     * @param ticker the ticker for the refresh interval
+     * @param executor the executor to reload value asynchronously
+     * @return the cache created
+     */
+    @NotNull
+    static <K, V> LoadingCache<K, V> newCache(@NotNull Loader<K, V> loader,
+                                              @NotNull Weigher<K, V> weigher,
+                                              long maxWeightKB,
+                                              @NotNull Predicate<K> isCompleted,
+                                              @NotNull Ticker ticker,
+                                              @NotNull java.util.concurrent.Executor executor) {
+        return CacheBuilder.newBuilder()
+                .initialCapacity(20)
+                .maximumWeight(maxWeightKB)
+                .weigher(weigher)
+                .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build(new CacheLoader<K, V>() {
+                    @Override
+                    public V load(@NotNull K key) throws Exception {
+                        return loader.load(key);
                     }
-                    return allTasks;
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, ApplicationMasterLogs> yarnAppLogLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, ApplicationMasterLogs>() {
-                @Override
-                public ApplicationMasterLogs load(ApplicationKey key) throws Exception {
-                    return JobUtils.getYarnLogs(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, App> yarnApplicationLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, App>() {
-                @Override
-                public App load(ApplicationKey key) throws Exception {
-                    return YarnRestUtil.getApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<JobStartEventLog>> sparkJobStartEventLogCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<JobStartEventLog>>() {
-                @Override
-                public List<JobStartEventLog> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getSparkEventLogs(key);
+
+                    @Override
+                    public ListenableFuture<V> reload(@NotNull K key, @NotNull V oldValue) {
+                        if (isCompleted.test(key)) {
+                            return Futures.immediateFuture(oldValue);
+                        }
+
+                        ListenableFutureTask<V> task = ListenableFutureTask.create(() -> loader.load(key));
+                        executor.execute(task);
+
+                        return task;
+                    }
+                });
+    }
+
+    @NotNull
+    private static <V> LoadingCache<ApplicationKey, V> newApplicationCache(@NotNull Loader<ApplicationKey, V> loader,
+                                                                           @NotNull Weigher<ApplicationKey, V> weigher) {
+        return newCache(loader, weigher, MAX_WEIGHT_KB, JobViewCacheManager::isApplicationCompleted,
+                Ticker.systemTicker(), reloadExecutor);
+    }
+
+    /**
+     * Estimate the list weight in KB
+     */
+    static int weighList(@NotNull List<?> list, int elementSize) {
+        return (int) Math.min(Integer.MAX_VALUE, ((long) list.size() * elementSize) / 1024 + 1);
+    }
+
+    private static final LoadingCache<ApplicationKey, List<Job>> sparkJobLocalCache = newApplicationCache(
+            SparkRestUtil::getLastAttemptJobsFromApp,
+            (key, jobs) -> weighList(jobs, JOB_SIZE));
+
+    private static final LoadingCache<ApplicationKey, List<Stage>> sparkStageLocalCache = newApplicationCache(
+            SparkRestUtil::getAllStageFromApp,
+            (key, stages) -> weighList(stages, STAGE_SIZE));
+
+    private static final LoadingCache<ApplicationKey, List<Executor>> sparkExecutorLocalCache = newApplicationCache(
+            SparkRestUtil::getAllExecutorFromApp,
+            (key, executors) -> weighList(executors, EXECUTOR_SIZE));
+
+    // The applications list of a cluster is always refreshed
+    private static final LoadingCache<String, List<Application>> sparkApplicationsLocalCache = newCache(
+            key -> SparkRestUtil.getSparkApplications(JobViewManager.getCluster(key)),
+            (key, apps) -> weighList(apps, APPLICATION_SIZE),
+            MAX_WEIGHT_KB,
+            key -> false,
+            Ticker.systemTicker(),
+            reloadExecutor);
+
+    /**
+     * The stage tasks page loader interface with checked exception
+     */
+    interface TasksPageLoader {
+        List<Task> load(int stageId, int attemptId, int offset, int length) throws Exception;
+    }
+
+    /**
+     * Fetch the tasks of stages in parallel, each stage's tasks are fetched page by page
+     *
+     * @param stages the stages to fetch tasks
+     * @param loader the stage tasks page loader
+     * @param maxConcurrent the max count of stages fetched concurrently
+     * @param pageLength the max tasks count of one page
+     * @param scheduler the scheduler to fetch pages
+     * @return the Observable of the tasks pages in the order of fetched
+     */
+    @NotNull
+    static Observable<List<Task>> fetchStagesTasks(@NotNull List<Stage> stages,
+                                                   @NotNull TasksPageLoader loader,
+                                                   int maxConcurrent,
+                                                   int pageLength,
+                                                   @NotNull Scheduler scheduler) {
+        return Observable.from(stages)
+                .flatMap(stage -> fetchStageTasks(stage, loader, 0, pageLength).subscribeOn(scheduler),
+                         maxConcurrent);
+    }
+
+    @NotNull
+    private static Observable<List<Task>> fetchStageTasks(@NotNull Stage stage,
+                                                          @NotNull TasksPageLoader loader,
+                                                          int offset,
+                                                          int pageLength) {
+        return Observable.fromCallable(() -> loader.load(stage.getStageId(), stage.getAttemptId(), offset, pageLength))
+                .concatMap(tasks -> tasks.size() < pageLength
+                        ? Observable.just(tasks)
+                        : Observable.just(tasks).concatWith(
+                                fetchStageTasks(stage, loader, offset + pageLength, pageLength)));
+    }
+
+    // The tasks loaded so far of the applications in loading, to render the loaded tasks before all loaded
+    private static final Map<ApplicationKey, List<Task>> sparkTasksLoading = new ConcurrentHashMap<>();
+
+    // The tasks loading failures not got by the polling yet
+    private static final Cache<ApplicationKey, Throwable> sparkTasksLoadingFailures = newLoadingFailuresCache();
+
+    @NotNull
+    static <K> Cache<K, Throwable> newLoadingFailuresCache() {
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(LOADING_FAILURE_EXPIRE_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private static final LoadingCache<ApplicationKey, List<Task>> sparkTasksSummaryLocalCache = newApplicationCache(
+            key -> {
+                List<Task> loadedTasks = Collections.synchronizedList(new ArrayList<>());
+                sparkTasksLoading.put(key, loadedTasks);
+
+                try {
+                    fetchStagesTasks(
+                            sparkStageLocalCache.get(key),
+                            (stageId, attemptId, offset, length) ->
+                                    SparkRestUtil.getSparkTasks(key, stageId, attemptId, offset, length),
+                            MAX_CONCURRENT_STAGES_FETCHING,
+                            TASKS_PAGE_LENGTH,
+                            Schedulers.io())
+                            .toBlocking()
+                            .forEach(loadedTasks::addAll);
+
+                    synchronized (loadedTasks) {
+                        return new ArrayList<>(loadedTasks);
+                    }
+                } finally {
+                    sparkTasksLoading.remove(key, loadedTasks);
                 }
-            });
+            },
+            (key, tasks) -> weighList(tasks, TASK_SIZE));
+
+    private static final LoadingCache<ApplicationKey, ApplicationMasterLogs> yarnAppLogLocalCache = newApplicationCache(
+            JobUtils::getYarnLogs,
+            (key, logs) -> (int) Math.min(Integer.MAX_VALUE, 2L * (StringUtils.length(logs.getStdout()) +
+                    StringUtils.length(logs.getStderr()) + StringUtils.length(logs.getDirectoryInfo())) / 1024 + 1));
+
+    private static final LoadingCache<ApplicationKey, App> yarnApplicationLocalCache = newApplicationCache(
+            YarnRestUtil::getApp,
+            (key, app) -> YARN_APP_SIZE / 1024);
+
+    private static final LoadingCache<ApplicationKey, List<JobStartEventLog>> sparkJobStartEventLogCache = newApplicationCache(
+            SparkRestUtil::getSparkEventLogs,
+            (key, logs) -> weighList(logs, JOB_START_EVENT_LOG_SIZE));
+
+    private static final Map<String, LoadingCache<ApplicationKey, ?>> applicationCaches = new LinkedHashMap<>();
+
+    static {
+        applicationCaches.put("sparkJob", sparkJobLocalCache);
+        applicationCaches.put("sparkStage", sparkStageLocalCache);
+        applicationCaches.put("sparkExecutor", sparkExecutorLocalCache);
+        applicationCaches.put("sparkTasksSummary", sparkTasksSummaryLocalCache);
+        applicationCaches.put("yarnAppLog", yarnAppLogLocalCache);
+        applicationCaches.put("yarnApplication", yarnApplicationLocalCache);
+        applicationCaches.put("sparkJobStartEventLog", sparkJobStartEventLogCache);
+    }
+
+    /**
+     * Check whether the application is completed by the cached Yarn application, the application without Yarn
+     * application cached is regarded as running
+     */
+    private static boolean isApplicationCompleted(@NotNull ApplicationKey key) {
+        App app = yarnApplicationLocalCache.getIfPresent(key);
+
+        return app != null && app.isFinished();
+    }
 
     public static List<JobStartEventLog> getJobStartEventLogs(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkJobStartEventLogCache.get(key);
@@ -166,8 +323,94 @@ public class JobViewCacheManager {
     public static List<Task> getTasks(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkTasksSummaryLocalCache.get(key);
     }
+
+    /**
+     * Get the tasks loaded so far without waiting for all tasks loaded, the loading is started if not yet
+     *
+     * @param key the application key
+     * @return the pair of the tasks loaded, in the same order as the final list, and whether it's still loading
+     * @throws ExecutionException the failure of the last loading, which is started again by the next call
+     */
+    @NotNull
+    public static ImmutablePair<List<Task>, Boolean> getTasksLoaded(@NotNull ApplicationKey key)
+            throws ExecutionException {
+        return getLoaded(key, sparkTasksSummaryLocalCache, sparkTasksLoading, sparkTasksLoadingFailures,
+                tasksLoadingExecutor);
+    }
+
+    /**
+     * Get the list loaded so far without waiting for the loading, which is started asynchronously if not yet.
+     * The loading failure is kept to be thrown to the next call, instead of being taken as still loading.
+     *
+     * @param key the cache key
+     * @param cache the cache of the whole list
+     * @param loading the list loaded so far of the keys in loading, filled by the cache loader
+     * @param failures the loading failures not got yet
+     * @param executor the executor to load asynchronously
+     * @return the pair of the list loaded and whether it's still loading
+     * @throws ExecutionException the failure of the last loading
+     */
+    @NotNull
+    static <K, V> ImmutablePair<List<V>, Boolean> getLoaded(@NotNull K key,
+                                                            @NotNull LoadingCache<K, List<V>> cache,
+                                                            @NotNull Map<K, List<V>> loading,
+                                                            @NotNull Cache<K, Throwable> failures,
+                                                            @NotNull java.util.concurrent.Executor executor)
+            throws ExecutionException {
+        List<V> values = cache.getIfPresent(key);
+        if (values != null) {
+            return ImmutablePair.of(values, false);
+        }
+
+        List<V> loadingValues = loading.get(key);
+        if (loadingValues != null) {
+            synchronized (loadingValues) {
+                return ImmutablePair.of(new ArrayList<>(loadingValues), true);
+            }
+        }
+
+        Throwable failure = failures.getIfPresent(key);
+        if (failure != null) {
+            failures.invalidate(key);
+
+            throw new ExecutionException("Failed to load: " + failure.getMessage(), failure);
+        }
+
+        executor.execute(() -> {
+            try {
+                cache.get(key);
+            } catch (ExecutionException | RuntimeException | ExecutionError ex) {
+                failures.put(key, ex.getCause() != null ? ex.getCause() : ex);
+            }
+        });
+
+        return ImmutablePair.of(Collections.emptyList(), true);
+    }
     
     public static List<Stage> getStages(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkStageLocalCache.get(key);
     }
+
+    /**
+     * Invalidate all cached data of the application
+     *
+     * @param key the application key
+     */
+    public static void invalidateApplication(@NotNull ApplicationKey key) {
+        applicationCaches.values().forEach(cache -> cache.invalidate(key));
+    }
+
+    /**
+     * Invalidate all cached data of the cluster's applications
+     *
+     * @param clusterDetail the cluster
+     */
+    public static void invalidateCluster(@NotNull IClusterDetail clusterDetail) {
+        applicationCaches.values().forEach(cache -> invalidateCluster(cache, clusterDetail.getConnectionUrl()));
+        sparkApplicationsLocalCache.invalidate(clusterDetail.getName());
+    }
+
+    static void invalidateCluster(@NotNull Cache<ApplicationKey, ?> cache, @NotNull String clusterConnString) {
+        cache.asMap().keySet().removeIf(key -> key.getClusterConnString().equalsIgnoreCase(clusterConnString));
+    }
 }
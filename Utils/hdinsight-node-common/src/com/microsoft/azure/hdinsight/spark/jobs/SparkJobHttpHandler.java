@@ -35,6 +35,7 @@ import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.io.IOException;
 import java.util.List;
@@ -74,8 +75,12 @@ public class SparkJobHttpHandler implements HttpHandler {
                 Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(executors);
                 JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
             } else if (path.contains("tasks_summary")) {
-                List<Task> tasks = JobViewCacheManager.getTasks(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasks);
+                // Response the tasks loaded so far, the page polls again until the loading header is false
+                ImmutablePair<List<Task>, Boolean> tasksLoaded = JobViewCacheManager.getTasksLoaded(
+                        new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
+                httpExchange.getResponseHeaders().add("Access-Control-Expose-Headers", "X-Tasks-Loading");
+                httpExchange.getResponseHeaders().add("X-Tasks-Loading", tasksLoaded.getRight().toString());
+                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasksLoaded.getLeft());
                 JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
             }
         } catch (ExecutionException e) {
@@ -29,23 +29,22 @@ import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azure.hdinsight.sdk.rest.RestUtil;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
+import com.microsoft.azure.hdinsight.sdk.rest.spark.event.SparkEventLogReader;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.executor.Executor;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.job.Job;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
-import org.json.JSONObject;
 
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -99,39 +98,102 @@ public class SparkRestUtil {
         return tasks.orElse(RestUtil.getEmptyList(Task.class));
     }
     
+    /**
+     * Get one page of the stage attempt tasks, the JSON response is decoded by streaming
+     *
+     * @param key the application key
+     * @param stage the stage ID
+     * @param attemptId the stage attempt ID
+     * @param offset the first task offset of the page
+     * @param length the max tasks count of the page
+     * @return the tasks in the page, less than length for the last page
+     */
+    public static List<Task> getSparkTasks(@NotNull ApplicationKey key,
+                                           int stage,
+                                           int attemptId,
+                                           int offset,
+                                           int length) throws IOException, ExecutionException, HDIException {
+        AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+        String url = String.format("/%s/%s/stages/%s/%s/taskList?offset=%d&length=%d",
+                attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId(), stage, attemptId, offset, length);
+        HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
+
+        Optional<List<Task>> tasks = ObjectConvertUtils.convertJsonEntityToListStreaming(entity, Task.class);
+        return tasks.orElse(RestUtil.getEmptyList(Task.class));
+    }
+
     public static List<JobStartEventLog> getSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException {
+        return getSparkEventLogs(key, SparkEventLogReader.JOB_START_EVENT, JobStartEventLog.class);
+    }
+
+    /**
+     * Get the events of one type from the Spark event log of the application's last attempt
+     *
+     * @param key the application key
+     * @param eventName the event name, such as SparkListenerTaskEnd
+     * @param eventClass the event class
+     * @return the events list
+     */
+    @NotNull
+    public static <T> List<T> getSparkEventLogs(@NotNull ApplicationKey key,
+                                                @NotNull String eventName,
+                                                @NotNull Class<T> eventClass) throws HDIException, IOException {
+        File file = downloadSparkEventLogs(key);
+
+        try (ZipFile zipFile = new ZipFile(file)) {
+            return SparkEventLogReader.readEvents(getLastAttemptEventLogs(key, zipFile), eventName, eventClass);
+        }
+    }
+
+    /**
+     * Read the events of several types from the Spark event log of the application's last attempt,
+     * the events are passed to the consumer one by one in the log order without being kept in memory
+     *
+     * @param key the application key
+     * @param eventTypes the map from the event name to the event class
+     * @param eventConsumer the consumer of the events read
+     */
+    public static void readSparkEventLogs(@NotNull ApplicationKey key,
+                                          @NotNull Map<String, Class<?>> eventTypes,
+                                          @NotNull Consumer<Object> eventConsumer) throws HDIException, IOException {
+        File file = downloadSparkEventLogs(key);
+
+        try (ZipFile zipFile = new ZipFile(file);
+             SparkEventLogReader reader = new SparkEventLogReader(getLastAttemptEventLogs(key, zipFile), eventTypes)) {
+            Object event;
+
+            while ((event = reader.next()) != null) {
+                eventConsumer.accept(event);
+            }
+        }
+    }
+
+    @NotNull
+    private static File downloadSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException {
         String url = String.format("%s/logs", key.getAppId());
         String eventLogsPath = String.format("%s/SparkEventLogs/%s/eventLogs.zip", HDInsightLoader.getHDInsightHelper().getPluginRootPath(), key.getAppId());
         File file = new File(eventLogsPath);
         HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
-        InputStream inputStream = entity.getContent();
-        FileUtils.copyInputStreamToFile(inputStream, file);
-        IOUtils.closeQuietly(inputStream);
 
-        ZipFile zipFile = new ZipFile(file);
-        List<? extends ZipEntry> entities =  Collections.list(zipFile.entries());
+        try (InputStream inputStream = entity.getContent()) {
+            FileUtils.copyInputStreamToFile(inputStream, file);
+        }
+
+        return file;
+    }
+
+    @NotNull
+    private static InputStream getLastAttemptEventLogs(@NotNull ApplicationKey key,
+                                                       @NotNull ZipFile zipFile) throws HDIException, IOException {
         // every application has an attempt in event log
         // and the entity name should be in formation "{appId}_{attemptId}"
-        String entityName = String.format("%s_%s", key.getAppId(), entities.size());
+        String entityName = String.format("%s_%s", key.getAppId(), zipFile.size());
         ZipEntry lastEntity = zipFile.getEntry(entityName);
         if (lastEntity == null) {
             throw new HDIException(String.format("No Spark event log entity found for app: %s", key.getAppId()));
         }
-        InputStream zipFileInputStream = zipFile.getInputStream(lastEntity);
-        String entityContent = IOUtils.toString(zipFileInputStream, Charset.forName("utf-8"));
-
-        String[] lines = entityContent.split("\n");
-        List<JobStartEventLog> jobStartEvents = Arrays.stream(lines)
-                .filter(line -> {
-                    JSONObject jsonObject = new JSONObject(line);
-                    String eventName = jsonObject.getString("Event");
-                    return eventName.equalsIgnoreCase("SparkListenerJobStart");
-                    })
-                .map(oneLine -> ObjectConvertUtils.convertToObjectQuietly(oneLine, JobStartEventLog.class))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
 
-        return jobStartEvents;
+        return zipFile.getInputStream(lastEntity);
     }
 
     private static AttemptWithAppId getLastAttemptFromLocalCache(@NotNull ApplicationKey key) throws ExecutionException, HDIException {
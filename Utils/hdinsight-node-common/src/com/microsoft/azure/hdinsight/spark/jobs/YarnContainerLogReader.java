@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.jsoup.parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * The Yarn container log reader, which gets the log from YarnUI or Yarn History server container log page.
+ *
+ * The page is read by the pooled HTTP client shared by all log fetches, and the log is picked out of the page
+ * <pre>...</pre> block by a streaming tokenizer, without emulating a browser or building the page DOM.
+ * The log content got is the same as what a browser shows: HTML entities are decoded and line breaks are LF.
+ * The log can also be got as the raw bytes of the log file, to tail the log by the file bytes offsets.
+ */
+public class YarnContainerLogReader implements ILogger {
+    private static final int MAX_CONNECTIONS = 20;
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /**
+     * The max length of an HTML entity, like &amp;#65533; or &amp;quot;, a longer one is taken as text
+     */
+    private static final int MAX_ENTITY_LENGTH = 32;
+
+    /**
+     * The paragraph text max length to look for the log type in, a log type paragraph is much shorter
+     */
+    private static final int MAX_PARAGRAPH_TEXT_LENGTH = 256;
+
+    // In history server, the log type paragraph is in front of its <pre>...</pre>
+    private static final Pattern LOG_TYPE_PATTERN = Pattern.compile("Log Type:\\s+(\\S+)");
+
+    private static final YarnContainerLogReader instance = new YarnContainerLogReader();
+
+    /**
+     * The shared HTTP clients, keyed by whether the SSL certificate validation is disabled
+     */
+    private final ConcurrentMap<Boolean, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
+    private YarnContainerLogReader() {
+    }
+
+    @NotNull
+    public static YarnContainerLogReader getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the container log
+     *
+     * @param authCode the authCode in request's Authorization header
+     * @param baseUrl the container log URL
+     * @param type the log type, such as stderr, stdout
+     * @param start the log start offset
+     * @param size the log size to get, the value 0 or negative for to the end
+     * @return the log got, or empty string for any failures
+     */
+    @NotNull
+    public String getLog(@Nullable String authCode, @NotNull String baseUrl, @NotNull String type, long start, int size) {
+        String log = fetchLog(authCode, baseUrl, type, start, size, entity -> {
+            Charset charset = Optional.ofNullable(ContentType.get(entity))
+                    .map(ContentType::getCharset)
+                    .orElse(StandardCharsets.UTF_8);
+
+            try (Reader reader = new InputStreamReader(entity.getContent(), charset)) {
+                return readLog(reader, type, true);
+            }
+        });
+
+        return log == null ? "" : log;
+    }
+
+    /**
+     * Get the container log as the raw bytes of the log file, without decoding the log text, so that the bytes
+     * got can be counted to move the log offset, even for the bytes which aren't valid in the log charset.
+     * The HTML entities are decoded into their UTF-8 bytes and the line breaks are kept as they are.
+     *
+     * @param authCode the authCode in request's Authorization header
+     * @param baseUrl the container log URL
+     * @param type the log type, such as stderr, stdout
+     * @param start the log start offset in bytes
+     * @param size the log size in bytes to get, the value 0 or negative for to the end
+     * @return the log bytes got, or empty for any failures
+     */
+    @NotNull
+    public byte[] getLogBytes(@Nullable String authCode,
+                              @NotNull String baseUrl,
+                              @NotNull String type,
+                              long start,
+                              int size) {
+        byte[] log = fetchLog(authCode, baseUrl, type, start, size, entity -> {
+            // The page markups are ASCII, read the page by ISO-8859-1 to map each byte to one char as it is
+            try (Reader reader = new InputStreamReader(entity.getContent(), StandardCharsets.ISO_8859_1)) {
+                return unescapeToBytes(readPre(reader, type, false));
+            }
+        });
+
+        return log == null ? new byte[0] : log;
+    }
+
+    @FunctionalInterface
+    private interface EntityReader<T> {
+        T read(@NotNull HttpEntity entity) throws IOException;
+    }
+
+    @Nullable
+    private <T> T fetchLog(@Nullable String authCode,
+                           @NotNull String baseUrl,
+                           @NotNull String type,
+                           long start,
+                           int size,
+                           @NotNull EntityReader<T> entityReader) {
+        URI url = null;
+
+        try {
+            url = new URI(baseUrl + "/").resolve(
+                    String.format("%s?start=%d", type, start) +
+                            (size <= 0 ? "" : String.format("&&end=%d", start + size)));
+
+            HttpGet request = new HttpGet(url);
+
+            if (authCode != null) {
+                request.addHeader(AUTHORIZATION, authCode);
+            }
+
+            try (CloseableHttpResponse response = getHttpClient().execute(request)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+
+                if (statusCode < 200 || statusCode >= 300) {
+                    // If the URL is wrong, will get 200 response with content:
+                    //      Unable to locate 'xxx' log for container
+                    //  OR
+                    //      Logs not available for <user>. Aggregation may not be complete, Check back later or try the nodemanager at...
+                    //  OR
+                    //      Cannot get container logs without ...
+                    //
+                    // if fetching Yarn log hits the gap between the job running and stop, will get the status 403
+                    // the log is moving to job history server, just wait and retry.
+                    if (statusCode != HttpStatus.SC_FORBIDDEN) {
+                        log().warn("The GET request to " + url + " responded error: " + response.getStatusLine());
+                    }
+
+                    return null;
+                }
+
+                HttpEntity entity = response.getEntity();
+
+                return entity == null ? null : entityReader.read(entity);
+            }
+        } catch (URISyntaxException e) {
+            log().error("baseUrl has syntax error: " + baseUrl);
+        } catch (Exception e) {
+            log().warn("get Spark job log Error", e);
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private CloseableHttpClient getHttpClient() {
+        return httpClients.computeIfAbsent(HttpObservable.isSSLCertificateValidationDisabled(), this::createHttpClient);
+    }
+
+    @NotNull
+    private CloseableHttpClient createHttpClient(boolean isSSLCertificateValidationDisabled) {
+        SSLConnectionSocketFactory sslSocketFactory = SSLConnectionSocketFactory.getSystemSocketFactory();
+
+        if (isSSLCertificateValidationDisabled) {
+            try {
+                sslSocketFactory = new SSLConnectionSocketFactory(
+                        new SSLContextBuilder().loadTrustMaterial((chain, authType) -> true).build(),
+                        NoopHostnameVerifier.INSTANCE);
+            } catch (Exception e) {
+                log().error("Prepare SSL Context for HTTPS failure.", e);
+            }
+        }
+
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+
+        return HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .build();
+    }
+
+    /**
+     * Read the log from the container log page. The page has the log in the <pre>...</pre> block, and in
+     * history server, there are several logs in one page, each one is following its log type paragraph, like:
+     *
+     *      <p> Log Type: stderr <pre>...</pre>
+     *
+     * The reading stops once the log of the type specified is got.
+     *
+     * @param page the container log page content
+     * @param type the log type to read
+     * @param isLineBreakNormalized true for converting CRLF and CR line breaks to LF
+     * @return the log of the type specified, or the last log in the page if there is no log type paragraph matched
+     * @throws IOException for page reading failures
+     */
+    @NotNull
+    static String readLog(@NotNull Reader page, @NotNull String type, boolean isLineBreakNormalized)
+            throws IOException {
+        return Parser.unescapeEntities(readPre(page, type, isLineBreakNormalized), false);
+    }
+
+    /**
+     * Read the log from the container log page as readLog() does, but leave the HTML entities undecoded
+     */
+    @NotNull
+    private static String readPre(@NotNull Reader page, @NotNull String type, boolean isLineBreakNormalized)
+            throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        StringBuilder tag = new StringBuilder();
+        StringBuilder paragraph = new StringBuilder();
+        StringBuilder pre = new StringBuilder();
+        boolean isInTag = false;
+        boolean isInParagraph = false;
+        boolean isInPre = false;
+        boolean isLastCharCR = false;
+        String logType = null;
+        String lastLog = "";
+        int len;
+
+        while ((len = page.read(buffer)) > 0) {
+            for (int i = 0; i < len; i++) {
+                char ch = buffer[i];
+
+                if (isInTag) {
+                    if (ch != '>' || isUnclosedComment(tag)) {
+                        tag.append(ch);
+                        continue;
+                    }
+
+                    isInTag = false;
+
+                    String tagName = getTagName(tag);
+                    tag.setLength(0);
+
+                    if (isInPre) {
+                        // Only the </pre> closes the log, other tags in log are skipped
+                        if (!tagName.equals("/pre")) {
+                            continue;
+                        }
+
+                        isInPre = false;
+                        lastLog = pre.toString();
+
+                        if (logType != null) {
+                            if (logType.equals(type)) {
+                                // Only get the first <pre>...</pre> of the log type
+                                return lastLog;
+                            }
+
+                            logType = null;
+                        }
+                    } else if (tagName.equals("p")) {
+                        isInParagraph = true;
+                        paragraph.setLength(0);
+                    } else if (tagName.equals("/p") || tagName.equals("pre")) {
+                        // The paragraph is closed by </p> or <pre> start tag
+                        if (isInParagraph) {
+                            isInParagraph = false;
+                            logType = matchLogType(paragraph, logType);
+                        }
+
+                        if (tagName.equals("pre")) {
+                            isInPre = true;
+                            isLastCharCR = false;
+                            pre.setLength(0);
+                        }
+                    }
+                } else if (ch == '<') {
+                    isInTag = true;
+                } else if (isInPre) {
+                    // Normalize the CRLF and CR line breaks to LF, as browsers do
+                    if (!isLineBreakNormalized) {
+                        pre.append(ch);
+                    } else if (ch == '\r') {
+                        pre.append('\n');
+                    } else if (ch != '\n' || !isLastCharCR) {
+                        pre.append(ch);
+                    }
+
+                    isLastCharCR = ch == '\r';
+                } else if (isInParagraph && paragraph.length() < MAX_PARAGRAPH_TEXT_LENGTH) {
+                    paragraph.append(ch);
+                }
+            }
+        }
+
+        if (isInPre) {
+            // Unclosed <pre> till the end of the page
+            lastLog = pre.toString();
+        }
+
+        return lastLog;
+    }
+
+    /**
+     * Decode the HTML entities of the log read by ISO-8859-1 into their UTF-8 bytes, and take the other
+     * chars back as the bytes they were read from
+     *
+     * @param log the log read by ISO-8859-1, with the HTML entities undecoded
+     * @return the log bytes
+     */
+    @NotNull
+    static byte[] unescapeToBytes(@NotNull String log) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(log.length());
+
+        for (int i = 0; i < log.length(); i++) {
+            char ch = log.charAt(i);
+
+            if (ch == '&') {
+                int semicolon = log.indexOf(';', i + 1);
+
+                if (semicolon > i && semicolon - i < MAX_ENTITY_LENGTH) {
+                    String entity = log.substring(i, semicolon + 1);
+                    String decoded = Parser.unescapeEntities(entity, false);
+
+                    if (!decoded.equals(entity)) {
+                        byte[] decodedBytes = decoded.getBytes(StandardCharsets.UTF_8);
+                        bytes.write(decodedBytes, 0, decodedBytes.length);
+                        i = semicolon;
+
+                        continue;
+                    }
+                }
+            }
+
+            bytes.write(ch);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static boolean isUnclosedComment(@NotNull CharSequence tag) {
+        int len = tag.length();
+
+        return len >= 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-'
+                && !(len >= 5 && tag.charAt(len - 1) == '-' && tag.charAt(len - 2) == '-');
+    }
+
+    @NotNull
+    private static String getTagName(@NotNull CharSequence tag) {
+        int end = tag.length() > 0 && tag.charAt(0) == '/' ? 1 : 0;
+
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+
+        return tag.subSequence(0, end).toString().toLowerCase(Locale.ROOT);
+    }
+
+    @Nullable
+    private static String matchLogType(@NotNull CharSequence paragraph, @Nullable String current) {
+        Matcher matcher = LOG_TYPE_PATTERN.matcher(Parser.unescapeEntities(paragraph.toString(), false).trim());
+
+        return matcher.matches() ? matcher.group(1) : current;
+    }
+}
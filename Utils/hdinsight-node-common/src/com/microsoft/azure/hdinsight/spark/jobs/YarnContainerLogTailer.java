@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ * <p/>
+ * All rights reserved.
+ * <p/>
+ * MIT License
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The Yarn container log tailer, which fetches the log block by block from the byte offset next to the log
+ * got, and emits the log lines got in one fetch as a chunk.
+ *
+ * The Yarn log start and end offsets are the log file bytes offsets, so the log is fetched as raw bytes and the
+ * offset is moved forward by the bytes of the log lines got, whatever they decode to. The log is decoded as UTF-8,
+ * with each invalid byte replaced by U+FFFD. The last line without line break in a block is fetched again in the
+ * next block, except the whole block has no line break, which is decoded as the pending line head to be completed
+ * by the following blocks, leaving the bytes of a character split by the block end undecoded to the next block.
+ */
+public class YarnContainerLogTailer {
+    private static final int RETRY_INTERVAL_MILLISECONDS = 1000;
+
+    /**
+     * The max length of the pending line, a longer line is emitted by pieces to keep the tailing memory constant
+     */
+    private static final int MAX_PENDING_LINE_LENGTH = 1024 * 1024;
+
+    @Nullable
+    private final String authCode;
+
+    @NotNull
+    private final String containerLogUrl;
+
+    @NotNull
+    private final String type;
+
+    private final int blockSize;
+
+    private long nextStart = 0;
+
+    private final StringBuilder pendingLine = new StringBuilder();
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Constructor
+     *
+     * @param authCode the authCode in request's Authorization header
+     * @param containerLogUrl the container log url
+     * @param type the log type
+     * @param blockSize the block size for one fetch
+     */
+    public YarnContainerLogTailer(@Nullable String authCode,
+                                  @NotNull String containerLogUrl,
+                                  @NotNull String type,
+                                  int blockSize) {
+        this.authCode = authCode;
+        this.containerLogUrl = containerLogUrl;
+        this.type = type;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Get the log offset in bytes to fetch the log next time
+     *
+     * @return the log offset in bytes
+     */
+    public long getNextStart() {
+        return nextStart;
+    }
+
+    /**
+     * To create an Observable tailing the log, which emits the log lines got in one fetch as a chunk.
+     * The pending line head without line break is emitted as a full line when there is no more log,
+     * since the backend produces logs line by line, so an empty line is emitted when the log is idle.
+     *
+     * @param stop the stop observable to cancel the log fetch, refer to Observable.window() operation
+     * @return the log lines chunk Observable
+     */
+    @NotNull
+    public Observable<List<String>> tail(@Nullable final Observable<Object> stop) {
+        if (blockSize <= 0) {
+            return Observable.empty();
+        }
+
+        return Observable.create((Observable.OnSubscribe<List<String>>) ob -> {
+            Thread currentThread = Thread.currentThread();
+
+            // Refer to the Observable.window() operation:
+            //    http://reactivex.io/documentation/operators/window.html
+            // The event from `stop` observable will stop the log fetch
+            Optional<Subscription> stopSubscriptionOptional = Optional.ofNullable(stop).map(stopOb ->
+                    stopOb.subscribe(any -> currentThread.interrupt()));
+
+            try {
+                while (!ob.isUnsubscribed()) {
+                    byte[] logs = fetchNextBlock();
+                    List<String> lines = logs.length == 0
+                            ? Collections.singletonList(takePendingLine())
+                            : handleLogBlock(logs);
+
+                    if (!lines.isEmpty()) {
+                        ob.onNext(lines);
+                    }
+
+                    Thread.sleep(RETRY_INTERVAL_MILLISECONDS);
+                }
+            } catch (InterruptedException ignore) {
+            } finally {
+                // Get the rest logs from history server block by block
+                // Don't worry about the log is moved to history server, the YarnUI can do URL redirect by itself
+                byte[] logs;
+                long start;
+
+                do {
+                    start = nextStart;
+                    logs = fetchNextBlock();
+                    List<String> lines = logs.length == 0
+                            ? (pendingLine.length() > 0
+                                    ? Collections.singletonList(takePendingLine())
+                                    : Collections.emptyList())
+                            : handleLogBlock(logs);
+
+                    if (!lines.isEmpty() && !ob.isUnsubscribed()) {
+                        ob.onNext(lines);
+                    }
+                } while (logs.length > 0 && nextStart > start);
+            }
+
+            ob.onCompleted();
+            stopSubscriptionOptional.ifPresent(Subscription::unsubscribe);
+        }).subscribeOn(Schedulers.io());
+    }
+
+    @NotNull
+    private byte[] fetchNextBlock() {
+        return YarnContainerLogReader.getInstance().getLogBytes(authCode, containerLogUrl, type, nextStart, blockSize);
+    }
+
+    @NotNull
+    private String takePendingLine() {
+        String line = trimCR(pendingLine);
+        pendingLine.setLength(0);
+
+        return line;
+    }
+
+    /**
+     * Split the log block got into lines, and move the next start offset forward
+     *
+     * @param block the log block bytes got, not empty
+     * @return the full lines got
+     */
+    @NotNull
+    List<String> handleLogBlock(@NotNull byte[] block) {
+        int lastLineBreak = block.length - 1;
+
+        // The LF byte is never a part of a UTF-8 multi-bytes character
+        while (lastLineBreak >= 0 && block[lastLineBreak] != '\n') {
+            lastLineBreak--;
+        }
+
+        if (lastLineBreak < 0) {
+            // No linebreak found, the bytes of the character split by the block end are left to the next block.
+            // A block with the bytes of a split character only is taken as it is, to always move forward.
+            ByteBuffer bytes = ByteBuffer.wrap(block);
+            String piece = decode(bytes, false);
+
+            if (bytes.position() == 0) {
+                bytes.rewind();
+                piece = decode(bytes, true);
+            }
+
+            pendingLine.append(piece);
+            nextStart += bytes.position();
+
+            if (pendingLine.length() < MAX_PENDING_LINE_LENGTH) {
+                return Collections.emptyList();
+            }
+
+            String line = pendingLine.toString();
+            pendingLine.setLength(0);
+
+            return Collections.singletonList(line);
+        }
+
+        String logs = decode(ByteBuffer.wrap(block, 0, lastLineBreak + 1), true);
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+
+        for (int lineBreak = logs.indexOf('\n'); lineBreak >= 0; lineBreak = logs.indexOf('\n', lineStart)) {
+            if (pendingLine.length() > 0) {
+                pendingLine.append(logs, lineStart, lineBreak);
+                lines.add(trimCR(pendingLine));
+                pendingLine.setLength(0);
+            } else {
+                int lineEnd = lineBreak > lineStart && logs.charAt(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+                lines.add(logs.substring(lineStart, lineEnd));
+            }
+
+            lineStart = lineBreak + 1;
+        }
+
+        // The rest line without linebreak will be fetched again in the next block
+        nextStart += lastLineBreak + 1;
+
+        return lines;
+    }
+
+    /**
+     * Decode the bytes as UTF-8, the invalid bytes are replaced by U+FFFD
+     *
+     * @param bytes the bytes to decode, whose position is moved to the first byte not decoded
+     * @param isEndOfInput false to leave the bytes of the last incomplete character undecoded
+     * @return the chars decoded
+     */
+    @NotNull
+    private String decode(@NotNull ByteBuffer bytes, boolean isEndOfInput) {
+        // One UTF-8 byte is decoded to one char at most
+        CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+
+        decoder.reset();
+        decoder.decode(bytes, chars, isEndOfInput);
+
+        if (isEndOfInput) {
+            decoder.flush(chars);
+        }
+
+        chars.flip();
+
+        return chars.toString();
+    }
+
+    @NotNull
+    private static String trimCR(@NotNull StringBuilder line) {
+        int end = line.length();
+
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+
+        return line.substring(0, end);
+    }
+}